@@ -1,5 +1,5 @@
 # build-exe-with-content.ps1
-# Одностраничный скрипт: build jar -> jlink runtime -> jpackage installer (включая content)
+# Одностраничный скрипт: build jar -> jlink runtime -> app-image -> обучающий прогон AppCDS -> installer (включая content)
 
 # === Настройки: проставь пути/имена при необходимости ===
 $AppName    = "JPTrainer"
@@ -8,6 +8,8 @@ $MainClass  = "com.shiyano.shinyaoJTD.Main"
 $JfxJmods   = "C:\javafx-jmods-21.0.8"   # где распакованы javafx jmods
 $ResourceDir= "pack"                    # временная папка, которую добавим в resource-dir
 $IconPath   = "pack\icons\app.ico"      # если нет иконки — закомментируй использование иконки ниже
+$CdsArchive = "jptrainer.jsa"           # архив AppCDS рядом с jar'ом приложения ($APPDIR)
+$CdsAnswers = 5                         # сколько вопросов отвечает обучающий прогон
 
 # === Простейшие проверки окружения ===
 if (-not (Get-Command jpackage -ErrorAction SilentlyContinue)) {
@@ -35,47 +37,83 @@ if ($LASTEXITCODE -ne 0) { Write-Error "gradle build не удался"; exit $L
 Write-Host "2) Подготавливаем ресурсную папку ($ResourceDir)..."
 Remove-Item -Recurse -Force $ResourceDir -ErrorAction SilentlyContinue
 New-Item -ItemType Directory -Force -Path $ResourceDir | Out-Null
-# копируем content (robocopy удобнее для больших папок)
-robocopy content "$ResourceDir\content" /E /NFL /NDL /NJH /NJS /NP | Out-Null
+# компилируем content в бинарный пакет и собираем всё в один архив content.jtdpack:
+# вместо сотен мелких JSON копируется и открывается один файл (приложение читает его без распаковки)
+.\gradlew contentArchive
+if ($LASTEXITCODE -ne 0) { Write-Error "gradle contentArchive не удался (ошибки в content?)"; exit $LASTEXITCODE }
+Copy-Item build\contentPack\content.jtdpack "$ResourceDir\content.jtdpack" -Force
 
 # (опционально) можно положить иконку в pack\icons\app.ico заранее; если нет — не беда.
 
 # Удаляем старые runtime/dist
-Remove-Item -Recurse -Force runtime, dist -ErrorAction SilentlyContinue
+Remove-Item -Recurse -Force runtime, dist, build\app-image -ErrorAction SilentlyContinue
 
 Write-Host "3) Создаём урезанный runtime через jlink..."
-# jlink использует системные jmods и javafx jmods
+# jlink использует системные jmods и javafx jmods;
+# --generate-cds-archive кладёт в образ базовый архив классов JDK — без него динамический архив AppCDS не работает
 $jlinkModulePath = "$env:JAVA_HOME\jmods;$JfxJmods"
 jlink --module-path $jlinkModulePath `
-      --add-modules java.base,java.logging,javafx.base,javafx.graphics,javafx.controls `
+      --add-modules java.base,java.logging,jdk.jfr,jdk.zipfs,jdk.httpserver,javafx.base,javafx.graphics,javafx.controls `
       --strip-debug --no-header-files --no-man-pages `
+      --generate-cds-archive `
       --output runtime
 if ($LASTEXITCODE -ne 0) { Write-Error "jlink завершился с ошибкой"; exit $LASTEXITCODE }
 
-Write-Host "4) Собираем инсталлятор через jpackage..."
+Write-Host "4) Собираем образ приложения через jpackage..."
 $Jar = (Get-ChildItem build\libs -Filter *.jar | Select-Object -First 1).Name
 if (-not $Jar) { Write-Error "Jar не найден в build\libs. Сначала gradle собери."; exit 1 }
 
-$jpackageArgs = @(
+# Лаунчер сам подхватывает архив AppCDS; если архива нет или он не подходит к этой сборке,
+# JVM запускается как обычно и пересоздаёт его при выходе (если папка доступна на запись).
+$javaOptions = "-Dfile.encoding=UTF-8 -Dconsole.encoding=UTF-8 -Dsun.stdout.encoding=UTF-8 -Dsun.stderr.encoding=UTF-8 " +
+               "-XX:SharedArchiveFile=`$APPDIR\$CdsArchive -XX:+AutoCreateSharedArchive"
+
+$imageArgs = @(
   "--name", $AppName,
   "--app-version", $Version,
-  "--type", "exe",
-  "--dest", "dist",
+  "--type", "app-image",
+  "--dest", "build\app-image",
   "--runtime-image", "runtime",
   "--input", "build\libs",
   "--main-jar", $Jar,
   "--main-class", $MainClass,
-  "--resource-dir", $ResourceDir,
-  "--win-menu",
-  "--win-shortcut",
-  "--java-options", "--Dfile.encoding=UTF-8 --Dconsole.encoding=UTF-8 --Dsun.stdout.encoding=UTF-8 --Dsun.stderr.encoding=UTF-8"
+  "--java-options", $javaOptions
 )
 
 # добавим иконку, если она есть
 if (Test-Path $IconPath) {
-  $jpackageArgs += @("--icon", $IconPath)
+  $imageArgs += @("--icon", $IconPath)
+}
+
+jpackage @imageArgs
+if ($LASTEXITCODE -ne 0) { Write-Error "jpackage (app-image) завершился с ошибкой"; exit $LASTEXITCODE }
+
+Write-Host "5) Обучающий прогон AppCDS (откроет окно, ответит на $CdsAnswers вопросов и закроется)..."
+# Прогон идёт через тот же лаунчер, что получит пользователь, — classpath архива совпадёт с ним.
+# Папка данных временная: прогресс разработчика не трогаем.
+$AppImage = "build\app-image\$AppName"
+$CdsData  = Join-Path $env:TEMP "jptrainer-cds-data"
+Remove-Item -Recurse -Force $CdsData -ErrorAction SilentlyContinue
+Copy-Item "$ResourceDir\content.jtdpack" "$AppImage\content.jtdpack" -Force
+$training = Start-Process -FilePath "$AppImage\$AppName.exe" `
+    -ArgumentList "--script=$CdsAnswers", "--data-dir=$CdsData" -Wait -PassThru
+Remove-Item -Force "$AppImage\content.jtdpack" -ErrorAction SilentlyContinue
+if ($training.ExitCode -ne 0 -or -not (Test-Path "$AppImage\app\$CdsArchive")) {
+    Write-Error "Обучающий прогон не записал $CdsArchive (код $($training.ExitCode))"; exit 1
 }
 
+Write-Host "6) Собираем инсталлятор через jpackage..."
+$jpackageArgs = @(
+  "--name", $AppName,
+  "--app-version", $Version,
+  "--type", "exe",
+  "--dest", "dist",
+  "--app-image", $AppImage,
+  "--resource-dir", $ResourceDir,
+  "--win-menu",
+  "--win-shortcut"
+)
+
 Write-Host "Запускаем jpackage..."
 jpackage @jpackageArgs
 if ($LASTEXITCODE -ne 0) { Write-Error "jpackage завершился с ошибкой"; exit $LASTEXITCODE }
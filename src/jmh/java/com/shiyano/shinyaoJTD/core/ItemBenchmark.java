@@ -0,0 +1,54 @@
+package com.shiyano.shinyaoJTD.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Компактный конструктор {@link Item} (валидация и нормализация — выполняется для каждого
+ * элемента при загрузке) и {@link Item#correctSet()} (вызывается на каждый ответ).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemBenchmark {
+
+    private final List<String> options = List.of("に", "で", "へ");
+    private final Map<String, String> whyWrong = Map.of(
+            "で", "「で」 обозначает место действия, а здесь нужна точка прибытия.");
+
+    private Item single;
+    private Item multi;
+
+    @Setup
+    public void setUp() {
+        single = construct();
+        multi = new Item("30002", "来週、京都＿行きます。", "На следующей неделе поеду в Киото.",
+                options, "に/へ", "Направление движения.", whyWrong);
+    }
+
+    @Benchmark
+    public Item construct() {
+        return new Item("30001", "図書館＿レポートを書きました。", "Писал отчёт в библиотеке.",
+                options, "に", "「に」 — точка прибытия.",
+                Map.of("で", "Место действия.", "へ", "Только направление."));
+    }
+
+    @Benchmark
+    public Item constructWithoutWhyWrong() {
+        return new Item("30001", "図書館＿レポートを書きました。", null, options, "に", null, null);
+    }
+
+    @Benchmark
+    public Set<String> correctSetSingle() {
+        return single.correctSet();
+    }
+
+    @Benchmark
+    public Set<String> correctSetMulti() {
+        return multi.correctSet();
+    }
+}
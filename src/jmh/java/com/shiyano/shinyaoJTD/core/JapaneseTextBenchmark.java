@@ -0,0 +1,120 @@
+package com.shiyano.shinyaoJTD.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JapaneseText} против прежних реализаций из FuriganaService и SearchIndex (скопированы
+ * сюда как legacy*): решение о тултипе, нормализация чтения, перевод катаканы и «японский ли запрос».
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JapaneseTextBenchmark {
+
+    // поля, а не литералы — чтобы JIT не свернул вызовы в константы
+    private String sentence = "図書館で閉館までレポートを書いて、それから家に帰りました。";
+    private String kanaWord = "それから";
+    private String katakana = "トショカンデヘイカンマデレポートヲカキマシタ";
+    private String hiragana = "としょかんでへいかんまでれぽーとをかきました";
+    private String gloss = "library";
+
+    // ===== тултип: есть ли иероглифы или катакана =====
+
+    @Benchmark
+    public boolean tooltipLegacy() {
+        return legacyHasKanjiOrKatakana(sentence) | legacyHasKanjiOrKatakana(kanaWord);
+    }
+
+    @Benchmark
+    public boolean tooltipTable() {
+        int mask = JapaneseText.KANJI | JapaneseText.ANY_KATAKANA;
+        return JapaneseText.containsAny(sentence, mask) | JapaneseText.containsAny(kanaWord, mask);
+    }
+
+    // ===== чтения =====
+
+    @Benchmark
+    public String kataToHiraLegacy() {
+        return legacyKataToHira(katakana);
+    }
+
+    @Benchmark
+    public String kataToHiraTable() {
+        return JapaneseText.toHiragana(katakana);
+    }
+
+    /** Чтение уже в хирагане — частый случай у ручных чтений. */
+    @Benchmark
+    public String normalizeReadingLegacy() {
+        return legacyNormalizeReading(hiragana);
+    }
+
+    @Benchmark
+    public String normalizeReadingTable() {
+        return JapaneseText.toHiragana(hiragana);
+    }
+
+    // ===== разбор поискового запроса =====
+
+    @Benchmark
+    public boolean isJapaneseLegacy() {
+        return legacyIsJapanese(sentence) | legacyIsJapanese(gloss);
+    }
+
+    @Benchmark
+    public boolean isJapaneseTable() {
+        return JapaneseText.containsAny(sentence, JapaneseText.JAPANESE)
+                | JapaneseText.containsAny(gloss, JapaneseText.JAPANESE);
+    }
+
+    @Benchmark
+    public int scripts() {
+        return JapaneseText.scripts(sentence);
+    }
+
+    // ===== прежние реализации =====
+
+    private static boolean legacyHasKanjiOrKatakana(String surface) {
+        boolean hasKanji = surface.codePoints().anyMatch(cp -> (cp >= 0x4E00 && cp <= 0x9FFF)
+                || (cp >= 0x3400 && cp <= 0x4DBF)
+                || (cp >= 0xF900 && cp <= 0xFAFF));
+        boolean hasKatakana = surface.codePoints().anyMatch(c -> (c >= 'ァ' && c <= 'ン') || c == 'ヴ');
+        return hasKanji || hasKatakana;
+    }
+
+    private static String legacyKataToHira(String s) {
+        if (s == null || s.isEmpty()) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch >= 'ァ' && ch <= 'ン') {
+                sb.append((char) (ch - 'ァ' + 'ぁ'));
+            } else if (ch == 'ヴ') {
+                sb.append('ゔ');
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String legacyNormalizeReading(String reading) {
+        boolean hasKatakana = reading.codePoints().anyMatch(c -> (c >= 'ァ' && c <= 'ン') || c == 'ヴ');
+        return hasKatakana ? legacyKataToHira(reading) : reading;
+    }
+
+    private static boolean legacyIsJapanese(String s) {
+        return s.codePoints().anyMatch(cp -> {
+            Character.UnicodeBlock b = Character.UnicodeBlock.of(cp);
+            return b == Character.UnicodeBlock.HIRAGANA
+                    || b == Character.UnicodeBlock.KATAKANA
+                    || b == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                    || b == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                    || b == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS;
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package com.shiyano.shinyaoJTD.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость одного ответа для статистики: {@link LearnerStats#record} (все свёртки, массивы)
+ * против {@link AnswerTotals#apply} (только по заданиям, HashMap с записью на каждый ответ),
+ * и чтение сводки при накопленных 5 000 заданиях, 40 темах и 12 частицах.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LearnerStatsBenchmark {
+
+    private static final int ITEMS = 5_000;
+    private static final int TOPICS = 40;
+    private static final String[] PARTICLES = {"は", "が", "に", "で", "を", "へ", "と", "も", "の", "から", "まで", "より"};
+
+    private final String[] sids = new String[ITEMS];
+    private final String[] topics = new String[TOPICS];
+    private LearnerStats stats;
+    private AnswerTotals totals;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < ITEMS; i++) sids[i] = String.valueOf(100_000 + i);
+        for (int t = 0; t < TOPICS; t++) topics[t] = "topic-" + t;
+        stats = new LearnerStats();
+        totals = new AnswerTotals();
+        // годы истории: по 20 ответов на задание
+        for (int i = 0; i < ITEMS * 20; i++) answer();
+    }
+
+    @Benchmark
+    public int recordArrays() {
+        int i = answer();
+        return stats.answers() + i;
+    }
+
+    @Benchmark
+    public long applyBoxedMap() {
+        int i = next++ % ITEMS;
+        totals.apply(new Answer(sids[i], PARTICLES[i % PARTICLES.length], (i & 3) != 0, 1_000 + i, i));
+        return totals.answers();
+    }
+
+    /** Всё, что читает экран итогов/сводки, кроме заданий. */
+    @Benchmark
+    public int dashboardReads() {
+        return stats.overall().latencyPercentileMillis(0.5) + stats.particles().size()
+                + stats.topics().size() + stats.confusions().size();
+    }
+
+    @Benchmark
+    public int weakestItems() {
+        return stats.weakestItems(10, 2).size();
+    }
+
+    private int answer() {
+        int i = next++ % ITEMS;
+        String expected = PARTICLES[i % PARTICLES.length];
+        boolean ok = (i & 3) != 0;
+        String chosen = ok ? expected : PARTICLES[(i + 1) % PARTICLES.length];
+        stats.record(sids[i], topics[i % TOPICS], expected, chosen, ok, 1_000 + i, i);
+        return i;
+    }
+}
@@ -0,0 +1,73 @@
+package com.shiyano.shinyaoJTD.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Логика сессии без отрисовки: полный проход темы из 50 заданий (ответ, оценка SM-2, следующий вопрос)
+ * и сессия повторения по сроку над 5 000 карточками. Ответы уходят в {@link AnswerTotals} —
+ * как в снимок журнала.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TrainingSessionBenchmark {
+
+    private static final int TOPIC_ITEMS = 50;
+    private static final int POOL_ITEMS = 5_000;
+    private static final int REVIEW_ANSWERS = 50;
+
+    private final List<Item> topic = new ArrayList<>();
+    private final Map<String, Item> pool = new HashMap<>();
+    private ReviewScheduler scheduler;
+    private AnswerTotals totals;
+    private long clock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < POOL_ITEMS; i++) {
+            Item it = new Item(String.valueOf(100_000 + i), "図書館＿レポートを書きました。" + i, null,
+                    List.of("に", "で", "へ"), "で", "Место действия.",
+                    Map.of("に", "Точка прибытия.", "へ", "Направление."));
+            if (i < TOPIC_ITEMS) topic.add(it);
+            pool.put(it.sid(), it);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLearner() {
+        clock = 1_700_000_000_000L;
+        scheduler = new ReviewScheduler();
+        for (String sid : pool.keySet()) scheduler.add(sid, clock);
+        totals = new AnswerTotals();
+    }
+
+    @Benchmark
+    public int topicSession() {
+        TrainingSession session = TrainingSession.ofItems(topic, false, scheduler, totals::apply, clock);
+        return play(session, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int dueReviewSession() {
+        TrainingSession session = TrainingSession.dueReviews(pool, scheduler, totals::apply, clock);
+        return session == null ? 0 : play(session, REVIEW_ANSWERS);
+    }
+
+    /** Отвечает по кругу: два верных ответа, один неверный. */
+    private int play(TrainingSession session, int limit) {
+        while (session.state() == TrainingSession.State.QUESTION && session.answeredCount() < limit) {
+            clock += 4_000;
+            session.answer(session.answeredCount() % 3 == 2 ? 0 : 1, clock);
+            session.next(clock);
+        }
+        return session.correctCount();
+    }
+}
@@ -0,0 +1,110 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.Topic;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка контента на синтетических файлах: small — как в поставке (десятки Item),
+ * large — 20 000 Item в одной теме.
+ *
+ * <ul>
+ *   <li>*Parse — новый {@link ContentStore} на каждую операцию: полный разбор JSON и валидация;</li>
+ *   <li>loadItemsCached — повторный вызов у того же хранилища (попадание в кэш по mtime/размеру);</li>
+ *   <li>loadItemsPack — новое хранилище над content.jtdbin, все Item материализуются;</li>
+ *   <li>loadItemsArchive — новое хранилище над content.jtdpack (zip с JSON): монтирование архива и разбор.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContentStoreBenchmark {
+
+    private static final String CODE = "bench";
+
+    @Param({"small", "large"})
+    public String size;
+
+    private Path json;
+    private Path packed;
+    private Path archive;
+    private ContentStore cached;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int count = size.equals("large") ? 20_000 : 50;
+        List<Topic> topics = List.of(new Topic(CODE, "に vs で", List.of("に", "で"), new Topic.Lesson("MNN I", 6)));
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(String.valueOf(100_000 + i),
+                    "図書館＿閉館までレポートを書いて、それから家に帰りました。" + i,
+                    "В библиотеке я писал отчёт до закрытия, а затем вернулся домой. #" + i,
+                    List.of("に", "で", "へ"), "で",
+                    "「で」 обозначает место активного действия.",
+                    Map.of("に", "「に」 указывает точку прибытия или существования.",
+                            "へ", "「へ」 указывает только направление движения.")));
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        json = Files.createDirectories(Files.createTempDirectory("jtd-bench-json").resolve("content"));
+        mapper.writeValue(json.resolve("topics.json").toFile(), topics);
+        mapper.writeValue(json.resolve("items-" + CODE + ".json").toFile(), items);
+
+        packed = Files.createDirectories(Files.createTempDirectory("jtd-bench-pack").resolve("content"));
+        ContentPack.write(packed.resolve(ContentPack.FILE_NAME), topics, Map.of(CODE, items));
+
+        archive = Files.createTempDirectory("jtd-bench-archive").resolve("content.jtdpack");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (String name : List.of("topics.json", "items-" + CODE + ".json")) {
+                zip.putNextEntry(new ZipEntry(name));
+                Files.copy(json.resolve(name), zip);
+                zip.closeEntry();
+            }
+        }
+
+        cached = new ContentStore(json, false);
+        cached.loadItemsFor(CODE);
+    }
+
+    @Benchmark
+    public List<Topic> loadTopicsParse() throws IOException {
+        return new ContentStore(json, false).loadTopics();
+    }
+
+    @Benchmark
+    public List<Item> loadItemsParse() throws IOException {
+        return new ContentStore(json, false).loadItemsFor(CODE);
+    }
+
+    @Benchmark
+    public List<Item> loadItemsCached() throws IOException {
+        return cached.loadItemsFor(CODE);
+    }
+
+    @Benchmark
+    public void loadItemsPack(Blackhole bh) throws IOException {
+        try (ContentStore store = new ContentStore(packed, true)) {
+            // элементы пакета ленивые — обходим все, чтобы сравнение с JSON было честным
+            for (Item it : store.loadItemsFor(CODE)) bh.consume(it);
+        }
+    }
+
+    @Benchmark
+    public List<Item> loadItemsArchive() throws IOException {
+        try (ContentStore store = new ContentStore(archive, false)) {
+            return store.loadItemsFor(CODE);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.atilika.kuromoji.ipadic.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Фуригана без scene graph: загрузка словаря, токенизация мимо кэша (cold) и из кэша (warm).
+ * Сборка TextFlow — в {@link TextFlowBenchmark}, преобразования чтений — в JapaneseTextBenchmark.
+ *
+ * <p>Свой экземпляр сервиса с кэшем во временной папке: cold забивает LRU одноразовыми фразами,
+ * и общий кэш пользователя (и его файл в папке данных) это затрагивать не должно.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FuriganaBenchmark {
+
+    static final String SENTENCE = "図書館で閉館までレポートを書いて、それから家に帰りました。";
+
+    private Path dataDir;
+    private FuriganaService furigana;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("jtd-bench-furigana");
+        furigana = isolatedService(dataDir);
+        furigana.whenReady().join();
+        furigana.tokenize(SENTENCE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        deleteTree(dataDir);
+    }
+
+    /** Сервис со своим кэшем и файлом кэша в dataDir. */
+    static FuriganaService isolatedService(Path dataDir) {
+        return new FuriganaService(dataDir.resolve("furigana-cache.bin"));
+    }
+
+    static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    /** Холодный старт: чтение словаря Kuromoji (то, что прячет фоновый прогрев). */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 5)
+    public Tokenizer tokenizerLoad() {
+        return new Tokenizer();
+    }
+
+    /** Фразы каждый раз новой нет в кэше — настоящий проход Kuromoji. */
+    @Benchmark
+    public List<FuriganaService.TokenInfo> tokenizeCold() {
+        return furigana.tokenize(SENTENCE + counter++);
+    }
+
+    @Benchmark
+    public List<FuriganaService.TokenInfo> tokenizeWarm() {
+        return furigana.tokenize(SENTENCE);
+    }
+}
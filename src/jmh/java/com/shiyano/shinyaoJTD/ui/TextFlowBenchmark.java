@@ -0,0 +1,95 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import javafx.application.Platform;
+import javafx.scene.text.TextFlow;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Сборка фразы с фуриганой в scene graph: новый TextFlow с тултипом на каждый токен
+ * ({@link FuriganaService#createTextFlow}) против пула узлов {@link FuriganaFlow}.
+ * Узлам с тултипами нужен запущенный JavaFX toolkit, поэтому бенчмарк требует дисплея.
+ *
+ * <p>Узлы создаются и меняются только в FX-потоке, как в приложении: вызов бенчмарка передаёт
+ * туда пачку из {@link #BATCH} сборок и ждёт её, так что передача между потоками делится на пачку.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TextFlowBenchmark {
+
+    private static final int BATCH = 100;
+
+    private Path dataDir;
+    private FuriganaService furigana;
+    private List<FuriganaService.Segment> segments;
+    private FuriganaFlow pooled;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException alreadyStarted) {
+            // toolkit уже запущен в этом форке
+            started.countDown();
+        }
+        started.await();
+        Platform.setImplicitExit(false);
+
+        dataDir = Files.createTempDirectory("jtd-bench-textflow");
+        furigana = FuriganaBenchmark.isolatedService(dataDir);
+        furigana.whenReady().join();
+        segments = furigana.segments(FuriganaBenchmark.SENTENCE, null, null);
+        pooled = onFx(() -> new FuriganaFlow(new TextFlow()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FuriganaBenchmark.deleteTree(dataDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void createTextFlow(Blackhole bh) throws Exception {
+        onFx(() -> {
+            for (int i = 0; i < BATCH; i++) bh.consume(furigana.createTextFlow(FuriganaBenchmark.SENTENCE, null));
+            return null;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int renderPooled() throws Exception {
+        return onFx(() -> {
+            for (int i = 0; i < BATCH; i++) pooled.render(segments);
+            return pooled.poolSize();
+        });
+    }
+
+    /** Выполняет task в FX-потоке и ждёт результата. */
+    private static <T> T onFx(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception ex) throw ex;
+            throw e;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.shiyano.shinyaoJTD;
 
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -7,6 +8,8 @@ import java.nio.file.Paths;
 
 /** Определяет, где лежит папка content после установки/в dev-режиме. */
 public final class AppPaths {
+    public static final String CONTENT_ARCHIVE = "content.jtdpack";
+
     private AppPaths() {}
 
     /** Корень установки (для jpackage это либо сам каталог с .exe, либо папка выше /bin). */
@@ -33,6 +36,31 @@ public final class AppPaths {
         }
     }
 
+    /**
+     * Папка для данных пользователя (кэши, прогресс): %APPDATA%\JPTrainer на Windows,
+     * ~/.jptrainer в остальных системах, либо -Djtd.dataDir (сценарные прогоны не трогают прогресс
+     * пользователя). Создаётся при первом обращении, если это возможно.
+     */
+    public static Path dataDir() {
+        String override = System.getProperty("jtd.dataDir");
+        String appData = System.getenv("APPDATA");
+        Path dir = override != null && !override.isBlank()
+                ? Paths.get(override)
+                : appData != null && !appData.isBlank()
+                ? Paths.get(appData, "JPTrainer")
+                : Paths.get(System.getProperty("user.home"), ".jptrainer");
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException ignored) {
+            // нет прав — вызывающие переживут отсутствие кэша
+        }
+        return dir;
+    }
+
+    /**
+     * Папка content/ установки или, если её нет, архив-пакет content.jtdpack (в него собирает
+     * дистрибутив gradle contentArchive); и то и другое понимает ContentStore.
+     */
     public static Path contentDir() {
         Path base = installBaseDir();
         Path c1 = base.resolve("content");
@@ -41,6 +69,11 @@ public final class AppPaths {
         Path c2 = base.resolve("app").resolve("content");
         if (Files.isDirectory(c2)) return c2;
 
+        for (Path dir : new Path[]{base, base.resolve("app")}) {
+            Path pack = dir.resolve(CONTENT_ARCHIVE);
+            if (Files.isRegularFile(pack)) return pack;
+        }
+
         // fallback: в dev-режиме рядом с проектом
         return Paths.get("content").toAbsolutePath();
     }
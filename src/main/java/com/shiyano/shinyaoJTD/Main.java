@@ -1,27 +1,134 @@
 package com.shiyano.shinyaoJTD;
 
-import com.shiyano.shinyaoJTD.ui.TopicSelectionView;
+import com.shiyano.shinyaoJTD.perf.Perf;
+import com.shiyano.shinyaoJTD.store.AnswerLog;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+import com.shiyano.shinyaoJTD.store.ReviewStore;
+import com.shiyano.shinyaoJTD.store.StatsStore;
+import com.shiyano.shinyaoJTD.store.SearchIndex;
+import com.shiyano.shinyaoJTD.store.TopicSummaries;
+import com.shiyano.shinyaoJTD.ui.FuriganaService;
+import com.shiyano.shinyaoJTD.ui.Navigator;
+import com.shiyano.shinyaoJTD.ui.PerfOverlay;
+import com.shiyano.shinyaoJTD.ui.ScriptedTraining;
 import javafx.application.Application;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 public class Main extends Application {
 
-    private static final double MIN_W = 720;
-    private static final double MIN_H = 520;
+    /** Отчёты кэшей контента и фуриганы в stdout при выходе (-Djtd.perf.log=true, как и счётчики упреждения). */
+    private static final boolean PERF_LOG = Boolean.getBoolean("jtd.perf.log");
+
+    private ContentStore store;
+    private ReviewStore reviews;
+    private AnswerLog answers;
+    private StatsStore stats;
+    private Recording recording;
 
     @Override
     public void start(Stage stage) {
-        var view = new TopicSelectionView(AppPaths.contentDir());
+        applyLauncherArguments();
+        startRecording();
+
+        // словарь Kuromoji грузится несколько секунд — начинаем сразу, пока пользователь выбирает тему
+        FuriganaService.shared().warmUp();
+
+        store = new ContentStore(AppPaths.contentDir());
+        try {
+            // правки JSON во время работы подхватываются без перезапуска
+            store.startWatching();
+        } catch (IOException e) {
+            System.err.println("Content hot reload is disabled: " + e.getMessage());
+        }
 
-        Scene scene = new Scene(view.getRoot(), Math.max(800, MIN_W), Math.max(600, MIN_H));
+        // сводки тем для меню (число заданий, урок) — пересчитываются только изменённые темы
+        store.persistSummaries(AppPaths.dataDir().resolve(TopicSummaries.FILE_NAME));
 
-        stage.setMinWidth(MIN_W);
-        stage.setMinHeight(MIN_H);
+        // состояние интервальных повторений (SM-2) между запусками
+        reviews = ReviewStore.open(AppPaths.dataDir().resolve("reviews.bin"));
 
-        stage.setTitle("JP Trainer — выбор темы");
-        stage.setScene(scene);
+        // точность по темам и частицам, время ответа, матрица путаницы — свёртки, а не история
+        stats = StatsStore.open(AppPaths.dataDir().resolve(StatsStore.FILE_NAME));
+
+        try {
+            // история ответов: журнал с group commit в фоне, снимок + сжатие
+            answers = AnswerLog.open(AppPaths.dataDir());
+        } catch (IOException e) {
+            System.err.println("Answer history is disabled: " + e.getMessage());
+        }
+
+        // поиск по всем темам: индекс с прошлого запуска, изменённые темы доиндексируются в фоне
+        SearchIndex search = SearchIndex.open(AppPaths.dataDir().resolve(SearchIndex.FILE_NAME));
+
+        // меню и экран тренировки создаются один раз; переходы меняют корень сцены
+        Navigator navigator = new Navigator(stage, store, reviews, answers, search, stats);
         stage.show();
+        StartupMetrics.firstFrame(navigator.scene());
+        // Ctrl+Shift+P: живые p50/p99 событий JFR и куча
+        PerfOverlay.install(stage);
+
+        // -Djtd.script=N: обучающий прогон для архива AppCDS и замеров старта
+        int scripted = ScriptedTraining.requestedAnswers();
+        if (scripted > 0) ScriptedTraining.start(stage, scripted);
+    }
+
+    @Override
+    public void stop() {
+        if (store != null) {
+            store.close();
+            if (PERF_LOG) System.out.println(store.cacheStats());
+        }
+        if (reviews != null) reviews.save();
+        if (stats != null) stats.save();
+        if (answers != null) answers.close();
+        FuriganaService furigana = FuriganaService.shared();
+        furigana.saveCache();
+        if (PERF_LOG) System.out.println(furigana.cacheReport());
+        if (recording != null) {
+            recording.stop();
+            System.out.println("Flight recording: " + recording.getDestination());
+            recording.close();
+        }
+    }
+
+    /**
+     * {@code -Djtd.jfr=<файл.jfr>} (или {@code --jfr[=файл]}): запись JFR с событиями приложения на всё время
+     * работы. Без имени файла — {@code recordings/jtd-<время>.jfr} в папке данных.
+     */
+    private void startRecording() {
+        String jfr = System.getProperty("jtd.jfr");
+        if (jfr == null) return;
+        Path file = jfr.isBlank() || jfr.equals("true")
+                ? AppPaths.dataDir().resolve("recordings").resolve(
+                        "jtd-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jfr")
+                : Path.of(jfr);
+        try {
+            recording = Perf.startRecording(file);
+            System.out.println("Flight recording to " + file.toAbsolutePath());
+        } catch (IOException | ParseException | IllegalStateException e) {
+            System.err.println("Flight recording is disabled: " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@code --script=N}, {@code --data-dir=DIR} и {@code --jfr[=FILE]} — то же, что -Djtd.script / -Djtd.dataDir / -Djtd.jfr: лаунчеру jpackage
+     * нельзя передать опции JVM, только аргументы (нужно для обучающего прогона AppCDS при сборке).
+     * Разбираются здесь, а не в main: FX-лаунчер JDK вызывает start(), минуя main.
+     */
+    private void applyLauncherArguments() {
+        for (String arg : getParameters().getRaw()) {
+            if (arg.startsWith("--script=")) System.setProperty("jtd.script", arg.substring("--script=".length()));
+            else if (arg.startsWith("--data-dir=")) System.setProperty("jtd.dataDir", arg.substring("--data-dir=".length()));
+            else if (arg.equals("--jfr")) System.setProperty("jtd.jfr", "");
+            else if (arg.startsWith("--jfr=")) System.setProperty("jtd.jfr", arg.substring("--jfr=".length()));
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,201 @@
+package com.shiyano.shinyaoJTD;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Замер холодного старта приложения в отдельных процессах: время до первого кадра и до первого
+ * вопроса (см. {@link StartupMetrics}) с архивом AppCDS, только с базовым архивом JDK и без CDS.
+ * Каждый прогон — сценарий {@code -Djtd.script} с чистой папкой данных, варианты чередуются,
+ * первый круг отбрасывается (прогрев файлового кэша ОС).
+ *
+ * <p>Тот же класс записывает архив (режим {@code record}): командная строка JVM собирается здесь
+ * одна на оба режима, а CDS принимает архив, только если classpath совпадает с записанным.
+ *
+ * <pre>
+ * StartupBenchmark record  &lt;archive&gt; &lt;module-path&gt; &lt;class-path&gt; [answers]
+ * StartupBenchmark measure &lt;archive&gt; &lt;module-path&gt; &lt;class-path&gt; &lt;results.json&gt; [runs] [answers]
+ * </pre>
+ * Запускается задачами gradle appCds и startupBenchmark; нужен дисплей.
+ */
+public final class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "com.shiyano.shinyaoJTD.Main";
+    private static final int DEFAULT_RUNS = 5;
+    private static final int DEFAULT_ANSWERS = 3;
+    private static final long RUN_TIMEOUT_SECONDS = 180;
+    private static final Pattern EVENT = Pattern.compile(
+            Pattern.quote(StartupMetrics.PREFIX) + "(\\S+) (\\d+) ms.*");
+
+    /** Вариант запуска: имя в отчёте и дополнительные опции JVM. */
+    private record Variant(String name, List<String> jvmOptions) {}
+
+    private record Sample(long firstFrame, long firstQuestion) {}
+
+    private final Path archive;
+    private final String modulePath;
+    private final String classPath;
+
+    private StartupBenchmark(Path archive, String modulePath, String classPath) {
+        this.archive = archive.toAbsolutePath();
+        this.modulePath = modulePath;
+        this.classPath = classPath;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) usage();
+        StartupBenchmark bench = new StartupBenchmark(Path.of(args[1]), args[2], args[3]);
+        switch (args[0]) {
+            case "record" -> bench.record(args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_ANSWERS);
+            case "measure" -> {
+                if (args.length < 5) usage();
+                bench.measure(Path.of(args[4]),
+                        args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_RUNS,
+                        args.length > 6 ? Integer.parseInt(args[6]) : DEFAULT_ANSWERS);
+            }
+            default -> usage();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("""
+                usage: StartupBenchmark record  <archive> <module-path> <class-path> [answers]
+                       StartupBenchmark measure <archive> <module-path> <class-path> <results.json> [runs] [answers]""");
+        System.exit(2);
+    }
+
+    /** Обучающий прогон: JVM записывает загруженные классы в архив при выходе. */
+    private void record(int answers) throws IOException, InterruptedException {
+        Files.createDirectories(archive.getParent());
+        Files.deleteIfExists(archive);
+        Sample s;
+        try {
+            s = run(new Variant("record", List.of("-XX:ArchiveClassesAtExit=" + archive)), answers);
+        } catch (RuntimeException e) {
+            // JVM пишет архив и при неудачном выходе — от полупрогона он только вреден
+            Files.deleteIfExists(archive);
+            throw e;
+        }
+        if (!Files.isRegularFile(archive)) throw new IllegalStateException("JVM did not write " + archive);
+        System.out.printf("AppCDS archive %s (%d KB), training run: first frame %d ms, first question %d ms%n",
+                archive, Files.size(archive) / 1024, s.firstFrame(), s.firstQuestion());
+    }
+
+    private void measure(Path results, int runs, int answers) throws IOException, InterruptedException {
+        if (runs < 1) throw new IllegalArgumentException("runs must be at least 1: " + runs);
+        if (!Files.isRegularFile(archive)) {
+            throw new IllegalStateException("No AppCDS archive at " + archive + " — run gradle appCds first");
+        }
+        List<Variant> variants = List.of(
+                new Variant("appcds", List.of("-XX:SharedArchiveFile=" + archive)),
+                new Variant("jdk-cds", List.of()),
+                new Variant("no-cds", List.of("-Xshare:off")));
+        Map<String, List<Sample>> samples = new LinkedHashMap<>();
+        for (Variant v : variants) samples.put(v.name(), new ArrayList<>());
+
+        // круг 0 — прогрев; внутри круга варианты идут по очереди, чтобы дрейф машины делился поровну
+        for (int round = 0; round <= runs; round++) {
+            for (Variant v : variants) {
+                Sample s = run(v, answers);
+                System.out.printf("round %d %-8s first frame %5d ms, first question %5d ms%n",
+                        round, v.name(), s.firstFrame(), s.firstQuestion());
+                if (round > 0) samples.get(v.name()).add(s);
+            }
+        }
+
+        StringBuilder json = new StringBuilder("[\n");
+        System.out.printf("%n%-8s %22s %22s%n", "", "first frame, ms", "first question, ms");
+        System.out.printf("%-8s %10s %11s %10s %11s%n", "variant", "median", "min", "median", "min");
+        for (Map.Entry<String, List<Sample>> e : samples.entrySet()) {
+            long[] frame = e.getValue().stream().mapToLong(Sample::firstFrame).sorted().toArray();
+            long[] question = e.getValue().stream().mapToLong(Sample::firstQuestion).sorted().toArray();
+            System.out.printf("%-8s %10d %11d %10d %11d%n",
+                    e.getKey(), median(frame), frame[0], median(question), question[0]);
+            if (json.length() > 2) json.append(",\n");
+            json.append("  {\"variant\": \"%s\", \"runs\": %d, \"firstFrameMs\": %s, \"firstQuestionMs\": %s}"
+                    .formatted(e.getKey(), frame.length, Arrays.toString(frame), Arrays.toString(question)));
+        }
+        json.append("\n]\n");
+        Files.createDirectories(results.toAbsolutePath().getParent());
+        Files.writeString(results, json);
+        System.out.println("\nResults: " + results.toAbsolutePath());
+    }
+
+    /** Один холодный запуск со сценарием; папка данных каждый раз новая — кэши не переживают прогон. */
+    private Sample run(Variant v, int answers) throws IOException, InterruptedException {
+        Path data = Files.createTempDirectory("jtd-startup-");
+        try {
+            List<String> cmd = new ArrayList<>();
+            cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            cmd.addAll(v.jvmOptions());
+            cmd.addAll(List.of(
+                    "-Djtd.script=" + answers,
+                    "-Djtd.perf.log=true",
+                    "-Djtd.dataDir=" + data,
+                    "-Dfile.encoding=UTF-8",
+                    "--module-path", modulePath,
+                    "--add-modules", "javafx.controls",
+                    "-cp", classPath,
+                    MAIN_CLASS));
+            Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+            Map<String, Long> events = new HashMap<>();
+            List<String> output = new ArrayList<>();
+            // вывод читается отдельным потоком: зависший процесс не блокирует ожидание с таймаутом
+            Thread drain = Thread.ofPlatform().name("startup-output").daemon().start(() -> {
+                try (BufferedReader in = new BufferedReader(
+                        new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                    for (String line; (line = in.readLine()) != null; ) {
+                        output.add(line);
+                        Matcher m = EVENT.matcher(line);
+                        if (m.matches()) events.put(m.group(1), Long.parseLong(m.group(2)));
+                    }
+                } catch (IOException e) {
+                    // процесс убит по таймауту — поток закрыт
+                }
+            });
+            if (!p.waitFor(RUN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                p.destroyForcibly().waitFor();
+                drain.join();
+                output.forEach(System.err::println);
+                throw new IllegalStateException(v.name() + ": run did not finish in " + RUN_TIMEOUT_SECONDS + " s");
+            }
+            drain.join(); // после выхода процесса вывод дочитывается до конца
+            Long frame = events.get(StartupMetrics.FIRST_FRAME);
+            Long question = events.get(StartupMetrics.FIRST_QUESTION);
+            if (p.exitValue() != 0 || frame == null || question == null) {
+                output.forEach(System.err::println);
+                throw new IllegalStateException(v.name() + ": scripted run failed, exit code " + p.exitValue());
+            }
+            return new Sample(frame, question);
+        } finally {
+            deleteTree(data);
+        }
+    }
+
+    private static long median(long[] sorted) {
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
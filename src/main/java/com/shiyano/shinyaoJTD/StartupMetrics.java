@@ -0,0 +1,83 @@
+package com.shiyano.shinyaoJTD;
+
+import com.shiyano.shinyaoJTD.perf.Perf;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Время холодного старта от запуска JVM: первый кадр окна и первый показанный вопрос.
+ * Каждое событие печатается одной строкой {@code startup: <событие> <мс> ms} — её разбирает
+ * {@link StartupBenchmark}. Момент «показан» — конец раскладки в ближайшем пульсе сцены,
+ * то есть кадр, в котором узел впервые рисуется.
+ *
+ * <p>Замер включён только в сценарии ({@code -Djtd.script}) или с {@code -Djtd.perf.log=true};
+ * в обычном запуске класс ничего не печатает и не вешает слушателей на сцену.
+ */
+public final class StartupMetrics {
+
+    public static final String PREFIX = "startup: ";
+    public static final String FIRST_FRAME = "first-frame";
+    public static final String FIRST_QUESTION = "first-question";
+
+    private static final boolean ENABLED =
+            Boolean.getBoolean("jtd.perf.log") || System.getProperty("jtd.script") != null;
+
+    // время старта процесса (без java.management); если ОС его не отдала — загрузка этого класса
+    private static final long STARTED_AT = !ENABLED ? 0 : ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElseGet(System::currentTimeMillis);
+
+    private static final AtomicBoolean frameSeen = new AtomicBoolean();
+    private static final AtomicBoolean questionSeen = new AtomicBoolean();
+
+    private StartupMetrics() {}
+
+    /** Первое окно: вызывать после stage.show() (FX-поток). */
+    public static void firstFrame(Scene scene) {
+        if (ENABLED && frameSeen.compareAndSet(false, true)) afterNextPulse(scene, FIRST_FRAME);
+    }
+
+    /** Вопрос на экране; учитывается только первый за время работы процесса (FX-поток). */
+    public static void questionShown(Node view) {
+        if (!ENABLED || !questionSeen.compareAndSet(false, true)) return;
+        if (view.getScene() != null) {
+            afterNextPulse(view.getScene(), FIRST_QUESTION);
+            return;
+        }
+        // экран тренировки строится до того, как его вставят в сцену
+        view.sceneProperty().addListener(new ChangeListener<>() {
+            @Override public void changed(ObservableValue<? extends Scene> obs, Scene old, Scene scene) {
+                if (scene == null) return;
+                obs.removeListener(this);
+                afterNextPulse(scene, FIRST_QUESTION);
+            }
+        });
+    }
+
+    /**
+     * Строка об архиве классов для лога. Архив виден, только если он задан в командной строке
+     * (опции из .cfg лаунчера jpackage в аргументы процесса не попадают).
+     */
+    public static String classSharing() {
+        if (!System.getProperty("java.vm.info", "").contains("sharing")) return "CDS off";
+        return ProcessHandle.current().info().arguments().stream()
+                .flatMap(Arrays::stream)
+                .filter(a -> a.startsWith("-XX:SharedArchiveFile="))
+                .map(a -> "CDS on, " + a.substring("-XX:SharedArchiveFile=".length()))
+                .findFirst().orElse("CDS on");
+    }
+
+    private static void afterNextPulse(Scene scene, String event) {
+        Perf.afterNextLayout(scene, () -> {
+            long millis = System.currentTimeMillis() - STARTED_AT;
+            System.out.println(PREFIX + event + " " + millis + " ms"
+                    + (event.equals(FIRST_FRAME) ? " (" + classSharing() + ")" : ""));
+        });
+    }
+}
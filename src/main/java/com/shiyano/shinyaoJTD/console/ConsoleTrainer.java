@@ -0,0 +1,243 @@
+package com.shiyano.shinyaoJTD.console;
+
+import com.shiyano.shinyaoJTD.AppPaths;
+import com.shiyano.shinyaoJTD.core.AnswerTotals;
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.LearnerStats;
+import com.shiyano.shinyaoJTD.core.ReviewScheduler;
+import com.shiyano.shinyaoJTD.core.Topic;
+import com.shiyano.shinyaoJTD.core.TrainingSession;
+import com.shiyano.shinyaoJTD.store.AnswerLog;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+import com.shiyano.shinyaoJTD.store.ReviewStore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Тренировка в терминале поверх той же {@link TrainingSession}, что и у экрана JavaFX.
+ *
+ * <pre>
+ * ConsoleTrainer play     &lt;content-dir&gt; &lt;topic-code|all|reviews&gt; [answers-file]
+ * ConsoleTrainer simulate &lt;content-dir&gt; [sessions] [accuracy] [seed]
+ * </pre>
+ *
+ * <p>{@code play} читает ответы из stdin или из файла (по строке на ответ: номер варианта или
+ * сам вариант; пустые строки и {@code #}-комментарии пропускаются, {@code q} — выход). Прогресс
+ * пишется в папку данных, как у приложения; {@code -Djtd.dataDir} уводит его в сторону.
+ *
+ * <p>{@code simulate} прогоняет много сессий подряд без ввода-вывода: ученик отвечает верно
+ * с заданной вероятностью, часы модельные, повторения по сроку чередуются с темами. Нужен,
+ * чтобы гонять и профилировать логику сессий в CI без дисплея (gradle simulateSessions).
+ */
+public final class ConsoleTrainer {
+
+    private static final int DEFAULT_SESSIONS = 10_000;
+    private static final double DEFAULT_ACCURACY = 0.8;
+    // повторение по сроку у модельного ученика — каждая четвёртая сессия, не длиннее этого числа ответов
+    private static final int REVIEW_EVERY = 4;
+    private static final int REVIEW_MAX_ANSWERS = 50;
+    private static final long SESSION_GAP_MILLIS = 3_600_000;
+
+    private final PrintStream out;
+
+    private ConsoleTrainer(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) usage();
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        ConsoleTrainer trainer = new ConsoleTrainer(out);
+        switch (args[0]) {
+            case "play" -> {
+                if (args.length < 3) usage();
+                System.exit(trainer.play(Path.of(args[1]), args[2], args.length > 3 ? Path.of(args[3]) : null));
+            }
+            case "simulate" -> trainer.simulate(Path.of(args[1]),
+                    args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SESSIONS,
+                    args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_ACCURACY,
+                    args.length > 4 ? Long.parseLong(args[4]) : 1L);
+            default -> usage();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("""
+                usage: ConsoleTrainer play     <content-dir> <topic-code|all|reviews> [answers-file]
+                       ConsoleTrainer simulate <content-dir> [sessions] [accuracy] [seed]""");
+        System.exit(2);
+    }
+
+    // ===== play =====
+
+    /** Код выхода: 0 — сессия закончилась, 1 — ввод кончился раньше вопросов. */
+    private int play(Path content, String what, Path answersFile) throws IOException {
+        ReviewStore reviews = ReviewStore.open(AppPaths.dataDir().resolve("reviews.bin"));
+        AnswerLog answers = AnswerLog.open(AppPaths.dataDir());
+        try (ContentStore store = new ContentStore(content);
+             BufferedReader in = answersFile != null
+                     ? Files.newBufferedReader(answersFile, StandardCharsets.UTF_8)
+                     : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            TrainingSession session = open(store, what, reviews.scheduler(), answers);
+            if (session == null) {
+                out.println("Нечего тренировать: " + what);
+                return 0;
+            }
+            boolean finished = run(session, in);
+            out.printf("%nОтветов: %d, верно: %d%n", session.answeredCount(), session.correctCount());
+            return finished ? 0 : 1;
+        } finally {
+            reviews.save();
+            answers.close();
+        }
+    }
+
+    private static TrainingSession open(ContentStore store, String what, ReviewScheduler scheduler,
+                                        AnswerLog answers) throws IOException {
+        long now = System.currentTimeMillis();
+        List<Topic> topics = store.loadTopics();
+        if (what.equals("reviews")) {
+            Map<String, Item> pool = new LinkedHashMap<>();
+            for (Topic t : topics) {
+                for (Item it : store.loadItemsFor(t.code())) pool.putIfAbsent(it.sid(), it);
+            }
+            return TrainingSession.dueReviews(pool, scheduler, answers::append, now);
+        }
+        List<Item> items = new ArrayList<>();
+        for (Topic t : topics) {
+            if (what.equals("all") || what.equals(t.code())) items.addAll(store.loadItemsFor(t.code()));
+        }
+        return items.isEmpty() ? null : TrainingSession.ofItems(items, false, scheduler, answers::append, now);
+    }
+
+    /** true — вопросы кончились; false — кончился ввод или пользователь вышел. */
+    private boolean run(TrainingSession session, BufferedReader in) throws IOException {
+        while (session.state() == TrainingSession.State.QUESTION) {
+            Item it = session.current();
+            out.println();
+            out.println(session.isReview()
+                    ? "[к повторению: " + session.dueCount(System.currentTimeMillis()) + "]"
+                    : "[осталось: " + session.remaining() + "]");
+            out.println(it.jp());
+            if (it.gloss() != null) out.println("  " + it.gloss());
+            for (int i = 0; i < it.options().size(); i++) out.printf("  %d) %s%n", i + 1, it.options().get(i));
+
+            int slot = -1;
+            while (slot < 0) {
+                out.print("> ");
+                out.flush();
+                String line = in.readLine();
+                if (line == null || line.strip().equals("q")) return false;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                slot = slotOf(it, line);
+                if (slot < 0) out.println("Нет такого варианта: " + line);
+            }
+
+            TrainingSession.Feedback f = session.answer(slot, System.currentTimeMillis());
+            out.println((f.correct() ? "Верно. " : "Неверно. ") + f.explanation());
+            if (!f.correct()) out.println("Правильно: " + String.join(" / ", f.correctOptions()));
+            session.next(System.currentTimeMillis());
+        }
+        return true;
+    }
+
+    /** Номер варианта (с 1) или сам вариант; -1 — не подходит. */
+    private static int slotOf(Item it, String input) {
+        try {
+            int n = Integer.parseInt(input);
+            return n >= 1 && n <= it.options().size() ? n - 1 : -1;
+        } catch (NumberFormatException e) {
+            return it.options().indexOf(input);
+        }
+    }
+
+    // ===== simulate =====
+
+    private void simulate(Path content, int sessions, double accuracy, long seed) throws IOException {
+        Map<String, List<Item>> byTopic = new LinkedHashMap<>();
+        Map<String, Item> pool = new LinkedHashMap<>();
+        Map<String, String> topicBySid = new HashMap<>();
+        try (ContentStore store = new ContentStore(content)) {
+            for (Topic t : store.loadTopics()) {
+                List<Item> items = store.loadItemsFor(t.code());
+                if (items.isEmpty()) continue;
+                byTopic.put(t.code(), items);
+                for (Item it : items) {
+                    if (pool.putIfAbsent(it.sid(), it) == null) topicBySid.put(it.sid(), t.code());
+                }
+            }
+        }
+        if (byTopic.isEmpty()) throw new IllegalStateException("No items in " + content);
+        List<List<Item>> topics = List.copyOf(byTopic.values());
+
+        RandomGenerator random = RandomGeneratorFactory.of("L64X128MixRandom").create(seed);
+        ReviewScheduler scheduler = new ReviewScheduler();
+        AnswerTotals totals = new AnswerTotals();
+        LearnerStats stats = new LearnerStats();
+        long clock = 1_700_000_000_000L;
+        int reviewSessions = 0;
+
+        long started = System.nanoTime();
+        for (int s = 0; s < sessions; s++) {
+            clock += SESSION_GAP_MILLIS;
+            TrainingSession session = null;
+            int limit = Integer.MAX_VALUE;
+            if (s % REVIEW_EVERY == REVIEW_EVERY - 1) {
+                session = TrainingSession.dueReviews(pool, scheduler, totals::apply, clock);
+                limit = REVIEW_MAX_ANSWERS;
+                if (session != null) reviewSessions++;
+            }
+            if (session == null) {
+                List<Item> items = topics.get(random.nextInt(topics.size()));
+                session = TrainingSession.ofItems(items, false, scheduler, totals::apply, clock);
+            }
+            while (session.state() == TrainingSession.State.QUESTION && session.answeredCount() < limit) {
+                clock += 1_000 + random.nextInt(14_000);
+                TrainingSession.Feedback f = session.answer(simulatedChoice(session.current(), accuracy, random), clock);
+                stats.record(topicBySid.get(f.item().sid()), f, clock);
+                clock += 500;
+                session.next(clock);
+            }
+        }
+        long nanos = System.nanoTime() - started;
+
+        long answered = totals.answers();
+        long correct = totals.bySid().values().stream().mapToLong(AnswerTotals.Totals::correct).sum();
+        double seconds = nanos / 1e9;
+        out.printf("Simulated %d sessions (%d due-review) over %d topics, %d items%n",
+                sessions, reviewSessions, topics.size(), pool.size());
+        out.printf("answers %d, correct %.1f%%, cards %d, due now %d%n",
+                answered, answered == 0 ? 0.0 : 100.0 * correct / answered,
+                scheduler.size(), scheduler.dueCount(clock));
+        out.printf("%.1f ms: %.0f sessions/s, %.0f answers/s%n",
+                nanos / 1e6, sessions / seconds, answered / seconds);
+        LearnerStats.Row overall = stats.overall();
+        out.printf("latency p50 <= %d ms, p90 <= %d ms; top confusions: %s%n",
+                overall.latencyPercentileMillis(0.5), overall.latencyPercentileMillis(0.9),
+                stats.confusions().stream().limit(3)
+                        .map(c -> c.expected() + "→" + c.chosen() + " " + c.count()).toList());
+    }
+
+    /** Модельный ученик: с вероятностью accuracy — случайный верный вариант, иначе случайный неверный. */
+    private static int simulatedChoice(Item it, double accuracy, RandomGenerator random) {
+        List<String> options = it.options();
+        Set<String> correct = it.correctSet();
+        boolean right = random.nextDouble() < accuracy || correct.size() == options.size();
+        int start = random.nextInt(options.size());
+        for (int k = 0; k < options.size(); k++) {
+            int slot = (start + k) % options.size();
+            if (correct.contains(options.get(slot)) == right) return slot;
+        }
+        return 0;
+    }
+}
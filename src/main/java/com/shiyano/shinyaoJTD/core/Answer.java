@@ -0,0 +1,21 @@
+package com.shiyano.shinyaoJTD.core;
+
+import java.util.Objects;
+
+/** Один ответ ученика: какое задание, что выбрано, верно ли, сколько думал (мс) и когда (мс с эпохи). */
+public record Answer(
+        String sid,
+        String chosen,
+        boolean correct,
+        int latencyMillis,
+        long timestamp
+) {
+
+    public Answer {
+        Objects.requireNonNull(sid, "sid");
+        Objects.requireNonNull(chosen, "chosen");
+        if (latencyMillis < 0) {
+            throw new IllegalArgumentException("Answer.latencyMillis must be >= 0");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.shiyano.shinyaoJTD.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Свёртка истории ответов по заданиям: сколько раз отвечали, сколько верно,
+ * суммарное время и когда в последний раз. Занимает место по числу заданий, а не ответов —
+ * поэтому годится как снимок для сжатия журнала. Не потокобезопасен.
+ */
+public final class AnswerTotals {
+
+    public record Totals(int attempts, int correct, long latencySumMillis, long lastAt) {
+
+        public double accuracy() {
+            return attempts == 0 ? 0 : (double) correct / attempts;
+        }
+
+        public long meanLatencyMillis() {
+            return attempts == 0 ? 0 : latencySumMillis / attempts;
+        }
+    }
+
+    private final Map<String, Totals> bySid = new HashMap<>();
+    private long answers;
+
+    public void apply(Answer a) {
+        answers++;
+        bySid.merge(a.sid(), new Totals(1, a.correct() ? 1 : 0, a.latencyMillis(), a.timestamp()),
+                (old, one) -> new Totals(old.attempts() + 1, old.correct() + one.correct(),
+                        old.latencySumMillis() + one.latencySumMillis(), Math.max(old.lastAt(), one.lastAt())));
+    }
+
+    /** Восстановление из снимка. */
+    public void put(String sid, Totals totals) {
+        Totals old = bySid.put(sid, totals);
+        answers += totals.attempts() - (old == null ? 0 : old.attempts());
+    }
+
+    public Totals get(String sid) {
+        return bySid.get(sid);
+    }
+
+    /** Всего учтённых ответов. */
+    public long answers() {
+        return answers;
+    }
+
+    public Map<String, Totals> bySid() {
+        return Collections.unmodifiableMap(bySid);
+    }
+
+    public AnswerTotals copy() {
+        AnswerTotals c = new AnswerTotals();
+        c.bySid.putAll(bySid);
+        c.answers = answers;
+        return c;
+    }
+}
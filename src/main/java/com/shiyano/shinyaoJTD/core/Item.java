@@ -1,5 +1,7 @@
 package com.shiyano.shinyaoJTD.core;
 
+import com.shiyano.shinyaoJTD.perf.ItemValidationEvent;
+
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -15,6 +17,8 @@ public record Item(
     public static final char GAP = '＿';
 
     public Item {
+        ItemValidationEvent event = new ItemValidationEvent();
+        event.begin();
         Objects.requireNonNull(sid, "sid");
         Objects.requireNonNull(jp, "jp");
         Objects.requireNonNull(options, "options");
@@ -91,6 +95,12 @@ public record Item(
         }
 
         options = List.copyOf(normalizedOptions);
+
+        if (event.shouldCommit()) {
+            event.sid = sid;
+            event.options = options.size();
+            event.commit();
+        }
     }
 
     public Set<String> correctSet() {
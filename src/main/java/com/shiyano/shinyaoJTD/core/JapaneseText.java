@@ -0,0 +1,225 @@
+package com.shiyano.shinyaoJTD.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Классы символов японского текста и преобразования каны — по таблицам, без регулярных
+ * выражений, потоков codePoints() и промежуточных строк.
+ *
+ * <p>Класс символа BMP берётся из двухуровневой таблицы (256 блоков по 256 символов, одинаковые
+ * блоки общие — около 14 КБ), символы вне BMP различаются по диапазону: там из
+ * японского только иероглифы расширений CJK. {@link #scripts} за один проход по строке
+ * даёт маску всех встретившихся классов.
+ *
+ * <p>Преобразования не выделяют память, если менять нечего (возвращается та же строка),
+ * иначе — один char[] под результат. Полуширинная катакана вместе со следующими за ней
+ * ﾞ/ﾟ сводится к одной полноширинной букве.
+ */
+public final class JapaneseText {
+
+    /** Иероглифы (CJK и расширения), а также 々 〆 〇. */
+    public static final int KANJI = 1;
+    /** Хирагана, включая ゝゞ и знаки озвончения. */
+    public static final int HIRAGANA = 1 << 1;
+    /** Полноширинная катакана (с ヵヶ ヷ–ヺ, ヽヾ и фонетическими расширениями). */
+    public static final int KATAKANA = 1 << 2;
+    /** Полуширинная катакана ｦ–ﾟ (включая ｰ). */
+    public static final int HALFWIDTH_KATAKANA = 1 << 3;
+    /** Пробелы, знаки препинания и символы — японские (。「」・ー〜＿), полноширинные и ASCII. */
+    public static final int PUNCT = 1 << 4;
+    /** Всё остальное: латиница, кириллица, цифры и прочие письменности. */
+    public static final int OTHER = 1 << 5;
+
+    /** Любая японская письменность (без знаков препинания). */
+    public static final int JAPANESE = KANJI | HIRAGANA | KATAKANA | HALFWIDTH_KATAKANA;
+    /** Катакана любой ширины. */
+    public static final int ANY_KATAKANA = KATAKANA | HALFWIDTH_KATAKANA;
+
+    private static final byte[] BLOCK_INDEX = new byte[256];
+    private static final byte[] BLOCKS;
+
+    // полуширинные ｡–ﾟ (U+FF61–U+FF9F) → полноширинные символы
+    private static final char HALF_FIRST = '｡';
+    private static final String HALF_TO_FULL =
+            "。「」、・ヲァィゥェォャュョッーアイウエオカキクケコサシスセソタチツテトナニヌネノハヒフヘホマミムメモヤユヨラリルレロワン゛゜";
+    private static final char HALF_VOICED = 'ﾞ';
+    private static final char HALF_SEMI_VOICED = 'ﾟ';
+    private static final char COMBINING_VOICED = '゙';
+
+    // катакана U+30A0–U+30FF: озвончённая/полуозвончённая пара (0 — нет)
+    private static final char KATA_FIRST = '゠';
+    private static final char[] VOICED = new char[0x60];
+    private static final char[] SEMI_VOICED = new char[0x60];
+
+    static {
+        byte[] flat = new byte[0x10000];
+        Arrays.fill(flat, (byte) OTHER);
+        for (int c = 0; c < 0x80; c++) {
+            if (!Character.isLetterOrDigit(c)) flat[c] = PUNCT;
+        }
+        for (int c = 0x80; c < 0x10000; c++) {
+            int type = Character.getType(c);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)
+                    || (type >= Character.DASH_PUNCTUATION && type <= Character.OTHER_PUNCTUATION)
+                    || (type >= Character.MATH_SYMBOL && type <= Character.OTHER_SYMBOL)
+                    || type == Character.INITIAL_QUOTE_PUNCTUATION || type == Character.FINAL_QUOTE_PUNCTUATION) {
+                flat[c] = PUNCT;
+            }
+        }
+        fill(flat, 0x3000, 0x303F, PUNCT);
+        fill(flat, 0x3005, 0x3007, KANJI);          // 々 〆 〇
+        fill(flat, 0x303B, 0x303B, KANJI);          // 〻
+        fill(flat, 0x3041, 0x309F, HIRAGANA);
+        fill(flat, 0x30A0, 0x30A0, PUNCT);          // ゠
+        fill(flat, 0x30A1, 0x30FF, KATAKANA);
+        fill(flat, 0x30FB, 0x30FC, PUNCT);          // ・ ー — встречаются и в хирагане
+        fill(flat, 0x31F0, 0x31FF, KATAKANA);
+        fill(flat, 0x3400, 0x4DBF, KANJI);
+        fill(flat, 0x4E00, 0x9FFF, KANJI);
+        fill(flat, 0xF900, 0xFAFF, KANJI);
+        fill(flat, 0xFF01, 0xFF0F, PUNCT);
+        fill(flat, 0xFF1A, 0xFF20, PUNCT);
+        fill(flat, 0xFF3B, 0xFF40, PUNCT);          // в том числе ＿ (Item.GAP)
+        fill(flat, 0xFF5B, 0xFF65, PUNCT);
+        fill(flat, 0xFF66, 0xFF9F, HALFWIDTH_KATAKANA);
+        fill(flat, 0xFF70, 0xFF70, PUNCT);          // ｰ — как ー
+        fill(flat, 0xD800, 0xDFFF, OTHER);          // суррогаты разбираются отдельно
+
+        // одинаковые блоки хранятся один раз
+        List<byte[]> blocks = new ArrayList<>();
+        for (int hi = 0; hi < 256; hi++) {
+            byte[] block = Arrays.copyOfRange(flat, hi << 8, (hi + 1) << 8);
+            int id = 0;
+            while (id < blocks.size() && !Arrays.equals(blocks.get(id), block)) id++;
+            if (id == blocks.size()) blocks.add(block);
+            BLOCK_INDEX[hi] = (byte) id;
+        }
+        BLOCKS = new byte[blocks.size() << 8];
+        for (int id = 0; id < blocks.size(); id++) System.arraycopy(blocks.get(id), 0, BLOCKS, id << 8, 256);
+
+        String voiceable = "カキクケコサシスセソタチツテトハヒフヘホ";
+        for (int i = 0; i < voiceable.length(); i++) {
+            char c = voiceable.charAt(i);
+            VOICED[c - KATA_FIRST] = (char) (c + 1);
+        }
+        VOICED['ウ' - KATA_FIRST] = 'ヴ';
+        VOICED['ワ' - KATA_FIRST] = 'ヷ';
+        VOICED['ヲ' - KATA_FIRST] = 'ヺ';
+        for (char c : "ハヒフヘホ".toCharArray()) SEMI_VOICED[c - KATA_FIRST] = (char) (c + 2);
+    }
+
+    private JapaneseText() {}
+
+    private static void fill(byte[] table, int from, int to, int cls) {
+        Arrays.fill(table, from, to + 1, (byte) cls);
+    }
+
+    /** Класс символа BMP (один из битов KANJI…OTHER); суррогат — OTHER. */
+    public static int classify(char c) {
+        return BLOCKS[((BLOCK_INDEX[c >>> 8] & 0xFF) << 8) | (c & 0xFF)];
+    }
+
+    /** Класс кодовой точки, в том числе вне BMP. */
+    public static int classify(int cp) {
+        if (cp < 0x10000) return classify((char) cp);
+        // плоскости 2 и 3 — расширения CJK B…H и совместимые иероглифы
+        return cp >= 0x20000 && cp <= 0x3FFFF ? KANJI : OTHER;
+    }
+
+    /** Маска классов всех символов строки за один проход. */
+    public static int scripts(CharSequence s) {
+        int mask = 0;
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                mask |= classify(Character.toCodePoint(c, s.charAt(++i)));
+            } else {
+                mask |= classify(c);
+            }
+        }
+        return mask;
+    }
+
+    /** Есть ли в строке хоть один символ из классов mask; проход обрывается на первом. */
+    public static boolean containsAny(CharSequence s, int mask) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            int cls = Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))
+                    ? classify(Character.toCodePoint(c, s.charAt(++i)))
+                    : classify(c);
+            if ((cls & mask) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Катакана любой ширины → хирагана: ァ–ヶ, ヽヾ, полуширинные с ﾞ/ﾟ. У ヷヸヹヺ нет своей
+     * хираганы — они становятся わ/ゐ/ゑ/を с комбинируемым знаком озвончения. ー и прочие
+     * знаки остаются как есть. Null и строка без катаканы возвращаются без копирования.
+     */
+    public static String toHiragana(String s) {
+        return convert(s, true);
+    }
+
+    /** Хирагана и полуширинная катакана → полноширинная катакана (ゝゞ → ヽヾ). */
+    public static String toKatakana(String s) {
+        return convert(s, false);
+    }
+
+    private static String convert(String s, boolean hiragana) {
+        if (s == null) return null;
+        int n = s.length();
+        int first = 0;
+        while (first < n && !changes(s.charAt(first), hiragana)) first++;
+        if (first == n) return s;
+
+        // ヷ–ヺ → два символа: результат не длиннее удвоенной строки
+        char[] out = new char[hiragana ? n * 2 : n];
+        s.getChars(0, first, out, 0);
+        int o = first;
+        for (int i = first; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= HALF_FIRST && c <= HALF_SEMI_VOICED) {
+                char full = HALF_TO_FULL.charAt(c - HALF_FIRST);
+                char mark = i + 1 < n ? s.charAt(i + 1) : 0;
+                if (full >= KATA_FIRST && full <= 'ヿ') {
+                    char merged = mark == HALF_VOICED ? VOICED[full - KATA_FIRST]
+                            : mark == HALF_SEMI_VOICED ? SEMI_VOICED[full - KATA_FIRST] : 0;
+                    if (merged != 0) {
+                        full = merged;
+                        i++;
+                    }
+                }
+                c = full;
+            }
+            if (hiragana) {
+                o = appendHiragana(c, out, o);
+            } else {
+                out[o++] = (c >= 'ぁ' && c <= 'ゖ') || c == 'ゝ' || c == 'ゞ' ? (char) (c + 0x60) : c;
+            }
+        }
+        return new String(out, 0, o);
+    }
+
+    private static boolean changes(char c, boolean hiragana) {
+        if (c >= HALF_FIRST && c <= HALF_SEMI_VOICED) return true;
+        if (hiragana) return (c >= 'ァ' && c <= 'ヺ') || c == 'ヽ' || c == 'ヾ';
+        return (c >= 'ぁ' && c <= 'ゖ') || c == 'ゝ' || c == 'ゞ';
+    }
+
+    private static int appendHiragana(char c, char[] out, int o) {
+        if ((c >= 'ァ' && c <= 'ヶ') || c == 'ヽ' || c == 'ヾ') {
+            out[o++] = (char) (c - 0x60);
+        } else if (c >= 'ヷ' && c <= 'ヺ') {
+            out[o++] = (char) (c - 'ヷ' + 'ワ' - 0x60);
+            out[o++] = COMBINING_VOICED;
+        } else {
+            out[o++] = c;
+        }
+        return o;
+    }
+}
@@ -0,0 +1,453 @@
+package com.shiyano.shinyaoJTD.core;
+
+import com.shiyano.shinyaoJTD.core.AnswerTotals.Totals;
+
+import java.util.*;
+
+/**
+ * Сводная статистика ученика: точность и время по заданиям, темам и частицам, гистограммы
+ * времени ответа и матрица путаницы «ожидалась частица → выбрана частица».
+ *
+ * <p>Ключи (sid, код темы, частица) один раз превращаются в плотные номера, все счётчики лежат
+ * в параллельных примитивных массивах — ответ обновляет каждую свёртку за O(1) без упаковки и
+ * без выделения памяти (кроме редкого роста массивов). Размер зависит от числа заданий, тем
+ * и частиц, а не от числа ответов: экран итогов и сводка за всё время читаются мгновенно и
+ * через годы истории. Не потокобезопасен: вызывать из одного потока (FX).
+ */
+public final class LearnerStats {
+
+    /** Верхние границы корзин гистограммы времени ответа, мс; последняя корзина — всё, что дольше. */
+    public static final int[] LATENCY_BOUNDS = {500, 1_000, 1_500, 2_000, 3_000, 4_000, 6_000, 8_000,
+            12_000, 20_000, 30_000};
+    public static final int BUCKETS = LATENCY_BOUNDS.length + 1;
+
+    /** Свёртка по теме, частице или по всем ответам; histogram — счётчики по {@link #LATENCY_BOUNDS}. */
+    public record Row(String key, Totals totals, int[] histogram) {
+
+        public Row {
+            histogram = histogram.clone();
+        }
+
+        /** Оценка квантиля q (0–1) времени ответа: верхняя граница корзины, -1 — ответов нет. */
+        public int latencyPercentileMillis(double q) {
+            return percentile(histogram, q);
+        }
+    }
+
+    /** Ячейка матрицы путаницы: вместо expected выбрали chosen (count раз). */
+    public record Confusion(String expected, String chosen, int count) {}
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_PARTICLES = 16;
+
+    private final Names sids = new Names();
+    private final Names topics = new Names();
+    private final Names particles = new Names();
+
+    // по заданиям
+    private int[] itemAttempts = new int[INITIAL_CAPACITY];
+    private int[] itemCorrect = new int[INITIAL_CAPACITY];
+    private long[] itemLatency = new long[INITIAL_CAPACITY];
+    private long[] itemLastAt = new long[INITIAL_CAPACITY];
+
+    // по темам; гистограммы — BUCKETS счётчиков подряд на тему
+    private int[] topicAttempts = new int[INITIAL_PARTICLES];
+    private int[] topicCorrect = new int[INITIAL_PARTICLES];
+    private long[] topicLatency = new long[INITIAL_PARTICLES];
+    private long[] topicLastAt = new long[INITIAL_PARTICLES];
+    private int[] topicHistogram = new int[INITIAL_PARTICLES * BUCKETS];
+
+    // по ожидаемой частице
+    private int[] particleAttempts = new int[INITIAL_PARTICLES];
+    private int[] particleCorrect = new int[INITIAL_PARTICLES];
+    private long[] particleLatency = new long[INITIAL_PARTICLES];
+    private long[] particleLastAt = new long[INITIAL_PARTICLES];
+    private int[] particleHistogram = new int[INITIAL_PARTICLES * BUCKETS];
+    // confusion[expected * stride + chosen]; верные ответы — на диагонали
+    private int[] confusion = new int[INITIAL_PARTICLES * INITIAL_PARTICLES];
+    private int stride = INITIAL_PARTICLES;
+
+    // все ответы
+    private int attempts;
+    private int correct;
+    private long latency;
+    private long lastAt;
+    private final int[] histogram = new int[BUCKETS];
+
+    /** Корзина гистограммы для времени ответа. */
+    public static int bucket(int latencyMillis) {
+        int b = 0;
+        while (b < LATENCY_BOUNDS.length && latencyMillis > LATENCY_BOUNDS[b]) b++;
+        return b;
+    }
+
+    /**
+     * Учитывает ответ из тренировки.
+     *
+     * @param topic код темы задания или null, если он неизвестен (тогда темы не трогаются)
+     */
+    public void record(String topic, TrainingSession.Feedback f, long at) {
+        Item it = f.item();
+        // какую частицу ждали: выбранную, если ответ верный, иначе первую верную по порядку вариантов
+        String expected = f.chosen();
+        if (!f.correct()) {
+            for (String option : it.options()) {
+                if (f.correctOptions().contains(option)) {
+                    expected = option;
+                    break;
+                }
+            }
+        }
+        record(it.sid(), topic, expected, f.chosen(), f.correct(), f.latencyMillis(), at);
+    }
+
+    /** Учитывает один ответ: каждая свёртка обновляется за O(1). */
+    public void record(String sid, String topic, String expected, String chosen, boolean ok,
+                       int latencyMillis, long at) {
+        int bucket = bucket(latencyMillis);
+        int hit = ok ? 1 : 0;
+
+        attempts++;
+        correct += hit;
+        latency += latencyMillis;
+        lastAt = Math.max(lastAt, at);
+        histogram[bucket]++;
+
+        int s = sids.id(sid);
+        if (s == itemAttempts.length) growItems();
+        itemAttempts[s]++;
+        itemCorrect[s] += hit;
+        itemLatency[s] += latencyMillis;
+        itemLastAt[s] = Math.max(itemLastAt[s], at);
+
+        if (topic != null) {
+            int t = topics.id(topic);
+            if (t == topicAttempts.length) growTopics();
+            topicAttempts[t]++;
+            topicCorrect[t] += hit;
+            topicLatency[t] += latencyMillis;
+            topicLastAt[t] = Math.max(topicLastAt[t], at);
+            topicHistogram[t * BUCKETS + bucket]++;
+        }
+
+        int e = particle(expected);
+        int c = particle(chosen);
+        particleAttempts[e]++;
+        particleCorrect[e] += hit;
+        particleLatency[e] += latencyMillis;
+        particleLastAt[e] = Math.max(particleLastAt[e], at);
+        particleHistogram[e * BUCKETS + bucket]++;
+        confusion[e * stride + c]++;
+    }
+
+    // ===== чтение =====
+
+    /** Все ответы вместе. */
+    public Row overall() {
+        return new Row("", new Totals(attempts, correct, latency, lastAt), histogram);
+    }
+
+    public int answers() {
+        return attempts;
+    }
+
+    /** Свёртка по заданию; null — на него не отвечали. */
+    public Totals item(String sid) {
+        int s = sids.find(sid);
+        return s < 0 ? null : itemTotals(s);
+    }
+
+    public int itemCount() {
+        return sids.size();
+    }
+
+    /** sid всех заданий, на которые отвечали, в порядке первого ответа. */
+    public List<String> itemSids() {
+        List<String> out = new ArrayList<>(sids.size());
+        for (int s = 0; s < sids.size(); s++) out.add(sids.name(s));
+        return out;
+    }
+
+    /**
+     * Самые трудные задания: не меньше minAttempts ответов, по возрастанию точности
+     * (при равной — по числу ответов, больше — раньше). Один проход по заданиям.
+     */
+    public List<Map.Entry<String, Totals>> weakestItems(int limit, int minAttempts) {
+        // ограниченная куча: сверху — лучшее из отобранного, оно вытесняется первым
+        PriorityQueue<Integer> worst = new PriorityQueue<>(limit + 1, (a, b) -> compareWeakness(b, a));
+        for (int s = 0; s < sids.size(); s++) {
+            if (itemAttempts[s] < minAttempts) continue;
+            worst.add(s);
+            if (worst.size() > limit) worst.poll();
+        }
+        List<Integer> order = new ArrayList<>(worst);
+        order.sort(this::compareWeakness);
+        List<Map.Entry<String, Totals>> out = new ArrayList<>(order.size());
+        for (int s : order) out.add(Map.entry(sids.name(s), itemTotals(s)));
+        return out;
+    }
+
+    private int compareWeakness(int a, int b) {
+        // сравнение долей без деления: correct_a / attempts_a против correct_b / attempts_b
+        int byAccuracy = Long.compare((long) itemCorrect[a] * itemAttempts[b], (long) itemCorrect[b] * itemAttempts[a]);
+        return byAccuracy != 0 ? byAccuracy : Integer.compare(itemAttempts[b], itemAttempts[a]);
+    }
+
+    /** Свёртки по темам в порядке первого ответа. */
+    public List<Row> topics() {
+        List<Row> out = new ArrayList<>(topics.size());
+        for (int t = 0; t < topics.size(); t++) {
+            out.add(new Row(topics.name(t), new Totals(topicAttempts[t], topicCorrect[t], topicLatency[t],
+                    topicLastAt[t]), Arrays.copyOfRange(topicHistogram, t * BUCKETS, (t + 1) * BUCKETS)));
+        }
+        return out;
+    }
+
+    /** Свёртки по ожидаемой частице; частицы, которые только выбирали, но не ждали, пропускаются. */
+    public List<Row> particles() {
+        List<Row> out = new ArrayList<>(particles.size());
+        for (int p = 0; p < particles.size(); p++) {
+            if (particleAttempts[p] == 0) continue;
+            out.add(new Row(particles.name(p), new Totals(particleAttempts[p], particleCorrect[p],
+                    particleLatency[p], particleLastAt[p]),
+                    Arrays.copyOfRange(particleHistogram, p * BUCKETS, (p + 1) * BUCKETS)));
+        }
+        return out;
+    }
+
+    /** Все частицы матрицы путаницы (строки и столбцы) в порядке появления. */
+    public List<String> particleNames() {
+        List<String> out = new ArrayList<>(particles.size());
+        for (int p = 0; p < particles.size(); p++) out.add(particles.name(p));
+        return out;
+    }
+
+    /** Сколько раз вместо expected выбрали chosen (при expected == chosen — верные ответы). */
+    public int confusion(String expected, String chosen) {
+        int e = particles.find(expected);
+        int c = particles.find(chosen);
+        return e < 0 || c < 0 ? 0 : confusion[e * stride + c];
+    }
+
+    /** Ошибочные пары (вне диагонали), самые частые первыми. */
+    public List<Confusion> confusions() {
+        List<Confusion> out = cells(false);
+        out.sort(Comparator.comparingInt(Confusion::count).reversed());
+        return out;
+    }
+
+    /** Все непустые ячейки матрицы, включая диагональ (для сохранения). */
+    public List<Confusion> confusionCells() {
+        return cells(true);
+    }
+
+    private List<Confusion> cells(boolean diagonal) {
+        List<Confusion> out = new ArrayList<>();
+        for (int e = 0; e < particles.size(); e++) {
+            for (int c = 0; c < particles.size(); c++) {
+                int n = confusion[e * stride + c];
+                if (n > 0 && (diagonal || e != c)) out.add(new Confusion(particles.name(e), particles.name(c), n));
+            }
+        }
+        return out;
+    }
+
+    /** Независимая копия (например, для записи на диск в фоне). */
+    public LearnerStats copy() {
+        LearnerStats c = new LearnerStats();
+        c.sids.copyFrom(sids);
+        c.topics.copyFrom(topics);
+        c.particles.copyFrom(particles);
+        c.itemAttempts = itemAttempts.clone();
+        c.itemCorrect = itemCorrect.clone();
+        c.itemLatency = itemLatency.clone();
+        c.itemLastAt = itemLastAt.clone();
+        c.topicAttempts = topicAttempts.clone();
+        c.topicCorrect = topicCorrect.clone();
+        c.topicLatency = topicLatency.clone();
+        c.topicLastAt = topicLastAt.clone();
+        c.topicHistogram = topicHistogram.clone();
+        c.particleAttempts = particleAttempts.clone();
+        c.particleCorrect = particleCorrect.clone();
+        c.particleLatency = particleLatency.clone();
+        c.particleLastAt = particleLastAt.clone();
+        c.particleHistogram = particleHistogram.clone();
+        c.confusion = confusion.clone();
+        c.stride = stride;
+        c.attempts = attempts;
+        c.correct = correct;
+        c.latency = latency;
+        c.lastAt = lastAt;
+        System.arraycopy(histogram, 0, c.histogram, 0, BUCKETS);
+        return c;
+    }
+
+    // ===== восстановление из сохранённого состояния =====
+
+    /** Заменяет свёртку по всем ответам. */
+    public void restoreOverall(Row row) {
+        Totals t = row.totals();
+        attempts = t.attempts();
+        correct = t.correct();
+        latency = t.latencySumMillis();
+        lastAt = t.lastAt();
+        System.arraycopy(row.histogram(), 0, histogram, 0, BUCKETS);
+    }
+
+    public void restoreItem(String sid, Totals t) {
+        int s = sids.id(sid);
+        if (s == itemAttempts.length) growItems();
+        itemAttempts[s] = t.attempts();
+        itemCorrect[s] = t.correct();
+        itemLatency[s] = t.latencySumMillis();
+        itemLastAt[s] = t.lastAt();
+    }
+
+    public void restoreTopic(Row row) {
+        int t = topics.id(row.key());
+        if (t == topicAttempts.length) growTopics();
+        topicAttempts[t] = row.totals().attempts();
+        topicCorrect[t] = row.totals().correct();
+        topicLatency[t] = row.totals().latencySumMillis();
+        topicLastAt[t] = row.totals().lastAt();
+        System.arraycopy(row.histogram(), 0, topicHistogram, t * BUCKETS, BUCKETS);
+    }
+
+    public void restoreParticle(Row row) {
+        int p = particle(row.key());
+        particleAttempts[p] = row.totals().attempts();
+        particleCorrect[p] = row.totals().correct();
+        particleLatency[p] = row.totals().latencySumMillis();
+        particleLastAt[p] = row.totals().lastAt();
+        System.arraycopy(row.histogram(), 0, particleHistogram, p * BUCKETS, BUCKETS);
+    }
+
+    /** Ячейка матрицы путаницы (в том числе диагональ). */
+    public void restoreConfusion(String expected, String chosen, int count) {
+        int e = particle(expected);
+        int c = particle(chosen);
+        confusion[e * stride + c] = count;
+    }
+
+    // ===== внутреннее =====
+
+    private Totals itemTotals(int s) {
+        return new Totals(itemAttempts[s], itemCorrect[s], itemLatency[s], itemLastAt[s]);
+    }
+
+    private int particle(String name) {
+        int p = particles.id(name);
+        if (p == particleAttempts.length) growParticles();
+        return p;
+    }
+
+    private void growItems() {
+        int n = itemAttempts.length * 2;
+        itemAttempts = Arrays.copyOf(itemAttempts, n);
+        itemCorrect = Arrays.copyOf(itemCorrect, n);
+        itemLatency = Arrays.copyOf(itemLatency, n);
+        itemLastAt = Arrays.copyOf(itemLastAt, n);
+    }
+
+    private void growTopics() {
+        int n = topicAttempts.length * 2;
+        topicAttempts = Arrays.copyOf(topicAttempts, n);
+        topicCorrect = Arrays.copyOf(topicCorrect, n);
+        topicLatency = Arrays.copyOf(topicLatency, n);
+        topicLastAt = Arrays.copyOf(topicLastAt, n);
+        topicHistogram = Arrays.copyOf(topicHistogram, n * BUCKETS);
+    }
+
+    private void growParticles() {
+        int n = particleAttempts.length * 2;
+        particleAttempts = Arrays.copyOf(particleAttempts, n);
+        particleCorrect = Arrays.copyOf(particleCorrect, n);
+        particleLatency = Arrays.copyOf(particleLatency, n);
+        particleLastAt = Arrays.copyOf(particleLastAt, n);
+        particleHistogram = Arrays.copyOf(particleHistogram, n * BUCKETS);
+        // матрица перекладывается под новую ширину строки
+        int[] wider = new int[n * n];
+        for (int e = 0; e < stride; e++) System.arraycopy(confusion, e * stride, wider, e * n, stride);
+        confusion = wider;
+        stride = n;
+    }
+
+    static int percentile(int[] histogram, double q) {
+        long total = 0;
+        for (int n : histogram) total += n;
+        if (total == 0) return -1;
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int b = 0; b < histogram.length; b++) {
+            seen += histogram[b];
+            if (seen >= Math.max(1, rank)) {
+                return b < LATENCY_BOUNDS.length ? LATENCY_BOUNDS[b] : Integer.MAX_VALUE;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Строка → плотный номер (0, 1, 2… в порядке появления): открытая адресация
+     * с линейным пробированием по int-таблице, без Integer и узлов HashMap.
+     */
+    private static final class Names {
+        private String[] names = new String[16];
+        // номер + 1; 0 — пустая ячейка
+        private int[] table = new int[32];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        String name(int id) {
+            return names[id];
+        }
+
+        int find(String name) {
+            int mask = table.length - 1;
+            for (int i = mix(name.hashCode()) & mask; ; i = (i + 1) & mask) {
+                int slot = table[i];
+                if (slot == 0) return -1;
+                if (names[slot - 1].equals(name)) return slot - 1;
+            }
+        }
+
+        /** Номер строки; новая получает следующий номер. */
+        int id(String name) {
+            int mask = table.length - 1;
+            int i = mix(name.hashCode()) & mask;
+            for (; table[i] != 0; i = (i + 1) & mask) {
+                if (names[table[i] - 1].equals(name)) return table[i] - 1;
+            }
+            if (size == names.length) names = Arrays.copyOf(names, size * 2);
+            names[size] = name;
+            table[i] = ++size;
+            // заполнение не больше половины — цепочки короткие
+            if (size * 2 > table.length) rehash(table.length * 2);
+            return size - 1;
+        }
+
+        void copyFrom(Names other) {
+            names = other.names.clone();
+            table = other.table.clone();
+            size = other.size;
+        }
+
+        private void rehash(int capacity) {
+            int[] next = new int[capacity];
+            int mask = capacity - 1;
+            for (int id = 0; id < size; id++) {
+                int i = mix(names[id].hashCode()) & mask;
+                while (next[i] != 0) i = (i + 1) & mask;
+                next[i] = id + 1;
+            }
+            table = next;
+        }
+
+        private static int mix(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.shiyano.shinyaoJTD.core;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * Случайная выборка заданий из нескольких тем без чтения самих заданий: нужны только
+ * их количества по темам. Сначала вопросы распределяются между темами по весам
+ * (тема, у которой задания кончились, выбывает), затем в каждой теме выбираются
+ * номера заданий без повторов алгоритмом Флойда — O(k) на тему, сколько бы в ней ни было заданий.
+ * Читать потом нужно только выбранные номера.
+ */
+public final class MixSampler {
+
+    /** Как распределять вопросы между темами. */
+    public enum Weighting {
+        /** Пропорционально числу заданий — то же, что равномерно по всем заданиям. */
+        ITEMS,
+        /** Поровну между темами. */
+        TOPICS,
+        /** Поровну между частицами; доля частицы делится между темами, где она встречается. */
+        PARTICLES,
+        /** Поровну между уроками (учебник + номер урока); доля урока делится между его темами. */
+        LESSONS
+    }
+
+    private MixSampler() {}
+
+    /**
+     * @param counts число заданий по Topic.code (темы без записи или с нулём не участвуют)
+     * @param size   сколько вопросов нужно; если заданий меньше, берутся все
+     * @return Topic.code → отсортированные номера заданий в файле темы (порядок тем — как в {@code topics})
+     */
+    public static Map<String, int[]> sample(List<Topic> topics, Map<String, Integer> counts, Weighting weighting,
+                                            int size, RandomGenerator random) {
+        if (size < 0) throw new IllegalArgumentException("size must be >= 0");
+        List<Topic> usable = topics.stream().filter(t -> counts.getOrDefault(t.code(), 0) > 0).toList();
+        double[] weights = weights(usable, counts, weighting);
+        int[] quota = allocate(usable, counts, weights, size, random);
+
+        Map<String, int[]> out = new LinkedHashMap<>();
+        for (int i = 0; i < usable.size(); i++) {
+            if (quota[i] > 0) out.put(usable.get(i).code(), pick(counts.get(usable.get(i).code()), quota[i], random));
+        }
+        return out;
+    }
+
+    /** Вес каждой темы по выбранному правилу (сумма не обязана быть 1). */
+    static double[] weights(List<Topic> topics, Map<String, Integer> counts, Weighting weighting) {
+        double[] w = new double[topics.size()];
+        switch (weighting) {
+            case ITEMS -> {
+                for (int i = 0; i < w.length; i++) w[i] = counts.get(topics.get(i).code());
+            }
+            case TOPICS -> Arrays.fill(w, 1);
+            case PARTICLES -> {
+                Map<String, Integer> topicsWith = new HashMap<>();
+                for (Topic t : topics) {
+                    for (String p : new HashSet<>(t.particles())) topicsWith.merge(p, 1, Integer::sum);
+                }
+                for (int i = 0; i < w.length; i++) {
+                    for (String p : new HashSet<>(topics.get(i).particles())) w[i] += 1.0 / topicsWith.get(p);
+                }
+            }
+            case LESSONS -> {
+                Map<Topic.Lesson, Integer> topicsIn = new HashMap<>();
+                for (Topic t : topics) topicsIn.merge(t.lesson(), 1, Integer::sum);
+                for (int i = 0; i < w.length; i++) w[i] = 1.0 / topicsIn.get(topics.get(i).lesson());
+            }
+        }
+        return w;
+    }
+
+    /** Раздаёт size вопросов случайными взвешенными розыгрышами; заполненная тема выбывает. */
+    static int[] allocate(List<Topic> topics, Map<String, Integer> counts, double[] weights, int size,
+                         RandomGenerator random) {
+        int n = topics.size();
+        int[] quota = new int[n];
+        int[] capacity = new int[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            capacity[i] = counts.get(topics.get(i).code());
+            total += weights[i];
+        }
+        for (int drawn = 0; drawn < size && total > 1e-12; drawn++) {
+            double r = random.nextDouble() * total;
+            int chosen = -1;
+            for (int i = 0; i < n; i++) {
+                // тема без веса не выбирается, даже если из-за округления r не ушёл ниже нуля
+                if (quota[i] == capacity[i] || weights[i] <= 0) continue;
+                chosen = i;
+                r -= weights[i];
+                if (r < 0) break;
+            }
+            if (chosen < 0) break;
+            if (++quota[chosen] == capacity[chosen]) total -= weights[chosen];
+        }
+        return quota;
+    }
+
+    /** k различных номеров из [0, n) — алгоритм Флойда, затем сортировка для последовательного чтения. */
+    static int[] pick(int n, int k, RandomGenerator random) {
+        Set<Integer> chosen = new HashSet<>(k * 2);
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            if (!chosen.add(t)) chosen.add(j);
+        }
+        int[] out = new int[chosen.size()];
+        int i = 0;
+        for (int v : chosen) out[i++] = v;
+        Arrays.sort(out);
+        return out;
+    }
+}
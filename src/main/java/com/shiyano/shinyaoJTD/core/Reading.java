@@ -0,0 +1,47 @@
+package com.shiyano.shinyaoJTD.core;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Заранее посчитанная разметка фразы для фуриганы (readings-&lt;code&gt;.json).
+ * reviewed = true — чтения проверены автором и не перезаписываются при пересборке.
+ */
+public record Reading(
+        String jp,
+        boolean reviewed,
+        List<Token> tokens
+) {
+
+    public Reading {
+        Objects.requireNonNull(jp, "jp");
+        Objects.requireNonNull(tokens, "tokens");
+        jp = jp.strip();
+
+        if (jp.isEmpty()) {
+            throw new IllegalArgumentException("Reading.jp is blank");
+        }
+        StringBuilder joined = new StringBuilder(jp.length());
+        for (Token t : tokens) {
+            joined.append(Objects.requireNonNull(t, "token").surface());
+        }
+        if (!joined.toString().equals(jp)) {
+            throw new IllegalArgumentException("Reading.tokens do not add up to jp: " + jp);
+        }
+
+        tokens = List.copyOf(tokens);
+    }
+
+    /** Токен фразы; reading (хирагана) — null, если чтение совпадает с написанием. */
+    public record Token(String surface, String reading) {
+        public Token {
+            Objects.requireNonNull(surface, "surface");
+            if (surface.isEmpty()) {
+                throw new IllegalArgumentException("Token.surface is empty");
+            }
+            if (reading != null && reading.isBlank()) {
+                reading = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.shiyano.shinyaoJTD.core;
+
+import java.util.*;
+
+/**
+ * Интервальные повторения по SM-2: для каждого Item.sid хранится состояние памяти
+ * (лёгкость, интервал, число успешных повторений подряд, срок) и ближайший по сроку
+ * вопрос выбирается из индексированной min-кучи за O(1), обновление — за O(log n).
+ *
+ * <p>Состояние лежит в параллельных массивах (без объекта на карточку), так что сотни тысяч
+ * карточек занимают несколько мегабайт. Время передаётся явно (мс с эпохи), поэтому
+ * поведение детерминировано. Класс не потокобезопасен: вызывать из одного потока (FX).
+ */
+public final class ReviewScheduler {
+
+    /** Снимок состояния карточки (для сохранения и отображения). */
+    public record Card(String sid, float ease, int intervalDays, int repetitions, int lapses, long dueMillis) {}
+
+    public static final float START_EASE = 2.5f;
+    public static final float MIN_EASE = 1.3f;
+    /** Через сколько ошибочный ответ возвращается в очередь. */
+    public static final long RELEARN_MILLIS = 60_000;
+    /**
+     * Насколько раньше срока можно показать карточку, если сейчас больше ничего нет
+     * (иначе только что ошибочные карточки ждали бы минуту на пустом экране).
+     */
+    public static final long LEARN_AHEAD_MILLIS = 20 * 60_000;
+
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] sid = new String[INITIAL_CAPACITY];
+    private float[] ease = new float[INITIAL_CAPACITY];
+    private int[] interval = new int[INITIAL_CAPACITY];
+    private int[] reps = new int[INITIAL_CAPACITY];
+    private int[] lapses = new int[INITIAL_CAPACITY];
+    private long[] due = new long[INITIAL_CAPACITY];
+    // heap[i] — номер слота; pos[slot] — его место в куче
+    private int[] heap = new int[INITIAL_CAPACITY];
+    private int[] pos = new int[INITIAL_CAPACITY];
+    private int size;
+    // освобождённые remove() слоты переиспользуются
+    private int[] free = new int[0];
+    private int freeCount;
+    private int used;
+
+    /**
+     * Оценка ответа по шкале SM-2 (0–5) из того, что известно тренажёру:
+     * ошибка — 1, верно и быстро — 5, верно с раздумьями — 4, верно, но долго — 3.
+     */
+    public static int quality(boolean correct, long latencyMillis) {
+        if (!correct) return 1;
+        if (latencyMillis <= 5_000) return 5;
+        if (latencyMillis <= 15_000) return 4;
+        return 3;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(String sid) {
+        return slots.containsKey(sid);
+    }
+
+    /** Добавляет новую карточку со сроком now; false — она уже есть. */
+    public boolean add(String sid, long now) {
+        Objects.requireNonNull(sid, "sid");
+        if (slots.containsKey(sid)) return false;
+        insert(sid, START_EASE, 0, 0, 0, now);
+        return true;
+    }
+
+    /** Восстанавливает сохранённое состояние (заменяет существующее с тем же sid). */
+    public void restore(Card c) {
+        Integer slot = slots.get(c.sid());
+        if (slot == null) {
+            insert(c.sid(), Math.max(MIN_EASE, c.ease()), c.intervalDays(), c.repetitions(), c.lapses(), c.dueMillis());
+            return;
+        }
+        ease[slot] = Math.max(MIN_EASE, c.ease());
+        interval[slot] = c.intervalDays();
+        reps[slot] = c.repetitions();
+        lapses[slot] = c.lapses();
+        reschedule(slot, c.dueMillis());
+    }
+
+    /**
+     * Загрузка сохранённого состояния целиком: карточки дописываются в массивы,
+     * а куча строится один раз за O(n) вместо n вставок. Дубликаты sid заменяют прежние записи.
+     */
+    public void restoreAll(Collection<Card> cards) {
+        while (used + cards.size() > sid.length) grow();
+        for (Card c : cards) {
+            if (slots.containsKey(c.sid())) {
+                restore(c);
+                continue;
+            }
+            int slot = used++;
+            slots.put(c.sid(), slot);
+            sid[slot] = c.sid();
+            ease[slot] = Math.max(MIN_EASE, c.ease());
+            interval[slot] = c.intervalDays();
+            reps[slot] = c.repetitions();
+            lapses[slot] = c.lapses();
+            due[slot] = c.dueMillis();
+            place(size++, slot);
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) siftDown(i);
+    }
+
+    public boolean remove(String sid) {
+        Integer slot = slots.remove(sid);
+        if (slot == null) return false;
+        int at = pos[slot];
+        int last = heap[--size];
+        if (at != size) {
+            place(at, last);
+            siftDown(at);
+            siftUp(pos[last]);
+        }
+        this.sid[slot] = null;
+        if (freeCount == free.length) free = Arrays.copyOf(free, Math.max(16, free.length * 2));
+        free[freeCount++] = slot;
+        return true;
+    }
+
+    public Card card(String sid) {
+        Integer slot = slots.get(sid);
+        return slot == null ? null : snapshot(slot);
+    }
+
+    /** sid карточки с самым ранним сроком, если он не позже {@code until}; иначе null. O(1). */
+    public String peekDue(long until) {
+        return size > 0 && due[heap[0]] <= until ? sid[heap[0]] : null;
+    }
+
+    /** Срок ближайшей карточки или Long.MAX_VALUE, если карточек нет. */
+    public long nextDueMillis() {
+        return size == 0 ? Long.MAX_VALUE : due[heap[0]];
+    }
+
+    /** Сколько карточек со сроком не позже now; обходит только «созревшую» верхушку кучи. */
+    public int dueCount(long now) {
+        if (size == 0) return 0;
+        int count = 0;
+        int[] stack = new int[32];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int i = stack[--top];
+            if (due[heap[i]] > now) continue;
+            count++;
+            int l = 2 * i + 1;
+            if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            if (l < size) stack[top++] = l;
+            if (l + 1 < size) stack[top++] = l + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Учитывает ответ с оценкой quality (0–5) и пересчитывает срок по SM-2.
+     * Неизвестная карточка сначала добавляется как новая.
+     */
+    public Card grade(String sid, int quality, long now) {
+        if (quality < 0 || quality > 5) throw new IllegalArgumentException("quality must be 0..5: " + quality);
+        add(sid, now);
+        int slot = slots.get(sid);
+
+        int q5 = 5 - quality;
+        ease[slot] = Math.max(MIN_EASE, ease[slot] + (0.1f - q5 * (0.08f + q5 * 0.02f)));
+        long next;
+        if (quality < 3) {
+            reps[slot] = 0;
+            interval[slot] = 0;
+            lapses[slot]++;
+            next = now + RELEARN_MILLIS;
+        } else {
+            reps[slot]++;
+            interval[slot] = switch (reps[slot]) {
+                case 1 -> 1;
+                case 2 -> 6;
+                default -> Math.max(interval[slot] + 1, Math.round(interval[slot] * ease[slot]));
+            };
+            next = now + interval[slot] * DAY_MILLIS;
+        }
+        reschedule(slot, next);
+        return snapshot(slot);
+    }
+
+    /** Снимок всех карточек (порядок не определён). */
+    public List<Card> cards() {
+        List<Card> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) out.add(snapshot(heap[i]));
+        return out;
+    }
+
+    // ===== куча =====
+
+    private void insert(String s, float e, int iv, int r, int l, long d) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (used == sid.length) grow();
+            slot = used++;
+        }
+        slots.put(s, slot);
+        sid[slot] = s;
+        ease[slot] = e;
+        interval[slot] = iv;
+        reps[slot] = r;
+        lapses[slot] = l;
+        due[slot] = d;
+        place(size++, slot);
+        siftUp(size - 1);
+    }
+
+    private void reschedule(int slot, long newDue) {
+        long old = due[slot];
+        due[slot] = newDue;
+        if (newDue < old) siftUp(pos[slot]);
+        else siftDown(pos[slot]);
+    }
+
+    private void siftUp(int i) {
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(slot, heap[parent])) break;
+            place(i, heap[parent]);
+            i = parent;
+        }
+        place(i, slot);
+    }
+
+    private void siftDown(int i) {
+        int slot = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && less(heap[child + 1], heap[child])) child++;
+            if (!less(heap[child], slot)) break;
+            place(i, heap[child]);
+            i = child;
+        }
+        place(i, slot);
+    }
+
+    // при равных сроках — в порядке добавления (номер слота), чтобы очередь была стабильной
+    private boolean less(int a, int b) {
+        return due[a] < due[b] || (due[a] == due[b] && a < b);
+    }
+
+    private void place(int i, int slot) {
+        heap[i] = slot;
+        pos[slot] = i;
+    }
+
+    private void grow() {
+        int n = sid.length * 2;
+        sid = Arrays.copyOf(sid, n);
+        ease = Arrays.copyOf(ease, n);
+        interval = Arrays.copyOf(interval, n);
+        reps = Arrays.copyOf(reps, n);
+        lapses = Arrays.copyOf(lapses, n);
+        due = Arrays.copyOf(due, n);
+        heap = Arrays.copyOf(heap, n);
+        pos = Arrays.copyOf(pos, n);
+    }
+
+    private Card snapshot(int slot) {
+        return new Card(sid[slot], ease[slot], interval[slot], reps[slot], lapses[slot], due[slot]);
+    }
+}
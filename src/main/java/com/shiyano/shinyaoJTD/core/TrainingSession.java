@@ -0,0 +1,241 @@
+package com.shiyano.shinyaoJTD.core;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Ход тренировки без интерфейса: какой вопрос сейчас, проверка ответа, оценка для повторений,
+ * переход к следующему и конец сессии. Экран (TrainingView, консоль) только показывает состояние
+ * и передаёт действия пользователя.
+ *
+ * <p>Два источника вопросов: готовый список (тема или смесь; список может дорастать по мере
+ * потокового чтения файла) и повторение по сроку — следующий вопрос каждый раз выбирает планировщик.
+ * Время передаётся явно (мс с эпохи), как и в {@link ReviewScheduler}, поэтому прогон детерминирован
+ * и годится для симуляции. Не потокобезопасен: вызывать из одного потока.
+ */
+public final class TrainingSession {
+
+    public enum State {
+        /** Вопрос показан, ждём ответа. */
+        QUESTION,
+        /** Ответ принят, показывается разбор. */
+        ANSWERED,
+        /** Пользователь обогнал загрузку заданий — ждём следующей страницы. */
+        WAITING,
+        /** Вопросы кончились. */
+        FINISHED
+    }
+
+    /**
+     * Разбор ответа. explanation — пояснение автора к выбранному варианту
+     * (whyCorrect или whyWrong), пустая строка, если его нет.
+     */
+    public record Feedback(Item item, int slot, String chosen, boolean correct, Set<String> correctOptions,
+                           String explanation, int latencyMillis) {
+
+        /** Вариант с этим номером — верный (для подсветки всех верных после ошибки). */
+        public boolean isCorrect(int slot) {
+            return correctOptions.contains(item.options().get(slot));
+        }
+    }
+
+    private final ReviewScheduler scheduler;
+    private final Consumer<Answer> answers;
+    // повторение по сроку: sid -> задание из всех тем; null — вопросы из списка
+    private final Map<String, Item> reviewPool;
+
+    // items — чужой список (страница или список из кэша/пакета), копируем только при дописывании;
+    // при повторении — один текущий вопрос
+    private List<Item> items;
+    private boolean growable;
+    private boolean loading;
+    private int index;
+    private State state = State.QUESTION;
+    private long shownAt;
+    private int answered;
+    private int correct;
+
+    private TrainingSession(List<Item> items, boolean loading, Map<String, Item> reviewPool,
+                            ReviewScheduler scheduler, Consumer<Answer> answers, long now) {
+        this.items = items;
+        this.loading = loading;
+        this.reviewPool = reviewPool;
+        this.growable = reviewPool != null;
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        this.answers = answers == null ? a -> {} : answers;
+        this.shownAt = now;
+    }
+
+    /**
+     * Вопросы по порядку из списка.
+     *
+     * @param items   первые задания (не пустой список)
+     * @param loading остальные ещё читаются: страницы — {@link #append}, конец — {@link #loaded()}
+     * @param answers куда отдавать ответы (журнал); может быть null
+     */
+    public static TrainingSession ofItems(List<Item> items, boolean loading, ReviewScheduler scheduler,
+                                          Consumer<Answer> answers, long now) {
+        if (items.isEmpty()) throw new IllegalArgumentException("items is empty");
+        return new TrainingSession(items, loading, null, scheduler, answers, now);
+    }
+
+    /**
+     * Повторение по сроку: вопросы из {@code pool} в порядке планировщика, пока есть созревшие.
+     * Возвращает null, если повторять нечего.
+     */
+    public static TrainingSession dueReviews(Map<String, Item> pool, ReviewScheduler scheduler,
+                                             Consumer<Answer> answers, long now) {
+        Item first = nextDue(scheduler, pool, now);
+        if (first == null) return null;
+        return new TrainingSession(new ArrayList<>(List.of(first)), false, pool, scheduler, answers, now);
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public boolean isReview() {
+        return reviewPool != null;
+    }
+
+    /** Текущий вопрос (и после ответа — тот, к которому относится разбор). */
+    public Item current() {
+        return items.get(index);
+    }
+
+    public int index() {
+        return index;
+    }
+
+    /** Вопросы сессии по порядку (для подготовки следующих в фоне); только чтение. */
+    public List<Item> items() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /** Сколько вопросов осталось, включая текущий (для повторения — только текущий, 1). */
+    public int remaining() {
+        return items.size() - index;
+    }
+
+    /** Текущий вопрос — последний: после него сессия закончится. */
+    public boolean isLast() {
+        return reviewPool == null && !loading && index == items.size() - 1;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /** Карточек к повторению на момент now — счётчик для режима повторения. */
+    public int dueCount(long now) {
+        return scheduler.dueCount(now);
+    }
+
+    public int answeredCount() {
+        return answered;
+    }
+
+    public int correctCount() {
+        return correct;
+    }
+
+    /**
+     * Ответ вариантом номер slot: оценка уходит в планировщик, ответ — в журнал.
+     *
+     * @throws IllegalStateException если вопрос сейчас не ждёт ответа
+     */
+    public Feedback answer(int slot, long now) {
+        if (state != State.QUESTION) throw new IllegalStateException("not waiting for an answer: " + state);
+        Item it = items.get(index);
+        String chosen = it.options().get(slot);
+        Set<String> correctOptions = it.correctSet();
+        boolean ok = correctOptions.contains(chosen);
+        long latency = Math.max(0, now - shownAt);
+        int latencyMillis = (int) Math.min(latency, Integer.MAX_VALUE);
+
+        scheduler.grade(it.sid(), ReviewScheduler.quality(ok, latency), now);
+        answers.accept(new Answer(it.sid(), chosen, ok, latencyMillis, now));
+        answered++;
+        if (ok) correct++;
+        state = State.ANSWERED;
+
+        String why;
+        if (ok) {
+            why = it.whyCorrect();
+        } else {
+            why = it.whyWrong() == null ? null : it.whyWrong().get(chosen);
+        }
+        return new Feedback(it, slot, chosen, ok, correctOptions, why == null ? "" : why, latencyMillis);
+    }
+
+    /** К следующему вопросу после разбора; возвращает новое состояние. */
+    public State next(long now) {
+        if (state != State.ANSWERED) throw new IllegalStateException("no answer to move on from: " + state);
+        if (reviewPool != null) {
+            Item next = nextDue(scheduler, reviewPool, now);
+            if (next == null) return state = State.FINISHED;
+            // пройденные не храним: сессия повторения может идти сколько угодно долго
+            items.set(0, next);
+            return show(0, now);
+        }
+        if (index < items.size() - 1) return show(index + 1, now);
+        // пользователь обогнал чтение файла — продолжим, когда придёт следующая страница
+        return state = loading ? State.WAITING : State.FINISHED;
+    }
+
+    /** Очередная страница потоковой загрузки; true — сессия ждала её и показывает новый вопрос. */
+    public boolean append(List<Item> page, long now) {
+        if (!growable) {
+            items = new ArrayList<>(items);
+            growable = true;
+        }
+        items.addAll(page);
+        if (state != State.WAITING || page.isEmpty()) return false;
+        show(index + 1, now);
+        return true;
+    }
+
+    /** Потоковая загрузка закончилась (в том числе с ошибкой); возвращает новое состояние. */
+    public State loaded() {
+        loading = false;
+        if (state == State.WAITING) state = State.FINISHED;
+        return state;
+    }
+
+    /**
+     * Список заданий поменялся целиком (файл правили во время сессии): остаёмся на том же вопросе
+     * по sid, а если его больше нет — на том же номере. Неотвеченный вопрос считается показанным заново.
+     */
+    public void replaceItems(List<Item> fresh, long now) {
+        if (fresh.isEmpty()) throw new IllegalArgumentException("fresh is empty");
+        String currentSid = items.get(index).sid();
+        int pos = 0;
+        while (pos < fresh.size() && !fresh.get(pos).sid().equals(currentSid)) pos++;
+        if (pos == fresh.size()) pos = Math.min(index, fresh.size() - 1);
+        items = fresh;
+        growable = false;
+        index = pos;
+        if (state == State.QUESTION) shownAt = now;
+    }
+
+    private State show(int at, long now) {
+        index = at;
+        shownAt = now;
+        return state = State.QUESTION;
+    }
+
+    /**
+     * Ближайшее по сроку задание (с небольшим упреждением, см. {@link ReviewScheduler#LEARN_AHEAD_MILLIS});
+     * карточки заданий, которых больше нет в контенте, забываются.
+     */
+    private static Item nextDue(ReviewScheduler scheduler, Map<String, Item> pool, long now) {
+        long until = now + ReviewScheduler.LEARN_AHEAD_MILLIS;
+        String sid;
+        while ((sid = scheduler.peekDue(until)) != null) {
+            Item it = pool.get(sid);
+            if (it != null) return it;
+            scheduler.remove(sid);
+        }
+        return null;
+    }
+}
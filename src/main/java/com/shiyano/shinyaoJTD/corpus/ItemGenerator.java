@@ -0,0 +1,312 @@
+package com.shiyano.shinyaoJTD.corpus;
+
+import com.atilika.kuromoji.ipadic.Token;
+import com.atilika.kuromoji.ipadic.Tokenizer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.JapaneseText;
+import com.shiyano.shinyaoJTD.core.Topic;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Заготовки заданий из корпуса предложений (gradle generateItems): TSV «фраза&lt;TAB&gt;перевод»
+ * (или .tsv.gz) читается потоком, фразы токенизируются Kuromoji параллельно на всех ядрах,
+ * и для каждой темы, чья частица стоит в фразе как 助詞, получается {@link Item}: частица
+ * заменена на ＿, варианты — частицы темы, sid — {@code <code>-<номер строки>}.
+ *
+ * <pre>ItemGenerator &lt;content-dir&gt; &lt;corpus.tsv[.gz]&gt; &lt;out-dir&gt; [threads]</pre>
+ *
+ * <p>Конвейер с ограниченной памятью: читатель режет корпус на пачки и отдаёт их пулу, очередь
+ * пачек «в работе» ограничена, писатель забирает результаты в порядке корпуса и сразу дописывает
+ * их в items-&lt;code&gt;.json каждой темы (потоковый JSON, tmp + move в конце). Сколько бы строк
+ * ни было в корпусе, в памяти только несколько пачек.
+ *
+ * <p>Пояснений (whyCorrect/whyWrong) у заготовок нет, одинаковые фразы корпуса не схлопываются:
+ * результат — черновик для автора, его проверяет {@code gradle lintContent} после переноса в content/.
+ */
+public final class ItemGenerator {
+
+    /** Строк корпуса в одной задаче пула. */
+    private static final int BATCH_LINES = 512;
+    /** Пачек в работе на поток: больше — лучше сглаживаются неровные пачки, но больше памяти. */
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+    /** Фразы длиннее — не задания, а абзацы. */
+    private static final int MAX_SENTENCE_CHARS = 80;
+    private static final long PROGRESS_EVERY_LINES = 1_000_000;
+    // разряды 助詞, на которых частица темы — настоящий выбор (без 接続助詞 が «но», 副詞化 に и т.п.)
+    private static final Set<String> GAP_KINDS = Set.of("格助詞", "係助詞", "副助詞");
+
+    private record Batch(long firstLine, List<String> lines) {}
+
+    /** Задание темы с номером topic (в пачке — в порядке строк корпуса). */
+    private record Generated(int topic, Item item) {}
+
+    private record Result(List<Generated> items, int lines, int sentences, int tokenized, int rejected) {}
+
+    /** Частица-токен в фразе: позиция и поверхность (пропуск не выходит за границу токена). */
+    private record Gap(int position, String particle) {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || args.length > 4) {
+            System.err.println("usage: ItemGenerator <content-dir> <corpus.tsv[.gz]> <out-dir> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        List<Topic> topics;
+        try (ContentStore store = new ContentStore(Path.of(args[0]))) {
+            topics = store.loadTopics();
+        }
+        new ItemGenerator(topics, threads).run(Path.of(args[1]), Path.of(args[2]));
+    }
+
+    private final List<Topic> topics;
+    private final int threads;
+    // частица → номера тем, где она среди вариантов
+    private final Map<String, int[]> topicsByParticle = new HashMap<>();
+    // Tokenizer Kuromoji потокобезопасен: словарь загружается один раз на все рабочие потоки
+    private final Tokenizer tokenizer = new Tokenizer();
+
+    private ItemGenerator(List<Topic> topics, int threads) {
+        this.topics = topics;
+        this.threads = Math.max(1, threads);
+        Map<String, List<Integer>> index = new HashMap<>();
+        for (int t = 0; t < topics.size(); t++) {
+            for (String p : topics.get(t).particles()) index.computeIfAbsent(p, k -> new ArrayList<>()).add(t);
+        }
+        index.forEach((p, ts) -> topicsByParticle.put(p, ts.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    private void run(Path corpus, Path outDir) throws IOException, InterruptedException {
+        Files.createDirectories(outDir);
+        long started = System.nanoTime();
+        long lines = 0, sentences = 0, tokenized = 0, rejected = 0;
+        long[] perTopic = new long[topics.size()];
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "item-generator");
+            t.setDaemon(true);
+            return t;
+        });
+        ExecutorService readerThread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "item-generator-reader");
+            t.setDaemon(true);
+            return t;
+        });
+        // результаты в порядке корпуса; put блокирует читателя, когда в работе слишком много пачек
+        BlockingQueue<Future<Result>> inFlight = new ArrayBlockingQueue<>(threads * IN_FLIGHT_PER_THREAD);
+        Shards shards = new Shards(outDir, topics);
+        try (BufferedReader in = open(corpus)) {
+            Future<?> reader = readerThread.submit(() -> {
+                read(in, pool, inFlight);
+                return null;
+            });
+
+            while (true) {
+                Future<Result> next = inFlight.take();
+                Result r;
+                try {
+                    r = next.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException io) throw io;
+                    throw new IllegalStateException(e.getCause());
+                }
+                if (r == null) break; // конец корпуса
+                for (Generated g : r.items()) {
+                    shards.write(g.topic(), g.item());
+                    perTopic[g.topic()]++;
+                }
+                long before = lines;
+                lines += r.lines();
+                sentences += r.sentences();
+                tokenized += r.tokenized();
+                rejected += r.rejected();
+                if (before / PROGRESS_EVERY_LINES != lines / PROGRESS_EVERY_LINES) {
+                    System.out.printf("  %,d lines, %,d items, %.0f sentences/s%n", lines,
+                            Arrays.stream(perTopic).sum(), sentences / ((System.nanoTime() - started) / 1e9));
+                }
+            }
+            try {
+                reader.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                throw new IllegalStateException(e.getCause());
+            }
+            shards.commit();
+        } finally {
+            shards.close();
+            // после ошибки читатель может ждать места в inFlight — прерываем его вместе с пулом
+            readerThread.shutdownNow();
+            pool.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        for (int t = 0; t < topics.size(); t++) {
+            if (perTopic[t] > 0) System.out.printf("  items-%s.json: %,d items%n", topics.get(t).code(), perTopic[t]);
+        }
+        System.out.printf("Corpus: %,d lines, %,d sentences, %,d tokenized, %,d items, %,d rejected by Item validation%n",
+                lines, sentences, tokenized, Arrays.stream(perTopic).sum(), rejected);
+        System.out.printf("%.1f s on %d threads: %.0f sentences/s%n", seconds, threads, sentences / seconds);
+    }
+
+    private static BufferedReader open(Path corpus) throws IOException {
+        InputStream in = Files.newInputStream(corpus);
+        if (corpus.getFileName().toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /** Читатель: режет корпус на пачки; в конце — пустой результат как метка конца. */
+    private void read(BufferedReader in, ExecutorService pool, BlockingQueue<Future<Result>> inFlight)
+            throws IOException, InterruptedException {
+        long lineNo = 0;
+        List<String> lines = new ArrayList<>(BATCH_LINES);
+        String line;
+        while ((line = in.readLine()) != null) {
+            lines.add(line);
+            if (lines.size() == BATCH_LINES) {
+                Batch b = new Batch(lineNo + 1, lines);
+                inFlight.put(pool.submit(() -> generate(b)));
+                lineNo += BATCH_LINES;
+                lines = new ArrayList<>(BATCH_LINES);
+            }
+        }
+        if (!lines.isEmpty()) {
+            Batch b = new Batch(lineNo + 1, lines);
+            inFlight.put(pool.submit(() -> generate(b)));
+        }
+        inFlight.put(CompletableFuture.completedFuture(null));
+    }
+
+    /** Рабочий поток: фразы пачки → задания всех подходящих тем. */
+    private Result generate(Batch batch) {
+        List<Generated> out = new ArrayList<>();
+        int sentences = 0, tokenized = 0, rejected = 0;
+        // частицы-кандидаты по темам для текущей фразы
+        List<List<Gap>> candidates = new ArrayList<>(topics.size());
+        for (int t = 0; t < topics.size(); t++) candidates.add(new ArrayList<>());
+
+        for (int i = 0; i < batch.lines().size(); i++) {
+            String line = batch.lines().get(i);
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+            int tab = line.indexOf('\t');
+            String jp = (tab < 0 ? line : line.substring(0, tab)).strip();
+            String gloss = null;
+            if (tab >= 0) {
+                int end = line.indexOf('\t', tab + 1);
+                gloss = (end < 0 ? line.substring(tab + 1) : line.substring(tab + 1, end)).strip();
+                if (gloss.isEmpty()) gloss = null;
+            }
+            if (jp.isEmpty() || jp.length() > MAX_SENTENCE_CHARS || jp.indexOf(Item.GAP) >= 0) continue;
+            sentences++;
+            // токенизация — самое дорогое: без частиц тем и японского текста фразу не разбираем
+            if (!JapaneseText.containsAny(jp, JapaneseText.JAPANESE) || !mentionsParticle(jp)) continue;
+            tokenized++;
+
+            candidates.forEach(List::clear);
+            for (Token tok : tokenizer.tokenize(jp)) {
+                if (!"助詞".equals(tok.getPartOfSpeechLevel1()) || !GAP_KINDS.contains(tok.getPartOfSpeechLevel2())) {
+                    continue;
+                }
+                int[] ts = topicsByParticle.get(tok.getSurface());
+                if (ts == null) continue;
+                Gap gap = new Gap(tok.getPosition(), tok.getSurface());
+                for (int t : ts) candidates.get(t).add(gap);
+            }
+
+            long lineNo = batch.firstLine() + i;
+            for (int t = 0; t < topics.size(); t++) {
+                List<Gap> at = candidates.get(t);
+                if (at.isEmpty()) continue;
+                // несколько подходящих частиц — пропуск на разных местах для разных строк, но воспроизводимо
+                Gap gap = at.get((int) (lineNo % at.size()));
+                Topic topic = topics.get(t);
+                String gapped = jp.substring(0, gap.position()) + Item.GAP
+                        + jp.substring(gap.position() + gap.particle().length());
+                try {
+                    out.add(new Generated(t, new Item(topic.code() + "-" + lineNo, gapped, gloss,
+                            topic.particles(), gap.particle(), null, null)));
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                }
+            }
+        }
+        return new Result(out, batch.lines().size(), sentences, tokenized, rejected);
+    }
+
+    private boolean mentionsParticle(String jp) {
+        for (String p : topicsByParticle.keySet()) {
+            if (jp.contains(p)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Файлы тем: каждый открывается при первом задании и пишется потоково в items-&lt;code&gt;.json.tmp;
+     * {@link #commit} закрывает массивы и атомарно переносит файлы на место.
+     */
+    private static final class Shards implements Closeable {
+        private final Path outDir;
+        private final List<Topic> topics;
+        private final JsonFactory json = new JsonFactory();
+        private final JsonGenerator[] open;
+
+        Shards(Path outDir, List<Topic> topics) {
+            this.outDir = outDir;
+            this.topics = topics;
+            this.open = new JsonGenerator[topics.size()];
+        }
+
+        void write(int topic, Item it) throws IOException {
+            JsonGenerator g = open[topic];
+            if (g == null) {
+                g = json.createGenerator(tmp(topic).toFile(), JsonEncoding.UTF8).useDefaultPrettyPrinter();
+                g.writeStartArray();
+                open[topic] = g;
+            }
+            g.writeStartObject();
+            g.writeStringField("sid", it.sid());
+            g.writeStringField("jp", it.jp());
+            if (it.gloss() != null) g.writeStringField("gloss", it.gloss());
+            g.writeArrayFieldStart("options");
+            for (String o : it.options()) g.writeString(o);
+            g.writeEndArray();
+            g.writeStringField("correct", it.correct());
+            g.writeEndObject();
+        }
+
+        void commit() throws IOException {
+            for (int t = 0; t < open.length; t++) {
+                if (open[t] == null) continue;
+                open[t].writeEndArray();
+                open[t].close();
+                open[t] = null;
+                Path file = outDir.resolve("items-" + topics.get(t).code() + ".json");
+                Files.move(tmp(t), file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        /** После ошибки: недописанные файлы удаляются, готовые результаты прошлых запусков не трогаются. */
+        @Override
+        public void close() throws IOException {
+            for (int t = 0; t < open.length; t++) {
+                if (open[t] == null) continue;
+                open[t].close();
+                Files.deleteIfExists(tmp(t));
+            }
+        }
+
+        private Path tmp(int topic) {
+            return outDir.resolve("items-" + topics.get(topic).code() + ".json.tmp");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.shiyano.shinyaoJTD.perf;
+
+import jdk.jfr.*;
+
+/** Ответ → подсветка и пояснение на экране (до конца раскладки в ближайшем пульсе). */
+@Name("jtd.AnswerFeedback")
+@Label("Answer Feedback")
+@Category({"JP Trainer", "UI"})
+@StackTrace(false)
+public final class AnswerFeedbackEvent extends Event {
+
+    @Label("Sid")
+    public String sid;
+
+    @Label("Correct")
+    public boolean correct;
+}
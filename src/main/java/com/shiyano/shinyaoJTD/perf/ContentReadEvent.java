@@ -0,0 +1,27 @@
+package com.shiyano.shinyaoJTD.perf;
+
+import jdk.jfr.*;
+
+/** Чтение файла контента: разбор JSON целиком, выдача из кэша, подсчёт или частичное чтение. */
+@Name("jtd.ContentRead")
+@Label("Content Read")
+@Category({"JP Trainer", "Content"})
+@StackTrace(false)
+public final class ContentReadEvent extends Event {
+
+    public static final String PARSE = "parse";
+    public static final String CACHE = "cache";
+    public static final String COUNT = "count";
+    public static final String PARTIAL = "partial";
+
+    @Label("File")
+    public String file;
+
+    @Label("Mode")
+    @Description("parse, cache, count or partial")
+    public String mode;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
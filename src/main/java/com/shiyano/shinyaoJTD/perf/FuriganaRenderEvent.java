@@ -0,0 +1,17 @@
+package com.shiyano.shinyaoJTD.perf;
+
+import jdk.jfr.*;
+
+/** Сборка узлов фразы с фуриганой: новый TextFlow или пул узлов FuriganaFlow. */
+@Name("jtd.FuriganaRender")
+@Label("Furigana Render")
+@Category({"JP Trainer", "Furigana"})
+@StackTrace(false)
+public final class FuriganaRenderEvent extends Event {
+
+    @Label("Segments")
+    public int segments;
+
+    @Label("Pooled")
+    public boolean pooled;
+}
@@ -0,0 +1,17 @@
+package com.shiyano.shinyaoJTD.perf;
+
+import jdk.jfr.*;
+
+/** Проверка инвариантов одного задания в конструкторе Item. */
+@Name("jtd.ItemValidation")
+@Label("Item Validation")
+@Category({"JP Trainer", "Content"})
+@StackTrace(false)
+public final class ItemValidationEvent extends Event {
+
+    @Label("Sid")
+    public String sid;
+
+    @Label("Options")
+    public int options;
+}
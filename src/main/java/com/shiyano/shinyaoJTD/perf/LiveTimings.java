@@ -0,0 +1,81 @@
+package com.shiyano.shinyaoJTD.perf;
+
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Живые p50/p99 длительностей событий приложения по последним {@link #WINDOW} замерам каждого.
+ * Данные идут из потоковой записи JFR внутри процесса (сброс примерно раз в секунду), поэтому
+ * пока объект открыт, события включены; после {@link #close()} они снова ничего не стоят.
+ */
+public final class LiveTimings implements AutoCloseable {
+
+    /** Сводка по одному событию; count — сколько замеров было с начала наблюдения. */
+    public record Summary(String label, long count, double p50Millis, double p99Millis) {}
+
+    private static final int WINDOW = 1024;
+
+    private final RecordingStream stream = new RecordingStream();
+    // имя события → окно замеров, в порядке Perf.EVENTS
+    private final Map<String, Window> windows = new LinkedHashMap<>();
+
+    public LiveTimings() {
+        for (Class<? extends Event> type : Perf.EVENTS) {
+            EventType et = EventType.getEventType(type);
+            Window w = new Window(et.getLabel());
+            windows.put(et.getName(), w);
+            stream.enable(type).withoutThreshold();
+            stream.onEvent(et.getName(), e -> w.add(e.getDuration().toNanos()));
+        }
+        stream.startAsync();
+    }
+
+    public List<Summary> snapshot() {
+        List<Summary> out = new ArrayList<>(windows.size());
+        for (Window w : windows.values()) out.add(w.summary());
+        return out;
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    /** Кольцевой буфер длительностей; пишет поток записи, читает FX-поток. */
+    private static final class Window {
+        private final String label;
+        private final long[] nanos = new long[WINDOW];
+        private long count;
+
+        Window(String label) {
+            this.label = label;
+        }
+
+        synchronized void add(long duration) {
+            nanos[(int) (count++ % WINDOW)] = duration;
+        }
+
+        Summary summary() {
+            long[] sorted;
+            long n;
+            synchronized (this) {
+                n = count;
+                sorted = Arrays.copyOf(nanos, (int) Math.min(n, WINDOW));
+            }
+            if (sorted.length == 0) return new Summary(label, 0, 0, 0);
+            Arrays.sort(sorted);
+            return new Summary(label, n, percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.shiyano.shinyaoJTD.perf;
+
+import javafx.scene.Scene;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * События JDK Flight Recorder приложения и запись их в файл.
+ *
+ * <p>Пока ни одна запись не идёт (нет {@code --jfr}, оверлей закрыт), события выключены:
+ * {@code begin()/commit()} JIT сводит к проверке флага, а объект события не создаётся вовсе
+ * (escape analysis). Работу, нужную только событию (пульс-слушатели, подсчёты), вызывающие
+ * делают под {@link Event#isEnabled()}.
+ */
+public final class Perf {
+
+    /** Все события приложения — в порядке строк оверлея. */
+    public static final List<Class<? extends Event>> EVENTS = List.of(
+            ContentReadEvent.class,
+            ItemValidationEvent.class,
+            TokenizeEvent.class,
+            FuriganaRenderEvent.class,
+            SceneSwitchEvent.class,
+            AnswerFeedbackEvent.class);
+
+    private Perf() {}
+
+    /**
+     * Запись в .jfr: стандартный профиль JDK («default», накладные расходы около 1%) плюс все события
+     * приложения без порога. Файл пишется при {@link Recording#stop()} или выходе из JVM.
+     */
+    public static Recording startRecording(Path file) throws IOException, ParseException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName("JP Trainer");
+        for (Class<? extends Event> type : EVENTS) recording.enable(type).withoutThreshold();
+        recording.setToDisk(true);
+        recording.setDestination(file);
+        recording.setDumpOnExit(true);
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Закончить начатое событие в кадре, где результат впервые виден (FX-поток). Пока событие
+     * выключено, слушатель пульса не ставится вовсе.
+     */
+    public static void commitAfterNextLayout(Event event, Scene scene) {
+        if (scene == null || !event.isEnabled()) return;
+        afterNextLayout(scene, () -> {
+            event.end();
+            if (event.shouldCommit()) event.commit();
+        });
+    }
+
+    /**
+     * Выполнить action в конце раскладки ближайшего пульса сцены — в кадре, где изменения
+     * впервые видны пользователю (FX-поток).
+     */
+    public static void afterNextLayout(Scene scene, Runnable action) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            action.run();
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+}
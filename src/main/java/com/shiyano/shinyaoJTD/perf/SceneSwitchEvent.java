@@ -0,0 +1,14 @@
+package com.shiyano.shinyaoJTD.perf;
+
+import jdk.jfr.*;
+
+/** Переход между экранами: от решения сменить сцену до первой раскладки нового экрана. */
+@Name("jtd.SceneSwitch")
+@Label("Scene Switch")
+@Category({"JP Trainer", "UI"})
+@StackTrace(false)
+public final class SceneSwitchEvent extends Event {
+
+    @Label("Target")
+    public String target;
+}
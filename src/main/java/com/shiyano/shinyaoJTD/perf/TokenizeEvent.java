@@ -0,0 +1,20 @@
+package com.shiyano.shinyaoJTD.perf;
+
+import jdk.jfr.*;
+
+/** FuriganaService.tokenize: из кэша или через Kuromoji. */
+@Name("jtd.Tokenize")
+@Label("Tokenize")
+@Category({"JP Trainer", "Furigana"})
+@StackTrace(false)
+public final class TokenizeEvent extends Event {
+
+    @Label("Characters")
+    public int chars;
+
+    @Label("Tokens")
+    public int tokens;
+
+    @Label("Cached")
+    public boolean cached;
+}
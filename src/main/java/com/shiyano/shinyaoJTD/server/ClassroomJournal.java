@@ -0,0 +1,251 @@
+package com.shiyano.shinyaoJTD.server;
+
+import com.shiyano.shinyaoJTD.core.Answer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал ответов класса ({@code <папка данных>/classroom/classroom.log}): каждый ответ вместе
+ * с именем ученика, только дописывание. В отличие от {@link com.shiyano.shinyaoJTD.store.AnswerLog}
+ * журнал не сворачивается в итоги по заданиям — при старте сервера {@link #replay} читает его
+ * заново и восстанавливает результаты каждого ученика. Новый урок — новый файл: старый убирают вручную.
+ *
+ * <p>Запись: {@code [int длина][int CRC32][время, задержка, верно, ученик, sid, выбор]}.
+ * {@link #append} только кладёт ответ в очередь, фоновый поток пишет накопившееся одной пачкой
+ * с одним fsync. Недописанная или битая запись в конце (падение посреди записи) при открытии отрезается.
+ */
+final class ClassroomJournal implements AutoCloseable {
+
+    static final String FILE_NAME = "classroom.log";
+
+    /** Ответ ученика. */
+    record Entry(String student, Answer answer) {}
+
+    private static final int MAGIC = 0x4A54434A; // "JTCJ"
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+    // имя, sid и вариант — короткие строки; больше — длина прочитана из мусора
+    private static final int MAX_PAYLOAD = 8 * 1024;
+
+    private static final Object CLOSE = new Object();
+
+    private final FileChannel channel;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // конец целых записей при открытии: replay читает только их
+    private final long openedSize;
+    private final long restored;
+    private final long truncatedBytes;
+    private volatile boolean closed;
+    // только поток записи
+    private long appended;
+    private long batches;
+
+    private ClassroomJournal(FileChannel channel, long openedSize, long restored, long truncatedBytes) {
+        this.channel = channel;
+        this.openedSize = openedSize;
+        this.restored = restored;
+        this.truncatedBytes = truncatedBytes;
+        this.writer = new Thread(this::writeLoop, "classroom-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Открывает (или создаёт) журнал в каталоге; битый конец отрезается. */
+    static ClassroomJournal open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel ch = FileChannel.open(dir.resolve(FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (ch.size() < HEADER || !validHeader(ch)) {
+                if (ch.size() > 0) System.err.println(FILE_NAME + " has no valid header, starting a new journal");
+                ch.truncate(0);
+                ch.write(ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).flip(), 0);
+                ch.force(true);
+            }
+            long[] count = new long[1];
+            long end = HEADER + scan(read(ch, ch.size()), e -> count[0]++);
+            long truncated = ch.size() - end;
+            if (truncated > 0) {
+                System.err.printf("%s: dropped %d bytes of a torn or corrupt tail%n", FILE_NAME, truncated);
+                ch.truncate(end);
+                ch.force(true);
+            }
+            ch.position(end);
+            return new ClassroomJournal(ch, end, count[0], truncated);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Отдаёт в replay ответы, сохранённые до открытия, в порядке записи. Вызывать до первого
+     * {@link #append}, из одного потока.
+     */
+    void replay(Consumer<Entry> replay) throws IOException {
+        scan(read(channel, openedSize), replay);
+    }
+
+    /** Сколько ответов было в журнале при открытии. */
+    long restored() {
+        return restored;
+    }
+
+    long truncatedBytes() {
+        return truncatedBytes;
+    }
+
+    /** Ставит ответ в очередь на запись; не блокирует. */
+    void append(Entry entry) {
+        if (closed) throw new IllegalStateException("Classroom journal is closed");
+        queue.add(entry);
+    }
+
+    /** Дописывает очередь и ждёт, пока поток записи закроет файл. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Classroom journal: %d restored, %d appended in %d batches".formatted(restored, appended, batches);
+    }
+
+    // ===== поток записи =====
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        try {
+            boolean stop = false;
+            while (!stop) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                List<Entry> entries = new ArrayList<>(batch.size());
+                for (Object o : batch) {
+                    if (o == CLOSE) stop = true;
+                    else entries.add((Entry) o);
+                }
+                batch.clear();
+                if (entries.isEmpty()) continue;
+                try {
+                    writeBatch(entries);
+                } catch (IOException e) {
+                    System.err.println("Classroom journal write failed: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            // поток остановлен — файл всё равно закрываем
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Classroom journal close failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeBatch(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        CRC32 crc = new CRC32();
+        for (Entry e : entries) {
+            payload.reset();
+            encode(e, new DataOutputStream(payload));
+            byte[] p = payload.toByteArray();
+            crc.reset();
+            crc.update(p);
+            out.writeInt(p.length);
+            out.writeInt((int) crc.getValue());
+            out.write(p);
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+        while (buf.hasRemaining()) channel.write(buf);
+        channel.force(false);
+        appended += entries.size();
+        batches++;
+    }
+
+    // ===== формат =====
+
+    private static ByteBuffer read(FileChannel ch, long size) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(size - HEADER));
+        while (data.hasRemaining() && ch.read(data, HEADER + data.position()) >= 0) {
+            // дочитываем
+        }
+        return data.flip();
+    }
+
+    /** Разбирает записи до первой битой и возвращает длину целой части. */
+    private static int scan(ByteBuffer data, Consumer<Entry> sink) {
+        int good = 0;
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= RECORD_HEADER) {
+            int len = data.getInt();
+            int sum = data.getInt();
+            if (len <= 0 || len > MAX_PAYLOAD || len > data.remaining()) break;
+            crc.reset();
+            crc.update(data.array(), data.arrayOffset() + data.position(), len);
+            if ((int) crc.getValue() != sum) break;
+            Entry e;
+            try (DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(data.array(), data.arrayOffset() + data.position(), len))) {
+                e = decode(in);
+            } catch (IOException | RuntimeException ex) {
+                break; // CRC сошёлся, но запись не разбирается — считаем концом журнала
+            }
+            data.position(data.position() + len);
+            good = data.position();
+            sink.accept(e);
+        }
+        return good;
+    }
+
+    private static void encode(Entry e, DataOutputStream out) throws IOException {
+        Answer a = e.answer();
+        out.writeLong(a.timestamp());
+        out.writeInt(a.latencyMillis());
+        out.writeBoolean(a.correct());
+        out.writeUTF(e.student());
+        out.writeUTF(a.sid());
+        out.writeUTF(a.chosen());
+    }
+
+    private static Entry decode(DataInputStream in) throws IOException {
+        long timestamp = in.readLong();
+        int latency = in.readInt();
+        boolean correct = in.readBoolean();
+        String student = in.readUTF();
+        String sid = in.readUTF();
+        String chosen = in.readUTF();
+        return new Entry(student, new Answer(sid, chosen, correct, latency, timestamp));
+    }
+
+    private static boolean validHeader(FileChannel ch) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER);
+        ch.read(h, 0);
+        h.flip();
+        return h.remaining() == HEADER && h.getInt() == MAGIC && h.getInt() == VERSION;
+    }
+}
@@ -0,0 +1,187 @@
+package com.shiyano.shinyaoJTD.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Нагрузочный прогон сервера класса: тысячи модельных учеников одновременно, каждый в своём
+ * виртуальном потоке, ведут себя как страница браузера — темы, задания темы, затем ответы с паузой
+ * «на подумать». Печатает пропускную способность и перцентили задержки запросов.
+ *
+ * <pre>
+ * ClassroomLoadTest &lt;content-dir&gt; [students] [answers-per-student] [think-millis] [server-url]
+ * </pre>
+ *
+ * <p>Без server-url сервер поднимается в этом же процессе на свободном порту loopback (без журнала
+ * на диске), и в конце сверяется, что он учёл ровно столько ответов, сколько отправлено.
+ */
+public final class ClassroomLoadTest {
+
+    private static final int DEFAULT_STUDENTS = 2_000;
+    private static final int DEFAULT_ANSWERS = 20;
+    private static final int DEFAULT_THINK_MILLIS = 200;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 5) {
+            System.err.println("usage: ClassroomLoadTest <content-dir> [students] [answers-per-student] "
+                    + "[think-millis] [server-url]");
+            System.exit(2);
+        }
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STUDENTS;
+        int answers = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ANSWERS;
+        int think = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_THINK_MILLIS;
+
+        ObjectMapper mapper = new ObjectMapper();
+        ClassroomServer local = null;
+        URI base;
+        if (args.length > 4) {
+            base = URI.create(args[4].endsWith("/") ? args[4] : args[4] + "/");
+        } else {
+            ContentSnapshot content;
+            try (ContentStore store = new ContentStore(Path.of(args[0]))) {
+                content = ContentSnapshot.load(store, mapper);
+            }
+            local = ClassroomServer.start(content, mapper,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+            base = URI.create("http://127.0.0.1:" + local.port() + "/");
+        }
+        try {
+            new ClassroomLoadTest(base, mapper).run(students, answers, think, local);
+        } finally {
+            if (local != null) local.close();
+        }
+    }
+
+    private final URI base;
+    private final ObjectMapper mapper;
+    private final HttpClient client;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder sentAnswers = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    // задержки запросов, мкс: у каждого ученика свой массив, сводятся в конце
+    private final Queue<long[]> latencies = new ConcurrentLinkedQueue<>();
+
+    private ClassroomLoadTest(URI base, ObjectMapper mapper) {
+        this.base = base;
+        this.mapper = mapper;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private void run(int students, int answers, int think, ClassroomServer local) throws InterruptedException {
+        CountDownLatch go = new CountDownLatch(1);
+        long started;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < students; s++) {
+                String name = "student-" + s;
+                pool.submit(() -> {
+                    go.await();
+                    student(name, answers, think);
+                    return null;
+                });
+            }
+            started = System.nanoTime();
+            go.countDown(); // весь класс подключается разом
+        }
+        long nanos = System.nanoTime() - started;
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).filter(l -> l >= 0).sorted().toArray();
+        double seconds = nanos / 1e9;
+        System.out.printf("%d students x %d answers, think %d ms: %d requests (%d answers) in %.1f s, %d failed%n",
+                students, answers, think, requests.sum(), sentAnswers.sum(), seconds, failures.sum());
+        System.out.printf("%.0f requests/s, %.0f answers/s%n", requests.sum() / seconds, sentAnswers.sum() / seconds);
+        if (all.length > 0) {
+            System.out.printf("latency p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    quantile(all, 0.50), quantile(all, 0.95), quantile(all, 0.99), all[all.length - 1] / 1000.0);
+        }
+        if (local != null) {
+            System.out.printf("server recorded %d answers from %d students%s%n",
+                    local.results().answers(), local.results().students(),
+                    local.results().answers() == sentAnswers.sum() ? "" : " — MISMATCH");
+        }
+    }
+
+    /** Один ученик: темы, задания случайной темы, answers ответов со случайным выбором. */
+    private void student(String name, int answers, int think) {
+        long[] mine = new long[answers + 2];
+        Arrays.fill(mine, -1);
+        latencies.add(mine);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            JsonNode topics = get("api/topics", mine, 0);
+            if (topics == null || topics.isEmpty()) return;
+            String topic = topics.get(random.nextInt(topics.size())).path("code").asText();
+            JsonNode items = get("api/items?topic=" + URLEncoder.encode(topic, StandardCharsets.UTF_8), mine, 1);
+            if (items == null || items.isEmpty()) return;
+            for (int a = 0; a < answers; a++) {
+                if (think > 0) Thread.sleep(random.nextInt(think / 2, think * 3 / 2 + 1));
+                JsonNode item = items.get(a % items.size());
+                JsonNode options = item.path("options");
+                var body = mapper.createObjectNode();
+                body.put("student", name);
+                body.put("sid", item.path("sid").asText());
+                body.put("chosen", options.get(random.nextInt(options.size())).asText());
+                body.put("latencyMillis", think);
+                if (post("api/answer", mapper.writeValueAsBytes(body), mine, a + 2) != null) sentAnswers.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failures.increment();
+        }
+    }
+
+    private JsonNode get(String path, long[] latency, int slot) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(base.resolve(path)).GET().build(), latency, slot);
+    }
+
+    private JsonNode post(String path, byte[] body, long[] latency, int slot) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(), latency, slot);
+    }
+
+    /** null — запрос не удался (считается в failures). */
+    private JsonNode send(HttpRequest request, long[] latency, int slot) throws IOException, InterruptedException {
+        long t0 = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            failures.increment();
+            return null;
+        }
+        latency[slot] = (System.nanoTime() - t0) / 1_000;
+        requests.increment();
+        if (response.statusCode() != 200) {
+            failures.increment();
+            return null;
+        }
+        return mapper.readTree(response.body());
+    }
+
+    private static double quantile(long[] sorted, double q) {
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(q * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1000.0;
+    }
+}
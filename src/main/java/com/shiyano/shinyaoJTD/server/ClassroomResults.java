@@ -0,0 +1,153 @@
+package com.shiyano.shinyaoJTD.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shiyano.shinyaoJTD.core.Answer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Результаты класса, которые пишут одновременно сотни обработчиков запросов — без общей
+ * блокировки: ученики лежат в {@link ConcurrentHashMap} (у каждого свои атомарные счётчики),
+ * счётчики заданий и тем — в {@link AtomicIntegerArray} по плотным номерам снимка контента,
+ * общие итоги — в {@link LongAdder}. Ответ вместе с именем ученика может дополнительно уйти
+ * в журнал ({@link ClassroomJournal}), из которого результаты восстанавливаются после перезапуска.
+ *
+ * <p>Отчёт читает счётчики по одному, без остановки записи, — это мгновенный, а не
+ * транзакционный снимок, для экрана учителя этого достаточно.
+ */
+final class ClassroomResults {
+
+    /** Длиннее имя ученика не принимается. */
+    static final int MAX_STUDENT_NAME = 64;
+    private static final int HARDEST_ITEMS = 10;
+
+    private static final class Student {
+        final AtomicLong attempts = new AtomicLong();
+        final AtomicLong correct = new AtomicLong();
+        final AtomicLong latencyMillis = new AtomicLong();
+    }
+
+    private final ContentSnapshot content;
+    private final Consumer<ClassroomJournal.Entry> journal;
+    private final ConcurrentHashMap<String, Student> students = new ConcurrentHashMap<>();
+    private final AtomicIntegerArray itemAttempts;
+    private final AtomicIntegerArray itemCorrect;
+    private final AtomicIntegerArray topicAttempts;
+    private final AtomicIntegerArray topicCorrect;
+    private final LongAdder answers = new LongAdder();
+    private final LongAdder correct = new LongAdder();
+
+    /** @param journal куда ещё отдать ответ (журнал на диске) или null */
+    ClassroomResults(ContentSnapshot content, Consumer<ClassroomJournal.Entry> journal) {
+        this.content = content;
+        this.journal = journal;
+        this.itemAttempts = new AtomicIntegerArray(content.itemCount());
+        this.itemCorrect = new AtomicIntegerArray(content.itemCount());
+        this.topicAttempts = new AtomicIntegerArray(content.topics().size());
+        this.topicCorrect = new AtomicIntegerArray(content.topics().size());
+    }
+
+    void record(String student, ContentSnapshot.Verdict verdict, String chosen, int latencyMillis, long now) {
+        count(student, verdict, latencyMillis);
+        if (journal != null) {
+            Answer a = new Answer(verdict.entry().item().sid(), chosen, verdict.correct(), latencyMillis, now);
+            journal.accept(new ClassroomJournal.Entry(student, a));
+        }
+    }
+
+    /**
+     * Ответ из журнала прошлого запуска: учитывается заново по текущему контенту, в журнал не пишется.
+     * false — задания больше нет или выбранного варианта в нём нет (контент правили между запусками).
+     */
+    boolean restore(ClassroomJournal.Entry entry) {
+        Answer a = entry.answer();
+        ContentSnapshot.Verdict verdict;
+        try {
+            verdict = content.check(a.sid(), a.chosen());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (verdict == null) return false;
+        count(entry.student(), verdict, a.latencyMillis());
+        return true;
+    }
+
+    private void count(String student, ContentSnapshot.Verdict verdict, int latencyMillis) {
+        Student s = students.computeIfAbsent(student, name -> new Student());
+        int hit = verdict.correct() ? 1 : 0;
+        s.attempts.incrementAndGet();
+        s.correct.addAndGet(hit);
+        s.latencyMillis.addAndGet(latencyMillis);
+        ContentSnapshot.Entry e = verdict.entry();
+        itemAttempts.incrementAndGet(e.index());
+        itemCorrect.addAndGet(e.index(), hit);
+        topicAttempts.incrementAndGet(e.topic());
+        topicCorrect.addAndGet(e.topic(), hit);
+        answers.increment();
+        correct.add(hit);
+    }
+
+    long answers() {
+        return answers.sum();
+    }
+
+    int students() {
+        return students.size();
+    }
+
+    /** Отчёт учителю: итоги, ученики, темы и самые трудные задания. */
+    ObjectNode report(ObjectMapper mapper) {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("answers", answers.sum());
+        root.put("correct", correct.sum());
+
+        ArrayNode studentList = root.putArray("students");
+        students.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            Student s = entry.getValue();
+            long attempts = s.attempts.get();
+            ObjectNode node = studentList.addObject();
+            node.put("name", entry.getKey());
+            node.put("attempts", attempts);
+            node.put("correct", s.correct.get());
+            node.put("meanLatencyMillis", attempts == 0 ? 0 : s.latencyMillis.get() / attempts);
+        });
+
+        ArrayNode topicList = root.putArray("topics");
+        for (int t = 0; t < topicAttempts.length(); t++) {
+            ObjectNode node = topicList.addObject();
+            node.put("code", content.topic(t).code());
+            node.put("title", content.topic(t).title());
+            node.put("attempts", topicAttempts.get(t));
+            node.put("correct", topicCorrect.get(t));
+        }
+
+        // счётчики фиксируются до сортировки: пока идёт отчёт, ответы продолжают приходить
+        record Tally(ContentSnapshot.Entry entry, int attempts, int correct) {}
+        List<Tally> answered = new ArrayList<>();
+        for (ContentSnapshot.Entry e : content.entries()) {
+            int attempts = itemAttempts.get(e.index());
+            if (attempts > 0) answered.add(new Tally(e, attempts, itemCorrect.get(e.index())));
+        }
+        answered.sort(Comparator.comparingDouble((Tally t) -> (double) t.correct() / t.attempts())
+                .thenComparingInt(t -> -t.attempts()));
+        ArrayNode hardest = root.putArray("hardest");
+        for (Tally t : answered.subList(0, Math.min(HARDEST_ITEMS, answered.size()))) {
+            ObjectNode node = hardest.addObject();
+            node.put("sid", t.entry().item().sid());
+            node.put("jp", t.entry().item().jp());
+            node.put("attempts", t.attempts());
+            node.put("correct", t.correct());
+        }
+        return root;
+    }
+}
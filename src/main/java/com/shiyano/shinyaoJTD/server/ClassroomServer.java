@@ -0,0 +1,289 @@
+package com.shiyano.shinyaoJTD.server;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shiyano.shinyaoJTD.AppPaths;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Режим сервера для класса: один экземпляр на компьютере учителя, ученики заходят браузером
+ * по локальной сети. Без окна — запускается рядом с {@link com.shiyano.shinyaoJTD.Main}.
+ *
+ * <pre>
+ * ClassroomServer &lt;content-dir&gt; [port]
+ * </pre>
+ *
+ * <p>Встроенный {@link HttpServer} JDK, каждый запрос — в своём виртуальном потоке. Темы и задания
+ * отдаются из одного неизменяемого {@link ContentSnapshot} (JSON закодирован заранее), ответ
+ * проверяется на сервере по {@link com.shiyano.shinyaoJTD.core.Item#correctSet()} и пишется
+ * в {@link ClassroomResults} без общей блокировки, а также вместе с именем ученика в журнал
+ * {@code <папка данных>/classroom/classroom.log}: после перезапуска результаты урока восстанавливаются из него.
+ *
+ * <ul>
+ *   <li>{@code GET /} — страница ученика;</li>
+ *   <li>{@code GET /api/topics} — темы;</li>
+ *   <li>{@code GET /api/items?topic=<code>} — задания темы без ответов;</li>
+ *   <li>{@code POST /api/answer} — {@code {"student", "sid", "chosen", "latencyMillis"}} →
+ *       {@code {"correct", "correctOptions", "explanation"}};</li>
+ *   <li>{@code GET /api/results} — сводка для учителя.</li>
+ * </ul>
+ */
+public final class ClassroomServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8080;
+    /** Очередь входящих соединений: на старте урока подключается весь класс разом. */
+    private static final int BACKLOG = 4096;
+    private static final int MAX_BODY = 4096;
+    private static final int MAX_LATENCY_MILLIS = 600_000;
+    private static final long SHUTDOWN_SECONDS = 10;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private static final byte[] STUDENT_PAGE = loadPage();
+
+    private final HttpServer http;
+    private final ExecutorService requests;
+    private final ContentSnapshot content;
+    private final ClassroomResults results;
+    private final ObjectMapper mapper;
+
+    private ClassroomServer(HttpServer http, ExecutorService requests, ContentSnapshot content,
+                            ClassroomResults results, ObjectMapper mapper) {
+        this.http = http;
+        this.requests = requests;
+        this.content = content;
+        this.results = results;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Поднимает сервер над готовым снимком контента.
+     *
+     * @param journal куда ещё отдавать проверенные ответы (журнал на диске) или null
+     */
+    static ClassroomServer start(ContentSnapshot content, ObjectMapper mapper, InetSocketAddress address,
+                                 Consumer<ClassroomJournal.Entry> journal) throws IOException {
+        return start(new ClassroomResults(content, journal), content, mapper, address);
+    }
+
+    private static ClassroomServer start(ClassroomResults results, ContentSnapshot content, ObjectMapper mapper,
+                                         InetSocketAddress address) throws IOException {
+        HttpServer http = HttpServer.create(address, BACKLOG);
+        ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+        http.setExecutor(requests);
+        ClassroomServer server = new ClassroomServer(http, requests, content, results, mapper);
+        http.createContext("/", server::handle);
+        http.start();
+        return server;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: ClassroomServer <content-dir> [port]");
+            System.exit(2);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        ObjectMapper mapper = new ObjectMapper();
+        ContentSnapshot content;
+        try (ContentStore store = new ContentStore(Path.of(args[0]))) {
+            content = ContentSnapshot.load(store, mapper);
+        }
+        // результаты урока переживают перезапуск: журнал читается в них до приёма запросов
+        ClassroomJournal journal = ClassroomJournal.open(AppPaths.dataDir().resolve("classroom"));
+        ClassroomResults results = new ClassroomResults(content, journal::append);
+        long[] skipped = new long[1];
+        journal.replay(e -> {
+            if (!results.restore(e)) skipped[0]++;
+        });
+        ClassroomServer server = start(results, content, mapper, new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            journal.close();
+            System.out.println(journal);
+        }, "classroom-shutdown"));
+
+        System.out.printf("Classroom server: %d topics, %d items%n", content.topics().size(), content.itemCount());
+        if (journal.restored() > 0) {
+            System.out.printf("Restored %d answers from %d students (%d no longer match the content)%n",
+                    journal.restored() - skipped[0], results.students(), skipped[0]);
+        }
+        System.out.printf("Students: http://%s:%d/   teacher: /api/results%n",
+                InetAddress.getLocalHost().getHostAddress(), server.port());
+    }
+
+    int port() {
+        return http.getAddress().getPort();
+    }
+
+    ClassroomResults results() {
+        return results;
+    }
+
+    /**
+     * Останавливает приём и ждёт запросы, что уже в работе (до нескольких секунд): после возврата
+     * в результаты и журнал никто не пишет, и журнал можно закрывать.
+     */
+    @Override
+    public void close() {
+        http.stop(1);
+        requests.shutdown();
+        try {
+            if (!requests.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Classroom requests still running after " + SHUTDOWN_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== запросы =====
+
+    private void handle(HttpExchange ex) {
+        try (ex) {
+            String path = ex.getRequestURI().getPath();
+            String method = ex.getRequestMethod();
+            switch (path) {
+                case "/", "/index.html" -> {
+                    if (!allow(ex, method, "GET")) return;
+                    send(ex, 200, "text/html; charset=utf-8", STUDENT_PAGE);
+                }
+                case "/api/topics" -> {
+                    if (!allow(ex, method, "GET")) return;
+                    send(ex, 200, JSON, content.topicsJson());
+                }
+                case "/api/items" -> {
+                    if (!allow(ex, method, "GET")) return;
+                    String topic = queryParam(ex, "topic");
+                    byte[] items = topic == null ? null : content.itemsJson(topic);
+                    if (items == null) {
+                        error(ex, 404, "unknown topic: " + topic);
+                    } else {
+                        send(ex, 200, JSON, items);
+                    }
+                }
+                case "/api/answer" -> {
+                    if (!allow(ex, method, "POST")) return;
+                    answer(ex);
+                }
+                case "/api/results" -> {
+                    if (!allow(ex, method, "GET")) return;
+                    send(ex, 200, JSON, mapper.writeValueAsBytes(results.report(mapper)));
+                }
+                default -> error(ex, 404, "not found: " + path);
+            }
+        } catch (IOException e) {
+            // соединение с учеником оборвалось (закрыл вкладку, ушёл из сети) — отвечать некому
+        } catch (RuntimeException e) {
+            System.err.println("Classroom request failed: " + e);
+        }
+    }
+
+    private void answer(HttpExchange ex) throws IOException {
+        JsonNode body;
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] raw = in.readNBytes(MAX_BODY + 1);
+            if (raw.length > MAX_BODY) {
+                error(ex, 413, "request body is too large");
+                return;
+            }
+            body = mapper.readTree(raw);
+        } catch (JacksonException e) {
+            error(ex, 400, "malformed JSON");
+            return;
+        }
+        if (body == null) body = MissingNode.getInstance(); // пустое тело
+        String student = body.path("student").asText("").strip();
+        String sid = body.path("sid").asText("");
+        String chosen = body.path("chosen").asText("");
+        if (student.isEmpty() || student.length() > ClassroomResults.MAX_STUDENT_NAME) {
+            error(ex, 400, "student name must be 1–" + ClassroomResults.MAX_STUDENT_NAME + " characters");
+            return;
+        }
+        int latency = (int) Math.max(0, Math.min(body.path("latencyMillis").asLong(0), MAX_LATENCY_MILLIS));
+
+        ContentSnapshot.Verdict verdict;
+        try {
+            verdict = content.check(sid, chosen);
+        } catch (IllegalArgumentException e) {
+            error(ex, 400, e.getMessage());
+            return;
+        }
+        if (verdict == null) {
+            error(ex, 404, "unknown sid: " + sid);
+            return;
+        }
+        results.record(student, verdict, chosen, latency, System.currentTimeMillis());
+
+        ObjectNode reply = mapper.createObjectNode();
+        reply.put("correct", verdict.correct());
+        var options = reply.putArray("correctOptions");
+        // в порядке вариантов — так их удобнее подсветить
+        for (String option : verdict.entry().item().options()) {
+            if (verdict.entry().correct().contains(option)) options.add(option);
+        }
+        reply.put("explanation", verdict.explanation());
+        send(ex, 200, JSON, mapper.writeValueAsBytes(reply));
+    }
+
+    private boolean allow(HttpExchange ex, String method, String expected) throws IOException {
+        if (method.equals(expected)) return true;
+        ex.getResponseHeaders().set("Allow", expected);
+        error(ex, 405, "method not allowed: " + method);
+        return false;
+    }
+
+    private void error(HttpExchange ex, int status, String message) throws IOException {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("error", message);
+        send(ex, status, JSON, mapper.writeValueAsBytes(node));
+    }
+
+    private static void send(HttpExchange ex, int status, String type, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", type);
+        ex.getResponseHeaders().set("Cache-Control", "no-store");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String queryParam(HttpExchange ex, String name) {
+        String query = ex.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static byte[] loadPage() {
+        try (InputStream in = ClassroomServer.class.getResourceAsStream("classroom.html")) {
+            if (in == null) throw new IllegalStateException("classroom.html is missing from the classpath");
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
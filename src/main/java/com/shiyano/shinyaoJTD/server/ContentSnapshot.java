@@ -0,0 +1,122 @@
+package com.shiyano.shinyaoJTD.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.Topic;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Неизменяемый снимок контента для сервера класса: все темы и задания читаются из
+ * {@link ContentStore} один раз при старте, ответы для учеников кодируются в JSON заранее.
+ * Дальше снимок только читается из любого числа потоков без синхронизации; правки контента
+ * подхватываются перезапуском сервера.
+ *
+ * <p>Ученикам уходят только sid, фраза, перевод и варианты — верный ответ и пояснения
+ * остаются на сервере (см. {@link #check}).
+ */
+final class ContentSnapshot {
+
+    /** Задание с его темой, плотным номером (для счётчиков) и заранее разобранным набором верных. */
+    record Entry(Item item, int index, int topic, Set<String> correct) {}
+
+    /** Проверка ответа: correct — верно ли, explanation — пояснение автора или пустая строка. */
+    record Verdict(Entry entry, boolean correct, String explanation) {}
+
+    private final List<Topic> topics;
+    private final Map<String, Entry> bySid;
+    private final List<Entry> entries;
+    private final byte[] topicsJson;
+    private final Map<String, byte[]> itemsJson;
+
+    private ContentSnapshot(List<Topic> topics, Map<String, Entry> bySid,
+                            List<Entry> entries, byte[] topicsJson, Map<String, byte[]> itemsJson) {
+        this.topics = topics;
+        this.bySid = bySid;
+        this.entries = entries;
+        this.topicsJson = topicsJson;
+        this.itemsJson = itemsJson;
+    }
+
+    /** Читает весь контент; sid, встретившийся в нескольких темах, относится к первой. */
+    static ContentSnapshot load(ContentStore store, ObjectMapper mapper) throws IOException {
+        List<Topic> topics = store.loadTopics();
+        Map<String, Entry> bySid = new HashMap<>();
+        List<Entry> entries = new ArrayList<>();
+        Map<String, byte[]> itemsJson = new HashMap<>();
+        ArrayNode topicList = mapper.createArrayNode();
+        for (int t = 0; t < topics.size(); t++) {
+            Topic topic = topics.get(t);
+            List<Item> items = store.loadItemsFor(topic.code());
+            ArrayNode publicItems = mapper.createArrayNode();
+            for (Item it : items) {
+                if (bySid.containsKey(it.sid())) continue;
+                Entry e = new Entry(it, entries.size(), t, Set.copyOf(it.correctSet()));
+                bySid.put(it.sid(), e);
+                entries.add(e);
+                ObjectNode node = publicItems.addObject();
+                node.put("sid", it.sid());
+                node.put("jp", it.jp());
+                if (it.gloss() != null) node.put("gloss", it.gloss());
+                ArrayNode options = node.putArray("options");
+                it.options().forEach(options::add);
+            }
+            itemsJson.put(topic.code(), mapper.writeValueAsBytes(publicItems));
+
+            ObjectNode node = topicList.addObject();
+            node.put("code", topic.code());
+            node.put("title", topic.title());
+            ArrayNode particles = node.putArray("particles");
+            topic.particles().forEach(particles::add);
+            node.put("items", publicItems.size());
+        }
+        return new ContentSnapshot(List.copyOf(topics), Map.copyOf(bySid),
+                List.copyOf(entries), mapper.writeValueAsBytes(topicList), Map.copyOf(itemsJson));
+    }
+
+    List<Topic> topics() {
+        return topics;
+    }
+
+    /** Все задания в порядке плотных номеров. */
+    List<Entry> entries() {
+        return entries;
+    }
+
+    int itemCount() {
+        return entries.size();
+    }
+
+    /** JSON-массив тем: code, title, particles, items. */
+    byte[] topicsJson() {
+        return topicsJson;
+    }
+
+    /** JSON-массив заданий темы без ответов; null — такой темы нет. */
+    byte[] itemsJson(String topicCode) {
+        return itemsJson.get(topicCode);
+    }
+
+    Topic topic(int index) {
+        return topics.get(index);
+    }
+
+    /**
+     * Проверяет ответ по {@link Item#correctSet()}; null — нет такого задания.
+     *
+     * @throws IllegalArgumentException если chosen — не один из вариантов задания
+     */
+    Verdict check(String sid, String chosen) {
+        Entry e = bySid.get(sid);
+        if (e == null) return null;
+        Item it = e.item();
+        if (!it.options().contains(chosen)) throw new IllegalArgumentException("not an option of " + sid + ": " + chosen);
+        boolean ok = e.correct().contains(chosen);
+        String why = ok ? it.whyCorrect() : it.whyWrong() == null ? null : it.whyWrong().get(chosen);
+        return new Verdict(e, ok, why == null ? "" : why);
+    }
+}
@@ -0,0 +1,423 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.Answer;
+import com.shiyano.shinyaoJTD.core.AnswerTotals;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал ответов ученика (answers.log в папке данных) — только дописывание.
+ *
+ * <p>Запись: {@code [int длина][int CRC32][seq, время, задержка, верно, sid, выбор]}.
+ * {@link #append} только кладёт ответ в очередь; фоновый поток пишет всё накопившееся
+ * одной пачкой и делает один fsync на пачку (group commit), так что FX-поток диска не ждёт.
+ *
+ * <p>Каждые {@code jtd.answers.compactEvery} ответов (и при закрытии) свёртка {@link AnswerTotals}
+ * сохраняется в answers.snapshot вместе с номером последней учтённой записи, после чего журнал
+ * обрезается: время открытия зависит от числа заданий, а не от длины истории. Если процесс упал
+ * между снимком и обрезкой, записи с номером не больше снимка при чтении пропускаются.
+ *
+ * <p>При открытии недописанная или битая запись в конце журнала (падение посреди записи)
+ * отрезается, всё до неё сохраняется.
+ */
+public final class AnswerLog implements AutoCloseable {
+
+    public static final String LOG_FILE = "answers.log";
+    public static final String SNAPSHOT_FILE = "answers.snapshot";
+
+    /** Счётчики для отчёта: сколько ответов записано, сколько было fsync, что нашлось при открытии. */
+    public record Stats(long appended, long batches, long compactions, long replayed, long truncatedBytes,
+                        long openMillis) {
+        @Override
+        public String toString() {
+            return "Answer log: %d appended in %d batches (%.1f per fsync), %d compactions; open %d ms, replayed %d, truncated %d bytes"
+                    .formatted(appended, batches, batches == 0 ? 0.0 : (double) appended / batches,
+                            compactions, openMillis, replayed, truncatedBytes);
+        }
+    }
+
+    private static final int LOG_MAGIC = 0x4A54414C;  // "JTAL"
+    private static final int SNAP_MAGIC = 0x4A544153; // "JTAS"
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+    /** Предел sid и варианта в байтах UTF-8: запись с ними должна уложиться в MAX_PAYLOAD. */
+    public static final int MAX_STRING_BYTES = 1024;
+    // sid и вариант — короткие строки; больше — значит, длина прочитана из мусора
+    private static final int MAX_PAYLOAD = 8 * 1024;
+    private static final int COMPACT_EVERY = Math.max(1, Integer.getInteger("jtd.answers.compactEvery", 50_000));
+
+    private static final Object CLOSE = new Object();
+
+    private final Path snapshotFile;
+    private final FileChannel channel;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // свёртку читают из FX-потока, а дополняет фоновый — доступ под lock
+    private final Object lock = new Object();
+    private final AnswerTotals totals;
+
+    // дальше — только поток записи
+    private long seq;
+    private long sinceSnapshot;
+    private long appended;
+    private long batches;
+    private long compactions;
+
+    private final long replayed;
+    private final long truncatedBytes;
+    private final long openMillis;
+    private volatile boolean closed;
+
+    private AnswerLog(Path snapshotFile, FileChannel channel, AnswerTotals totals, long seq, long sinceSnapshot,
+                      long replayed, long truncatedBytes, long openMillis) {
+        this.snapshotFile = snapshotFile;
+        this.channel = channel;
+        this.totals = totals;
+        this.seq = seq;
+        this.sinceSnapshot = sinceSnapshot;
+        this.replayed = replayed;
+        this.truncatedBytes = truncatedBytes;
+        this.openMillis = openMillis;
+        this.writer = new Thread(this::writeLoop, "answer-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Открывает (или создаёт) журнал в каталоге: снимок + хвост журнала, битый конец отрезается. */
+    public static AnswerLog open(Path dir) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(dir);
+        Path snapshotFile = dir.resolve(SNAPSHOT_FILE);
+        Path logFile = dir.resolve(LOG_FILE);
+
+        AnswerTotals totals = new AnswerTotals();
+        long snapshotSeq = readSnapshot(snapshotFile, totals);
+
+        FileChannel ch = FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (ch.size() < HEADER || !validHeader(ch)) {
+                if (ch.size() > 0) {
+                    System.err.println(LOG_FILE + " has no valid header, starting a new log");
+                }
+                ch.truncate(0);
+                ch.write(ByteBuffer.allocate(HEADER).putInt(LOG_MAGIC).putInt(VERSION).flip(), 0);
+                ch.force(true);
+            }
+
+            ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(ch.size() - HEADER));
+            while (data.hasRemaining() && ch.read(data, HEADER + data.position()) >= 0) {
+                // дочитываем
+            }
+            data.flip();
+
+            long seq = snapshotSeq;
+            long replayed = 0;
+            long since = 0;
+            CRC32 crc = new CRC32();
+            int good = 0;
+            while (data.remaining() >= RECORD_HEADER) {
+                int len = data.getInt();
+                int sum = data.getInt();
+                if (len <= 0 || len > MAX_PAYLOAD || len > data.remaining()) break;
+                crc.reset();
+                crc.update(data.array(), data.arrayOffset() + data.position(), len);
+                if ((int) crc.getValue() != sum) break;
+                ByteBuffer payload = data.slice(data.position(), len);
+                data.position(data.position() + len);
+                long recordSeq;
+                Answer a;
+                try {
+                    recordSeq = payload.getLong();
+                    a = decode(payload);
+                } catch (RuntimeException e) {
+                    break; // CRC сошёлся, но запись не разбирается — считаем концом журнала
+                }
+                good = data.position();
+                if (recordSeq <= snapshotSeq) continue; // уже в снимке (упали до обрезки журнала)
+                totals.apply(a);
+                seq = Math.max(seq, recordSeq);
+                replayed++;
+                since++;
+            }
+
+            long end = HEADER + good;
+            long truncated = ch.size() - end;
+            if (truncated > 0) {
+                System.err.printf("%s: dropped %d bytes of a torn or corrupt tail%n", LOG_FILE, truncated);
+                ch.truncate(end);
+                ch.force(true);
+            }
+            ch.position(end);
+            return new AnswerLog(snapshotFile, ch, totals, seq, since, replayed, truncated,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ставит ответ в очередь на запись; не блокирует.
+     *
+     * @throws IllegalArgumentException если sid или вариант длиннее {@link #MAX_STRING_BYTES} байт UTF-8
+     */
+    public void append(Answer answer) {
+        if (closed) throw new IllegalStateException("Answer log is closed");
+        checkLength("sid", answer.sid());
+        checkLength("chosen", answer.chosen());
+        queue.add(answer);
+    }
+
+    /** Завершается, когда всё, что добавлено до вызова, записано и сброшено на диск. */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (closed) {
+            done.complete(null);
+        } else {
+            queue.add(done);
+        }
+        return done;
+    }
+
+    /** Копия свёртки всех записанных ответов. */
+    public AnswerTotals totals() {
+        synchronized (lock) {
+            return totals.copy();
+        }
+    }
+
+    public Stats stats() {
+        synchronized (lock) {
+            return new Stats(appended, batches, compactions, replayed, truncatedBytes, openMillis);
+        }
+    }
+
+    /**
+     * Дописывает очередь, делает снимок и ждёт, пока поток записи закроет файл. Файл закрывает только
+     * поток записи, после последней пачки и снимка, — иначе оборвалась бы запись посреди пачки.
+     * Прерывание закрывающего потока не обрывает запись: она доделывается в фоне.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== поток записи =====
+
+    private void writeLoop() {
+        try {
+            writeUntilClosed();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Answer log close failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeUntilClosed() {
+        List<Object> batch = new ArrayList<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            // всё, что накопилось, пока шёл предыдущий fsync, уходит одной пачкой
+            queue.drainTo(batch);
+
+            List<Answer> answers = new ArrayList<>(batch.size());
+            List<CompletableFuture<Void>> flushes = new ArrayList<>();
+            for (Object o : batch) {
+                if (o instanceof Answer a) answers.add(a);
+                else if (o == CLOSE) stop = true;
+                else {
+                    @SuppressWarnings("unchecked")
+                    CompletableFuture<Void> f = (CompletableFuture<Void>) o;
+                    flushes.add(f);
+                }
+            }
+            batch.clear();
+
+            IOException failure = null;
+            try {
+                if (!answers.isEmpty()) writeBatch(answers);
+                if (sinceSnapshot >= COMPACT_EVERY || (stop && sinceSnapshot > 0)) compact();
+            } catch (IOException e) {
+                failure = e;
+                System.err.println("Answer log write failed: " + e.getMessage());
+            }
+            for (CompletableFuture<Void> f : flushes) {
+                if (failure == null) f.complete(null);
+                else f.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void writeBatch(List<Answer> answers) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(answers.size());
+        int bytes = 0;
+        long next = seq;
+        for (Answer a : answers) {
+            byte[] p = encode(++next, a);
+            payloads.add(p);
+            bytes += RECORD_HEADER + p.length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(bytes);
+        CRC32 crc = new CRC32();
+        for (byte[] p : payloads) {
+            crc.reset();
+            crc.update(p);
+            buf.putInt(p.length).putInt((int) crc.getValue()).put(p);
+        }
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        channel.force(false);
+
+        seq = next;
+        sinceSnapshot += answers.size();
+        synchronized (lock) {
+            for (Answer a : answers) totals.apply(a);
+            appended += answers.size();
+            batches++;
+        }
+    }
+
+    /** Снимок свёртки с номером последней записи, затем журнал обрезается до заголовка. */
+    private void compact() throws IOException {
+        AnswerTotals copy;
+        synchronized (lock) {
+            copy = totals.copy();
+        }
+        writeSnapshot(snapshotFile, copy, seq);
+        channel.truncate(HEADER);
+        channel.position(HEADER);
+        channel.force(true);
+        sinceSnapshot = 0;
+        synchronized (lock) {
+            compactions++;
+        }
+    }
+
+    // ===== формат =====
+
+    private static void checkLength(String field, String value) {
+        int bytes = value.getBytes(StandardCharsets.UTF_8).length;
+        if (bytes > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException(field + " is " + bytes + " bytes, at most " + MAX_STRING_BYTES + " fit a record");
+        }
+    }
+
+    private static byte[] encode(long seq, Answer a) {
+        byte[] sid = a.sid().getBytes(StandardCharsets.UTF_8);
+        byte[] chosen = a.chosen().getBytes(StandardCharsets.UTF_8);
+        // append уже проверил; запись длиннее MAX_PAYLOAD при чтении сочли бы битым хвостом
+        if (sid.length > MAX_STRING_BYTES || chosen.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("answer strings do not fit a record");
+        }
+        ByteBuffer b = ByteBuffer.allocate(8 + 8 + 4 + 1 + 2 + sid.length + 2 + chosen.length);
+        b.putLong(seq).putLong(a.timestamp()).putInt(a.latencyMillis()).put((byte) (a.correct() ? 1 : 0));
+        b.putShort((short) sid.length).put(sid);
+        b.putShort((short) chosen.length).put(chosen);
+        return b.array();
+    }
+
+    /** Разбирает запись после поля seq. */
+    private static Answer decode(ByteBuffer b) {
+        long timestamp = b.getLong();
+        int latency = b.getInt();
+        boolean correct = b.get() != 0;
+        String sid = string(b);
+        String chosen = string(b);
+        return new Answer(sid, chosen, correct, latency, timestamp);
+    }
+
+    private static String string(ByteBuffer b) {
+        byte[] bytes = new byte[Short.toUnsignedInt(b.getShort())];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean validHeader(FileChannel ch) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER);
+        ch.read(h, 0);
+        h.flip();
+        return h.remaining() == HEADER && h.getInt() == LOG_MAGIC && h.getInt() == VERSION;
+    }
+
+    /** Читает снимок в totals и возвращает номер последней учтённой записи (0 — снимка нет). */
+    private static long readSnapshot(Path file, AnswerTotals totals) throws IOException {
+        if (!Files.isRegularFile(file)) return 0;
+        byte[] all = Files.readAllBytes(file);
+        CRC32 crc = new CRC32();
+        if (all.length >= 4) crc.update(all, 0, all.length - 4);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(all))) {
+            if (all.length < 4 || (int) crc.getValue() != ByteBuffer.wrap(all, all.length - 4, 4).getInt()
+                    || in.readInt() != SNAP_MAGIC || in.readInt() != VERSION) {
+                // снимок пишется атомарно, так что это не обрыв записи, а порча — данные не затираем
+                throw new IOException(file.getFileName() + " is corrupt; move it away to start over");
+            }
+            long lastSeq = in.readLong();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                totals.put(in.readUTF(), new AnswerTotals.Totals(in.readInt(), in.readInt(), in.readLong(), in.readLong()));
+            }
+            return lastSeq;
+        }
+    }
+
+    private static void writeSnapshot(Path file, AnswerTotals totals, long lastSeq) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAP_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSeq);
+            out.writeInt(totals.bySid().size());
+            for (Map.Entry<String, AnswerTotals.Totals> e : totals.bySid().entrySet()) {
+                AnswerTotals.Totals t = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeInt(t.attempts());
+                out.writeInt(t.correct());
+                out.writeLong(t.latencySumMillis());
+                out.writeLong(t.lastAt());
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,505 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shiyano.shinyaoJTD.core.Item;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Проверка всего content/ без запуска приложения (gradle lintContent).
+ *
+ * <p>В отличие от {@link ContentStore}, который падает на первом же неверном {@link Item},
+ * линтер читает JSON как дерево и собирает все ошибки с указанием файла, sid и поля.
+ * Файлы проверяются параллельно на fork/join-пуле, большие файлы дополнительно делятся
+ * на диапазоны элементов. После этого проверяются связи между файлами: у каждой темы есть
+ * items-файл, нет лишних файлов, sid уникальны во всём контенте, варианты совпадают с частицами темы,
+ * readings-файлы соответствуют фразам.
+ *
+ * <pre>ContentLinter &lt;content-dir&gt;</pre>
+ * Код выхода 1, если есть хотя бы одна ошибка (предупреждения не мешают).
+ */
+public final class ContentLinter {
+
+    public enum Severity { ERROR, WARNING }
+
+    /** Одна найденная проблема; sid (для topics.json — code) и field — null, если относятся ко всему файлу. */
+    public record Problem(Severity severity, String file, String sid, String field, String message) {
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder().append(severity).append(' ').append(file);
+            if (sid != null) sb.append(TOPICS_FILE.equals(file) ? " code=" : " sid=").append(sid);
+            if (field != null) sb.append(" [").append(field).append(']');
+            return sb.append(": ").append(message).toString();
+        }
+    }
+
+    /** Итог по одному файлу: число записей и время разбора + проверки. */
+    public record FileReport(String file, int entries, long nanos, List<Problem> problems) {}
+
+    public record Report(List<FileReport> files, List<Problem> crossFile, long nanos) {
+
+        public List<Problem> problems() {
+            List<Problem> all = new ArrayList<>();
+            files.forEach(f -> all.addAll(f.problems()));
+            all.addAll(crossFile);
+            return all;
+        }
+
+        public long count(Severity severity) {
+            return problems().stream().filter(p -> p.severity() == severity).count();
+        }
+    }
+
+    private static final String TOPICS_FILE = "topics.json";
+    private static final String ITEMS_PREFIX = "items-";
+    private static final String READINGS_PREFIX = "readings-";
+    // меньше этого элементы проверяются в одной задаче — дробить дороже, чем проверять
+    private static final int SPLIT_THRESHOLD = 2_000;
+
+    private final Path root;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public ContentLinter(Path contentDir) {
+        this.root = contentDir.toAbsolutePath().normalize();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: ContentLinter <content-dir>");
+            System.exit(2);
+        }
+        Report report = new ContentLinter(Path.of(args[0])).lint(ForkJoinPool.commonPool());
+
+        report.problems().forEach(p -> (p.severity() == Severity.ERROR ? System.err : System.out).println(p));
+        for (FileReport f : report.files()) {
+            System.out.printf("  %-32s %7d entries %6.1f ms%n", f.file(), f.entries(), f.nanos() / 1e6);
+        }
+        long errors = report.count(Severity.ERROR);
+        System.out.printf("Content lint: %d files, %d errors, %d warnings (%d ms)%n",
+                report.files().size(), errors, report.count(Severity.WARNING), report.nanos() / 1_000_000);
+        if (errors > 0) System.exit(1);
+    }
+
+    /** Проверяет все файлы content/ на заданном пуле и возвращает полный отчёт. */
+    public Report lint(ForkJoinPool pool) throws IOException {
+        long started = System.nanoTime();
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(root, "*.json")) {
+            for (Path p : dir) names.add(p.getFileName().toString());
+        }
+        Collections.sort(names);
+
+        List<FileTask> tasks = new ArrayList<>();
+        tasks.add(new FileTask(TOPICS_FILE, Kind.TOPICS));
+        for (String name : names) {
+            if (name.startsWith(ITEMS_PREFIX)) tasks.add(new FileTask(name, Kind.ITEMS));
+            else if (name.startsWith(READINGS_PREFIX)) tasks.add(new FileTask(name, Kind.READINGS));
+        }
+        List<Parsed> parsed = pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected List<Parsed> compute() {
+                invokeAll(tasks);
+                return tasks.stream().map(FileTask::join).toList();
+            }
+        });
+
+        List<Problem> cross = crossCheck(parsed);
+        List<FileReport> files = parsed.stream()
+                .map(p -> new FileReport(p.file, p.entries, p.nanos, p.problems))
+                .toList();
+        return new Report(files, cross, System.nanoTime() - started);
+    }
+
+    // ===== проверки одного файла =====
+
+    private enum Kind { TOPICS, ITEMS, READINGS }
+
+    /** Результат разбора файла: проблемы плюс то, что нужно для проверок между файлами. */
+    private static final class Parsed {
+        final String file;
+        final Kind kind;
+        final List<Problem> problems = new ArrayList<>();
+        int entries;
+        long nanos;
+        // TOPICS: code -> particles
+        final Map<String, List<String>> topics = new LinkedHashMap<>();
+        // ITEMS: sid -> {jp, options...}; READINGS: sid -> {jp}
+        final Map<String, List<String>> bySid = new LinkedHashMap<>();
+
+        Parsed(String file, Kind kind) {
+            this.file = file;
+            this.kind = kind;
+        }
+    }
+
+    private final class FileTask extends RecursiveTask<Parsed> {
+        // ForkJoinTask формально Serializable; задачи живут только внутри одного прогона
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String file;
+        private final Kind kind;
+
+        FileTask(String file, Kind kind) {
+            this.file = file;
+            this.kind = kind;
+        }
+
+        @Override
+        protected Parsed compute() {
+            long started = System.nanoTime();
+            Parsed out = new Parsed(file, kind);
+            Path path = root.resolve(file);
+            if (!Files.isRegularFile(path)) {
+                out.problems.add(error(file, null, null, "file not found"));
+                return out;
+            }
+            JsonNode tree;
+            try {
+                tree = mapper.readTree(path.toFile());
+            } catch (JsonProcessingException e) {
+                out.problems.add(error(file, null, null, "invalid JSON at line %d, column %d: %s".formatted(
+                        e.getLocation().getLineNr(), e.getLocation().getColumnNr(), e.getOriginalMessage())));
+                return done(out, started);
+            } catch (IOException e) {
+                out.problems.add(error(file, null, null, "cannot read: " + e.getMessage()));
+                return done(out, started);
+            }
+
+            switch (kind) {
+                case TOPICS -> lintTopics(tree, out);
+                case ITEMS -> lintItems(tree, out);
+                case READINGS -> lintReadings(tree, out);
+            }
+            return done(out, started);
+        }
+
+        private Parsed done(Parsed out, long started) {
+            out.nanos = System.nanoTime() - started;
+            return out;
+        }
+    }
+
+    private void lintTopics(JsonNode tree, Parsed out) {
+        if (!tree.isArray()) {
+            out.problems.add(error(out.file, null, null, "expected a JSON array of topics"));
+            return;
+        }
+        out.entries = tree.size();
+        for (int i = 0; i < tree.size(); i++) {
+            JsonNode t = tree.get(i);
+            String code = text(t, "code");
+            String where = code == null || code.isBlank() ? "#" + i : code;
+            List<Problem> p = out.problems;
+
+            if (code == null || code.isBlank()) p.add(error(out.file, where, "code", "missing or blank"));
+            else if (!code.strip().matches("[A-Za-z0-9_-]+")) {
+                p.add(error(out.file, where, "code", "must be [A-Za-z0-9_-]+ (used in file names)"));
+            }
+            if (isBlank(text(t, "title"))) p.add(error(out.file, where, "title", "missing or blank"));
+
+            List<String> particles = strings(t.get("particles"));
+            if (particles == null || particles.isEmpty()) {
+                p.add(error(out.file, where, "particles", "missing or empty"));
+            } else if (particles.stream().anyMatch(String::isBlank)) {
+                p.add(error(out.file, where, "particles", "blank entry"));
+            }
+
+            JsonNode lesson = t.get("lesson");
+            if (lesson == null || !lesson.isObject()) {
+                p.add(error(out.file, where, "lesson", "missing"));
+            } else {
+                if (isBlank(text(lesson, "book"))) p.add(error(out.file, where, "lesson.book", "missing or blank"));
+                JsonNode unit = lesson.get("unit");
+                if (unit == null || !unit.canConvertToInt() || unit.asInt() <= 0) {
+                    p.add(error(out.file, where, "lesson.unit", "must be an integer > 0"));
+                }
+            }
+
+            if (code != null && !code.isBlank()) {
+                if (out.topics.putIfAbsent(code.strip(), particles == null ? List.of() : strip(particles)) != null) {
+                    p.add(error(out.file, where, "code", "duplicate Topic.code"));
+                }
+            }
+        }
+    }
+
+    private void lintItems(JsonNode tree, Parsed out) {
+        if (!tree.isArray()) {
+            out.problems.add(error(out.file, null, null, "expected a JSON array of items"));
+            return;
+        }
+        out.entries = tree.size();
+        List<ItemResult> results = new ItemRange(out.file, tree, 0, tree.size()).compute();
+
+        for (ItemResult r : results) {
+            out.problems.addAll(r.problems);
+            if (r.sid == null) continue;
+            if (out.bySid.putIfAbsent(r.sid, r.summary) != null) {
+                out.problems.add(error(out.file, r.sid, "sid", "duplicate Item.sid in file"));
+            }
+        }
+    }
+
+    private void lintReadings(JsonNode tree, Parsed out) {
+        if (!tree.isObject()) {
+            out.problems.add(error(out.file, null, null, "expected a JSON object sid -> reading"));
+            return;
+        }
+        out.entries = tree.size();
+        for (Iterator<Map.Entry<String, JsonNode>> it = tree.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> e = it.next();
+            String sid = e.getKey();
+            String jp = text(e.getValue(), "jp");
+            if (isBlank(jp)) {
+                out.problems.add(error(out.file, sid, "jp", "missing or blank"));
+                continue;
+            }
+            StringBuilder joined = new StringBuilder(jp.length());
+            JsonNode tokens = e.getValue().get("tokens");
+            if (tokens == null || !tokens.isArray()) {
+                out.problems.add(error(out.file, sid, "tokens", "missing"));
+                continue;
+            }
+            for (JsonNode tok : tokens) {
+                String surface = text(tok, "surface");
+                if (surface == null || surface.isEmpty()) {
+                    out.problems.add(error(out.file, sid, "tokens.surface", "missing or empty"));
+                } else {
+                    joined.append(surface);
+                }
+            }
+            if (!joined.toString().equals(jp.strip())) {
+                out.problems.add(error(out.file, sid, "tokens", "token surfaces do not add up to jp"));
+            }
+            out.bySid.put(sid, List.of(jp.strip()));
+        }
+    }
+
+    /** Результат проверки одного Item; summary = [jp, options...] для проверок между файлами. */
+    private record ItemResult(String sid, List<String> summary, List<Problem> problems) {}
+
+    /** Проверка диапазона элементов items-файла; большие диапазоны делятся пополам. */
+    private final class ItemRange extends RecursiveTask<List<ItemResult>> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String file;
+        private final transient JsonNode array;
+        private final int from;
+        private final int to;
+
+        ItemRange(String file, JsonNode array, int from, int to) {
+            this.file = file;
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ItemResult> compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                ItemRange left = new ItemRange(file, array, from, mid);
+                ItemRange right = new ItemRange(file, array, mid, to);
+                left.fork();
+                List<ItemResult> out = new ArrayList<>(right.compute());
+                out.addAll(0, left.join());
+                return out;
+            }
+            List<ItemResult> out = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                out.add(lintItem(file, array.get(i), i));
+            }
+            return out;
+        }
+    }
+
+    /** Те же правила, что в конструкторе {@link Item}, но без остановки на первой ошибке. */
+    private ItemResult lintItem(String file, JsonNode node, int index) {
+        List<Problem> p = new ArrayList<>();
+        if (node == null || !node.isObject()) {
+            p.add(error(file, "#" + index, null, "expected a JSON object"));
+            return new ItemResult(null, null, p);
+        }
+        String sid = text(node, "sid");
+        String where = isBlank(sid) ? "#" + index : sid.strip();
+        if (isBlank(sid)) p.add(error(file, where, "sid", "missing or blank"));
+
+        String jp = text(node, "jp");
+        if (isBlank(jp)) {
+            p.add(error(file, where, "jp", "missing or blank"));
+        } else if (jp.chars().filter(c -> c == Item.GAP).count() != 1) {
+            p.add(error(file, where, "jp", "must contain exactly one GAP symbol ＿ (U+FF3F)"));
+        }
+
+        List<String> options = strings(node.get("options"));
+        // без вариантов сверять с ними correct и whyWrong бессмысленно — это была бы одна и та же ошибка
+        boolean hasOptions = options != null && !options.isEmpty();
+        if (!hasOptions) {
+            p.add(error(file, where, "options", "missing or empty"));
+            options = List.of();
+        } else {
+            if (options.stream().anyMatch(String::isBlank)) p.add(error(file, where, "options", "blank entry"));
+            options = strip(options);
+            if (new HashSet<>(options).size() != options.size()) {
+                p.add(error(file, where, "options", "options must be unique (no duplicates)"));
+            }
+        }
+
+        String correct = text(node, "correct");
+        Set<String> correctSet = new LinkedHashSet<>();
+        if (correct != null) {
+            for (String s : correct.split("/")) {
+                if (!s.isBlank()) correctSet.add(s.strip());
+            }
+        }
+        if (correctSet.isEmpty()) {
+            p.add(error(file, where, "correct", "blank or contains only separators"));
+        } else if (hasOptions) {
+            for (String c : correctSet) {
+                if (!options.contains(c)) p.add(error(file, where, "correct", "'" + c + "' is not among options"));
+            }
+        }
+
+        JsonNode whyWrong = node.get("whyWrong");
+        if (hasOptions && whyWrong != null && !whyWrong.isNull()) {
+            if (!whyWrong.isObject()) {
+                p.add(error(file, where, "whyWrong", "expected an object option -> explanation"));
+            } else {
+                Set<String> keys = new HashSet<>();
+                for (Iterator<Map.Entry<String, JsonNode>> it = whyWrong.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> e = it.next();
+                    String key = e.getKey().strip();
+                    keys.add(key);
+                    if (key.isEmpty()) p.add(error(file, where, "whyWrong", "blank key"));
+                    else if (!options.contains(key)) {
+                        p.add(error(file, where, "whyWrong." + key, "key not present in options"));
+                    }
+                    if (!e.getValue().isTextual() || e.getValue().asText().isBlank()) {
+                        p.add(error(file, where, "whyWrong." + key, "explanation must not be blank"));
+                    }
+                }
+                for (String opt : options) {
+                    if (!correctSet.contains(opt) && !keys.contains(opt)) {
+                        p.add(error(file, where, "whyWrong", "no explanation for incorrect option '" + opt + "'"));
+                    }
+                }
+            }
+        }
+
+        List<String> summary = new ArrayList<>(options.size() + 1);
+        summary.add(jp == null ? "" : jp.strip());
+        summary.addAll(options);
+        return new ItemResult(isBlank(sid) ? null : sid.strip(), summary, p);
+    }
+
+    // ===== проверки между файлами =====
+
+    private List<Problem> crossCheck(List<Parsed> parsed) {
+        List<Problem> out = new ArrayList<>();
+        Parsed topics = parsed.get(0);
+        Map<String, Parsed> items = new HashMap<>();
+        Map<String, Parsed> readings = new HashMap<>();
+        for (Parsed p : parsed) {
+            if (p.kind == Kind.ITEMS) items.put(p.file, p);
+            if (p.kind == Kind.READINGS) readings.put(p.file, p);
+        }
+
+        Set<String> expected = new HashSet<>();
+        for (Map.Entry<String, List<String>> t : topics.topics.entrySet()) {
+            String file = ITEMS_PREFIX + t.getKey() + ".json";
+            expected.add(file);
+            Parsed itemsFile = items.get(file);
+            if (itemsFile == null) {
+                out.add(error(TOPICS_FILE, t.getKey(), "code", "no " + file));
+                continue;
+            }
+            if (itemsFile.bySid.isEmpty() && itemsFile.problems.isEmpty()) {
+                out.add(warning(file, null, null, "topic has no items"));
+            }
+            // варианты вне частиц темы допустимы (например, へ рядом с に), но стоит их увидеть —
+            // одно предупреждение на вариант, а не на каждый Item
+            Set<String> particles = new HashSet<>(t.getValue());
+            Map<String, List<String>> foreign = new TreeMap<>();
+            for (Map.Entry<String, List<String>> it : itemsFile.bySid.entrySet()) {
+                List<String> options = it.getValue().subList(1, it.getValue().size());
+                for (String opt : options) {
+                    if (!particles.contains(opt)) foreign.computeIfAbsent(opt, k -> new ArrayList<>()).add(it.getKey());
+                }
+            }
+            foreign.forEach((opt, sids) -> out.add(warning(file, sids.get(0), "options",
+                    "'%s' is not in Topic.particles (%d items)".formatted(opt, sids.size()))));
+        }
+
+        Map<String, String> sidOwner = new HashMap<>();
+        for (Parsed p : items.values().stream().sorted(Comparator.comparing(p -> p.file)).toList()) {
+            if (!expected.contains(p.file)) {
+                out.add(warning(p.file, null, null, "no topic in " + TOPICS_FILE + " refers to this file"));
+            }
+            for (String sid : p.bySid.keySet()) {
+                String owner = sidOwner.putIfAbsent(sid, p.file);
+                if (owner != null) out.add(error(p.file, sid, "sid", "duplicate Item.sid, also in " + owner));
+            }
+        }
+
+        for (Parsed r : readings.values().stream().sorted(Comparator.comparing(p -> p.file)).toList()) {
+            String code = r.file.substring(READINGS_PREFIX.length(), r.file.length() - ".json".length());
+            Parsed itemsFile = items.get(ITEMS_PREFIX + code + ".json");
+            if (itemsFile == null) {
+                out.add(warning(r.file, null, null, "no matching items file"));
+                continue;
+            }
+            for (Map.Entry<String, List<String>> e : r.bySid.entrySet()) {
+                List<String> item = itemsFile.bySid.get(e.getKey());
+                if (item == null) {
+                    out.add(warning(r.file, e.getKey(), null, "sid not found in " + itemsFile.file));
+                } else if (!item.get(0).equals(e.getValue().get(0))) {
+                    // фразу поменяли после предрасчёта — приложение откатится к Kuromoji
+                    out.add(warning(r.file, e.getKey(), "jp", "stale reading, Item.jp has changed"));
+                }
+            }
+        }
+        return out;
+    }
+
+    // ===== утилиты =====
+
+    private static Problem error(String file, String sid, String field, String message) {
+        return new Problem(Severity.ERROR, file, sid, field, message);
+    }
+
+    private static Problem warning(String file, String sid, String field, String message) {
+        return new Problem(Severity.WARNING, file, sid, field, message);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode v = node == null ? null : node.get(field);
+        return v == null || !v.isValueNode() || v.isNull() ? null : v.asText();
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    /** Массив строк или null, если поле отсутствует / не массив; нестроковые элементы становятся "". */
+    private static List<String> strings(JsonNode node) {
+        if (node == null || !node.isArray()) return null;
+        List<String> out = new ArrayList<>(node.size());
+        for (JsonNode n : node) out.add(n.isTextual() ? n.asText() : "");
+        return out;
+    }
+
+    private static List<String> strip(List<String> list) {
+        return list.stream().map(String::strip).toList();
+    }
+}
@@ -0,0 +1,281 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.Topic;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Скомпилированный пакет контента (content.jtdbin), открытый через mmap.
+ *
+ * <p>Формат (big-endian):
+ * <pre>
+ * header   : magic "JTDB", version, stringCount, topicCount, itemCount, poolSize
+ * strings  : int[stringCount + 1] — смещения в блоке UTF-8 байт
+ * pool     : int[poolSize]         — списки id строк (options, particles, пары whyWrong)
+ * topics   : topicCount × {code, title, particlesAt, particlesLen, book, unit, firstItem, itemCount}
+ * items    : itemCount  × {sid, jp, gloss, correct, whyCorrect, optionsAt, optionsLen, whyWrongAt, whyWrongLen}
+ * data     : UTF-8 байты строк
+ * </pre>
+ * Строки — индексы в таблице, -1 означает null; whyWrongLen = -1 — поля whyWrong нет.
+ * Пакет собирается из уже провалидированного JSON ({@link ContentPackCompiler}), поэтому
+ * задания поднимаются лениво — только те, к которым реально обратились.
+ */
+public final class ContentPack {
+
+    public static final String FILE_NAME = "content.jtdbin";
+
+    private static final int MAGIC = 0x4A544442; // "JTDB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+    private static final int TOPIC_INTS = 8;
+    private static final int ITEM_INTS = 9;
+
+    private final ByteBuffer buf;
+    private final int stringCount;
+    private final int offsetsAt;
+    private final int poolAt;
+    private final int topicsAt;
+    private final int itemsAt;
+    private final int dataAt;
+
+    private final String[] strings;
+    private final List<Topic> topics;
+    private final Map<String, Integer> topicIndex = new HashMap<>();
+    private final Map<String, List<Item>> itemLists = new HashMap<>();
+
+    private ContentPack(ByteBuffer buf) throws IOException {
+        this.buf = buf;
+        if (buf.limit() < HEADER_BYTES || buf.getInt(0) != MAGIC) {
+            throw new IOException("Not a content pack (bad magic)");
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("Unsupported content pack version: " + buf.getInt(4));
+        }
+        stringCount = buf.getInt(8);
+        int topicCount = buf.getInt(12);
+        int itemCount = buf.getInt(16);
+        int poolSize = buf.getInt(20);
+
+        offsetsAt = HEADER_BYTES;
+        poolAt = offsetsAt + (stringCount + 1) * Integer.BYTES;
+        topicsAt = poolAt + poolSize * Integer.BYTES;
+        itemsAt = topicsAt + topicCount * TOPIC_INTS * Integer.BYTES;
+        dataAt = itemsAt + itemCount * ITEM_INTS * Integer.BYTES;
+        if (dataAt > buf.limit() || dataAt + buf.getInt(offsetsAt + stringCount * Integer.BYTES) != buf.limit()) {
+            throw new IOException("Content pack is truncated");
+        }
+        strings = new String[stringCount];
+
+        // темы маленькие — поднимаем сразу, задания — по требованию
+        List<Topic> list = new ArrayList<>(topicCount);
+        for (int t = 0; t < topicCount; t++) {
+            int at = topicsAt + t * TOPIC_INTS * Integer.BYTES;
+            Topic topic = new Topic(
+                    string(buf.getInt(at)),
+                    string(buf.getInt(at + 4)),
+                    stringList(buf.getInt(at + 8), buf.getInt(at + 12)),
+                    new Topic.Lesson(string(buf.getInt(at + 16)), buf.getInt(at + 20)));
+            list.add(topic);
+            topicIndex.put(topic.code(), t);
+        }
+        topics = List.copyOf(list);
+    }
+
+    /** Отображает файл пакета в память (только чтение). */
+    public static ContentPack open(Path file) throws IOException {
+        if (file.getFileSystem() != FileSystems.getDefault()) {
+            // внутри архива-пакета mmap невозможен — читаем запись в память целиком
+            return new ContentPack(ByteBuffer.wrap(Files.readAllBytes(file)));
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            // отображение остаётся валидным и после закрытия канала
+            return new ContentPack(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public List<Topic> topics() {
+        return topics;
+    }
+
+    public boolean hasTopic(String code) {
+        return topicIndex.containsKey(code);
+    }
+
+    /** Задания темы: неизменяемый список, элементы которого создаются при первом обращении. */
+    public synchronized List<Item> items(String code) {
+        Integer t = topicIndex.get(code);
+        if (t == null) throw new NoSuchElementException("No topic in content pack: " + code);
+        return itemLists.computeIfAbsent(code, c -> {
+            int at = topicsAt + t * TOPIC_INTS * Integer.BYTES;
+            return new LazyItems(buf.getInt(at + 24), buf.getInt(at + 28));
+        });
+    }
+
+    private Item item(int i) {
+        int at = itemsAt + i * ITEM_INTS * Integer.BYTES;
+        int wwLen = buf.getInt(at + 32);
+        Map<String, String> whyWrong = null;
+        if (wwLen >= 0) {
+            int wwAt = buf.getInt(at + 28);
+            whyWrong = new LinkedHashMap<>();
+            for (int k = 0; k < wwLen; k++) {
+                int p = poolAt + (wwAt + 2 * k) * Integer.BYTES;
+                whyWrong.put(string(buf.getInt(p)), string(buf.getInt(p + 4)));
+            }
+        }
+        return new Item(
+                string(buf.getInt(at)),
+                string(buf.getInt(at + 4)),
+                string(buf.getInt(at + 8)),
+                stringList(buf.getInt(at + 20), buf.getInt(at + 24)),
+                string(buf.getInt(at + 12)),
+                string(buf.getInt(at + 16)),
+                whyWrong);
+    }
+
+    private List<String> stringList(int poolIndex, int len) {
+        String[] out = new String[len];
+        for (int k = 0; k < len; k++) {
+            out[k] = string(buf.getInt(poolAt + (poolIndex + k) * Integer.BYTES));
+        }
+        return List.of(out);
+    }
+
+    private String string(int id) {
+        if (id < 0) return null;
+        String s = strings[id];
+        if (s == null) {
+            int from = buf.getInt(offsetsAt + id * Integer.BYTES);
+            int to = buf.getInt(offsetsAt + (id + 1) * Integer.BYTES);
+            byte[] bytes = new byte[to - from];
+            buf.get(dataAt + from, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = s; // гонка безобидна: строки неизменяемые и одинаковые
+        }
+        return s;
+    }
+
+    private final class LazyItems extends AbstractList<Item> implements RandomAccess {
+        private final int first;
+        private final Item[] cache;
+
+        LazyItems(int first, int count) {
+            this.first = first;
+            this.cache = new Item[count];
+        }
+
+        @Override
+        public Item get(int index) {
+            Objects.checkIndex(index, cache.length);
+            Item it = cache[index];
+            if (it == null) {
+                it = item(first + index);
+                cache[index] = it;
+            }
+            return it;
+        }
+
+        @Override
+        public int size() {
+            return cache.length;
+        }
+    }
+
+    // ===== запись =====
+
+    /**
+     * Пишет пакет атомарно (через временный файл). Порядок тем сохраняется,
+     * {@code items} должен содержать список для каждой темы.
+     */
+    public static void write(Path out, List<Topic> topics, Map<String, List<Item>> items) throws IOException {
+        StringTable table = new StringTable();
+        List<Integer> pool = new ArrayList<>();
+        List<int[]> topicRecs = new ArrayList<>();
+        List<int[]> itemRecs = new ArrayList<>();
+
+        for (Topic t : topics) {
+            List<Item> list = items.get(t.code());
+            if (list == null) throw new IllegalArgumentException("No items for topic " + t.code());
+            int particlesAt = addAll(pool, table, t.particles());
+            topicRecs.add(new int[]{
+                    table.id(t.code()), table.id(t.title()), particlesAt, t.particles().size(),
+                    table.id(t.lesson().book()), t.lesson().unit(), itemRecs.size(), list.size()});
+            for (Item it : list) {
+                int optionsAt = addAll(pool, table, it.options());
+                int wwAt = pool.size();
+                int wwLen = -1;
+                if (it.whyWrong() != null) {
+                    // порядок ключей Map.copyOf не определён — сортируем для воспроизводимой сборки
+                    var entries = new TreeMap<>(it.whyWrong());
+                    for (var e : entries.entrySet()) {
+                        pool.add(table.id(e.getKey()));
+                        pool.add(table.id(e.getValue()));
+                    }
+                    wwLen = entries.size();
+                }
+                itemRecs.add(new int[]{
+                        table.id(it.sid()), table.id(it.jp()), table.id(it.gloss()), table.id(it.correct()),
+                        table.id(it.whyCorrect()), optionsAt, it.options().size(), wwAt, wwLen});
+            }
+        }
+
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp));
+             DataOutputStream dos = new DataOutputStream(os)) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(table.size());
+            dos.writeInt(topicRecs.size());
+            dos.writeInt(itemRecs.size());
+            dos.writeInt(pool.size());
+            int offset = 0;
+            dos.writeInt(0);
+            for (byte[] b : table.bytes) {
+                offset += b.length;
+                dos.writeInt(offset);
+            }
+            for (int v : pool) dos.writeInt(v);
+            for (int[] rec : topicRecs) for (int v : rec) dos.writeInt(v);
+            for (int[] rec : itemRecs) for (int v : rec) dos.writeInt(v);
+            for (byte[] b : table.bytes) dos.write(b);
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int addAll(List<Integer> pool, StringTable table, List<String> values) {
+        int at = pool.size();
+        for (String v : values) pool.add(table.id(v));
+        return at;
+    }
+
+    /** Таблица строк с дедупликацией: одинаковые частицы/пояснения хранятся один раз. */
+    private static final class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<byte[]> bytes = new ArrayList<>();
+
+        int id(String s) {
+            if (s == null) return -1;
+            return ids.computeIfAbsent(s, k -> {
+                bytes.add(k.getBytes(StandardCharsets.UTF_8));
+                return bytes.size() - 1;
+            });
+        }
+
+        int size() {
+            return bytes.size();
+        }
+    }
+}
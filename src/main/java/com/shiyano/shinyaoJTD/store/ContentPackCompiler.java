@@ -0,0 +1,48 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.Topic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сборка content.jtdbin из content/*.json (gradle contentPack).
+ * Весь контент проходит обычную валидацию {@link ContentStore}; при любой ошибке пакет не пишется.
+ *
+ * <pre>ContentPackCompiler &lt;content-dir&gt; &lt;out-file&gt;</pre>
+ */
+public final class ContentPackCompiler {
+
+    private ContentPackCompiler() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: ContentPackCompiler <content-dir> <out-file>");
+            System.exit(2);
+        }
+        Path contentDir = Path.of(args[0]);
+        Path out = Path.of(args[1]).toAbsolutePath();
+
+        long started = System.nanoTime();
+        // компилируем только JSON: существующий пакет в content/ игнорируется
+        ContentStore store = new ContentStore(contentDir, false);
+        List<Topic> topics = store.loadTopics();
+        Map<String, List<Item>> items = new LinkedHashMap<>();
+        int total = 0;
+        for (Topic t : topics) {
+            List<Item> list = store.loadItemsFor(t.code());
+            items.put(t.code(), list);
+            total += list.size();
+        }
+
+        Files.createDirectories(out.getParent());
+        ContentPack.write(out, topics, items);
+        System.out.printf("Content pack: %d topics, %d items, %d bytes -> %s (%d ms)%n",
+                topics.size(), total, Files.size(out), out, (System.nanoTime() - started) / 1_000_000);
+    }
+}
@@ -1,35 +1,595 @@
 package com.shiyano.shinyaoJTD.store;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.Reading;
 import com.shiyano.shinyaoJTD.core.Topic;
+import com.shiyano.shinyaoJTD.perf.ContentReadEvent;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
 
-public final class ContentStore {
+/**
+ * Контент тренажёра: topics.json, items-&lt;code&gt;.json, readings-&lt;code&gt;.json и необязательный
+ * скомпилированный {@link ContentPack}.
+ *
+ * <p>Контент собирается из слоёв. Слой — папка content/ или архив-пакет ({@code .jtdpack} или
+ * {@code .zip}), смонтированный через zip FileSystem: записи читаются по требованию прямо из
+ * архива, ничего не распаковывается. Файл берётся из первого слоя, где он есть. Порядок
+ * детерминирован: источники — в том порядке, в каком переданы; у папки сначала она сама,
+ * затем лежащие в ней пакеты по убыванию имени ({@code content-002-fix.jtdpack} перекрывает
+ * {@code content-001.jtdpack}). Так правки автора в папке всегда главнее пакетов.
+ * Внутри архива контент лежит в корне или в каталоге content/.
+ */
+public final class ContentStore implements AutoCloseable {
 
+    /** Прогресс чтения файла контента: сколько байт обработано из {@code total}. */
+    @FunctionalInterface
+    public interface Progress {
+        Progress NONE = (file, done, total) -> {};
+
+        void update(String file, long done, long total);
+    }
+
+    /** Счётчики кэша разобранного контента. */
+    public record CacheStats(long hits, long misses) {
+
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        /** Одной строкой для лога. */
+        @Override
+        public String toString() {
+            return "Content cache: hits=%d misses=%d hit-ratio=%.1f%%".formatted(hits, misses, hitRatio() * 100);
+        }
+    }
+
+    /** Отдельный пул для чтения/валидации контента, чтобы не занимать FX-поток и common pool. */
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(2, new LoaderThreads());
+
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+    // корни слоёв по убыванию приоритета; root — первый из них
     private final Path root;
+    private final List<Path> roots;
+    private final List<FileSystem> archives;
+    // отпечаток архива слоя (mtime:size файла) или "" у папки — записи пакетов часто с одной датой
+    private final List<String> rootVersions;
     private final ObjectMapper mapper;
 
+    // кэш разобранных файлов: путь -> (mtime, size) + готовый List<Topic>/List<Item>
+    private final ConcurrentMap<Path, Cached> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    // число заданий в items-файлах, посчитанное без разбора (см. countItems)
+    private final ConcurrentMap<Path, Cached> counts = new ConcurrentHashMap<>();
+
+    private final TopicSummaries summaries = new TopicSummaries();
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private ContentWatcher watcher;
+
+    // скомпилированный пакет (content.jtdbin) из первого слоя, где он есть; иначе null
+    private final ContentPack pack;
+    private final long packModified;
+    private final int packLayer;
+
+    /** Папка content/ (или проект с ней) либо один архив-пакет. */
     public ContentStore(Path projectRootOrContent) {
-        Path p = projectRootOrContent.getFileName().toString().equals("content")
-                ? projectRootOrContent
-                : projectRootOrContent.resolve("content");
-        this.root = p.toAbsolutePath().normalize();
+        this(List.of(projectRootOrContent), true);
+    }
+
+    /** Несколько источников: первый перекрывает остальные (см. описание класса). */
+    public ContentStore(List<Path> sources) {
+        this(sources, true);
+    }
+
+    ContentStore(Path projectRootOrContent, boolean usePack) {
+        this(List.of(projectRootOrContent), usePack);
+    }
+
+    ContentStore(List<Path> sources, boolean usePack) {
+        if (sources.isEmpty()) throw new IllegalArgumentException("no content sources");
         this.mapper = new ObjectMapper();
-        if (!Files.isDirectory(this.root)) {
-            throw new IllegalStateException("content/ folder not found at: " + this.root);
+        List<Path> layers = new ArrayList<>();
+        List<String> versions = new ArrayList<>();
+        List<FileSystem> mounted = new ArrayList<>();
+        try {
+            for (Path source : sources) {
+                addLayers(source.toAbsolutePath().normalize(), layers, versions, mounted);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeAll(mounted);
+            if (e instanceof RuntimeException re) throw re;
+            throw new UncheckedIOException("Cannot open content pack: " + e.getMessage(), (IOException) e);
+        }
+        this.roots = List.copyOf(layers);
+        this.archives = List.copyOf(mounted);
+        this.rootVersions = List.copyOf(versions);
+        this.root = roots.get(0);
+
+        ContentPack opened = null;
+        long modified = 0;
+        int layer = -1;
+        Path packFile = resolve(ContentPack.FILE_NAME);
+        if (usePack && Files.isRegularFile(packFile)) {
+            try {
+                modified = Files.getLastModifiedTime(packFile).toMillis();
+                opened = ContentPack.open(packFile);
+                layer = layerOf(packFile);
+            } catch (IOException e) {
+                System.err.println("Content pack is ignored, falling back to JSON: " + e.getMessage());
+            }
+        }
+        this.pack = opened;
+        this.packModified = modified;
+        this.packLayer = layer;
+    }
+
+    /** Архив-пакет, пригодный для монтирования (по расширению). */
+    public static boolean isArchive(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jtdpack") || name.endsWith(".zip");
+    }
+
+    private static void addLayers(Path source, List<Path> layers, List<String> versions, List<FileSystem> mounted)
+            throws IOException {
+        if (Files.isRegularFile(source) && isArchive(source)) {
+            layers.add(mount(source, mounted));
+            versions.add(version(stamp(source)));
+            return;
+        }
+        Path dir = source.getFileName() != null && source.getFileName().toString().equals("content")
+                ? source
+                : source.resolve("content");
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalStateException("content/ folder not found at: " + dir);
+        }
+        layers.add(dir);
+        versions.add("");
+        List<Path> packs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, ContentStore::isArchive)) {
+            for (Path f : files) if (Files.isRegularFile(f)) packs.add(f);
+        }
+        packs.sort(Comparator.comparing((Path f) -> f.getFileName().toString()).reversed());
+        for (Path f : packs) {
+            layers.add(mount(f, mounted));
+            versions.add(version(stamp(f)));
+        }
+    }
+
+    /** Монтирует архив только на чтение; корень слоя — content/ внутри архива, если topics.json не в корне. */
+    private static Path mount(Path archive, List<FileSystem> mounted) throws IOException {
+        FileSystem fs = FileSystems.newFileSystem(archive, Map.of("accessMode", "readOnly"));
+        mounted.add(fs);
+        Path top = fs.getPath("/");
+        Path nested = top.resolve("content");
+        return Files.isDirectory(nested) && !Files.exists(top.resolve("topics.json")) ? nested : top;
+    }
+
+    private static void closeAll(List<FileSystem> archives) {
+        for (FileSystem fs : archives) {
+            try {
+                fs.close();
+            } catch (IOException e) {
+                System.err.println("Cannot close content pack " + fs + ": " + e.getMessage());
+            }
         }
     }
 
     public List<Topic> loadTopics() throws IOException {
-        Path path = safeResolve("topics.json");
-        List<Topic> topics = mapper.readValue(Files.readString(path), new TypeReference<>() {});
+        return readTopics(Progress.NONE, NEVER_CANCELLED);
+    }
+
+    public List<Item> loadItemsFor(String topicCode) throws IOException {
+        return readItems(topicCode, Progress.NONE, NEVER_CANCELLED);
+    }
+
+    /**
+     * Заранее посчитанная фуригана темы (readings-&lt;code&gt;.json, см. gradle furiganaPrecompute):
+     * sid → разметка. Нет файла — пустая карта.
+     */
+    public Map<String, Reading> loadReadingsFor(String topicCode) throws IOException {
+        return readReadings(topicCode, Progress.NONE, NEVER_CANCELLED);
+    }
+
+    public CompletableFuture<Map<String, Reading>> loadReadingsForAsync(String topicCode, Progress progress) {
+        Objects.requireNonNull(topicCode, "topicCode");
+        return submit(cancelled -> readReadings(topicCode, progress, cancelled));
+    }
+
+    /**
+     * Асинхронная загрузка topics.json на фоновом пуле.
+     * Отмена возвращённого future прерывает чтение файла; прогресс приходит в потоке загрузчика.
+     */
+    public CompletableFuture<List<Topic>> loadTopicsAsync(Progress progress) {
+        return submit(cancelled -> readTopics(progress, cancelled));
+    }
+
+    /** Асинхронная загрузка items-&lt;code&gt;.json; семантика отмены и прогресса — как у {@link #loadTopicsAsync}. */
+    public CompletableFuture<List<Item>> loadItemsForAsync(String topicCode, Progress progress) {
+        Objects.requireNonNull(topicCode, "topicCode");
+        return submit(cancelled -> readItems(topicCode, progress, cancelled));
+    }
+
+    /**
+     * Потоковая загрузка items-&lt;code&gt;.json: страницы уходят в {@code pages} (в потоке загрузчика)
+     * по мере разбора — первая сразу после первого элемента, дальше по {@code pageSize}.
+     * Future завершается полным списком; если список уже в памяти (кэш или пакет), он уходит одной страницей.
+     */
+    public CompletableFuture<List<Item>> streamItemsAsync(String topicCode, int pageSize,
+                                                          Consumer<List<Item>> pages, Progress progress) {
+        Objects.requireNonNull(topicCode, "topicCode");
+        Objects.requireNonNull(pages, "pages");
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be > 0");
+        return submit(cancelled -> {
+            String file = itemsFile(topicCode);
+            PageSink sink = new PageSink(pages, pageSize);
+            List<Item> items = packHas(file, topicCode.strip())
+                    ? pack.items(topicCode.strip())
+                    : cached(file, progress, () -> parseItems(file, progress, cancelled, sink));
+            // список уже в памяти (кэш/пакет) — отдаём его целиком, без копирования
+            if (!sink.used && !items.isEmpty()) pages.accept(items);
+            return items;
+        });
+    }
+
+    /**
+     * Число заданий темы без построения {@link Item}: из пакета или уже разобранного списка — сразу,
+     * иначе потоковым пропуском элементов JSON-массива. Результат кэшируется по mtime/размеру файла.
+     */
+    public int countItems(String topicCode) throws IOException {
+        return countItems(topicCode, NEVER_CANCELLED);
+    }
+
+    public CompletableFuture<Integer> countItemsAsync(String topicCode) {
+        Objects.requireNonNull(topicCode, "topicCode");
+        return submit(cancelled -> countItems(topicCode, cancelled));
+    }
+
+    /**
+     * Только задания с номерами {@code indices} (по возрастанию, без повторов) в порядке файла.
+     * Пакет и кэш отдают их напрямую; JSON читается потоково до последнего нужного номера,
+     * остальные элементы пропускаются без разбора в {@link Item}.
+     */
+    public List<Item> loadItemsAt(String topicCode, int[] indices) throws IOException {
+        return readItemsAt(topicCode, indices, NEVER_CANCELLED);
+    }
+
+    public CompletableFuture<List<Item>> loadItemsAtAsync(String topicCode, int[] indices) {
+        Objects.requireNonNull(topicCode, "topicCode");
+        return submit(cancelled -> readItemsAt(topicCode, indices, cancelled));
+    }
+
+    /** Предрасчитанная фуригана только для заданных sid (остальные записи файла пропускаются). */
+    public CompletableFuture<Map<String, Reading>> loadReadingsForAsync(String topicCode, Set<String> sids) {
+        Objects.requireNonNull(topicCode, "topicCode");
+        Objects.requireNonNull(sids, "sids");
+        return submit(cancelled -> readReadingsFor(topicCode, sids, cancelled));
+    }
+
+    /**
+     * Отпечаток файлов темы (задания + фуригана): меняется при любой их правке или пересборке пакета.
+     * Нужен внешним кэшам вроде {@link SearchIndex}, которые живут дольше одного запуска.
+     */
+    public String contentVersion(String topicCode) {
+        Objects.requireNonNull(topicCode, "topicCode");
+        String code = topicCode.strip();
+        return itemsVersion(code) + "|" + version(resolve("readings-" + code + ".json"));
+    }
+
+    /** Отпечаток только заданий темы — из пакета или items-файла. */
+    String itemsVersion(String topicCode) {
+        String code = topicCode.strip();
+        String file = itemsFile(code);
+        return packHas(file, code) ? "pack@" + packModified + layerVersion(packLayer) : version(resolve(file));
+    }
+
+    /**
+     * Сводки тем для меню (число заданий, частицы, урок, CRC файла) в порядке {@code topics}:
+     * пересчитываются только темы, чьи файлы изменились с прошлого раза; items-файлы
+     * остальных не открываются.
+     */
+    public CompletableFuture<List<TopicSummaries.Summary>> loadSummariesAsync(List<Topic> topics) {
+        List<Topic> copy = List.copyOf(topics);
+        return submit(cancelled -> summaries.update(this, copy, cancelled));
+    }
+
+    /** Хранить сводки тем в этом файле между запусками (обычно в папке данных). */
+    public void persistSummaries(Path file) {
+        summaries.persistTo(file);
+    }
+
+    /**
+     * Открывает курсор по items-&lt;code&gt;.json в обход кэша. Закрывать обязан вызывающий.
+     */
+    public ItemCursor openItems(String topicCode) throws IOException {
+        Objects.requireNonNull(topicCode, "topicCode");
+        String file = itemsFile(topicCode);
+        return openCursor(file, Files.newInputStream(resolve(file)));
+    }
+
+    /**
+     * Включает слежение за content/: изменённые на диске файлы перечитываются (только те,
+     * что уже лежат в кэше), после чего подписчики {@link #subscribe} получают имя файла.
+     * Следит только за папкой верхнего слоя; архивы во время работы не меняются.
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watcher != null || root.getFileSystem() != FileSystems.getDefault()) return;
+        watcher = new ContentWatcher(root, this::onFilesChanged);
+        watcher.start();
+    }
+
+    /**
+     * Подписка на изменения файлов content/ (имя относительно корня, например "topics.json").
+     * Вызывается в потоке наблюдателя. Возвращает действие для отписки.
+     */
+    public Runnable subscribe(Consumer<String> listener) {
+        Objects.requireNonNull(listener, "listener");
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    public CacheStats cacheStats() {
+        return new CacheStats(hits.get(), misses.get());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        closeAll(archives);
+    }
+
+    private void onFilesChanged(Set<String> files) {
+        for (String file : files) {
+            Path path = root.resolve(file).normalize();
+            Cached old = cache.get(path);
+            if (old != null && !old.stamp().equals(stampOrNull(path))) {
+                try {
+                    reload(file);
+                } catch (Exception ex) {
+                    // битый файл не держим в кэше: следующий запрос покажет ошибку пользователю
+                    cache.remove(path);
+                    System.err.println("Hot reload of " + file + " failed: " + ex.getMessage());
+                }
+            }
+            for (Consumer<String> l : listeners) {
+                l.accept(file);
+            }
+        }
+    }
+
+    private void reload(String file) throws IOException {
+        if (file.equals("topics.json")) {
+            loadTopics();
+        } else if (file.startsWith("items-") && file.endsWith(".json")) {
+            loadItemsFor(file.substring("items-".length(), file.length() - ".json".length()));
+        } else if (file.startsWith("readings-") && file.endsWith(".json")) {
+            loadReadingsFor(file.substring("readings-".length(), file.length() - ".json".length()));
+        }
+    }
+
+    private List<Topic> readTopics(Progress progress, BooleanSupplier cancelled) throws IOException {
+        if (packHas("topics.json", null)) return pack.topics();
+        return cached("topics.json", progress, () -> parseTopics(progress, cancelled));
+    }
+
+    private List<Item> readItems(String topicCode, Progress progress, BooleanSupplier cancelled) throws IOException {
+        Objects.requireNonNull(topicCode, "topicCode");
+        String file = itemsFile(topicCode);
+        if (packHas(file, topicCode.strip())) return pack.items(topicCode.strip());
+        return cached(file, progress, () -> parseItems(file, progress, cancelled, null));
+    }
+
+    /**
+     * Можно ли взять файл из пакета: тема в нём есть, а JSON-исходник не лежит в слое выше
+     * и не новее пакета в том же слое (правки автора во время работы всё равно читаются из JSON).
+     */
+    private boolean packHas(String file, String topicCode) {
+        if (pack == null || (topicCode != null && !pack.hasTopic(topicCode))) return false;
+        Path path = resolve(file);
+        Stamp json = stampOrNull(path);
+        if (json == null) return true;
+        int layer = layerOf(path);
+        return layer > packLayer || (layer == packLayer && json.modified() <= packModified);
+    }
+
+    private Map<String, Reading> readReadings(String topicCode, Progress progress, BooleanSupplier cancelled)
+            throws IOException {
+        Objects.requireNonNull(topicCode, "topicCode");
+        String file = "readings-" + topicCode.strip() + ".json";
+        if (!Files.isRegularFile(resolve(file))) return Map.of();
+        return cached(file, progress, () -> Collections.unmodifiableMap(
+                read(file, new TypeReference<LinkedHashMap<String, Reading>>() {}, progress, cancelled)));
+    }
+
+    int countItems(String topicCode, BooleanSupplier cancelled) throws IOException {
+        Objects.requireNonNull(topicCode, "topicCode");
+        String file = itemsFile(topicCode);
+        if (packHas(file, topicCode.strip())) return pack.items(topicCode.strip()).size();
+        Path path = resolve(file);
+        Stamp stamp = stamp(path);
+        List<Item> parsed = cachedItems(path, stamp);
+        if (parsed != null) return parsed.size();
+        Cached c = counts.get(path);
+        if (c != null && c.stamp().equals(stamp)) return (Integer) c.value();
+
+        ContentReadEvent event = new ContentReadEvent();
+        event.begin();
+        int n = 0;
+        try (JsonParser p = mapper.getFactory().createParser(
+                new ProgressInputStream(Files.newInputStream(path), file, stamp.size(), Progress.NONE, cancelled))) {
+            if (p.nextToken() != JsonToken.START_ARRAY) throw new IOException(file + ": expected a JSON array of items");
+            for (JsonToken t = p.nextToken(); t != null && t != JsonToken.END_ARRAY; t = p.nextToken()) {
+                p.skipChildren();
+                n++;
+            }
+        }
+        counts.put(path, new Cached(stamp, n));
+        commit(event, file, ContentReadEvent.COUNT, stamp.size());
+        return n;
+    }
+
+    /** CRC32C items-файла темы в hex (сырые байты, без разбора); "" — JSON-файла нет. */
+    String itemsChecksum(String topicCode, BooleanSupplier cancelled) throws IOException {
+        String file = itemsFile(topicCode);
+        Path path = resolve(file);
+        if (!Files.isRegularFile(path)) return "";
+        CRC32C crc = new CRC32C();
+        try (InputStream in = new CheckedInputStream(
+                new ProgressInputStream(Files.newInputStream(path), file, Files.size(path), Progress.NONE, cancelled),
+                crc)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    private List<Item> readItemsAt(String topicCode, int[] indices, BooleanSupplier cancelled) throws IOException {
+        Objects.requireNonNull(topicCode, "topicCode");
+        for (int i = 1; i < indices.length; i++) {
+            if (indices[i] <= indices[i - 1]) throw new IllegalArgumentException("indices must be strictly ascending");
+        }
+        String file = itemsFile(topicCode);
+        List<Item> all;
+        if (packHas(file, topicCode.strip())) {
+            all = pack.items(topicCode.strip());
+        } else {
+            Path path = resolve(file);
+            all = cachedItems(path, stamp(path));
+        }
+        List<Item> out = new ArrayList<>(indices.length);
+        if (all != null) {
+            for (int i : indices) out.add(all.get(i));
+            return out;
+        }
+        if (indices.length == 0) return out;
+
+        ContentReadEvent event = new ContentReadEvent();
+        event.begin();
+        Path path = resolve(file);
+        try (JsonParser p = mapper.getFactory().createParser(
+                new ProgressInputStream(Files.newInputStream(path), file, Files.size(path), Progress.NONE, cancelled))) {
+            if (p.nextToken() != JsonToken.START_ARRAY) throw new IOException(file + ": expected a JSON array of items");
+            ObjectReader reader = mapper.readerFor(Item.class);
+            int pos = 0;
+            int want = 0;
+            for (JsonToken t = p.nextToken(); t != null && t != JsonToken.END_ARRAY; t = p.nextToken(), pos++) {
+                if (pos == indices[want]) {
+                    out.add(reader.readValue(p));
+                    if (++want == indices.length) {
+                        commit(event, file, ContentReadEvent.PARTIAL, p.currentLocation().getByteOffset());
+                        return out;
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException(file + " has fewer items than index " + indices[out.size()]);
+    }
+
+    private Map<String, Reading> readReadingsFor(String topicCode, Set<String> sids, BooleanSupplier cancelled)
+            throws IOException {
+        String file = "readings-" + topicCode.strip() + ".json";
+        Path path = resolve(file);
+        if (!Files.isRegularFile(path)) return Map.of();
+        Cached c = cache.get(path);
+        Map<String, Reading> out = new HashMap<>();
+        if (c != null && c.stamp().equals(stamp(path))) {
+            @SuppressWarnings("unchecked")
+            Map<String, Reading> all = (Map<String, Reading>) c.value();
+            for (String sid : sids) {
+                Reading r = all.get(sid);
+                if (r != null) out.put(sid, r);
+            }
+            return out;
+        }
+        ContentReadEvent event = new ContentReadEvent();
+        event.begin();
+        try (JsonParser p = mapper.getFactory().createParser(
+                new ProgressInputStream(Files.newInputStream(path), file, Files.size(path), Progress.NONE, cancelled))) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException(file + ": expected a JSON object");
+            ObjectReader reader = mapper.readerFor(Reading.class);
+            while (p.nextToken() == JsonToken.FIELD_NAME && out.size() < sids.size()) {
+                String sid = p.currentName();
+                p.nextToken();
+                if (sids.contains(sid)) out.put(sid, reader.readValue(p));
+                else p.skipChildren();
+            }
+            commit(event, file, ContentReadEvent.PARTIAL, p.currentLocation().getByteOffset());
+        }
+        return out;
+    }
+
+    /** Уже разобранный список заданий из кэша, если файл с тех пор не менялся; иначе null. */
+    @SuppressWarnings("unchecked")
+    private List<Item> cachedItems(Path path, Stamp stamp) {
+        Cached c = cache.get(path);
+        return c != null && c.stamp().equals(stamp) ? (List<Item>) c.value() : null;
+    }
+
+    private static String itemsFile(String topicCode) {
+        return "items-" + topicCode.strip() + ".json";
+    }
+
+    /** Отдаёт разобранный файл из кэша, если mtime и размер на диске не менялись. */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String file, Progress progress, IoSupplier<T> parser) throws IOException {
+        ContentReadEvent event = new ContentReadEvent();
+        event.begin();
+        Path path = resolve(file);
+        Stamp stamp = stamp(path);
+        Cached c = cache.get(path);
+        if (c != null && c.stamp().equals(stamp)) {
+            hits.incrementAndGet();
+            progress.update(file, stamp.size(), stamp.size());
+            commit(event, file, ContentReadEvent.CACHE, stamp.size());
+            return (T) c.value();
+        }
+        misses.incrementAndGet();
+        T value = parser.get();
+        cache.put(path, new Cached(stamp, value));
+        commit(event, file, ContentReadEvent.PARSE, stamp.size());
+        return value;
+    }
+
+    private static void commit(ContentReadEvent event, String file, String mode, long bytes) {
+        if (!event.shouldCommit()) return;
+        event.file = file;
+        event.mode = mode;
+        event.bytes = bytes;
+        event.commit();
+    }
+
+    private List<Topic> parseTopics(Progress progress, BooleanSupplier cancelled) throws IOException {
+        String file = "topics.json";
+        List<Topic> topics = read(file, new TypeReference<>() {}, progress, cancelled);
         // проверка уникальности Topic.code
         Set<String> dups = findDuplicates(topics.stream().map(Topic::code).toList());
         if (!dups.isEmpty()) {
@@ -38,27 +598,118 @@ public final class ContentStore {
         return List.copyOf(topics);
     }
 
-    public List<Item> loadItemsFor(String topicCode) throws IOException {
-        Objects.requireNonNull(topicCode, "topicCode");
-        String file = "items-" + topicCode.strip() + ".json";
-        Path path = safeResolve(file);
-        List<Item> items = mapper.readValue(Files.readString(path), new TypeReference<>() {});
-        // проверка уникальности Item.sid
-        Set<String> dups = findDuplicates(items.stream().map(Item::sid).toList());
-        if (!dups.isEmpty()) {
-            throw new IllegalStateException("Duplicate Item.sid in " + file + ": " + dups);
+    /** Разбирает items-файл курсором; sink (может быть null) получает страницы по ходу чтения. */
+    private List<Item> parseItems(String file, Progress progress, BooleanSupplier cancelled, PageSink sink)
+            throws IOException {
+        Path path = resolve(file);
+        long size = Files.size(path);
+        List<Item> items = new ArrayList<>();
+        InputStream in = new ProgressInputStream(Files.newInputStream(path), file, size, progress, cancelled);
+        try (ItemCursor cursor = openCursor(file, in)) {
+            while (cursor.hasNext()) {
+                items.add(cursor.next());
+                if (sink != null) sink.offer(items);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        return List.copyOf(items);
+        if (sink != null) sink.flush(items);
+        progress.update(file, size, size);
+        return Collections.unmodifiableList(items);
     }
 
-    private Path safeResolve(String relative) {
-        Path candidate = root.resolve(relative).normalize();
-        if (!candidate.startsWith(root)) {
+    private ItemCursor openCursor(String file, InputStream in) throws IOException {
+        try {
+            // AUTO_CLOSE_SOURCE включён по умолчанию: закрытие курсора закрывает и поток
+            return new ItemCursor(file, mapper.getFactory().createParser(in), mapper.readerFor(Item.class));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private <T> T read(String file, TypeReference<T> type, Progress progress, BooleanSupplier cancelled)
+            throws IOException {
+        Path path = resolve(file);
+        long size = Files.size(path);
+        T value;
+        try (InputStream in = new ProgressInputStream(Files.newInputStream(path), file, size, progress, cancelled)) {
+            value = mapper.readValue(in, type);
+        }
+        progress.update(file, size, size);
+        return value;
+    }
+
+    private <T> CompletableFuture<T> submit(IoTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        LOADER.execute(() -> {
+            if (future.isDone()) return; // отменили, пока задача стояла в очереди
+            try {
+                future.complete(task.run(future::isCancelled));
+            } catch (Throwable ex) {
+                // после отмены исключение от прерванного чтения уже никому не нужно
+                if (!future.isCancelled()) future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    /** Файл из первого слоя, где он есть; если его нет нигде — путь в верхнем слое. */
+    private Path resolve(String relative) {
+        Path top = safeResolve(root, relative);
+        if (roots.size() == 1 || Files.exists(top)) return top;
+        for (int i = 1; i < roots.size(); i++) {
+            Path candidate = safeResolve(roots.get(i), relative);
+            if (Files.exists(candidate)) return candidate;
+        }
+        return top;
+    }
+
+    private int layerOf(Path path) {
+        for (int i = 0; i < roots.size(); i++) {
+            if (path.getFileSystem() == roots.get(i).getFileSystem() && path.startsWith(roots.get(i))) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Путь внутри слоя; выход за его корень запрещён. В архиве ".." выше корня схлопывается
+     * в корень, поэтому относительный путь проверяется и сам по себе.
+     */
+    private static Path safeResolve(Path layer, String relative) {
+        Path rel = layer.getFileSystem().getPath(relative).normalize();
+        Path candidate = layer.resolve(rel).normalize();
+        if (rel.isAbsolute() || rel.startsWith("..") || !candidate.startsWith(layer)) {
             throw new SecurityException("Access outside content/ is not allowed: " + relative);
         }
         return candidate;
     }
 
+    private static Stamp stamp(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        return new Stamp(attrs.lastModifiedTime().toMillis(), attrs.size());
+    }
+
+    private static Stamp stampOrNull(Path path) {
+        try {
+            return stamp(path);
+        } catch (IOException e) {
+            return null; // файл удалён или недоступен
+        }
+    }
+
+    private String version(Path path) {
+        return version(stampOrNull(path)) + layerVersion(layerOf(path));
+    }
+
+    private String layerVersion(int layer) {
+        return layer < 0 || rootVersions.get(layer).isEmpty() ? "" : "@" + rootVersions.get(layer);
+    }
+
+    private static String version(Stamp stamp) {
+        return stamp == null ? "-" : stamp.modified() + ":" + stamp.size();
+    }
+
     private static <T> Set<T> findDuplicates(List<T> list) {
         Set<T> seen = new HashSet<>();
         return list.stream()
@@ -66,7 +717,62 @@ public final class ContentStore {
                 .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
+    /** Корень верхнего слоя; у хранилища из одного архива — путь внутри архива (только чтение). */
     public Path getRoot() {
         return root;
     }
+
+    /** Корни всех слоёв по убыванию приоритета. */
+    public List<Path> layers() {
+        return roots;
+    }
+
+    private record Stamp(long modified, long size) {}
+
+    /** Режет растущий список на страницы: первая — из одного элемента, чтобы показать его сразу. */
+    private static final class PageSink {
+        private final Consumer<List<Item>> pages;
+        private final int pageSize;
+        private int sent;
+        private boolean used;
+
+        PageSink(Consumer<List<Item>> pages, int pageSize) {
+            this.pages = pages;
+            this.pageSize = pageSize;
+        }
+
+        void offer(List<Item> items) {
+            if (sent == 0 || items.size() - sent >= pageSize) flush(items);
+        }
+
+        void flush(List<Item> items) {
+            used = true;
+            if (items.size() == sent) return;
+            pages.accept(List.copyOf(items.subList(sent, items.size())));
+            sent = items.size();
+        }
+    }
+
+    private record Cached(Stamp stamp, Object value) {}
+
+    @FunctionalInterface
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface IoTask<T> {
+        T run(BooleanSupplier cancelled) throws IOException;
+    }
+
+    private static final class LoaderThreads implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "content-loader-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package com.shiyano.shinyaoJTD.store;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Следит за папкой content/ через {@link WatchService} и отдаёт пачки изменённых *.json.
+ * Редакторы часто пишут файл в несколько приёмов, поэтому события склеиваются,
+ * пока между ними проходит меньше {@link #DEBOUNCE_MS} мс.
+ */
+final class ContentWatcher implements AutoCloseable {
+
+    private static final long DEBOUNCE_MS = 30;
+
+    private final Path root;
+    private final Consumer<Set<String>> onChange;
+    private final WatchService service;
+    private final Thread thread;
+
+    ContentWatcher(Path root, Consumer<Set<String>> onChange) throws IOException {
+        this.root = root;
+        this.onChange = onChange;
+        this.service = root.getFileSystem().newWatchService();
+        root.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        this.thread = new Thread(this::run, "content-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Set<String> changed = new LinkedHashSet<>();
+                if (!drain(service.take(), changed)) return;
+                WatchKey more;
+                while ((more = service.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    if (!drain(more, changed)) return;
+                }
+                if (!changed.isEmpty()) onChange.accept(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // закрыли наблюдатель — просто выходим
+        }
+    }
+
+    /** Собирает имена изменённых json-файлов; false — ключ больше не действителен. */
+    private boolean drain(WatchKey key, Set<String> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // события потеряны — считаем изменившимися все json-файлы
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*.json")) {
+                    files.forEach(f -> changed.add(f.getFileName().toString()));
+                } catch (IOException ignored) {
+                }
+                continue;
+            }
+            if (event.context() instanceof Path name && name.toString().endsWith(".json")) {
+                changed.add(name.toString());
+            }
+        }
+        return key.reset();
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            service.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
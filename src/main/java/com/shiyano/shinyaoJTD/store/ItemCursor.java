@@ -0,0 +1,93 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.shiyano.shinyaoJTD.core.Item;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Потоковое чтение items-*.json: элементы массива разбираются и валидируются по одному,
+ * файл целиком в память не попадает. Дубликаты sid ловятся по мере чтения.
+ * Ошибки ввода-вывода выбрасываются как {@link UncheckedIOException}.
+ */
+public final class ItemCursor implements Iterator<Item>, Closeable {
+
+    private final String file;
+    private final JsonParser parser;
+    private final ObjectReader reader;
+    private final Set<String> seenSids = new HashSet<>();
+
+    private Item next;
+    private boolean finished;
+    private int position;
+
+    ItemCursor(String file, JsonParser parser, ObjectReader reader) throws IOException {
+        this.file = file;
+        this.parser = parser;
+        this.reader = reader;
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException(file + ": expected a JSON array of items");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                advance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Item next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Item it = next;
+        next = null;
+        position++;
+        return it;
+    }
+
+    /** Следующая страница не длиннее {@code limit}; пустой список — файл дочитан. */
+    public List<Item> nextPage(int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be > 0");
+        List<Item> page = new ArrayList<>(Math.min(limit, 256));
+        while (page.size() < limit && hasNext()) {
+            page.add(next());
+        }
+        return page;
+    }
+
+    /** Сколько элементов уже отдано. */
+    public int position() {
+        return position;
+    }
+
+    private void advance() throws IOException {
+        JsonToken t = parser.nextToken();
+        if (t == null || t == JsonToken.END_ARRAY) {
+            finished = true;
+            return;
+        }
+        Item it = reader.readValue(parser);
+        // проверка уникальности Item.sid — по ходу чтения
+        if (!seenSids.add(it.sid())) {
+            throw new IllegalStateException("Duplicate Item.sid in " + file + ": [" + it.sid() + "]");
+        }
+        next = it;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,65 @@
+package com.shiyano.shinyaoJTD.store;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Поток, который сообщает о прочитанных байтах и прерывает чтение при отмене загрузки.
+ * Прогресс отдаётся не чаще, чем раз в {@link #REPORT_STEP} байт; финальное значение сообщает вызывающий.
+ */
+final class ProgressInputStream extends FilterInputStream {
+
+    private static final long REPORT_STEP = 64 * 1024;
+
+    private final String file;
+    private final long total;
+    private final ContentStore.Progress progress;
+    private final BooleanSupplier cancelled;
+
+    private long done;
+    private long lastReported;
+
+    ProgressInputStream(InputStream in, String file, long total,
+                        ContentStore.Progress progress, BooleanSupplier cancelled) {
+        super(in);
+        this.file = file;
+        this.total = total;
+        this.progress = progress;
+        this.cancelled = cancelled;
+        progress.update(file, 0, total);
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkCancelled();
+        int b = super.read();
+        advance(b < 0 ? -1 : 1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        checkCancelled();
+        int n = super.read(buf, off, len);
+        advance(n);
+        return n;
+    }
+
+    private void checkCancelled() throws InterruptedIOException {
+        if (cancelled.getAsBoolean()) {
+            throw new InterruptedIOException("Loading of " + file + " was cancelled");
+        }
+    }
+
+    private void advance(int n) {
+        if (n <= 0) return;
+        done += n;
+        if (done - lastReported >= REPORT_STEP) {
+            lastReported = done;
+            progress.update(file, done, total);
+        }
+    }
+}
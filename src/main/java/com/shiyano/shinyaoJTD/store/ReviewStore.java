@@ -0,0 +1,117 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.ReviewScheduler;
+import com.shiyano.shinyaoJTD.core.ReviewScheduler.Card;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Хранение состояния интервальных повторений между запусками: компактный бинарный файл
+ * в папке данных пользователя, запись атомарная (tmp + move).
+ *
+ * <p>{@link #scheduler()} живёт в FX-потоке; {@link #saveAsync()} снимает копию состояния
+ * в вызывающем потоке и пишет её в фоне, поэтому переход между экранами не ждёт диска.
+ * Все записи идут через один поток по очереди: более старый снимок не ляжет поверх более нового.
+ */
+public final class ReviewStore {
+
+    private static final int MAGIC = 0x4A545253; // "JTRS"
+    private static final int VERSION = 1;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "review-store-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path file;
+    private final ReviewScheduler scheduler;
+
+    private ReviewStore(Path file, ReviewScheduler scheduler) {
+        this.file = file;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Читает сохранённое состояние; нет файла — пустой планировщик. Повреждённый файл
+     * не затирается: он откладывается в *.corrupt, чтобы прогресс можно было восстановить вручную.
+     */
+    public static ReviewStore open(Path file) {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        if (Files.isRegularFile(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) throw new IOException("not a review state file");
+                int version = in.readInt();
+                if (version != VERSION) throw new IOException("unsupported version " + version);
+                int n = in.readInt();
+                List<Card> cards = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    cards.add(new Card(in.readUTF(), in.readFloat(), in.readInt(),
+                            in.readInt(), in.readInt(), in.readLong()));
+                }
+                scheduler.restoreAll(cards);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Review state is unreadable, starting fresh: " + e.getMessage());
+                scheduler = new ReviewScheduler();
+                try {
+                    Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"),
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException ignored) {
+                    // не получилось отложить — файл перезапишется при сохранении
+                }
+            }
+        }
+        return new ReviewStore(file, scheduler);
+    }
+
+    public ReviewScheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Сохраняет и ждёт записи (например, при выходе из приложения). Запись встаёт в ту же очередь,
+     * что и {@link #saveAsync()}: снимки, поставленные раньше, пишутся до неё, а не после.
+     */
+    public void save() {
+        saveAsync().join();
+    }
+
+    /** Снимок берётся сейчас, запись идёт в фоновом потоке; ошибка записи только логируется. */
+    public CompletableFuture<Void> saveAsync() {
+        List<Card> snapshot = scheduler.cards();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(file, snapshot);
+            } catch (IOException e) {
+                System.err.println("Review state is not saved: " + e.getMessage());
+            }
+        }, WRITER);
+    }
+
+    // только поток WRITER
+    private static void write(Path file, List<Card> cards) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(cards.size());
+            for (Card c : cards) {
+                out.writeUTF(c.sid());
+                out.writeFloat(c.ease());
+                out.writeInt(c.intervalDays());
+                out.writeInt(c.repetitions());
+                out.writeInt(c.lapses());
+                out.writeLong(c.dueMillis());
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,519 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.JapaneseText;
+import com.shiyano.shinyaoJTD.core.Reading;
+import com.shiyano.shinyaoJTD.core.Topic;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Инвертированный индекс заданий всех тем: символ фразы, слово (из предрасчёта readings-*.json
+ * или токенизатора), вариант ответа, верная частица и слово перевода → отсортированные номера заданий.
+ *
+ * <p>Индекс состоит из сегментов по темам. Сегмент помнит отпечаток файлов темы
+ * ({@link ContentStore#contentVersion}) и пересобирается только после их правки, а всё вместе
+ * хранится в папке данных пользователя — при обычном запуске контент не перечитывается.
+ *
+ * <p>Запрос — слова через пробел, все должны совпасть:
+ * {@code 学生} — подстрока фразы, {@code =が} — верный ответ, {@code +へ} — среди вариантов,
+ * {@code ~たべる} — слово фразы (написание, словарная форма или чтение), остальное — начало слова перевода.
+ *
+ * <p>{@link #search} можно вызывать из любого потока, в том числе во время обновления:
+ * набор сегментов подменяется целиком.
+ */
+public final class SearchIndex {
+
+    public static final String FILE_NAME = "search-index.bin";
+
+    /** Слова фразы для индекса; null — токенизатор сейчас недоступен. */
+    @FunctionalInterface
+    public interface Tokenizer {
+        List<String> words(String jp);
+    }
+
+    /** Найденное задание: тема, номер в items-файле на момент индексации, sid и фраза для списка. */
+    public record Hit(String topicCode, int index, String sid, String jp) {}
+
+    /** Первые {@code limit} совпадений и их общее число. */
+    public record Result(List<Hit> hits, int total, long nanos) {
+
+        public static final Result EMPTY = new Result(List.of(), 0, 0);
+
+        public double millis() {
+            return nanos / 1e6;
+        }
+    }
+
+    public record UpdateStats(int rebuilt, int kept, int removed, int items, long millis) {
+        @Override
+        public String toString() {
+            return "Search index: %d items, topics rebuilt=%d kept=%d removed=%d in %d ms"
+                    .formatted(items, rebuilt, kept, removed, millis);
+        }
+    }
+
+    private static final int MAGIC = 0x4A545349; // "JTSI"
+    // 2: слова токенизатора (словарные формы) и при наличии предрасчёта
+    private static final int VERSION = 2;
+    /** Перевод ищется по началу слова (русские окончания), но не короче этого. */
+    private static final int GLOSS_PREFIX_MIN = 3;
+
+    // ключи постингов: вид + значение
+    private static final char CHAR = 'j';
+    private static final char WORD = 'w';
+    private static final char OPTION = 'o';
+    private static final char CORRECT = 'c';
+
+    private static final ExecutorService INDEXER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search-indexer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path file;
+    // Topic.code → сегмент, в порядке тем; подменяется целиком
+    private volatile Map<String, Segment> segments = Map.of();
+    private boolean loaded;
+
+    private SearchIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Открывает сохранённый индекс. Файл читается в потоке индексатора: старт окна его не ждёт,
+     * а обновления встают в очередь за чтением. Нет файла или он не читается — индекс пересоберётся.
+     */
+    public static SearchIndex open(Path file) {
+        SearchIndex index = new SearchIndex(file);
+        INDEXER.execute(index::load);
+        return index;
+    }
+
+    private synchronized void load() {
+        if (loaded) return;
+        loaded = true;
+        if (!Files.isRegularFile(file)) return;
+        Map<String, Segment> read = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a search index file");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported version " + version);
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                Segment s = Segment.read(in);
+                read.put(s.code, s);
+            }
+            segments = Collections.unmodifiableMap(read);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Search index is unreadable, it will be rebuilt: " + e.getMessage());
+        }
+    }
+
+    /** Всего проиндексированных заданий. */
+    public int size() {
+        int n = 0;
+        for (Segment s : segments.values()) n += s.sids.length;
+        return n;
+    }
+
+    /** {@link #update} в фоновом потоке индексатора; обновления выполняются по очереди. */
+    public CompletableFuture<UpdateStats> updateAsync(ContentStore store, List<Topic> topics, Tokenizer tokenizer) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return update(store, topics, tokenizer);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, INDEXER);
+    }
+
+    /**
+     * Приводит индекс к текущему контенту: пересобирает сегменты тем, чьи файлы изменились
+     * (или которые строились без токенизатора, а он теперь есть), убирает сегменты исчезнувших тем
+     * и сохраняет индекс, если что-то поменялось. Тема с нечитаемым файлом пропускается.
+     *
+     * @param tokenizer слова фраз со словарными формами; null — только readings-*.json,
+     *                  такие сегменты пересоберутся, когда токенизатор появится
+     */
+    public synchronized UpdateStats update(ContentStore store, List<Topic> topics, Tokenizer tokenizer)
+            throws IOException {
+        long started = System.nanoTime();
+        load();
+        Map<String, Segment> old = segments;
+        Map<String, Segment> next = new LinkedHashMap<>();
+        int rebuilt = 0;
+        int kept = 0;
+        for (Topic t : topics) {
+            String code = t.code();
+            String version = store.contentVersion(code);
+            Segment s = old.get(code);
+            if (s != null && s.version.equals(version) && (s.complete || tokenizer == null)) {
+                next.put(code, s);
+                kept++;
+                continue;
+            }
+            try {
+                List<Item> items = store.loadItemsFor(code);
+                Map<String, Reading> readings;
+                try {
+                    readings = store.loadReadingsFor(code);
+                } catch (IOException | RuntimeException e) {
+                    readings = Map.of(); // без предрасчёта слова даст токенизатор
+                }
+                next.put(code, Segment.build(code, version, items, readings, tokenizer));
+                rebuilt++;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Topic " + code + " is not indexed: " + e.getMessage());
+            }
+        }
+        int removed = 0;
+        for (String code : old.keySet()) {
+            if (!next.containsKey(code)) removed++;
+        }
+        if (rebuilt + removed > 0) {
+            segments = Collections.unmodifiableMap(next);
+            save();
+        }
+        int items = size();
+        return new UpdateStats(rebuilt, kept, removed, items, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Первые limit совпадений в порядке тем и файлов; пустой запрос — пустой результат. */
+    public Result search(String query, int limit) {
+        long started = System.nanoTime();
+        List<Clause> clauses = parse(query);
+        if (clauses.isEmpty()) return Result.EMPTY;
+        List<Hit> hits = new ArrayList<>(Math.min(limit, 256));
+        int total = 0;
+        for (Segment s : segments.values()) {
+            int[] docs = s.match(clauses);
+            total += docs.length;
+            for (int i = 0; i < docs.length && hits.size() < limit; i++) {
+                int d = docs[i];
+                hits.add(new Hit(s.code, d, s.sids[d], s.jps[d]));
+            }
+        }
+        return new Result(List.copyOf(hits), total, System.nanoTime() - started);
+    }
+
+    // ===== запрос =====
+
+    private enum Kind { TEXT, WORD, OPTION, CORRECT, GLOSS }
+
+    private record Clause(Kind kind, String value) {}
+
+    private static List<Clause> parse(String query) {
+        List<Clause> out = new ArrayList<>();
+        if (query == null) return out;
+        for (String part : query.strip().split("\\s+")) {
+            if (part.isEmpty()) continue;
+            char first = part.charAt(0);
+            String rest = part.substring(1);
+            if (first == '=' && !rest.isEmpty()) out.add(new Clause(Kind.CORRECT, rest));
+            else if (first == '+' && !rest.isEmpty()) out.add(new Clause(Kind.OPTION, rest));
+            else if (first == '~' && !rest.isEmpty()) out.add(new Clause(Kind.WORD, rest));
+            else if (isJapanese(part)) out.add(new Clause(Kind.TEXT, part));
+            else out.add(new Clause(Kind.GLOSS, part.toLowerCase(Locale.ROOT)));
+        }
+        return out;
+    }
+
+    private static boolean isJapanese(String s) {
+        return JapaneseText.containsAny(s, JapaneseText.JAPANESE);
+    }
+
+    /** Слова перевода: буквы и цифры в нижнем регистре. */
+    private static List<String> glossWords(String gloss) {
+        List<String> out = new ArrayList<>();
+        if (gloss == null) return out;
+        for (String w : gloss.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!w.isEmpty()) out.add(w);
+        }
+        return out;
+    }
+
+    private static String key(char kind, String value) {
+        return kind + value;
+    }
+
+    // ===== сохранение =====
+
+    private void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, Segment> current = segments;
+            out.writeInt(current.size());
+            for (Segment s : current.values()) s.write(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeVarInt(DataOutput out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("malformed varint");
+    }
+
+    /** Постинг: число номеров и разности соседних номеров varint'ами. */
+    private static void writePostings(DataOutput out, int[] docs) throws IOException {
+        writeVarInt(out, docs.length);
+        int prev = 0;
+        for (int d : docs) {
+            writeVarInt(out, d - prev);
+            prev = d;
+        }
+    }
+
+    private static int[] readPostings(DataInput in, int docCount) throws IOException {
+        int[] docs = new int[readVarInt(in)];
+        int prev = 0;
+        for (int i = 0; i < docs.length; i++) {
+            prev += readVarInt(in);
+            if (prev >= docCount) throw new IOException("posting out of range");
+            docs[i] = prev;
+        }
+        return docs;
+    }
+
+    // ===== сегмент =====
+
+    /** Индекс одной темы; номера документов — номера заданий в items-файле. Неизменяем. */
+    private static final class Segment {
+        final String code;
+        final String version;
+        // все фразы прошли через токенизатор (без него нет словарных форм)
+        final boolean complete;
+        final String[] sids;
+        final String[] jps;
+        final Map<String, int[]> postings;
+        // слова перевода отсортированы — поиск по началу слова идёт диапазоном
+        final String[] glossTerms;
+        final int[][] glossPostings;
+
+        private Segment(String code, String version, boolean complete, String[] sids, String[] jps,
+                        Map<String, int[]> postings, String[] glossTerms, int[][] glossPostings) {
+            this.code = code;
+            this.version = version;
+            this.complete = complete;
+            this.sids = sids;
+            this.jps = jps;
+            this.postings = postings;
+            this.glossTerms = glossTerms;
+            this.glossPostings = glossPostings;
+        }
+
+        static Segment build(String code, String version, List<Item> items, Map<String, Reading> readings,
+                             Tokenizer tokenizer) {
+            int n = items.size();
+            String[] sids = new String[n];
+            String[] jps = new String[n];
+            Map<String, IntList> terms = new HashMap<>();
+            Map<String, IntList> gloss = new HashMap<>();
+            boolean complete = true;
+            Set<String> seen = new HashSet<>();
+            for (int d = 0; d < n; d++) {
+                Item it = items.get(d);
+                sids[d] = it.sid();
+                jps[d] = it.jp();
+                seen.clear();
+                it.jp().codePoints().forEach(cp -> {
+                    if (cp != Item.GAP) seen.add(key(CHAR, Character.toString(cp)));
+                });
+                List<String> tokens = tokenizer == null ? null : tokenizer.words(it.jp());
+                if (tokens == null) complete = false;
+                for (String w : words(it, readings.get(it.sid()), tokens)) seen.add(key(WORD, w));
+                for (String o : it.options()) seen.add(key(OPTION, o));
+                for (String c : it.correctSet()) seen.add(key(CORRECT, c));
+                for (String k : seen) terms.computeIfAbsent(k, x -> new IntList()).add(d);
+
+                seen.clear();
+                seen.addAll(glossWords(it.gloss()));
+                for (String g : seen) gloss.computeIfAbsent(g, x -> new IntList()).add(d);
+            }
+
+            Map<String, int[]> postings = new HashMap<>(terms.size() * 2);
+            terms.forEach((k, v) -> postings.put(k, v.toArray()));
+            String[] glossTerms = gloss.keySet().toArray(String[]::new);
+            Arrays.sort(glossTerms);
+            int[][] glossPostings = new int[glossTerms.length][];
+            for (int i = 0; i < glossTerms.length; i++) glossPostings[i] = gloss.get(glossTerms[i]).toArray();
+            return new Segment(code, version, complete, sids, jps, postings, glossTerms, glossPostings);
+        }
+
+        /**
+         * Слова фразы: токены предрасчёта (написание и проверенное чтение), если он относится к этой фразе,
+         * и слова токенизатора — только они дают словарную форму ({@code ~書く} → 書いて).
+         */
+        private static List<String> words(Item it, Reading reading, List<String> tokens) {
+            List<String> out = new ArrayList<>();
+            if (reading != null && reading.jp().equals(it.jp())) {
+                for (Reading.Token t : reading.tokens()) {
+                    out.add(t.surface());
+                    if (t.reading() != null) out.add(t.reading());
+                }
+            }
+            if (tokens != null) out.addAll(tokens);
+            out.removeIf(w -> w.equals(String.valueOf(Item.GAP)));
+            return out;
+        }
+
+        /** Номера заданий, подходящих под все условия, по возрастанию. */
+        int[] match(List<Clause> clauses) {
+            List<int[]> lists = new ArrayList<>(clauses.size());
+            List<String> substrings = new ArrayList<>();
+            for (Clause c : clauses) {
+                switch (c.kind()) {
+                    case TEXT -> {
+                        // кандидаты — задания со всеми символами; порядок символов проверяется по фразе
+                        c.value().codePoints().distinct().filter(cp -> cp != Item.GAP)
+                                .forEach(cp -> lists.add(get(key(CHAR, Character.toString(cp)))));
+                        if (c.value().codePointCount(0, c.value().length()) > 1) substrings.add(c.value());
+                    }
+                    case WORD -> lists.add(get(key(WORD, c.value())));
+                    case OPTION -> lists.add(get(key(OPTION, c.value())));
+                    case CORRECT -> lists.add(get(key(CORRECT, c.value())));
+                    case GLOSS -> lists.add(gloss(c.value()));
+                }
+            }
+            // запрос из одних ＿ — кандидаты все задания
+            if (lists.isEmpty()) lists.add(IntStream.range(0, sids.length).toArray());
+            lists.sort(Comparator.comparingInt(a -> a.length));
+            int[] docs = lists.get(0);
+            for (int i = 1; i < lists.size() && docs.length > 0; i++) docs = intersect(docs, lists.get(i));
+            if (substrings.isEmpty() || docs.length == 0) return docs;
+
+            int[] out = new int[docs.length];
+            int k = 0;
+            for (int d : docs) {
+                boolean all = true;
+                for (String s : substrings) {
+                    if (!jps[d].contains(s)) {
+                        all = false;
+                        break;
+                    }
+                }
+                if (all) out[k++] = d;
+            }
+            return Arrays.copyOf(out, k);
+        }
+
+        private int[] get(String key) {
+            int[] docs = postings.get(key);
+            return docs == null ? new int[0] : docs;
+        }
+
+        /** Слово перевода целиком или, если оно не короче GLOSS_PREFIX_MIN, по началу. */
+        private int[] gloss(String word) {
+            int from = Arrays.binarySearch(glossTerms, word);
+            if (word.length() < GLOSS_PREFIX_MIN) return from >= 0 ? glossPostings[from] : new int[0];
+            if (from < 0) from = -from - 1;
+            int to = from;
+            while (to < glossTerms.length && glossTerms[to].startsWith(word)) to++;
+            if (to - from == 1) return glossPostings[from];
+            BitSet union = new BitSet(sids.length);
+            for (int i = from; i < to; i++) {
+                for (int d : glossPostings[i]) union.set(d);
+            }
+            return union.stream().toArray();
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] out = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, k = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) i++;
+                else if (a[i] > b[j]) j++;
+                else {
+                    out[k++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, k);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(code);
+            out.writeUTF(version);
+            out.writeBoolean(complete);
+            writeVarInt(out, sids.length);
+            for (int d = 0; d < sids.length; d++) {
+                out.writeUTF(sids[d]);
+                out.writeUTF(jps[d]);
+            }
+            writeVarInt(out, postings.size());
+            for (Map.Entry<String, int[]> e : postings.entrySet()) {
+                out.writeUTF(e.getKey());
+                writePostings(out, e.getValue());
+            }
+            writeVarInt(out, glossTerms.length);
+            for (int i = 0; i < glossTerms.length; i++) {
+                out.writeUTF(glossTerms[i]);
+                writePostings(out, glossPostings[i]);
+            }
+        }
+
+        static Segment read(DataInputStream in) throws IOException {
+            String code = in.readUTF();
+            String version = in.readUTF();
+            boolean complete = in.readBoolean();
+            int n = readVarInt(in);
+            String[] sids = new String[n];
+            String[] jps = new String[n];
+            for (int d = 0; d < n; d++) {
+                sids[d] = in.readUTF();
+                jps[d] = in.readUTF();
+            }
+            int terms = readVarInt(in);
+            Map<String, int[]> postings = new HashMap<>(terms * 2);
+            for (int i = 0; i < terms; i++) postings.put(in.readUTF(), readPostings(in, n));
+            int glossCount = readVarInt(in);
+            String[] glossTerms = new String[glossCount];
+            int[][] glossPostings = new int[glossCount][];
+            for (int i = 0; i < glossCount; i++) {
+                glossTerms[i] = in.readUTF();
+                glossPostings[i] = readPostings(in, n);
+            }
+            return new Segment(code, version, complete, sids, jps, postings, glossTerms, glossPostings);
+        }
+    }
+
+    /** Растущий int[] без упаковки. */
+    private static final class IntList {
+        private int[] a = new int[4];
+        private int size;
+
+        void add(int v) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(a, size);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.AnswerTotals.Totals;
+import com.shiyano.shinyaoJTD.core.LearnerStats;
+import com.shiyano.shinyaoJTD.core.LearnerStats.Row;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Статистика ученика ({@link LearnerStats}) между запусками: бинарный файл в папке данных,
+ * запись атомарная (tmp + move). Размер файла зависит от числа заданий, тем и частиц, а не
+ * от длины истории, поэтому и чтение при старте, и сохранение после сессии не растут со временем.
+ *
+ * <p>{@link #stats()} живёт в FX-потоке; {@link #saveAsync()} снимает копию в вызывающем потоке
+ * и пишет её в фоне. Все записи идут через один поток по очереди, поэтому более старый снимок
+ * не может лечь поверх более нового.
+ */
+public final class StatsStore {
+
+    public static final String FILE_NAME = "learner-stats.bin";
+
+    private static final int MAGIC = 0x4A544C53; // "JTLS"
+    private static final int VERSION = 1;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "stats-store-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path file;
+    private final LearnerStats stats;
+
+    private StatsStore(Path file, LearnerStats stats) {
+        this.file = file;
+        this.stats = stats;
+    }
+
+    /** Читает сохранённую статистику; нет файла или он не читается — начинаем с нуля. */
+    public static StatsStore open(Path file) {
+        LearnerStats stats = new LearnerStats();
+        if (Files.isRegularFile(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) throw new IOException("not a learner stats file");
+                int version = in.readInt();
+                if (version != VERSION) throw new IOException("unsupported version " + version);
+                stats.restoreOverall(readRow(in));
+                int items = in.readInt();
+                for (int i = 0; i < items; i++) stats.restoreItem(in.readUTF(), readTotals(in));
+                int topics = in.readInt();
+                for (int i = 0; i < topics; i++) stats.restoreTopic(readRow(in));
+                int particles = in.readInt();
+                for (int i = 0; i < particles; i++) stats.restoreParticle(readRow(in));
+                int cells = in.readInt();
+                for (int i = 0; i < cells; i++) stats.restoreConfusion(in.readUTF(), in.readUTF(), in.readInt());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Learner stats are unreadable, starting fresh: " + e.getMessage());
+                stats = new LearnerStats();
+            }
+        }
+        return new StatsStore(file, stats);
+    }
+
+    public LearnerStats stats() {
+        return stats;
+    }
+
+    /**
+     * Сохраняет и ждёт записи (например, при выходе из приложения). Запись встаёт в ту же очередь,
+     * что и {@link #saveAsync()}: снимки, поставленные раньше, пишутся до неё, а не после.
+     */
+    public void save() {
+        saveAsync().join();
+    }
+
+    /** Снимок берётся сейчас, запись идёт в фоновом потоке; ошибка записи только логируется. */
+    public CompletableFuture<Void> saveAsync() {
+        LearnerStats snapshot = stats.copy();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(file, snapshot);
+            } catch (IOException e) {
+                System.err.println("Learner stats are not saved: " + e.getMessage());
+            }
+        }, WRITER);
+    }
+
+    // только поток WRITER
+    private static void write(Path file, LearnerStats stats) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeRow(out, stats.overall());
+            List<String> sids = stats.itemSids();
+            out.writeInt(sids.size());
+            for (String sid : sids) {
+                out.writeUTF(sid);
+                writeTotals(out, stats.item(sid));
+            }
+            List<Row> topics = stats.topics();
+            out.writeInt(topics.size());
+            for (Row r : topics) writeRow(out, r);
+            List<Row> particles = stats.particles();
+            out.writeInt(particles.size());
+            for (Row r : particles) writeRow(out, r);
+            List<LearnerStats.Confusion> cells = stats.confusionCells();
+            out.writeInt(cells.size());
+            for (LearnerStats.Confusion c : cells) {
+                out.writeUTF(c.expected());
+                out.writeUTF(c.chosen());
+                out.writeInt(c.count());
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeRow(DataOutputStream out, Row r) throws IOException {
+        out.writeUTF(r.key());
+        writeTotals(out, r.totals());
+        for (int n : r.histogram()) out.writeInt(n);
+    }
+
+    private static Row readRow(DataInputStream in) throws IOException {
+        String key = in.readUTF();
+        Totals totals = readTotals(in);
+        int[] histogram = new int[LearnerStats.BUCKETS];
+        for (int b = 0; b < histogram.length; b++) histogram[b] = in.readInt();
+        return new Row(key, totals, histogram);
+    }
+
+    private static void writeTotals(DataOutputStream out, Totals t) throws IOException {
+        out.writeInt(t.attempts());
+        out.writeInt(t.correct());
+        out.writeLong(t.latencySumMillis());
+        out.writeLong(t.lastAt());
+    }
+
+    private static Totals readTotals(DataInputStream in) throws IOException {
+        return new Totals(in.readInt(), in.readInt(), in.readLong(), in.readLong());
+    }
+}
@@ -0,0 +1,156 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.Topic;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Сводка тем для меню: число заданий, частицы, урок и контрольная сумма items-файла —
+ * всё, что нужно списку тем, без чтения самих заданий.
+ *
+ * <p>Каждая запись помнит отпечаток items-файла (mtime/размер или версию пакета, см.
+ * {@link ContentStore#contentVersion}); при обновлении пересчитываются только темы, чей файл
+ * с тех пор поменялся, остальные берутся как есть. Сводка принадлежит {@link ContentStore}
+ * и, если задан файл, сохраняется в папке данных между запусками.
+ */
+public final class TopicSummaries {
+
+    public static final String FILE_NAME = "topic-summaries.bin";
+
+    /**
+     * Сводка темы. items = -1 — ещё не посчитано или файл не читается;
+     * checksum — CRC32C items-файла в hex, пустая строка, если JSON-файла нет (только пакет).
+     */
+    public record Summary(Topic topic, int items, String checksum) {
+
+        /** Тема, для которой сводки ещё нет. */
+        public static Summary pending(Topic topic) {
+            return new Summary(topic, -1, "");
+        }
+
+        public boolean counted() {
+            return items >= 0;
+        }
+    }
+
+    private static final int MAGIC = 0x4A545453; // "JTTS"
+    private static final int VERSION = 1;
+
+    private record Entry(String version, Summary summary) {}
+
+    // Topic.code → запись; подменяется целиком
+    private Map<String, Entry> entries = Map.of();
+    private Path file;
+
+    TopicSummaries() {}
+
+    /** Файл, в котором сводка живёт между запусками; читается сразу, битый файл игнорируется. */
+    synchronized void persistTo(Path file) {
+        this.file = file;
+        if (!Files.isRegularFile(file)) return;
+        Map<String, Entry> read = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a topic summary file");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported version " + version);
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String code = in.readUTF();
+                String title = in.readUTF();
+                String[] particles = new String[in.readInt()];
+                for (int k = 0; k < particles.length; k++) particles[k] = in.readUTF();
+                Topic.Lesson lesson = new Topic.Lesson(in.readUTF(), in.readInt());
+                int items = in.readInt();
+                String checksum = in.readUTF();
+                String contentVersion = in.readUTF();
+                Topic topic = new Topic(code, title, List.of(particles), lesson);
+                read.put(code, new Entry(contentVersion, new Summary(topic, items, checksum)));
+            }
+            entries = read;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Topic summaries are unreadable, they will be rebuilt: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Сводки тем в их порядке: неизменившиеся — из памяти, остальные пересчитываются
+     * (число заданий без разбора в Item, CRC файла). Файл переписывается, только если сводка
+     * поменялась: при неизменном контенте запуск ничего не пишет.
+     *
+     * <p>Тема с нечитаемым items-файлом тоже запоминается (items = -1) вместе с отпечатком файла,
+     * поэтому пересчитывается, только когда файл поменяется.
+     */
+    synchronized List<Summary> update(ContentStore store, List<Topic> topics, BooleanSupplier cancelled)
+            throws IOException {
+        Map<String, Entry> next = new HashMap<>();
+        List<Summary> out = new ArrayList<>(topics.size());
+        for (Topic t : topics) {
+            String version = store.itemsVersion(t.code());
+            Entry e = entries.get(t.code());
+            if (e == null || !e.version().equals(version)) {
+                e = summarize(store, t, version, cancelled);
+            } else if (!e.summary().topic().equals(t)) {
+                // поменялась только запись в topics.json — число заданий то же
+                e = new Entry(version, new Summary(t, e.summary().items(), e.summary().checksum()));
+            }
+            next.put(t.code(), e);
+            out.add(e.summary());
+        }
+        // пропавшие из topics.json темы выпадают, новые и пересчитанные отличаются от старых записей
+        boolean changed = !next.equals(entries);
+        entries = next;
+        if (changed && file != null) {
+            try {
+                save();
+            } catch (IOException ex) {
+                // сводка — только кэш: в следующий раз посчитается заново
+                System.err.println("Topic summaries were not saved: " + ex.getMessage());
+            }
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    private static Entry summarize(ContentStore store, Topic t, String version, BooleanSupplier cancelled)
+            throws IOException {
+        try {
+            int items = store.countItems(t.code(), cancelled);
+            return new Entry(version, new Summary(t, items, store.itemsChecksum(t.code(), cancelled)));
+        } catch (NoSuchFileException ex) {
+            return new Entry(version, new Summary(t, 0, ""));
+        } catch (InterruptedIOException ex) {
+            throw ex; // отмена загрузки
+        } catch (IOException | RuntimeException ex) {
+            // битый файл не мешает показать остальные темы; ошибку покажет открытие темы
+            System.err.println("Cannot summarize topic " + t.code() + ": " + ex.getMessage());
+            return new Entry(version, Summary.pending(t));
+        }
+    }
+
+    private void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Entry e : entries.values()) {
+                Topic t = e.summary().topic();
+                out.writeUTF(t.code());
+                out.writeUTF(t.title());
+                out.writeInt(t.particles().size());
+                for (String p : t.particles()) out.writeUTF(p);
+                out.writeUTF(t.lesson().book());
+                out.writeInt(t.lesson().unit());
+                out.writeInt(e.summary().items());
+                out.writeUTF(e.summary().checksum());
+                out.writeUTF(e.version());
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
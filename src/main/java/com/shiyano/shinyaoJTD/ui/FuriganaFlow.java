@@ -0,0 +1,104 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.shiyano.shinyaoJTD.perf.FuriganaRenderEvent;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отрисовка фраз в один и тот же TextFlow без пересоздания узлов: Text-узлы берутся из пула
+ * и переиспользуются от вопроса к вопросу, а вместо Tooltip и пары обработчиков на каждый токен
+ * используется один общий тултип — его переподписывают и двигают по событиям мыши на самом TextFlow.
+ * Так число узлов и аллокации на вопрос не растут, сколько бы ни длилась сессия. Только FX-поток.
+ */
+final class FuriganaFlow {
+
+    private static final String TOKEN_STYLE = "-fx-padding: 0 2 0 2;";
+    private static final String GAP = "＿";
+
+    private final TextFlow target;
+    private final List<Text> pool = new ArrayList<>();
+    private final Tooltip tip = new Tooltip();
+    private Text hovered;
+
+    FuriganaFlow(TextFlow target) {
+        this.target = target;
+        target.addEventHandler(MouseEvent.MOUSE_MOVED, this::onMouseMoved);
+        target.addEventHandler(MouseEvent.MOUSE_EXITED, e -> hideTip());
+    }
+
+    /** Показывает фразу; узлов создаётся ровно столько, насколько эта фраза длиннее самой длинной из прежних. */
+    void render(List<FuriganaService.Segment> segments) {
+        FuriganaRenderEvent event = new FuriganaRenderEvent();
+        event.begin();
+        hideTip();
+        int n = segments.size();
+        while (pool.size() < n) {
+            pool.add(new Text());
+        }
+        for (int i = 0; i < n; i++) {
+            FuriganaService.Segment seg = segments.get(i);
+            Text node = pool.get(i);
+            node.setText(seg.surface());
+            node.setUserData(seg.reading());
+            // стили — константы: повторная установка того же значения не вызывает пересчёта CSS
+            boolean gap = GAP.equals(seg.surface());
+            node.setPickOnBounds(!gap);
+            node.setStyle(gap ? "" : TOKEN_STYLE);
+        }
+
+        var children = target.getChildren();
+        if (children.size() > n) {
+            children.remove(n, children.size());
+        }
+        for (int i = 0; i < n; i++) {
+            if (i >= children.size()) {
+                children.add(pool.get(i));
+            } else if (children.get(i) != pool.get(i)) {
+                // чужие узлы (например, после простой отрисовки) заменяем пулом целиком
+                children.setAll(pool.subList(0, n));
+                break;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.segments = n;
+            event.pooled = true;
+            event.commit();
+        }
+    }
+
+    /** Сколько Text-узлов создано за всё время — для контроля, что пул не растёт. */
+    int poolSize() {
+        return pool.size();
+    }
+
+    private void onMouseMoved(MouseEvent e) {
+        Node picked = e.getPickResult().getIntersectedNode();
+        if (!(picked instanceof Text node) || !(node.getUserData() instanceof String reading)) {
+            hideTip();
+            return;
+        }
+        if (node == hovered) return;
+        hovered = node;
+        tip.setText(reading);
+        Point2D p = node.localToScreen(node.sceneToLocal(e.getSceneX(), e.getSceneY()).add(8, 12));
+        if (p == null) return;
+        if (tip.isShowing()) {
+            tip.setAnchorX(p.getX());
+            tip.setAnchorY(p.getY());
+        } else {
+            tip.show(node, p.getX(), p.getY());
+        }
+    }
+
+    private void hideTip() {
+        hovered = null;
+        if (tip.isShowing()) tip.hide();
+    }
+}
@@ -0,0 +1,90 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.atilika.kuromoji.ipadic.Token;
+import com.atilika.kuromoji.ipadic.Tokenizer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.JapaneseText;
+import com.shiyano.shinyaoJTD.core.Reading;
+import com.shiyano.shinyaoJTD.core.Topic;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Предрасчёт фуриганы (gradle furiganaPrecompute): токенизирует все Item.jp из content/
+ * параллельно и пишет рядом readings-&lt;code&gt;.json (sid → токены с чтениями).
+ * Записи с "reviewed": true, чья фраза не менялась, остаются как есть — это ручные правки автора.
+ *
+ * <pre>FuriganaPrecompiler &lt;content-dir&gt;</pre>
+ */
+public final class FuriganaPrecompiler {
+
+    private FuriganaPrecompiler() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: FuriganaPrecompiler <content-dir>");
+            System.exit(2);
+        }
+        ContentStore store = new ContentStore(Path.of(args[0]));
+        ObjectMapper mapper = new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        // Tokenizer Kuromoji потокобезопасен — один экземпляр на все потоки
+        Tokenizer tokenizer = new Tokenizer();
+
+        for (Topic topic : store.loadTopics()) {
+            long started = System.nanoTime();
+            List<Item> items = store.loadItemsFor(topic.code());
+            Map<String, Reading> existing = store.loadReadingsFor(topic.code());
+
+            List<Reading> computed = items.parallelStream()
+                    .map(it -> {
+                        Reading old = existing.get(it.sid());
+                        if (old != null && old.reviewed() && old.jp().equals(it.jp())) return old;
+                        return compute(tokenizer, it);
+                    })
+                    .toList();
+
+            Map<String, Reading> out = new LinkedHashMap<>();
+            int kept = 0;
+            for (int i = 0; i < items.size(); i++) {
+                Reading r = computed.get(i);
+                if (r == null) continue;
+                if (r.reviewed()) kept++;
+                out.put(items.get(i).sid(), r);
+            }
+
+            Path file = store.getRoot().resolve("readings-" + topic.code() + ".json");
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            mapper.writeValue(tmp.toFile(), out);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.printf("%s: %d items, %d reviewed kept (%d ms)%n",
+                    file.getFileName(), out.size(), kept, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private static Reading compute(Tokenizer tokenizer, Item it) {
+        List<Reading.Token> tokens = new ArrayList<>();
+        for (Token t : tokenizer.tokenize(it.jp())) {
+            String surface = t.getSurface();
+            String kata = t.getReading();
+            // "*" — у Kuromoji «чтение неизвестно»
+            String reading = kata == null || kata.equals("*") ? null : JapaneseText.toHiragana(kata);
+            tokens.add(new Reading.Token(surface, surface.equals(reading) ? null : reading));
+        }
+        try {
+            return new Reading(it.jp(), false, tokens);
+        } catch (IllegalArgumentException e) {
+            System.err.println("sid " + it.sid() + " skipped: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -2,21 +2,49 @@ package com.shiyano.shinyaoJTD.ui;
 
 import com.atilika.kuromoji.ipadic.Token;
 import com.atilika.kuromoji.ipadic.Tokenizer;
+import com.shiyano.shinyaoJTD.AppPaths;
+import com.shiyano.shinyaoJTD.core.JapaneseText;
+import com.shiyano.shinyaoJTD.core.Reading;
+import com.shiyano.shinyaoJTD.perf.FuriganaRenderEvent;
+import com.shiyano.shinyaoJTD.perf.TokenizeEvent;
 import javafx.geometry.Point2D;
 import javafx.scene.control.Tooltip;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
 import javafx.util.Duration;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * FuriganaService на базе Atilika Kuromoji (kuromoji-ipadic).
  * Делает TextFlow, где фуригана показывается по наведению — вручную (show/hide),
  * чтобы избежать проблем с «узкой зоной» Text в TextFlow.
+ *
+ * <p>Один экземпляр на приложение ({@link #shared()}): словарь IPADIC грузится один раз,
+ * в фоне ({@link #warmUp()}), и не блокирует FX-поток. Результаты токенизации кэшируются
+ * (LRU по памяти) и сохраняются между запусками в {@code furigana-cache.bin} в папке данных.
+ *
+ * <p>С {@code -Djtd.furigana=precomputed} словарь не грузится вовсе: фуригана берётся только
+ * из readings-*.json (gradle furiganaPrecompute) и кэша, остальные фразы показываются без неё.
  */
 public final class FuriganaService {
 
+    /** Фраза для прогрева: проходит по основным путям словаря сразу после загрузки. */
+    private static final String WARM_UP_TEXT = "私は日本の学生で、カタカナも読みます。";
+
+    /** Потолок памяти под кэш токенизации, байт (-Djtd.furigana.cacheBytes). */
+    private static final long CACHE_BYTES = Long.getLong("jtd.furigana.cacheBytes", 8L * 1024 * 1024);
+
+    /** false — режим «только предрасчёт»: Kuromoji не используется. */
+    private static final boolean TOKENIZER_ENABLED = !"precomputed".equals(System.getProperty("jtd.furigana"));
+
+    // после констант: конструктору нужен CACHE_BYTES
+    private static final FuriganaService SHARED = new FuriganaService();
+
     public static final class TokenInfo {
         public final String surface;
         public final String readingHira;
@@ -29,16 +57,124 @@ public final class FuriganaService {
         }
     }
 
-    private final Tokenizer tokenizer = new Tokenizer();
+    /** Кусок фразы для отображения; reading — текст тултипа или null. */
+    public record Segment(String surface, String reading) {}
+
+    private final CompletableFuture<Tokenizer> tokenizer = new CompletableFuture<>();
+    private final AtomicBoolean warmUpStarted = new AtomicBoolean();
+    private volatile long warmUpNanos = -1;
+
+    private final TokenCache cache = new TokenCache(CACHE_BYTES);
+    private final Path cacheFile;
+
+    private FuriganaService() {
+        this(AppPaths.dataDir().resolve("furigana-cache.bin"));
+    }
+
+    /** Отдельный экземпляр со своим файлом кэша (бенчмарки): общий кэш пользователя не трогается. */
+    FuriganaService(Path cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    public static FuriganaService shared() {
+        return SHARED;
+    }
+
+    /**
+     * Запускает в фоновом потоке чтение сохранённого кэша и затем загрузку словаря;
+     * повторные вызовы ничего не делают.
+     */
+    public void warmUp() {
+        if (!warmUpStarted.compareAndSet(false, true)) return;
+        Thread t = new Thread(() -> {
+            // кэш маленький и читается быстро — знакомые фразы получат фуригану ещё до словаря
+            cache.load(cacheFile);
+            if (!TOKENIZER_ENABLED) return;
+            long started = System.nanoTime();
+            try {
+                Tokenizer tk = new Tokenizer();
+                tk.tokenize(WARM_UP_TEXT);
+                warmUpNanos = System.nanoTime() - started;
+                tokenizer.complete(tk);
+            } catch (Throwable e) {
+                tokenizer.completeExceptionally(e);
+            }
+        }, "kuromoji-warm-up");
+        t.setDaemon(true);
+        t.start();
+    }
 
+    /** Токенизатор загружен — фуригану можно строить без ожидания. */
+    public boolean isReady() {
+        return tokenizer.isDone() && !tokenizer.isCompletedExceptionally();
+    }
+
+    /** false — запущено с -Djtd.furigana=precomputed, токенизатор не появится никогда. */
+    public boolean tokenizerEnabled() {
+        return TOKENIZER_ENABLED;
+    }
+
+    /**
+     * Завершается, когда токенизатор готов (запускает прогрев, если его ещё не было).
+     * В режиме «только предрасчёт» не завершается.
+     */
+    public CompletableFuture<Void> whenReady() {
+        warmUp();
+        return tokenizer.thenApply(tk -> null);
+    }
+
+    /** Время прогрева (загрузка словаря + первая фраза), мс; -1 — ещё не закончился. */
+    public long warmUpMillis() {
+        long n = warmUpNanos;
+        return n < 0 ? -1 : n / 1_000_000;
+    }
+
+    /**
+     * Фразу можно показать в окончательном виде сразу: словарь готов, фраза уже в кэше
+     * или токенизатор отключён (тогда без предрасчёта она так и останется простым текстом).
+     */
+    public boolean canRender(String jp) {
+        return isReady() || !TOKENIZER_ENABLED || cache.contains(jp);
+    }
+
+    /** Сохраняет кэш токенизации в папку данных пользователя. */
+    public void saveCache() {
+        try {
+            cache.save(cacheFile);
+        } catch (IOException e) {
+            System.err.println("Failed to save furigana cache: " + e.getMessage());
+        }
+    }
+
+    /** Hit ratio и оценка памяти кэша токенизации и время прогрева словаря, одной строкой для лога. */
+    public String cacheReport() {
+        TokenCache.Stats st = cache.stats();
+        long warm = warmUpMillis();
+        return "Furigana cache: hits=%d misses=%d hit-ratio=%.1f%% entries=%d memory≈%d KB, warm-up %s".formatted(
+                st.hits(), st.misses(), st.hitRatio() * 100, st.entries(), st.bytes() / 1024,
+                warm < 0 ? "not finished" : warm + " ms");
+    }
+
+    /**
+     * Токены фразы: из кэша или через Kuromoji. Если фразы нет в кэше, блокирует до готовности
+     * токенизатора — из FX-потока вызывать только после {@link #canRender(String)}.
+     */
     public List<TokenInfo> tokenize(String jp) {
         Objects.requireNonNull(jp, "jp");
-        List<Token> toks = tokenizer.tokenize(jp);
+        TokenizeEvent event = new TokenizeEvent();
+        event.begin();
+        List<TokenInfo> cached = cache.get(jp);
+        if (cached != null) return commit(event, jp, cached, true);
+        if (!TOKENIZER_ENABLED) {
+            return List.of(new TokenInfo(jp, null, null));
+        }
+        warmUp();
+        List<Token> toks = tokenizer.join().tokenize(jp);
         List<TokenInfo> out = new ArrayList<>(toks.size());
         for (Token t : toks) {
             String surface = t.getSurface();
             String readingKatakana = t.getReading();              // может быть null
-            String readingHira = readingKatakana != null ? kataToHira(readingKatakana) : null;
+            String readingHira = readingKatakana != null ? JapaneseText.toHiragana(readingKatakana) : null;
             String pos = String.join("-", Arrays.asList(
                     t.getPartOfSpeechLevel1(),
                     t.getPartOfSpeechLevel2(),
@@ -47,26 +183,108 @@ public final class FuriganaService {
             ));
             out.add(new TokenInfo(surface, readingHira, pos));
         }
+        return commit(event, jp, cache.put(jp, out), false);
+    }
+
+    private static List<TokenInfo> commit(TokenizeEvent event, String jp, List<TokenInfo> tokens, boolean cached) {
+        if (event.shouldCommit()) {
+            event.chars = jp.length();
+            event.tokens = tokens.size();
+            event.cached = cached;
+            event.commit();
+        }
+        return tokens;
+    }
+
+    /**
+     * Слова фразы для поискового индекса: написание, словарная форма и чтение (хирагана) каждого токена.
+     * Только если словарь уже загружен, иначе null. Кэш токенизации не трогает, чтобы массовая
+     * индексация не вытеснила из него фразы тренировки.
+     */
+    public List<String> words(String jp) {
+        if (!isReady()) return null;
+        List<Token> toks = tokenizer.join().tokenize(jp);
+        List<String> out = new ArrayList<>(toks.size() * 2);
+        for (Token t : toks) {
+            out.add(t.getSurface());
+            String base = t.getBaseForm();
+            if (base != null && !base.equals("*") && !base.equals(t.getSurface())) out.add(base);
+            String reading = t.getReading();
+            if (reading != null && !reading.equals("*")) out.add(JapaneseText.toHiragana(reading));
+        }
         return out;
     }
 
     /**
      * Собирает TextFlow, навешивая «ручные» тултипы на кандзи/катакану.
      * manualReadings: переопределения чтений (ひらがна/カタカナ); можно null.
+     * Пока словарь не загружен и фразы нет в кэше, возвращает простой текст без фуриганы —
+     * см. {@link #canRender(String)}.
      */
     public TextFlow createTextFlow(String jp, Map<String, String> manualReadings) {
-        List<TokenInfo> tokens = tokenize(jp);
+        return createTextFlow(jp, null, manualReadings);
+    }
+
+    /**
+     * То же, но с предрасчитанной разметкой: если она относится к этой же фразе, токенизатор
+     * не нужен вовсе, а её чтения имеют приоритет над словарём (это проверенные автором переопределения).
+     */
+    public TextFlow createTextFlow(String jp, Reading precomputed, Map<String, String> manualReadings) {
+        if (!canRender(jp, precomputed)) {
+            return render(List.of(new Segment(jp, null)));
+        }
+        return render(segments(jp, precomputed, manualReadings));
+    }
+
+    /** Фразу можно разметить без ожидания: есть подходящий предрасчёт или {@link #canRender(String)}. */
+    public boolean canRender(String jp, Reading precomputed) {
+        return (precomputed != null && precomputed.jp().equals(jp)) || canRender(jp);
+    }
+
+    /**
+     * Модель отображения фразы: куски текста и чтения для тултипов (null — тултип не нужен).
+     * Не трогает scene graph, поэтому годится для фоновой подготовки; без предрасчёта
+     * и кэша блокирует до готовности токенизатора.
+     */
+    public List<Segment> segments(String jp, Reading precomputed, Map<String, String> manualReadings) {
+        List<TokenInfo> tokens;
+        if (precomputed != null && precomputed.jp().equals(jp)) {
+            tokens = new ArrayList<>(precomputed.tokens().size());
+            for (Reading.Token t : precomputed.tokens()) {
+                tokens.add(new TokenInfo(t.surface(), t.reading(), null));
+            }
+        } else {
+            tokens = tokenize(jp);
+        }
 
         Map<String, String> manual = new HashMap<>();
         if (manualReadings != null) {
-            manualReadings.forEach((k, v) -> manual.put(k, v == null ? null : normalizeReading(v)));
+            manualReadings.forEach((k, v) -> manual.put(k, v == null ? null : JapaneseText.toHiragana(v)));
+        }
+
+        List<Segment> out = new ArrayList<>(tokens.size());
+        for (TokenInfo t : tokens) {
+            String surface = t.surface;
+            // Символ пропуска — как есть
+            if ("＿".equals(surface)) {
+                out.add(new Segment(surface, null));
+                continue;
+            }
+            String reading = manual.containsKey(surface) ? manual.get(surface) : t.readingHira;
+            out.add(new Segment(surface, reading != null && shouldShowTooltip(surface, reading) ? reading : null));
         }
+        return out;
+    }
 
+    /** Собирает TextFlow по готовой модели (FX-поток). */
+    public TextFlow render(List<Segment> segments) {
+        FuriganaRenderEvent event = new FuriganaRenderEvent();
+        event.begin();
         TextFlow flow = new TextFlow();
         flow.setLineSpacing(4);
 
-        for (TokenInfo t : tokens) {
-            String surface = t.surface;
+        for (Segment seg : segments) {
+            String surface = seg.surface();
 
             // Символ пропуска — как есть
             if ("＿".equals(surface)) {
@@ -74,16 +292,14 @@ public final class FuriganaService {
                 continue;
             }
 
-            String reading = manual.containsKey(surface) ? manual.get(surface) : t.readingHira;
-
             Text node = new Text(surface);
             // Чуть увеличим «зону наведения»: включаем попадание по прямоугольнику
             node.setPickOnBounds(true);
             // Пара пикселей внутреннего отступа, чтобы попасть было легче
             node.setStyle("-fx-padding: 0 2 0 2;");
 
-            if (reading != null && shouldShowTooltip(surface, reading)) {
-                Tooltip tip = new Tooltip(reading);
+            if (seg.reading() != null) {
+                Tooltip tip = new Tooltip(seg.reading());
                 tip.setShowDelay(Duration.millis(150));
                 tip.setShowDuration(Duration.seconds(15));
                 tip.setHideDelay(Duration.millis(100));
@@ -99,44 +315,17 @@ public final class FuriganaService {
             flow.getChildren().add(node);
         }
 
-        return flow;
-    }
-
-    /** カタカナ → ひらがな. */
-    private static String kataToHira(String s) {
-        if (s == null || s.isEmpty()) return s;
-        StringBuilder sb = new StringBuilder(s.length());
-        for (int i = 0; i < s.length(); i++) {
-            char ch = s.charAt(i);
-            if (ch >= 'ァ' && ch <= 'ン') {
-                sb.append((char) (ch - 'ァ' + 'ぁ'));
-            } else if (ch == 'ヴ') {
-                sb.append('ゔ');
-            } else {
-                sb.append(ch);
-            }
+        if (event.shouldCommit()) {
+            event.segments = segments.size();
+            event.commit();
         }
-        return sb.toString();
-    }
-
-    /** Нормализация: катакану переводим в хирагану. */
-    private static String normalizeReading(String reading) {
-        boolean hasKatakana = reading.codePoints().anyMatch(c -> (c >= 'ァ' && c <= 'ン') || c == 'ヴ');
-        return hasKatakana ? kataToHira(reading) : reading;
+        return flow;
     }
 
     /** Решаем, нужен ли тултип. */
     private static boolean shouldShowTooltip(String surface, String readingHira) {
         if (readingHira == null || readingHira.isBlank()) return false;
-        boolean hasKanji = surface.codePoints().anyMatch(FuriganaService::isCJKIdeograph);
-        boolean hasKatakana = surface.codePoints().anyMatch(c -> (c >= 'ァ' && c <= 'ン') || c == 'ヴ');
-        if (hasKanji || hasKatakana) return true;
+        if (JapaneseText.containsAny(surface, JapaneseText.KANJI | JapaneseText.ANY_KATAKANA)) return true;
         return !surface.equals(readingHira);
     }
-
-    private static boolean isCJKIdeograph(int cp) {
-        return (cp >= 0x4E00 && cp <= 0x9FFF)
-                || (cp >= 0x3400 && cp <= 0x4DBF)
-                || (cp >= 0xF900 && cp <= 0xFAFF);
-    }
 }
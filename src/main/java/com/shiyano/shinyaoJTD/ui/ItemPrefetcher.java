@@ -0,0 +1,114 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.Reading;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Заранее готовит следующие вопросы тренировки в фоновом потоке: токенизация и модель
+ * отображения фразы, подписи кнопок. Пока пользователь отвечает, впереди лежат до
+ * {@code depth} готовых вопросов, и «Далее» только подставляет их.
+ *
+ * <p>Методы вызываются из FX-потока. Счётчики hits/misses показывают, как часто
+ * пользователь обгонял подготовку.
+ */
+final class ItemPrefetcher {
+
+    /** Готовый к показу вопрос. complete = false — фуригана ещё не построена (словарь не готов). */
+    record Prepared(Item item, List<FuriganaService.Segment> segments, List<String> optionLabels, boolean complete) {}
+
+    /** Глубина упреждения по умолчанию (-Djtd.prefetch.depth). */
+    static final int DEFAULT_DEPTH = Math.max(0, Integer.getInteger("jtd.prefetch.depth", 3));
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "item-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final FuriganaService furigana;
+    private final Function<Item, Reading> readings;
+    private final int depth;
+    // ключ — сам объект Item: после горячей перезагрузки «равный» вопрос всё равно готовим заново
+    private final Map<Item, CompletableFuture<Prepared>> ahead = new IdentityHashMap<>();
+
+    private long hits;
+    private long misses;
+
+    ItemPrefetcher(FuriganaService furigana, Function<Item, Reading> readings, int depth) {
+        this.furigana = furigana;
+        this.readings = readings;
+        this.depth = depth;
+    }
+
+    /** Ставит в очередь подготовку items[from .. from+depth) и забывает всё, что вне окна. */
+    void prefetch(List<Item> items, int from) {
+        Set<Item> window = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = from; i < Math.min(items.size(), from + depth); i++) {
+            Item it = items.get(i);
+            window.add(it);
+            ahead.computeIfAbsent(it, k -> {
+                Reading r = readings.apply(k);
+                // в фоне можно ждать словарь — к показу фуригана уже будет
+                return CompletableFuture.supplyAsync(() -> prepare(k, r), WORKER);
+            });
+        }
+        ahead.entrySet().removeIf(e -> {
+            if (window.contains(e.getKey())) return false;
+            e.getValue().cancel(false);
+            return true;
+        });
+    }
+
+    /** Готовый вопрос из упреждения (hit) или подготовленный прямо сейчас без ожидания словаря (miss). */
+    Prepared take(Item item) {
+        CompletableFuture<Prepared> f = ahead.remove(item);
+        if (f != null && f.isDone() && !f.isCompletedExceptionally()) {
+            hits++;
+            return f.join();
+        }
+        misses++;
+        if (f != null) f.cancel(false);
+        Reading r = readings.apply(item);
+        if (furigana.canRender(item.jp(), r)) return prepare(item, r);
+        return new Prepared(item, List.of(new FuriganaService.Segment(item.jp(), null)), labels(item), false);
+    }
+
+    /** Сбрасывает заготовки (например, после перезагрузки предрасчитанной фуриганы). */
+    void clear() {
+        ahead.values().forEach(f -> f.cancel(false));
+        ahead.clear();
+    }
+
+    long hits() {
+        return hits;
+    }
+
+    long misses() {
+        return misses;
+    }
+
+    String report() {
+        long total = hits + misses;
+        return "Prefetch (depth %d): hits=%d misses=%d hit-ratio=%.1f%%".formatted(
+                depth, hits, misses, total == 0 ? 0.0 : hits * 100.0 / total);
+    }
+
+    private Prepared prepare(Item item, Reading reading) {
+        return new Prepared(item, furigana.segments(item.jp(), reading, null), labels(item), true);
+    }
+
+    private static List<String> labels(Item item) {
+        List<String> out = new ArrayList<>(item.options().size());
+        int i = 1;
+        for (String opt : item.options()) {
+            out.add("%d) %s".formatted(i++, opt));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,100 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.shiyano.shinyaoJTD.perf.Perf;
+import com.shiyano.shinyaoJTD.perf.SceneSwitchEvent;
+import com.shiyano.shinyaoJTD.store.AnswerLog;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+import com.shiyano.shinyaoJTD.store.ReviewStore;
+import com.shiyano.shinyaoJTD.store.SearchIndex;
+import com.shiyano.shinyaoJTD.store.StatsStore;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Переходы между экранами. Экраны — меню тем, тренировка и статистика — создаются один раз на всё
+ * время работы, а переход только меняет корень единственной сцены: меню сохраняет загруженный список,
+ * выделение и прокрутку, а тренировка — пулы узлов и кнопок. Только FX-поток.
+ */
+public final class Navigator {
+
+    private static final double MIN_W = 720;
+    private static final double MIN_H = 520;
+    private static final double START_W = 800;
+    private static final double START_H = 600;
+    private static final String MENU_TITLE = "JP Trainer — выбор темы";
+
+    private final Stage stage;
+    private final Scene scene;
+    private final TopicSelectionView menu;
+    private final TrainingView training;
+    private final StatsView stats;
+
+    /**
+     * @param answers журнал ответов или null, если он недоступен
+     */
+    public Navigator(Stage stage, ContentStore store, ReviewStore reviews, AnswerLog answers, SearchIndex search,
+                     StatsStore stats) {
+        this.stage = stage;
+        this.menu = new TopicSelectionView(this, store, reviews, search);
+        this.training = new TrainingView(this, store, reviews, answers, stats);
+        this.stats = new StatsView(this, stats.stats());
+        this.scene = new Scene(menu.getRoot(), Math.max(START_W, MIN_W), Math.max(START_H, MIN_H));
+
+        stage.setMinWidth(MIN_W);
+        stage.setMinHeight(MIN_H);
+        stage.setTitle(MENU_TITLE);
+        stage.setScene(scene);
+    }
+
+    public Scene scene() {
+        return scene;
+    }
+
+    TrainingView training() {
+        return training;
+    }
+
+    /**
+     * Открыть тренировку: setup запускает в экране тренировки новую сессию до показа;
+     * false — сессии не будет (например, повторять нечего), экран остаётся прежним.
+     */
+    boolean toTraining(String target, String title, Predicate<TrainingView> setup) {
+        SceneSwitchEvent switching = beginSwitch(target);
+        if (!setup.test(training)) return false;
+        show(training.getRoot(), title, switching);
+        return true;
+    }
+
+    /** Вернуться к списку тем — в том же состоянии, в каком его оставили. */
+    void toMenu() {
+        SceneSwitchEvent switching = beginSwitch("menu");
+        menu.onShown();
+        show(menu.getRoot(), MENU_TITLE, switching);
+    }
+
+    /** Сводка за всё время; titles — Topic.code → название темы для подписей. */
+    void toStats(Map<String, String> titles) {
+        SceneSwitchEvent switching = beginSwitch("stats");
+        stats.refresh(titles);
+        show(stats.getRoot(), "JP Trainer — статистика", switching);
+    }
+
+    /** Переход считается от начала подготовки экрана до его первой раскладки. */
+    private static SceneSwitchEvent beginSwitch(String target) {
+        SceneSwitchEvent switching = new SceneSwitchEvent();
+        switching.target = target;
+        switching.begin();
+        return switching;
+    }
+
+    private void show(Parent view, String title, SceneSwitchEvent switching) {
+        // размеры окна не трогаем: меняется только содержимое сцены
+        if (scene.getRoot() != view) scene.setRoot(view);
+        stage.setTitle(title);
+        Perf.commitAfterNextLayout(switching, scene);
+    }
+}
@@ -0,0 +1,93 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.shiyano.shinyaoJTD.perf.LiveTimings;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.VBox;
+import javafx.stage.Popup;
+import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
+import javafx.util.Duration;
+
+/**
+ * Скрытый оверлей производительности (Ctrl+Shift+P): p50/p99 событий JFR приложения
+ * за последние замеры и занятая куча, обновляется раз в секунду. Поток событий открыт, только
+ * пока оверлей на экране, — в остальное время события выключены и ничего не стоят.
+ */
+public final class PerfOverlay {
+
+    private static final Duration REFRESH = Duration.seconds(1);
+
+    private final Stage stage;
+    private final Popup popup = new Popup();
+    private final Label text = new Label();
+    private final Timeline ticker = new Timeline(new KeyFrame(REFRESH, e -> refresh()));
+    private LiveTimings timings;
+
+    private PerfOverlay(Stage stage) {
+        this.stage = stage;
+        text.setStyle("-fx-font-family: monospace; -fx-font-size: 12px; -fx-text-fill: #e8e8e8;");
+        VBox box = new VBox(text);
+        box.setStyle("-fx-background-color: rgba(20,20,20,0.85); -fx-padding: 8; -fx-background-radius: 6;");
+        box.setMouseTransparent(true);
+        popup.getContent().add(box);
+        ticker.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /** Вешает горячую клавишу на окно: фильтр на Stage переживает смену сцен (FX-поток). */
+    public static void install(Stage stage) {
+        PerfOverlay overlay = new PerfOverlay(stage);
+        stage.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.P && e.isShortcutDown() && e.isShiftDown()) {
+                overlay.toggle();
+                e.consume();
+            }
+        });
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> overlay.hide());
+    }
+
+    private void toggle() {
+        if (popup.isShowing()) hide();
+        else show();
+    }
+
+    private void show() {
+        try {
+            timings = new LiveTimings();
+        } catch (RuntimeException e) {
+            // JFR недоступен (например, runtime без модуля jdk.jfr) — оверлей покажет только кучу
+            System.err.println("Live timings are disabled: " + e.getMessage());
+        }
+        refresh();
+        popup.show(stage, stage.getX() + 12, stage.getY() + 40);
+        ticker.play();
+    }
+
+    private void hide() {
+        ticker.stop();
+        popup.hide();
+        if (timings != null) {
+            timings.close();
+            timings = null;
+        }
+    }
+
+    private void refresh() {
+        StringBuilder sb = new StringBuilder(String.format("%-18s %7s %9s %9s%n", "", "n", "p50 ms", "p99 ms"));
+        if (timings != null) {
+            for (LiveTimings.Summary s : timings.snapshot()) {
+                sb.append(s.count() == 0
+                        ? String.format("%-18s %7d %9s %9s%n", s.label(), 0, "—", "—")
+                        : String.format("%-18s %7d %9.2f %9.2f%n", s.label(), s.count(), s.p50Millis(), s.p99Millis()));
+            }
+        }
+        Runtime rt = Runtime.getRuntime();
+        long used = rt.totalMemory() - rt.freeMemory();
+        sb.append(String.format("%nheap %d / %d MB (max %d MB)",
+                used >> 20, rt.totalMemory() >> 20, rt.maxMemory() >> 20));
+        text.setText(sb.toString());
+    }
+}
@@ -0,0 +1,98 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+/**
+ * Сценарий «как пользователь» без участия человека: открыть первую тему, ответить на несколько
+ * вопросов первым вариантом и закрыть приложение. Нужен для обучающего прогона AppCDS
+ * (gradle appCds) и замеров старта (StartupBenchmark): через те же кнопки проходят те же классы,
+ * что и у живого пользователя.
+ *
+ * <p>Включается {@code -Djtd.script=<число ответов>}. Кнопки ищутся по id ({@code #start},
+ * {@code #options}, {@code #next}) раз в {@link #STEP_MILLIS} мс. Если сценарий не уложился
+ * в {@link #TIMEOUT_MILLIS}, процесс завершается с кодом 3 — сборка архива упадёт, а не запишет
+ * архив от полупрогона.
+ */
+public final class ScriptedTraining {
+
+    private static final long STEP_MILLIS = 50;
+    private static final long TIMEOUT_MILLIS = 120_000;
+
+    private final Stage stage;
+    private final int answersWanted;
+    private final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    private final Timeline ticker = new Timeline();
+    private int answered;
+    private boolean started;
+
+    private ScriptedTraining(Stage stage, int answersWanted) {
+        this.stage = stage;
+        this.answersWanted = answersWanted;
+    }
+
+    /** Число ответов из -Djtd.script; 0 — сценарий не нужен. */
+    public static int requestedAnswers() {
+        return Math.max(0, Integer.getInteger("jtd.script", 0));
+    }
+
+    /** Запускает сценарий на показанном окне (FX-поток). */
+    public static void start(Stage stage, int answers) {
+        ScriptedTraining script = new ScriptedTraining(stage, answers);
+        script.ticker.getKeyFrames().add(new KeyFrame(Duration.millis(STEP_MILLIS), e -> script.step()));
+        script.ticker.setCycleCount(Timeline.INDEFINITE);
+        script.ticker.play();
+    }
+
+    private void step() {
+        if (System.currentTimeMillis() > deadline) {
+            System.err.println("Scripted training timed out after " + answered + " answers");
+            System.exit(3);
+        }
+        Parent root = stage.getScene().getRoot();
+        if (!started) {
+            if (enabled(root.lookup("#start")) instanceof Button start) {
+                started = true;
+                start.fire();
+            }
+            return;
+        }
+        if (answered == answersWanted) {
+            finish();
+            return;
+        }
+        Button next = enabled(root.lookup("#next")) instanceof Button b ? b : null;
+        if (next != null) {
+            next.fire();
+            return;
+        }
+        if (root.lookup("#options") instanceof Parent options
+                && !options.getChildrenUnmodifiable().isEmpty()
+                && enabled(options.getChildrenUnmodifiable().get(0)) instanceof Button first) {
+            first.fire();
+            answered++;
+        }
+    }
+
+    /**
+     * Выход только после прогрева словаря: классы Kuromoji тоже должны попасть в архив,
+     * даже если все ответы уложились в секунду.
+     */
+    private void finish() {
+        FuriganaService furigana = FuriganaService.shared();
+        if (furigana.tokenizerEnabled() && !furigana.isReady()) return;
+        ticker.stop();
+        System.out.println("Scripted training: " + answered + " answers");
+        Platform.exit();
+    }
+
+    private static Node enabled(Node node) {
+        return node != null && !node.isDisabled() && node.isVisible() ? node : null;
+    }
+}
@@ -0,0 +1,190 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.shiyano.shinyaoJTD.core.AnswerTotals.Totals;
+import com.shiyano.shinyaoJTD.core.LearnerStats;
+import com.shiyano.shinyaoJTD.core.LearnerStats.Row;
+import javafx.geometry.HPos;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Общие блоки экрана итогов сессии и сводки за всё время: строятся из свёрток
+ * {@link LearnerStats}, поэтому стоимость не зависит от длины истории.
+ */
+final class StatsPanes {
+
+    private static final double BAR_HEIGHT = 60;
+
+    private StatsPanes() {}
+
+    /** «Верно N из M (P%) · среднее время · медиана». */
+    static Label summary(Row overall) {
+        Totals t = overall.totals();
+        Label l = new Label("Верно %d из %d (%s) · в среднем %s · медиана ≈ %s".formatted(
+                t.correct(), t.attempts(), percent(t), seconds(t.meanLatencyMillis()),
+                bound(overall.latencyPercentileMillis(0.5))));
+        l.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+        l.setWrapText(true);
+        return l;
+    }
+
+    /** Гистограмма времени ответа: столбик на корзину, подпись — верхняя граница. */
+    static Node histogram(int[] counts) {
+        int max = 1;
+        for (int n : counts) max = Math.max(max, n);
+        HBox bars = new HBox(4);
+        bars.setAlignment(Pos.BOTTOM_LEFT);
+        for (int b = 0; b < counts.length; b++) {
+            Region bar = new Region();
+            bar.setMinWidth(28);
+            bar.setPrefHeight(Math.max(1, BAR_HEIGHT * counts[b] / max));
+            bar.setMaxHeight(Region.USE_PREF_SIZE);
+            bar.setStyle("-fx-background-color: -fx-accent; -fx-background-radius: 3 3 0 0;");
+            String range = b < LearnerStats.LATENCY_BOUNDS.length
+                    ? "≤ " + seconds(LearnerStats.LATENCY_BOUNDS[b])
+                    : "> " + seconds(LearnerStats.LATENCY_BOUNDS[b - 1]);
+            Tooltip.install(bar, new Tooltip(range + ": " + counts[b]));
+            Label caption = new Label(b < LearnerStats.LATENCY_BOUNDS.length
+                    ? compactSeconds(LearnerStats.LATENCY_BOUNDS[b]) : "…");
+            caption.setStyle("-fx-font-size: 10px; -fx-opacity: 0.7;");
+            VBox column = new VBox(2, bar, caption);
+            column.setAlignment(Pos.BOTTOM_CENTER);
+            column.setMinHeight(BAR_HEIGHT + 16);
+            bars.getChildren().add(column);
+        }
+        return bars;
+    }
+
+    /** Таблица свёрток: ключ (через label), ответов, точность, среднее и медиана времени. */
+    static GridPane table(String keyHeader, List<Row> rows, Function<String, String> label) {
+        GridPane grid = new GridPane();
+        grid.setHgap(16);
+        grid.setVgap(4);
+        header(grid, keyHeader, "Ответов", "Верно", "Среднее", "Медиана");
+        int r = 1;
+        for (Row row : rows) {
+            Totals t = row.totals();
+            grid.addRow(r++, new Label(label.apply(row.key())), number(t.attempts()), new Label(percent(t)),
+                    new Label(seconds(t.meanLatencyMillis())), new Label(bound(row.latencyPercentileMillis(0.5))));
+        }
+        return grid;
+    }
+
+    /** Задания: sid, ответов, точность, среднее время. */
+    static GridPane items(List<Map.Entry<String, Totals>> rows) {
+        GridPane grid = new GridPane();
+        grid.setHgap(16);
+        grid.setVgap(4);
+        header(grid, "Задание", "Ответов", "Верно", "Среднее");
+        int r = 1;
+        for (var e : rows) {
+            Totals t = e.getValue();
+            grid.addRow(r++, new Label(e.getKey()), number(t.attempts()), new Label(percent(t)),
+                    new Label(seconds(t.meanLatencyMillis())));
+        }
+        return grid;
+    }
+
+    /**
+     * Матрица путаницы: строка — какую частицу ждали, столбец — какую выбрали.
+     * Диагональ (верные ответы) приглушена, ошибки тем ярче, чем их больше в строке.
+     */
+    static GridPane confusionMatrix(LearnerStats stats) {
+        List<String> names = stats.particleNames();
+        GridPane grid = new GridPane();
+        grid.setHgap(2);
+        grid.setVgap(2);
+        Label corner = new Label("ждали \\ выбрали");
+        corner.setStyle("-fx-font-size: 11px; -fx-opacity: 0.7;");
+        grid.add(corner, 0, 0);
+        for (int c = 0; c < names.size(); c++) grid.add(cellLabel(names.get(c), true), c + 1, 0);
+        for (int e = 0; e < names.size(); e++) {
+            String expected = names.get(e);
+            int rowTotal = 0;
+            for (String chosen : names) rowTotal += stats.confusion(expected, chosen);
+            if (rowTotal == 0) continue;
+            int r = grid.getRowCount();
+            grid.add(cellLabel(expected, true), 0, r);
+            for (int c = 0; c < names.size(); c++) {
+                int n = stats.confusion(expected, names.get(c));
+                Label cell = cellLabel(n == 0 ? "" : Integer.toString(n), false);
+                if (n > 0) {
+                    double share = (double) n / rowTotal;
+                    cell.setStyle(cell.getStyle() + (e == c
+                            ? "-fx-background-color: rgba(46,204,113,0.25);"
+                            : "-fx-background-color: rgba(231,76,60,%.2f);".formatted(0.15 + 0.75 * share)));
+                }
+                grid.add(cell, c + 1, r);
+            }
+        }
+        return grid;
+    }
+
+    /** Заголовок раздела. */
+    static Label heading(String text) {
+        Label l = new Label(text);
+        l.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
+        l.setPadding(new Insets(8, 0, 0, 0));
+        return l;
+    }
+
+    /** Подпись для пустого раздела. */
+    static Label muted(String text) {
+        Label l = new Label(text);
+        l.setStyle("-fx-opacity: 0.7;");
+        l.setWrapText(true);
+        return l;
+    }
+
+    static String percent(Totals t) {
+        return t.attempts() == 0 ? "—" : Math.round(100 * t.accuracy()) + "%";
+    }
+
+    private static void header(GridPane grid, String... titles) {
+        for (int c = 0; c < titles.length; c++) {
+            Label h = new Label(titles[c]);
+            h.setStyle("-fx-font-weight: bold; -fx-opacity: 0.8;");
+            grid.add(h, c, 0);
+            if (c > 0) GridPane.setHalignment(h, HPos.RIGHT);
+        }
+    }
+
+    private static Label number(int n) {
+        Label l = new Label(Integer.toString(n));
+        GridPane.setHalignment(l, HPos.RIGHT);
+        return l;
+    }
+
+    private static Label cellLabel(String text, boolean header) {
+        Label l = new Label(text);
+        l.setMinSize(36, 28);
+        l.setAlignment(Pos.CENTER);
+        l.setStyle(header ? "-fx-font-weight: bold; " : "-fx-background-radius: 4; ");
+        return l;
+    }
+
+    private static String seconds(long millis) {
+        return "%.1f с".formatted(millis / 1000.0);
+    }
+
+    private static String compactSeconds(int millis) {
+        return millis % 1000 == 0 ? Integer.toString(millis / 1000) : "%.1f".formatted(millis / 1000.0);
+    }
+
+    /** Граница корзины как оценка: -1 — нет ответов, MAX_VALUE — дольше последней границы. */
+    private static String bound(int millis) {
+        if (millis < 0) return "—";
+        if (millis == Integer.MAX_VALUE) {
+            return "> " + seconds(LearnerStats.LATENCY_BOUNDS[LearnerStats.LATENCY_BOUNDS.length - 1]);
+        }
+        return "≤ " + seconds(millis);
+    }
+}
@@ -0,0 +1,97 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.shiyano.shinyaoJTD.core.LearnerStats;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сводка за всё время: общая точность и время, частицы, матрица путаницы, темы и самые
+ * трудные задания. Экран один на всё время работы; содержимое перестраивается при каждом
+ * показе из свёрток {@link LearnerStats} — сколько бы ни накопилось ответов.
+ */
+final class StatsView {
+
+    private static final int WEAKEST_ITEMS = 10;
+    private static final int WEAKEST_MIN_ATTEMPTS = 2;
+
+    private final BorderPane root = new BorderPane();
+    private final VBox content = new VBox(8);
+    private final LearnerStats stats;
+
+    StatsView(Navigator navigator, LearnerStats stats) {
+        this.stats = stats;
+        root.setPadding(new Insets(16));
+
+        Label title = new Label("Статистика");
+        title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
+        Button back = new Button("В меню");
+        back.setCancelButton(true);
+        back.setOnAction(e -> navigator.toMenu());
+        var header = new HBox(10, title, new Region(), back);
+        HBox.setHgrow(header.getChildren().get(1), Priority.ALWAYS);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        content.setPadding(new Insets(12, 4, 12, 4));
+        ScrollPane scroll = new ScrollPane(content);
+        scroll.setFitToWidth(true);
+
+        root.setTop(header);
+        root.setCenter(scroll);
+        root.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                back.fire();
+                e.consume();
+            }
+        });
+    }
+
+    Parent getRoot() {
+        return root;
+    }
+
+    /** Перестраивает экран по текущей статистике; titles — Topic.code → название темы. */
+    void refresh(Map<String, String> titles) {
+        content.getChildren().clear();
+        if (stats.answers() == 0) {
+            content.getChildren().add(StatsPanes.muted("Пока нет ни одного ответа — статистика появится после первой тренировки."));
+            return;
+        }
+        LearnerStats.Row overall = stats.overall();
+        content.getChildren().addAll(StatsPanes.summary(overall),
+                StatsPanes.heading("Время ответа, с"), StatsPanes.histogram(overall.histogram()));
+
+        List<LearnerStats.Row> particles = stats.particles();
+        particles.sort(byAccuracy());
+        content.getChildren().addAll(StatsPanes.heading("Частицы"),
+                StatsPanes.table("Частица", particles, p -> p),
+                StatsPanes.heading("Что с чем путается"), StatsPanes.confusionMatrix(stats));
+
+        List<LearnerStats.Row> topics = stats.topics();
+        topics.sort(byAccuracy());
+        content.getChildren().addAll(StatsPanes.heading("Темы"),
+                StatsPanes.table("Тема", topics, code -> titles.getOrDefault(code, code)));
+
+        var weakest = stats.weakestItems(WEAKEST_ITEMS, WEAKEST_MIN_ATTEMPTS);
+        content.getChildren().add(StatsPanes.heading("Самые трудные задания"));
+        content.getChildren().add(weakest.isEmpty()
+                ? StatsPanes.muted("Нужно хотя бы " + WEAKEST_MIN_ATTEMPTS + " ответа на задание.")
+                : StatsPanes.items(weakest));
+    }
+
+    /** Сначала слабые места. */
+    private static Comparator<LearnerStats.Row> byAccuracy() {
+        return Comparator.comparingDouble((LearnerStats.Row r) -> r.totals().accuracy())
+                .thenComparingInt(r -> -r.totals().attempts());
+    }
+}
@@ -0,0 +1,154 @@
+package com.shiyano.shinyaoJTD.ui;
+
+import com.shiyano.shinyaoJTD.ui.FuriganaService.TokenInfo;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * LRU-кэш результатов токенизации (ключ — текст предложения), ограниченный по оценке занимаемой памяти.
+ * Умеет сохраняться в компактный бинарный файл, чтобы после перезапуска известные фразы
+ * получали фуригану без Kuromoji. Все методы потокобезопасны.
+ */
+final class TokenCache {
+
+    /** Снимок счётчиков для отчёта. */
+    record Stats(long hits, long misses, int entries, long bytes) {
+        double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private static final int MAGIC = 0x4A544643; // "JTFC"
+    // 2: чтения приводятся к хирагане через JapaneseText (ヵヶ, ヷ–ヺ, полуширинная катакана)
+    private static final int VERSION = 2;
+    // грубая оценка накладных расходов на запись/токен (заголовки объектов, ссылки, узел LinkedHashMap)
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final int TOKEN_OVERHEAD = 64;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, List<TokenInfo>> map = new LinkedHashMap<>(256, 0.75f, true);
+    // строки частей речи повторяются тысячи раз — храним по одной копии
+    private final Map<String, String> posPool = new HashMap<>();
+
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    TokenCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized List<TokenInfo> get(String jp) {
+        List<TokenInfo> tokens = map.get(jp);
+        if (tokens != null) hits++;
+        else misses++;
+        return tokens;
+    }
+
+    /** Проверка без влияния на статистику и порядок вытеснения. */
+    synchronized boolean contains(String jp) {
+        return map.containsKey(jp);
+    }
+
+    synchronized List<TokenInfo> put(String jp, List<TokenInfo> tokens) {
+        List<TokenInfo> stored = intern(tokens);
+        List<TokenInfo> old = map.put(jp, stored);
+        if (old != null) bytes -= estimate(jp, old);
+        bytes += estimate(jp, stored);
+        evict();
+        return stored;
+    }
+
+    synchronized Stats stats() {
+        return new Stats(hits, misses, map.size(), bytes);
+    }
+
+    // ===== сохранение =====
+
+    /** Пишет кэш атомарно; записи идут от давно использованных к свежим, чтобы сохранить LRU-порядок. */
+    synchronized void save(Path file) throws IOException {
+        List<String> posTable = new ArrayList<>(posPool.keySet());
+        Map<String, Integer> posIds = new HashMap<>();
+        for (int i = 0; i < posTable.size(); i++) posIds.put(posTable.get(i), i);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(posTable.size());
+            for (String pos : posTable) out.writeUTF(pos);
+            out.writeInt(map.size());
+            for (Map.Entry<String, List<TokenInfo>> e : map.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeShort(e.getValue().size());
+                for (TokenInfo t : e.getValue()) {
+                    out.writeUTF(t.surface);
+                    out.writeBoolean(t.readingHira != null);
+                    if (t.readingHira != null) out.writeUTF(t.readingHira);
+                    out.writeShort(t.partOfSpeech == null ? -1 : posIds.get(t.partOfSpeech));
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Загружает сохранённый кэш; битый или чужой файл молча пропускается (это всего лишь кэш). */
+    void load(Path file) {
+        if (!Files.isRegularFile(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+            String[] posTable = new String[in.readInt()];
+            for (int i = 0; i < posTable.length; i++) posTable[i] = in.readUTF();
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                String jp = in.readUTF();
+                int n = in.readUnsignedShort();
+                List<TokenInfo> tokens = new ArrayList<>(n);
+                for (int k = 0; k < n; k++) {
+                    String surface = in.readUTF();
+                    String reading = in.readBoolean() ? in.readUTF() : null;
+                    short pos = in.readShort();
+                    tokens.add(new TokenInfo(surface, reading, pos < 0 ? null : posTable[pos]));
+                }
+                put(jp, tokens);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Furigana cache is ignored: " + e.getMessage());
+        }
+    }
+
+    // ===== внутреннее =====
+
+    private List<TokenInfo> intern(List<TokenInfo> tokens) {
+        List<TokenInfo> out = new ArrayList<>(tokens.size());
+        for (TokenInfo t : tokens) {
+            String pos = t.partOfSpeech == null ? null : posPool.computeIfAbsent(t.partOfSpeech, k -> k);
+            out.add(pos == t.partOfSpeech ? t : new TokenInfo(t.surface, t.readingHira, pos));
+        }
+        return List.copyOf(out);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, List<TokenInfo>>> it = map.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, List<TokenInfo>> eldest = it.next();
+            bytes -= estimate(eldest.getKey(), eldest.getValue());
+            it.remove();
+        }
+    }
+
+    private static long estimate(String jp, List<TokenInfo> tokens) {
+        long b = ENTRY_OVERHEAD + 2L * jp.length();
+        for (TokenInfo t : tokens) {
+            b += TOKEN_OVERHEAD + 2L * t.surface.length();
+            if (t.readingHira != null) b += 2L * t.readingHira.length();
+            // строки частей речи общие (posPool) — в оценку записи не входят
+        }
+        return b;
+    }
+}
@@ -1,34 +1,112 @@
 package com.shiyano.shinyaoJTD.ui;
 
 import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.JapaneseText;
+import com.shiyano.shinyaoJTD.core.MixSampler;
+import com.shiyano.shinyaoJTD.core.Reading;
 import com.shiyano.shinyaoJTD.core.Topic;
 import com.shiyano.shinyaoJTD.store.ContentStore;
+import com.shiyano.shinyaoJTD.store.ReviewStore;
+import com.shiyano.shinyaoJTD.store.SearchIndex;
+import com.shiyano.shinyaoJTD.store.TopicSummaries;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
-import javafx.stage.Stage;
+import javafx.util.StringConverter;
 
-import java.nio.file.Path;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.random.RandomGenerator;
 
+/**
+ * Меню: список тем, поиск, смешанная тренировка и повторение. Экран живёт всё время работы
+ * приложения (см. {@link Navigator}), поэтому список, выделение и прокрутка переживают тренировку.
+ *
+ * <p>Список тем строится по сводкам {@link TopicSummaries} (число заданий, частицы, урок), а не по
+ * самим заданиям: фильтр по мере ввода и группировка по урокам перебирают только строки в памяти,
+ * items-файлы при этом не открываются.
+ */
 public final class TopicSelectionView {
 
-    private static final double MIN_W = 720;
-    private static final double MIN_H = 520;
+    /** Размер страницы при потоковом чтении заданий. */
+    private static final int PAGE_SIZE = 500;
+    /** Размер смешанной тренировки по умолчанию. */
+    private static final int MIX_SIZE = 50;
+    /** Сколько найденных заданий показывать в списке. */
+    private static final int SEARCH_SHOWN = 200;
+    /** Потолок тренировки по результатам поиска. */
+    private static final int SEARCH_SESSION_MAX = 500;
 
     private final BorderPane root = new BorderPane();
 
-    private final ListView<Topic> listView = new ListView<>();
+    // темы из topics.json со сводками; список показывает их через фильтр и группировку
+    private List<Topic> topics = List.of();
+    private List<TopicRow> topicRows = List.of();
+    private final ListView<Row> listView = new ListView<>();
+    private final Label listPlaceholder = new Label();
+    private final TextField topicFilter = new TextField();
+    private final CheckBox groupByLesson = new CheckBox("По урокам");
     private final Button startBtn = new Button("Начать тренировку");
     private final Button reloadBtn = new Button("Обновить");
+    private final Button reviewBtn = new Button("Повторение");
+    private final Button statsBtn = new Button("Статистика");
 
+    // смешанная тренировка из выбранных тем
+    private final ComboBox<MixSampler.Weighting> mixWeighting = new ComboBox<>();
+    private final Spinner<Integer> mixSize = new Spinner<>(5, 500, MIX_SIZE, 5);
+    private final Button mixBtn = new Button("Смешать");
+
+    // поиск заданий по всем темам; результаты показываются вместо списка тем
+    private final TextField searchField = new TextField();
+    private final Label searchInfo = new Label();
+    private final ListView<SearchIndex.Hit> searchResults = new ListView<>();
+    private final Button searchTrainBtn = new Button("Тренировать найденное");
+    private final IntegerProperty searchFound = new SimpleIntegerProperty();
+    private int indexUpdates;
+
+    // строка состояния фоновой загрузки
+    private final ProgressBar progressBar = new ProgressBar(0);
+    private final Label statusLbl = new Label();
+    private final Button cancelBtn = new Button("Отмена");
+    private final HBox statusBar = new HBox(10, progressBar, statusLbl, cancelBtn);
+    private final BooleanProperty loading = new SimpleBooleanProperty(false);
+    // сколько карточек созрело к повторению (по часам на момент последнего обновления)
+    private final IntegerProperty dueReviews = new SimpleIntegerProperty();
+
+    private final Navigator navigator;
     private final ContentStore store;
+    private final ReviewStore reviews;
+    private final SearchIndex search;
+    // правки контента, пришедшие, пока открыта тренировка, — применяются при возврате в меню
+    private boolean shown = true;
+    private boolean topicsStale;
+    private boolean indexStale;
 
-    public TopicSelectionView(Path projectRootOrContent) {
-        this.store = new ContentStore(projectRootOrContent);
+    /** Текущая фоновая загрузка (только из FX-потока); null — ничего не грузится. */
+    private CompletableFuture<?> pending;
+
+    /**
+     * @param search поисковый индекс заданий; обновляется в фоне при загрузке тем
+     */
+    TopicSelectionView(Navigator navigator, ContentStore store, ReviewStore reviews, SearchIndex search) {
+        this.navigator = navigator;
+        this.store = store;
+        this.reviews = reviews;
+        this.search = search;
 
         root.setPadding(new Insets(16));
         root.setStyle("""
@@ -46,72 +124,749 @@ public final class TopicSelectionView {
         var title = new Label("Выберите тему для тренировки");
         title.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
 
-        listView.setPlaceholder(new Label("Нет тем. Проверь content/topics.json"));
+        listView.setPlaceholder(listPlaceholder);
         listView.setCellFactory(list -> new ListCell<>() {
-            @Override protected void updateItem(Topic t, boolean empty) {
-                super.updateItem(t, empty);
-                setText(empty || t == null ? null : "%s — %s".formatted(t.code(), t.title()));
+            @Override protected void updateItem(Row row, boolean empty) {
+                super.updateItem(row, empty);
+                setStyle(row instanceof GroupRow ? "-fx-font-weight: bold; -fx-opacity: 0.75;" : null);
+                if (empty || row == null) setText(null);
+                else if (row instanceof GroupRow g) setText(g.label());
+                else if (row instanceof TopicRow t) setText(topicText(t.summary(), groupByLesson.isSelected()));
             }
         });
         listView.setPrefSize(520, 320);
+        // Ctrl/Shift+клик — несколько тем для смешанной тренировки
+        listView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        BooleanBinding noTopic = Bindings.createBooleanBinding(() -> selectedTopics().isEmpty(),
+                listView.getSelectionModel().getSelectedItems());
+        // набор текста в списке уходит в фильтр
+        listView.addEventHandler(KeyEvent.KEY_TYPED, e -> {
+            String ch = e.getCharacter();
+            if (ch.isEmpty() || ch.isBlank() || Character.isISOControl(ch.charAt(0)) || e.isShortcutDown()) return;
+            topicFilter.requestFocus();
+            topicFilter.appendText(ch);
+            e.consume();
+        });
+
+        topicFilter.setPromptText("Фильтр тем: код, название, частица, учебник или урок");
+        topicFilter.textProperty().addListener((obs, old, text) -> refreshRows());
+        topicFilter.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) topicFilter.clear();
+        });
+        HBox.setHgrow(topicFilter, Priority.ALWAYS);
+        groupByLesson.selectedProperty().addListener((obs, old, on) -> refreshRows());
+        var filterRow = new HBox(10, topicFilter, groupByLesson);
+        filterRow.setAlignment(Pos.CENTER_LEFT);
 
         reloadBtn.setOnAction(e -> loadTopics());
+        reloadBtn.disableProperty().bind(loading);
+        startBtn.setId("start");
         startBtn.setOnAction(e -> onStart());
         startBtn.setDefaultButton(true);
-        startBtn.disableProperty().bind(listView.getSelectionModel().selectedItemProperty().isNull());
+        startBtn.disableProperty().bind(noTopic.or(loading));
         stylePrimary(startBtn);
+        reviewBtn.setOnAction(e -> onReview());
+        reviewBtn.disableProperty().bind(dueReviews.isEqualTo(0).or(loading));
+        updateReviewButton();
+        statsBtn.setOnAction(e -> onStats());
+        statsBtn.disableProperty().bind(loading);
+
+        progressBar.setPrefWidth(180);
+        statusLbl.setStyle("-fx-opacity: 0.8;");
+        cancelBtn.setOnAction(e -> cancelLoading());
+        cancelBtn.visibleProperty().bind(loading);
+        progressBar.visibleProperty().bind(loading);
+        statusBar.setAlignment(Pos.CENTER_LEFT);
 
-        var buttons = new HBox(10, reloadBtn, startBtn);
+        mixWeighting.getItems().setAll(MixSampler.Weighting.values());
+        mixWeighting.setValue(MixSampler.Weighting.TOPICS);
+        mixWeighting.setConverter(new StringConverter<>() {
+            @Override public String toString(MixSampler.Weighting w) {
+                return w == null ? "" : weightingLabel(w);
+            }
+            @Override public MixSampler.Weighting fromString(String s) {
+                return null;
+            }
+        });
+        mixSize.setPrefWidth(80);
+        mixSize.setEditable(true);
+        // в поле только цифры; пустое поле при уходе фокуса возвращается к значению по умолчанию
+        mixSize.getEditor().setTextFormatter(new TextFormatter<>(
+                c -> c.getControlNewText().matches("\\d{0,3}") ? c : null));
+        mixSize.focusedProperty().addListener((obs, was, focused) -> {
+            if (!focused) commitMixSize();
+        });
+        mixBtn.setOnAction(e -> onMix());
+        mixBtn.disableProperty().bind(noTopic.or(loading));
+        var mixRow = new HBox(10, new Label("Смесь выбранных тем:"), mixWeighting, mixSize, mixBtn);
+        mixRow.setAlignment(Pos.CENTER_RIGHT);
+
+        var buttons = new HBox(10, statsBtn, reloadBtn, reviewBtn, startBtn);
         buttons.setAlignment(Pos.CENTER_RIGHT);
 
-        card.getChildren().addAll(title, listView, buttons);
+        searchField.setPromptText("Поиск: 学生   =が (верный ответ)   +へ (среди вариантов)   ~たべる (слово)   студент");
+        searchField.textProperty().addListener((obs, old, text) -> runSearch());
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        searchInfo.setStyle("-fx-opacity: 0.7;");
+        searchResults.setPlaceholder(new Label("Ничего не найдено"));
+        searchResults.setCellFactory(list -> new ListCell<>() {
+            @Override protected void updateItem(SearchIndex.Hit h, boolean empty) {
+                super.updateItem(h, empty);
+                setText(empty || h == null ? null : "%s · %s".formatted(h.topicCode(), h.jp()));
+            }
+        });
+        searchResults.setPrefSize(520, 320);
+        // пока запрос пуст, на месте результатов — список тем
+        var searching = searchField.textProperty().isNotEmpty();
+        searchResults.visibleProperty().bind(searching);
+        searchResults.managedProperty().bind(searching);
+        listView.visibleProperty().bind(searching.not());
+        listView.managedProperty().bind(searching.not());
+        filterRow.visibleProperty().bind(searching.not());
+        filterRow.managedProperty().bind(searching.not());
+        searchTrainBtn.setOnAction(e -> onSearchTrain());
+        searchTrainBtn.disableProperty().bind(searchFound.isEqualTo(0).or(loading));
+        searchTrainBtn.visibleProperty().bind(searching);
+        searchTrainBtn.managedProperty().bind(searching);
+        var searchRow = new HBox(10, searchField, searchInfo, searchTrainBtn);
+        searchRow.setAlignment(Pos.CENTER_LEFT);
+
+        card.getChildren().addAll(title, searchRow, filterRow, listView, searchResults, statusBar, mixRow, buttons);
 
         StackPane center = new StackPane(card);
         StackPane.setAlignment(card, Pos.CENTER);
         root.setCenter(center);
 
         loadTopics();
+
+        // словарь догрузился — фразы без предрасчёта получат в индексе и слова
+        FuriganaService.shared().whenReady()
+                .thenRunAsync(() -> updateSearchIndex(topics), Platform::runLater);
+
+        // правка topics.json на диске — обновляем список, правка заданий — индекс и сводки (пересчитается
+        // только изменённая тема); пока идёт тренировка, только запоминаем, чтобы не грузить диск
+        // и не сбрасывать выделение у невидимого экрана
+        store.subscribe(file -> Platform.runLater(() -> {
+            if (file.equals("topics.json")) {
+                if (shown) loadTopics();
+                else topicsStale = true;
+            } else if (file.startsWith("items-") || file.startsWith("readings-")) {
+                if (shown) onContentChanged(file);
+                else indexStale = true;
+            }
+        }));
     }
 
     public Parent getRoot() { return root; }
 
+    /** Экран снова на виду (FX-поток): догоняем правки контента и сроки повторений. */
+    void onShown() {
+        shown = true;
+        if (topicsStale) {
+            loadTopics();
+        } else if (indexStale) {
+            updateSearchIndex(topics);
+            loadSummaries(topics);
+        }
+        topicsStale = false;
+        indexStale = false;
+        updateReviewButton();
+    }
+
+    /** Уходим на тренировку: незаконченная загрузка меню ей больше не нужна. */
+    private void leave() {
+        shown = false;
+        statusLbl.setText("");
+    }
+
     private void loadTopics() {
-        try {
-            List<Topic> topics = store.loadTopics();
-            listView.getItems().setAll(topics);
-            if (!topics.isEmpty()) listView.getSelectionModel().selectFirst();
-        } catch (Exception ex) {
-            showError("Не удалось загрузить topics.json", ex);
+        CompletableFuture<List<Topic>> load = store.loadTopicsAsync(progressReporter());
+        beginLoading(load, "Загрузка тем…");
+        load.whenCompleteAsync((topics, ex) -> {
+            if (!finishLoading(load)) return;
+            if (ex != null) {
+                reportFailure("Не удалось загрузить topics.json", ex);
+                return;
+            }
+            this.topics = topics;
+            // пока сводки считаются, у тем остаются прежние числа (если тема та же)
+            Map<String, TopicSummaries.Summary> known = new HashMap<>();
+            for (TopicRow r : topicRows) known.put(r.summary().topic().code(), r.summary());
+            List<TopicSummaries.Summary> shownNow = new ArrayList<>(topics.size());
+            for (Topic t : topics) {
+                TopicSummaries.Summary old = known.get(t.code());
+                shownNow.add(old != null && old.topic().equals(t) ? old : TopicSummaries.Summary.pending(t));
+            }
+            showSummaries(shownNow);
+            updateReviewButton();
+            updateSearchIndex(topics);
+            loadSummaries(topics);
+        }, Platform::runLater);
+    }
+
+    private void onContentChanged(String file) {
+        updateSearchIndex(topics);
+        if (file.startsWith("items-")) loadSummaries(topics);
+    }
+
+    // ===== список тем =====
+
+    /** Строка списка тем: заголовок урока (при группировке) или тема. */
+    private sealed interface Row permits GroupRow, TopicRow {}
+
+    private record GroupRow(String label) implements Row {}
+
+    /** key — всё, по чему фильтруется тема, в нижнем регистре и хирагане. */
+    private record TopicRow(TopicSummaries.Summary summary, String key) implements Row {
+        static TopicRow of(TopicSummaries.Summary s) {
+            Topic t = s.topic();
+            String text = String.join(" ", t.code(), t.title(), String.join(" ", t.particles()),
+                    t.lesson().book(), String.valueOf(t.lesson().unit()));
+            return new TopicRow(s, normalizeFilter(text));
         }
     }
 
-    private void onStart() {
-        Topic selected = listView.getSelectionModel().getSelectedItem();
-        if (selected == null) return;
+    /**
+     * Сводки тем в фоне: с сохранённым индексом это только проверка отпечатков файлов.
+     * Загрузку меню не занимает и не отменяет; устаревший ответ (темы уже другие) отбрасывается.
+     */
+    private void loadSummaries(List<Topic> forTopics) {
+        if (forTopics.isEmpty()) return;
+        store.loadSummariesAsync(forTopics).whenCompleteAsync((summaries, ex) -> {
+            if (ex != null) {
+                System.err.println("Topic summaries failed: " + ex.getMessage());
+            } else if (forTopics == topics) {
+                showSummaries(summaries);
+            }
+        }, Platform::runLater);
+    }
 
-        try {
-            List<Item> items = store.loadItemsFor(selected.code());
+    private void showSummaries(List<TopicSummaries.Summary> summaries) {
+        List<TopicRow> rows = new ArrayList<>(summaries.size());
+        for (TopicSummaries.Summary s : summaries) rows.add(TopicRow.of(s));
+        topicRows = rows;
+        refreshRows();
+    }
+
+    /**
+     * Перестраивает видимые строки по фильтру и группировке (FX-поток). Выделение сохраняется по
+     * Topic.code; если ни одна выбранная тема не видна, выбирается первая видимая.
+     */
+    private void refreshRows() {
+        Set<String> selected = new HashSet<>();
+        for (Topic t : selectedTopics()) selected.add(t.code());
 
-            Stage stage = (Stage) root.getScene().getWindow();
-            stage.setMinWidth(MIN_W);
-            stage.setMinHeight(MIN_H);
+        String[] terms = normalizeFilter(topicFilter.getText()).split("\\s+");
+        List<TopicRow> matched = new ArrayList<>();
+        for (TopicRow r : topicRows) {
+            boolean all = true;
+            for (String term : terms) {
+                if (!r.key().contains(term)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) matched.add(r);
+        }
 
-            // ВАЖНО: берём размеры КОНТЕНТА текущей сцены, а не окна!
-            Scene current = stage.getScene();
-            double contentW = Math.max(current.getWidth(),  MIN_W);
-            double contentH = Math.max(current.getHeight(), MIN_H);
+        List<Row> rows = new ArrayList<>(matched.size());
+        if (groupByLesson.isSelected()) {
+            // сортировка устойчивая: внутри урока темы идут в порядке topics.json
+            matched.sort(Comparator.comparing((TopicRow r) -> r.summary().topic().lesson().book())
+                    .thenComparingInt(r -> r.summary().topic().lesson().unit()));
+            int from = 0;
+            while (from < matched.size()) {
+                Topic.Lesson lesson = matched.get(from).summary().topic().lesson();
+                int to = from;
+                int items = 0;
+                boolean counted = true;
+                while (to < matched.size() && matched.get(to).summary().topic().lesson().equals(lesson)) {
+                    TopicSummaries.Summary s = matched.get(to++).summary();
+                    items += Math.max(0, s.items());
+                    counted &= s.counted();
+                }
+                rows.add(new GroupRow("%s · урок %d — тем: %d, заданий: %s".formatted(
+                        lesson.book(), lesson.unit(), to - from, counted ? items : "…")));
+                rows.addAll(matched.subList(from, to));
+                from = to;
+            }
+        } else {
+            rows.addAll(matched);
+        }
 
-            TrainingView training = new TrainingView(stage, selected, items);
-            Scene newScene = new Scene(training.getRoot(), contentW, contentH);
+        listPlaceholder.setText(topicRows.isEmpty() ? "Нет тем. Проверь content/topics.json" : "Нет тем по фильтру");
+        var selection = listView.getSelectionModel();
+        listView.getItems().setAll(rows);
+        selection.clearSelection();
+        int first = -1;
+        for (int i = 0; i < rows.size(); i++) {
+            if (!(rows.get(i) instanceof TopicRow r)) continue;
+            if (first < 0) first = i;
+            if (selected.contains(r.summary().topic().code())) selection.select(i);
+        }
+        if (selection.isEmpty() && first >= 0) selection.select(first);
+    }
+
+    /** Выбранные темы (заголовки уроков не считаются). */
+    private List<Topic> selectedTopics() {
+        List<Topic> out = new ArrayList<>();
+        for (Row r : listView.getSelectionModel().getSelectedItems()) {
+            if (r instanceof TopicRow t) out.add(t.summary().topic());
+        }
+        return out;
+    }
+
+    private static String topicText(TopicSummaries.Summary s, boolean grouped) {
+        Topic t = s.topic();
+        String items = s.counted() ? String.valueOf(s.items()) : "…";
+        String text = "%s — %s · заданий: %s · %s".formatted(t.code(), t.title(), items, String.join("/", t.particles()));
+        return grouped ? text : text + " · %s, урок %d".formatted(t.lesson().book(), t.lesson().unit());
+    }
+
+    /** Регистр и вид каны не важны: «ニ» найдёт «に». */
+    private static String normalizeFilter(String text) {
+        return text == null ? "" : JapaneseText.toHiragana(text.strip().toLowerCase(Locale.ROOT));
+    }
+
+    // ===== поиск =====
+
+    /**
+     * Досылает в индекс изменённые темы (в фоне; без правок контента это лишь проверка отпечатков файлов).
+     * Токенизатор передаётся, только если словарь уже загружен, — ждать его индекс не должен.
+     */
+    private void updateSearchIndex(List<Topic> topics) {
+        if (topics.isEmpty()) return;
+        FuriganaService furigana = FuriganaService.shared();
+        SearchIndex.Tokenizer tokenizer = furigana.isReady() ? furigana::words : null;
+        indexUpdates++;
+        showSearchInfo(null);
+        search.updateAsync(store, List.copyOf(topics), tokenizer).whenCompleteAsync((stats, ex) -> {
+            indexUpdates--;
+            if (ex != null) System.err.println("Search index update failed: " + ex.getMessage());
+            runSearch();
+        }, Platform::runLater);
+    }
+
+    /** Поиск идёт прямо в FX-потоке: индекс в памяти, запрос — доли миллисекунды. */
+    private void runSearch() {
+        String query = searchField.getText();
+        if (query == null || query.isBlank()) {
+            searchResults.getItems().clear();
+            searchFound.set(0);
+            showSearchInfo(null);
+            return;
+        }
+        SearchIndex.Result result = search.search(query, SEARCH_SHOWN);
+        searchResults.getItems().setAll(result.hits());
+        searchFound.set(result.total());
+        showSearchInfo(result);
+    }
+
+    private void showSearchInfo(SearchIndex.Result result) {
+        String text = result == null ? "" : "%d найдено · %.2f мс".formatted(result.total(), result.millis());
+        if (indexUpdates > 0) text = text.isEmpty() ? "индекс обновляется…" : text + " · индекс обновляется…";
+        searchInfo.setText(text);
+    }
 
-            stage.setTitle("JP Trainer — тренировка: " + selected.title());
-            stage.setScene(newScene);
-            // при желании можно «подогнать» окно к новой сцене: stage.sizeToScene();
+    private void onSearchTrain() {
+        String query = searchField.getText();
+        if (query == null || query.isBlank()) return;
+        new SearchStart(query.strip(), topics).begin();
+    }
+
+    /** Число созревших карточек на кнопке; срок проверяется по часам, поэтому пересчитываем при каждом обновлении. */
+    private void updateReviewButton() {
+        int due = reviews.scheduler().dueCount(System.currentTimeMillis());
+        dueReviews.set(due);
+        reviewBtn.setText(due == 0 ? "Повторение" : "Повторение (" + due + ")");
+    }
+
+    private void onStart() {
+        List<Topic> selected = selectedTopics();
+        if (selected.isEmpty()) return;
+        new TrainingStart(selected.get(0)).begin();
+    }
+
+    /** Открывает тренировку на первой странице заданий, не дожидаясь конца файла. */
+    private void openTraining(Topic selected, List<Item> items, Map<String, Reading> readings,
+                               CompletableFuture<?> rest) {
+        try {
+            navigator.toTraining("training", "JP Trainer — тренировка: " + selected.title(), training -> {
+                training.startTopic(selected, items, readings, rest);
+                return true;
+            });
+            leave();
         } catch (Exception ex) {
+            rest.cancel(true);
             showError("Ошибка загрузки items-" + selected.code() + ".json", ex);
         }
     }
 
+    /** Сводка за всё время; названия тем — из загруженного списка. */
+    private void onStats() {
+        Map<String, String> titles = new HashMap<>();
+        for (Topic t : topics) titles.put(t.code(), t.title());
+        navigator.toStats(titles);
+        leave();
+    }
+
+    /**
+     * Повторение по сроку: карточки могут быть из любой темы, поэтому сначала читаются
+     * задания и фуригана всех тем (из кэша/пакета это быстро), затем вопросы выдаёт планировщик.
+     */
+    private void onReview() {
+        List<Topic> topics = this.topics;
+        List<CompletableFuture<List<Item>>> itemLoads = new ArrayList<>();
+        List<CompletableFuture<Map<String, Reading>>> readingLoads = new ArrayList<>();
+        for (Topic t : topics) {
+            itemLoads.add(store.loadItemsForAsync(t.code(), progressReporter()));
+            // без предрасчёта повторение работает — фуригану посчитает словарь
+            readingLoads.add(store.loadReadingsForAsync(t.code(), ContentStore.Progress.NONE)
+                    .exceptionally(ex -> Map.of()));
+        }
+        List<CompletableFuture<?>> all = new ArrayList<>(itemLoads);
+        all.addAll(readingLoads);
+        CompletableFuture<Void> load = CompletableFuture.allOf(all.toArray(CompletableFuture[]::new));
+        // отмена общего future не доходит до частей сама — передаём её вручную
+        load.whenComplete((v, ex) -> {
+            if (load.isCancelled()) all.forEach(f -> f.cancel(true));
+        });
+        beginLoading(load, "Загрузка заданий всех тем…");
+
+        load.whenCompleteAsync((v, ex) -> {
+            if (!finishLoading(load)) return;
+            if (ex != null) {
+                reportFailure("Не удалось загрузить задания для повторения", ex);
+                return;
+            }
+            Map<String, Item> pool = new LinkedHashMap<>();
+            Map<String, String> topicBySid = new HashMap<>();
+            Map<String, Reading> readings = new HashMap<>();
+            for (int i = 0; i < topics.size(); i++) {
+                String code = topics.get(i).code();
+                for (Item it : itemLoads.get(i).join()) {
+                    if (pool.putIfAbsent(it.sid(), it) == null) topicBySid.put(it.sid(), code);
+                }
+                readings.putAll(readingLoads.get(i).join());
+            }
+            if (!navigator.toTraining("reviews", "JP Trainer — повторение",
+                    training -> training.startDueReviews(pool, readings, topicBySid))) {
+                updateReviewButton();
+                statusLbl.setText("Сейчас повторять нечего");
+                return;
+            }
+            leave();
+        }, Platform::runLater);
+    }
+
+    /**
+     * Потоковый старт: сначала небольшой файл с предрасчитанной фуриганой, затем задания —
+     * первая страница открывает тренировку, остальные дописываются в неё.
+     */
+    private final class TrainingStart {
+        private final Topic topic;
+        private Map<String, Reading> readings;
+        private CompletableFuture<List<Item>> load;
+        private boolean opened;
+
+        TrainingStart(Topic topic) {
+            this.topic = topic;
+        }
+
+        void begin() {
+            CompletableFuture<Map<String, Reading>> readingsLoad =
+                    store.loadReadingsForAsync(topic.code(), progressReporter());
+            beginLoading(readingsLoad, "Загрузка readings-" + topic.code() + ".json…");
+            readingsLoad.whenCompleteAsync((r, ex) -> {
+                if (!finishLoading(readingsLoad)) return;
+                if (ex != null) {
+                    // без предрасчёта тренировка всё равно работает — фуригану посчитает словарь
+                    if (readingsLoad.isCancelled()) return;
+                    System.err.println("readings-" + topic.code() + ".json is ignored: " + ex.getMessage());
+                }
+                readings = r != null ? r : Map.of();
+                streamItems();
+            }, Platform::runLater);
+        }
+
+        private void streamItems() {
+            load = store.streamItemsAsync(topic.code(), PAGE_SIZE,
+                    page -> Platform.runLater(() -> onPage(page)), progressReporter());
+            beginLoading(load, "Загрузка items-" + topic.code() + ".json…");
+            load.whenCompleteAsync(this::onDone, Platform::runLater);
+        }
+
+        private void onPage(List<Item> page) {
+            if (opened) {
+                navigator.training().appendItems(load, page);
+                return;
+            }
+            if (load.isCancelled() || !finishLoading(load)) return;
+            opened = true;
+            openTraining(topic, page, readings, load);
+        }
+
+        private void onDone(List<Item> items, Throwable ex) {
+            if (opened) {
+                navigator.training().itemsLoaded(load, ex);
+                return;
+            }
+            if (!finishLoading(load)) return;
+            if (ex != null) {
+                reportFailure("Ошибка загрузки items-" + topic.code() + ".json", ex);
+            } else if (items.isEmpty()) {
+                showError("В items-" + topic.code() + ".json нет заданий",
+                        new IllegalStateException("items list is empty"));
+            }
+        }
+    }
+
+    private void onMix() {
+        List<Topic> topics = selectedTopics();
+        if (topics.isEmpty()) return;
+        commitMixSize();
+        new MixStart(topics, mixWeighting.getValue(), mixSize.getValue()).begin();
+    }
+
+    /**
+     * Переносит набранное число в значение: сам Spinner делает это по Enter и при потере фокуса,
+     * а кнопка может сработать раньше (с клавиатуры) и прочитать старое значение.
+     */
+    private void commitMixSize() {
+        mixSize.commitValue();
+        if (mixSize.getValue() == null) mixSize.getValueFactory().setValue(MIX_SIZE);
+        // значение вне диапазона фабрика прижимает к границе — показываем, что получилось
+        mixSize.getEditor().setText(String.valueOf(mixSize.getValue()));
+    }
+
+    /**
+     * Тренировка из отдельных заданий разных тем: читаются только выбранные номера и их фуригана.
+     * Какие номера взять, решает подкласс; части загрузки отменяются вместе с общей.
+     */
+    private abstract class PickedStart {
+        // части загрузки: отмена общего future до них сама не доходит
+        private final List<CompletableFuture<?>> parts = new CopyOnWriteArrayList<>();
+        final RandomGenerator random = RandomGenerator.getDefault();
+
+        /** Topic.code → номера заданий по возрастанию. */
+        abstract CompletableFuture<Map<String, int[]>> pick();
+
+        abstract String status();
+
+        abstract String failure();
+
+        abstract String empty();
+
+        abstract String title(int questions);
+
+        abstract String windowTitle();
+
+        void begin() {
+            CompletableFuture<Mixed> load = pick().thenCompose(this::loadPicked).thenCompose(this::withReadings);
+            load.whenComplete((v, ex) -> {
+                if (load.isCancelled()) parts.forEach(f -> f.cancel(true));
+            });
+            beginLoading(load, status());
+
+            load.whenCompleteAsync((session, ex) -> {
+                if (!finishLoading(load)) return;
+                if (ex != null) {
+                    reportFailure(failure(), ex);
+                    return;
+                }
+                if (session.items().isEmpty()) {
+                    statusLbl.setText(empty());
+                    return;
+                }
+                navigator.toTraining("session", windowTitle(), training -> {
+                    training.startMixed(title(session.items().size()), session.items(), session.readings(),
+                            session.topicBySid());
+                    return true;
+                });
+                leave();
+            }, Platform::runLater);
+        }
+
+        /** Читает только выбранные номера заданий каждой темы. */
+        private CompletableFuture<Map<String, List<Item>>> loadPicked(Map<String, int[]> picked) {
+            Map<String, CompletableFuture<List<Item>>> loads = new LinkedHashMap<>();
+            picked.forEach((code, idx) -> loads.put(code, track(store.loadItemsAtAsync(code, idx))));
+            return CompletableFuture.allOf(loads.values().toArray(CompletableFuture[]::new)).thenApply(v -> {
+                Map<String, List<Item>> byTopic = new LinkedHashMap<>();
+                loads.forEach((code, f) -> byTopic.put(code, f.join()));
+                return byTopic;
+            });
+        }
+
+        /** Фуригана только для выбранных sid; без неё тренировка тоже работает. */
+        private CompletableFuture<Mixed> withReadings(Map<String, List<Item>> byTopic) {
+            List<CompletableFuture<Map<String, Reading>>> loads = new ArrayList<>();
+            byTopic.forEach((code, items) -> {
+                Set<String> sids = new HashSet<>();
+                items.forEach(it -> sids.add(it.sid()));
+                loads.add(track(store.loadReadingsForAsync(code, sids)).exceptionally(ex -> Map.of()));
+            });
+            return CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new)).thenApply(v -> {
+                List<Item> items = new ArrayList<>();
+                Map<String, String> topicBySid = new HashMap<>();
+                byTopic.forEach((code, topicItems) -> {
+                    items.addAll(topicItems);
+                    topicItems.forEach(it -> topicBySid.putIfAbsent(it.sid(), code));
+                });
+                Collections.shuffle(items, random);
+                Map<String, Reading> readings = new HashMap<>();
+                loads.forEach(f -> readings.putAll(f.join()));
+                return new Mixed(items, readings, topicBySid);
+            });
+        }
+
+        <T> CompletableFuture<T> track(CompletableFuture<T> f) {
+            parts.add(f);
+            return f;
+        }
+    }
+
+    /**
+     * Смешанная тренировка: сначала только количества заданий по темам (пакет — сразу, JSON — пропуском
+     * без разбора), затем выборка номеров. Время старта почти не зависит от объёма тем.
+     */
+    private final class MixStart extends PickedStart {
+        private final List<Topic> topics;
+        private final MixSampler.Weighting weighting;
+        private final int size;
+
+        MixStart(List<Topic> topics, MixSampler.Weighting weighting, int size) {
+            this.topics = topics;
+            this.weighting = weighting;
+            this.size = size;
+        }
+
+        @Override CompletableFuture<Map<String, int[]>> pick() {
+            Map<String, CompletableFuture<Integer>> counts = new LinkedHashMap<>();
+            for (Topic t : topics) counts.put(t.code(), track(store.countItemsAsync(t.code())));
+            return CompletableFuture.allOf(counts.values().toArray(CompletableFuture[]::new)).thenApply(v -> {
+                Map<String, Integer> n = new HashMap<>();
+                counts.forEach((code, f) -> n.put(code, f.join()));
+                return MixSampler.sample(topics, n, weighting, size, random);
+            });
+        }
+
+        @Override String status() {
+            return "Подбор заданий из %d тем…".formatted(topics.size());
+        }
+
+        @Override String failure() {
+            return "Не удалось собрать смешанную тренировку";
+        }
+
+        @Override String empty() {
+            return "В выбранных темах нет заданий";
+        }
+
+        @Override String title(int questions) {
+            return "Смесь: %d тем, %d вопросов".formatted(topics.size(), questions);
+        }
+
+        @Override String windowTitle() {
+            return "JP Trainer — смешанная тренировка";
+        }
+    }
+
+    /**
+     * Тренировка по результатам поиска. Перед выборкой индекс догоняет правки контента,
+     * чтобы номера заданий совпали с файлами.
+     */
+    private final class SearchStart extends PickedStart {
+        private final String query;
+        private final List<Topic> topics;
+
+        SearchStart(String query, List<Topic> topics) {
+            this.query = query;
+            this.topics = topics;
+        }
+
+        @Override CompletableFuture<Map<String, int[]>> pick() {
+            return track(search.updateAsync(store, topics, null)).thenApply(stats -> {
+                Map<String, List<Integer>> byTopic = new LinkedHashMap<>();
+                for (SearchIndex.Hit h : search.search(query, SEARCH_SESSION_MAX).hits()) {
+                    byTopic.computeIfAbsent(h.topicCode(), c -> new ArrayList<>()).add(h.index());
+                }
+                Map<String, int[]> picked = new LinkedHashMap<>();
+                byTopic.forEach((code, idx) -> picked.put(code, idx.stream().mapToInt(Integer::intValue).toArray()));
+                return picked;
+            });
+        }
+
+        @Override String status() {
+            return "Загрузка найденных заданий…";
+        }
+
+        @Override String failure() {
+            return "Не удалось загрузить найденные задания";
+        }
+
+        @Override String empty() {
+            return "По запросу ничего не найдено";
+        }
+
+        @Override String title(int questions) {
+            return "Поиск «%s»: %d вопросов".formatted(query, questions);
+        }
+
+        @Override String windowTitle() {
+            return "JP Trainer — тренировка по поиску";
+        }
+    }
+
+    private record Mixed(List<Item> items, Map<String, Reading> readings, Map<String, String> topicBySid) {}
+
+    private static String weightingLabel(MixSampler.Weighting w) {
+        return switch (w) {
+            case ITEMS -> "по числу заданий";
+            case TOPICS -> "поровну по темам";
+            case PARTICLES -> "поровну по частицам";
+            case LESSONS -> "поровну по урокам";
+        };
+    }
+
+    // ===== фоновая загрузка =====
+
+    private void beginLoading(CompletableFuture<?> load, String status) {
+        if (pending != null) pending.cancel(true);
+        pending = load;
+        loading.set(true);
+        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        statusLbl.setText(status);
+    }
+
+    /** Закрывает загрузку; false — результат устарел (загрузку заменили другой). */
+    private boolean finishLoading(CompletableFuture<?> load) {
+        if (pending != load) return false;
+        pending = null;
+        loading.set(false);
+        statusLbl.setText(load.isCancelled() ? "Загрузка отменена" : "");
+        return true;
+    }
+
+    private void cancelLoading() {
+        if (pending != null) pending.cancel(true);
+    }
+
+    /** Прогресс приходит из потока загрузчика — перекладываем его в FX-поток. */
+    private ContentStore.Progress progressReporter() {
+        return (file, done, total) -> Platform.runLater(() -> {
+            if (pending == null) return;
+            progressBar.setProgress(total > 0 ? (double) done / total : ProgressBar.INDETERMINATE_PROGRESS);
+            statusLbl.setText("%s: %d / %d КБ".formatted(file, done / 1024, Math.max(1, total / 1024)));
+        });
+    }
+
+    private static void reportFailure(String message, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof CancellationException) return;
+        showError(message, cause);
+    }
+
     private static void stylePrimary(Button b) {
         b.setStyle("""
             -fx-background-color: -fx-accent;
@@ -122,7 +877,7 @@ public final class TopicSelectionView {
         """);
     }
 
-    private static void showError(String message, Exception ex) {
+    private static void showError(String message, Throwable ex) {
         var a = new Alert(Alert.AlertType.ERROR);
         a.setTitle("Ошибка");
         a.setHeaderText(message);
@@ -1,46 +1,93 @@
 package com.shiyano.shinyaoJTD.ui;
 
+import com.shiyano.shinyaoJTD.StartupMetrics;
+import com.shiyano.shinyaoJTD.core.Answer;
 import com.shiyano.shinyaoJTD.core.Item;
+import com.shiyano.shinyaoJTD.core.LearnerStats;
+import com.shiyano.shinyaoJTD.core.Reading;
 import com.shiyano.shinyaoJTD.core.Topic;
+import com.shiyano.shinyaoJTD.core.TrainingSession;
+import com.shiyano.shinyaoJTD.perf.AnswerFeedbackEvent;
+import com.shiyano.shinyaoJTD.perf.Perf;
+import com.shiyano.shinyaoJTD.store.AnswerLog;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+import com.shiyano.shinyaoJTD.store.ReviewStore;
+import com.shiyano.shinyaoJTD.store.StatsStore;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Parent;
-import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
 import javafx.scene.text.TextFlow;
-import javafx.stage.Stage;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Экран тренировки: показывает состояние {@link TrainingSession} (вопрос, разбор, счётчики)
+ * и передаёт ей ответы пользователя; сама логика сессии — в core. После последнего вопроса
+ * показываются итоги сессии (точность, время, путаница частиц) из {@link LearnerStats}.
+ *
+ * <p>Экран один на всё время работы (см. {@link Navigator}): каждая тренировка начинается
+ * вызовом start*, узлы, пулы кнопок и фуриганы переиспользуются от сессии к сессии.
+ */
 public final class TrainingView {
 
-    private static final double MIN_W = 720;
-    private static final double MIN_H = 520;
-
     private final BorderPane root = new BorderPane();
 
-    private final Topic topic;
-    private final List<Item> items;
-    private final Stage stage;
-
-    private final FuriganaService furigana = new FuriganaService(); // сервис фуриганы
-
-    private int index = 0;
-    private int remaining;
+    private final Navigator navigator;
+    private final ContentStore store;
+    private final ReviewStore reviews;
+    // журнал ответов; null — не открылся при запуске, ответы не сохраняются
+    private final Consumer<Answer> answers;
+    // статистика за всё время и отдельная — только этой сессии (для экрана итогов)
+    private final StatsStore stats;
+    private LearnerStats sessionStats = new LearnerStats();
+    // тема задания по sid; null — неизвестна
+    private Function<String, String> topicOf = sid -> null;
+
+    // тема тренировки; null — вопросы не из одной темы (повторение или смесь), следить за файлами темы не нужно
+    private Topic topic;
+    private Runnable unsubscribe = () -> {};
+    // список заданий сессии дорастает по мере потокового чтения файла и может замениться целиком,
+    // если items-файл поменяли на диске во время сессии
+    private TrainingSession session;
+
+    // незавершённая потоковая загрузка заданий; null — все задания уже здесь
+    private CompletableFuture<?> loading;
+    // предрасчитанная фуригана темы: sid -> разметка (может быть пустой)
+    private Map<String, Reading> readings;
+
+    private final FuriganaService furigana = FuriganaService.shared(); // сервис фуриганы (общий)
+    /** Пул узлов и общий тултип (по умолчанию) или новые узлы на каждый вопрос (-Djtd.render=fresh). */
+    private static final boolean POOLED_RENDERING = !"fresh".equals(System.getProperty("jtd.render"));
+    /** Счётчики упреждения в stdout при выходе в меню (-Djtd.perf.log=true). */
+    private static final boolean PERF_LOG = Boolean.getBoolean("jtd.perf.log");
+
+    private final ItemPrefetcher prefetcher =
+            new ItemPrefetcher(furigana, this::precomputedFor, ItemPrefetcher.DEFAULT_DEPTH);
 
     private final Label titleLbl   = new Label();
     private final Label counterLbl = new Label();
 
     // БЫЛО: Label jpLbl; → СТАЛО: TextFlow с тултипами-фуриганы
     private final TextFlow jpFlow  = new TextFlow();
+    private final FuriganaFlow sentence = new FuriganaFlow(jpFlow);
+    private final List<Button> optionButtons = new ArrayList<>();
+    private Item current;
 
     private final Label glossLbl   = new Label();
     private final Label feedbackLbl= new Label();
@@ -48,15 +95,18 @@ public final class TrainingView {
     private final FlowPane optionsPane = new FlowPane();
     private final Button nextBtn   = new Button("Далее");
 
-    public TrainingView(Stage stage, Topic topic, List<Item> items) {
-        this.stage = stage;
-        this.topic = topic;
-        this.items = List.copyOf(items);
-        this.remaining = this.items.size();
+    private final StackPane questionPane;
+    private final VBox resultsBox = new VBox(8);
+    private final ScrollPane resultsPane = new ScrollPane(resultsBox);
 
-        // фиксируем минимальный размер окна
-        this.stage.setMinWidth(MIN_W);
-        this.stage.setMinHeight(MIN_H);
+    /** @param answers журнал ответов или null, если он недоступен */
+    TrainingView(Navigator navigator, ContentStore store, ReviewStore reviews, AnswerLog answers, StatsStore stats) {
+        this.navigator = navigator;
+        this.store = store;
+        this.reviews = reviews;
+        this.stats = stats;
+        // запись уходит в очередь — диск ждёт фоновый поток журнала
+        this.answers = answers == null ? null : answers::append;
 
         root.setStyle("""
             -fx-background-color: linear-gradient(to bottom, -fx-base, derive(-fx-base, -5%));
@@ -87,6 +137,7 @@ public final class TrainingView {
         glossLbl.setWrapText(true);
         glossLbl.setStyle("-fx-opacity: 0.8;");
 
+        optionsPane.setId("options");
         optionsPane.setHgap(10);
         optionsPane.setVgap(10);
         optionsPane.setPrefWrapLength(560);
@@ -103,17 +154,19 @@ public final class TrainingView {
         footer.setAlignment(Pos.CENTER_RIGHT);
         nextBtn.setStyle(primaryButton());
         nextBtn.setDisable(true);
+        nextBtn.setId("next");
         nextBtn.setOnAction(e -> onNextClicked());
 
         card.getChildren().addAll(topBox, midBox, bottomBox, footer);
 
-        StackPane center = new StackPane(card);
+        questionPane = new StackPane(card);
         StackPane.setAlignment(card, Pos.CENTER);
 
-        root.setTop(header);
-        root.setCenter(center);
+        resultsBox.setPadding(new Insets(18));
+        resultsPane.setFitToWidth(true);
 
-        titleLbl.setText("Тема: %s — тренировка".formatted(topic.title()));
+        root.setTop(header);
+        root.setCenter(questionPane);
 
         root.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
             int digit = keyToDigit(e.getCode());
@@ -122,76 +175,268 @@ public final class TrainingView {
                 e.consume();
             }
         });
+    }
 
+    public Parent getRoot() { return root; }
+
+    /**
+     * Тренировка по теме.
+     *
+     * @param items    первые задания темы (не пустой список)
+     * @param readings предрасчитанная фуригана темы (sid -> разметка), может быть пустой
+     * @param loading  потоковая загрузка остальных заданий или null, если список уже полный;
+     *                 страницы передаются через {@link #appendItems}, завершение — через {@link #itemsLoaded}
+     */
+    void startTopic(Topic topic, List<Item> items, Map<String, Reading> readings, CompletableFuture<?> loading) {
+        String code = topic.code();
+        start(topic, "Тема: %s — тренировка".formatted(topic.title()),
+                TrainingSession.ofItems(items, loading != null, reviews.scheduler(), answers,
+                        System.currentTimeMillis()),
+                readings, loading, sid -> code);
+    }
+
+    /**
+     * Готовый набор вопросов из нескольких тем (смешанная тренировка): без потоковой загрузки
+     * и без горячей перезагрузки — набор собран заранее.
+     *
+     * @param topicBySid тема каждого задания (sid -> Topic.code) для статистики
+     */
+    void startMixed(String title, List<Item> items, Map<String, Reading> readings, Map<String, String> topicBySid) {
+        start(null, title, TrainingSession.ofItems(items, false, reviews.scheduler(), answers,
+                System.currentTimeMillis()), readings, null, topicBySid::get);
+    }
+
+    /**
+     * Повторение по сроку: вопросы из всех тем в порядке планировщика, пока есть созревшие.
+     * Возвращает false, если в {@code pool} нет ни одного задания к повторению.
+     *
+     * @param pool     все задания контента, sid -> задание
+     * @param readings предрасчитанная фуригана всех тем (sid -> разметка)
+     * @param topicBySid тема каждого задания (sid -> Topic.code) для статистики
+     */
+    boolean startDueReviews(Map<String, Item> pool, Map<String, Reading> readings, Map<String, String> topicBySid) {
+        TrainingSession reviewSession = TrainingSession.dueReviews(pool, reviews.scheduler(), answers,
+                System.currentTimeMillis());
+        if (reviewSession == null) return false;
+        start(null, "Повторение по сроку", reviewSession, readings, null, topicBySid::get);
+        return true;
+    }
+
+    private void start(Topic topic, String title, TrainingSession session, Map<String, Reading> readings,
+                       CompletableFuture<?> loading, Function<String, String> topicOf) {
+        this.topic = topic;
+        this.session = session;
+        this.readings = readings;
+        this.loading = loading;
+        this.topicOf = topicOf;
+        sessionStats = new LearnerStats();
+        root.setCenter(questionPane);
+        titleLbl.setText(title);
+        prefetcher.clear();
         showCurrent();
+
+        // задания смеси и повторения собраны из разных тем; правки файлов подхватятся в следующей сессии
+        if (topic != null) {
+            String itemsFile = "items-" + topic.code() + ".json";
+            String readingsFile = "readings-" + topic.code() + ".json";
+            TrainingSession owner = session;
+            unsubscribe = store.subscribe(file -> {
+                if (file.equals(itemsFile)) Platform.runLater(() -> reloadItems(owner));
+                if (file.equals(readingsFile)) Platform.runLater(() -> reloadReadings(owner));
+            });
+        }
     }
 
-    public Parent getRoot() { return root; }
+    /**
+     * Очередная страница потоковой загрузки (FX-поток). from — загрузка, которой принадлежит страница:
+     * страницы прошлой, уже закрытой сессии отбрасываются.
+     */
+    void appendItems(CompletableFuture<?> from, List<Item> page) {
+        if (from != loading) return;
+        if (session.append(page, System.currentTimeMillis())) {
+            showCurrent();
+        } else {
+            updateProgressLabels();
+            prefetcher.prefetch(session.items(), session.index() + 1);
+        }
+    }
+
+    /** Потоковая загрузка закончилась; ex != null — файл прочитан не до конца. */
+    void itemsLoaded(CompletableFuture<?> from, Throwable ex) {
+        if (from != loading) return;
+        loading = null;
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause != null && !(cause instanceof CancellationException)) {
+            var a = new Alert(Alert.AlertType.ERROR);
+            a.setTitle("Ошибка");
+            a.setHeaderText("items-" + topic.code() + ".json прочитан не полностью");
+            a.setContentText(cause.getMessage());
+            a.show();
+        }
+        if (session.loaded() == TrainingSession.State.FINISHED) {
+            finish();
+        } else {
+            updateProgressLabels();
+        }
+    }
 
     // ===== логика =====
 
     private void onNextClicked() {
-        if (index >= items.size() - 1) {
-            goBackToMenu();
+        switch (session.next(System.currentTimeMillis())) {
+            case QUESTION -> showCurrent();
+            case FINISHED -> finish();
+            case WAITING -> {
+                // пользователь обогнал чтение файла — продолжим, когда придёт следующая страница
+                nextBtn.setDisable(true);
+                feedbackLbl.setText("Загружаются следующие задания…");
+            }
+            case ANSWERED -> throw new IllegalStateException();
+        }
+    }
+
+    private void updateProgressLabels() {
+        if (session.isReview()) {
+            counterLbl.setText("К повторению: " + session.dueCount(System.currentTimeMillis()));
             return;
         }
-        index++;
-        remaining = Math.max(0, remaining - 1);
-        showCurrent();
+        // меняем текст на последнем шаге
+        nextBtn.setText(session.isLast() ? "Завершить" : "Далее");
+        int remaining = session.remaining();
+        counterLbl.setText(session.isLoading() ? "Осталось: " + remaining + "…" : "Осталось: " + remaining);
     }
 
-    private void showCurrent() {
-        Item it = items.get(index);
+    /** Горячая перезагрузка: берём свежий список из кэша и остаёмся на том же вопросе (по sid). */
+    private void reloadItems(TrainingSession owner) {
+        // экран уже показывает другую сессию — правка относится к закрытой
+        if (session != owner) return;
+        if (loading != null) return; // файл ещё дочитывается — его новая версия придёт при следующем открытии
+        store.loadItemsForAsync(topic.code(), ContentStore.Progress.NONE).whenCompleteAsync((fresh, ex) -> {
+            if (session != owner) return;
+            if (ex != null || fresh.isEmpty()) return; // ошибку увидят при следующем открытии темы
+            session.replaceItems(fresh, System.currentTimeMillis());
+            prefetcher.clear();
+            if (session.state() == TrainingSession.State.QUESTION) {
+                showCurrent();
+            } else {
+                updateProgressLabels();
+            }
+        }, Platform::runLater);
+    }
 
-        // меняем текст на последнем шаге
-        nextBtn.setText(index == items.size() - 1 ? "Завершить" : "Далее");
+    private void reloadReadings(TrainingSession owner) {
+        if (session != owner) return;
+        store.loadReadingsForAsync(topic.code(), ContentStore.Progress.NONE).whenCompleteAsync((fresh, ex) -> {
+            if (session != owner || ex != null) return;
+            readings = fresh;
+            prefetcher.clear();
+            if (session.state() == TrainingSession.State.QUESTION) showCurrent();
+        }, Platform::runLater);
+    }
 
-        counterLbl.setText("Осталось: " + remaining);
+    private void showCurrent() {
+        Item it = session.current();
+        updateProgressLabels();
 
         // РЕНДЕР ПРЕДЛОЖЕНИЯ С ФУРИГАНОЙ:
-        // если захочешь ручные чтения — передай map вместо null
-        TextFlow built = furigana.createTextFlow(it.jp(), null);
-        jpFlow.getChildren().setAll(built.getChildren());
+        // вопрос обычно уже подготовлен в фоне (токенизация, подписи) — остаётся собрать узлы
+        ItemPrefetcher.Prepared prepared = prefetcher.take(it);
+        current = it;
+        showSentence(prepared.segments());
+        if (!prepared.complete() && furigana.tokenizerEnabled()) {
+            // словарь ещё прогревается — сейчас простой текст, фуригану добавим, когда он будет готов
+            furigana.whenReady().thenRunAsync(() -> {
+                if (current == it) showSentence(furigana.segments(it.jp(), precomputedFor(it), null));
+            }, Platform::runLater);
+        }
 
         glossLbl.setText(it.gloss() == null ? "" : it.gloss());
         feedbackLbl.setText("");
         feedbackLbl.setStyle("-fx-text-fill: -fx-text-inner-color; -fx-font-weight: bold;");
         nextBtn.setDisable(true);
 
-        optionsPane.getChildren().clear();
-        List<Button> buttons = new ArrayList<>();
-        int i = 1;
-        for (String opt : it.options()) {
-            Button b = new Button("%d) %s".formatted(i++, opt));
+        showOptions(prepared.optionLabels());
+
+        // пока пользователь думает, готовим следующие вопросы
+        prefetcher.prefetch(session.items(), session.index() + 1);
+        StartupMetrics.questionShown(root);
+    }
+
+    private void showSentence(List<FuriganaService.Segment> segments) {
+        if (POOLED_RENDERING) {
+            sentence.render(segments);
+        } else {
+            jpFlow.getChildren().setAll(furigana.render(segments).getChildren());
+        }
+    }
+
+    /** Кнопки вариантов: в режиме пула те же самые объекты, меняются только подписи и стиль. */
+    private void showOptions(List<String> labels) {
+        List<Button> buttons;
+        if (POOLED_RENDERING) {
+            while (optionButtons.size() < labels.size()) {
+                optionButtons.add(newOptionButton(optionButtons.size()));
+            }
+            buttons = optionButtons.subList(0, labels.size());
+        } else {
+            buttons = new ArrayList<>(labels.size());
+            for (int i = 0; i < labels.size(); i++) buttons.add(newOptionButton(i));
+        }
+        for (int i = 0; i < labels.size(); i++) {
+            Button b = buttons.get(i);
+            b.setText(labels.get(i));
             b.setStyle(choiceButton());
-            b.setMinWidth(120);
-            b.setPrefHeight(40);
-            b.setFocusTraversable(false);
-            b.setOnAction(e -> onAnswer(it, opt, buttons, b));
-            buttons.add(b);
+            b.setDisable(false);
+        }
+        if (!optionsPane.getChildren().equals(buttons)) {
+            optionsPane.getChildren().setAll(buttons);
         }
-        optionsPane.getChildren().addAll(buttons);
     }
 
-    private void onAnswer(Item it, String chosen, List<Button> allButtons, Button clicked) {
-        for (Button b : allButtons) b.setDisable(true);
+    private Button newOptionButton(int slot) {
+        Button b = new Button();
+        b.setMinWidth(120);
+        b.setPrefHeight(40);
+        b.setFocusTraversable(false);
+        b.setOnAction(e -> onAnswer(slot));
+        return b;
+    }
+
+    /** Предрасчитанная фуригана для задания, если она относится к его текущей фразе. */
+    private Reading precomputedFor(Item it) {
+        Reading r = readings.get(it.sid());
+        return r != null && r.jp().equals(it.jp()) ? r : null;
+    }
+
+    private void onAnswer(int slot) {
+        AnswerFeedbackEvent event = new AnswerFeedbackEvent();
+        event.begin();
+        TrainingSession.Feedback feedback = session.answer(slot, System.currentTimeMillis());
+        List<Node> allButtons = optionsPane.getChildren();
+        Button clicked = (Button) allButtons.get(slot);
+
+        for (Node b : allButtons) b.setDisable(true);
         nextBtn.setDisable(false);
+        if (session.isReview()) updateProgressLabels();
 
-        Set<String> correct = it.correctSet();
-        if (correct.contains(chosen)) {
+        if (feedback.correct()) {
             clicked.setStyle(choiceButtonSuccess());
-            feedbackLbl.setText("Верно. " + (it.whyCorrect() == null ? "" : it.whyCorrect()));
+            feedbackLbl.setText("Верно. " + feedback.explanation());
         } else {
             clicked.setStyle(choiceButtonDanger());
-            Map<String,String> ww = it.whyWrong();
-            String reason = ww != null ? ww.getOrDefault(chosen, "") : "";
-            feedbackLbl.setText(("Неверно. " + reason).trim());
-            for (Button b : allButtons) {
-                String text = b.getText();
-                String opt = text.substring(text.indexOf(')') + 2);
-                if (correct.contains(opt)) b.setStyle(choiceButtonSuccess());
+            feedbackLbl.setText(("Неверно. " + feedback.explanation()).trim());
+            for (int i = 0; i < feedback.item().options().size(); i++) {
+                if (feedback.isCorrect(i)) allButtons.get(i).setStyle(choiceButtonSuccess());
             }
         }
+        long now = System.currentTimeMillis();
+        String topicCode = topicOf.apply(feedback.item().sid());
+        stats.stats().record(topicCode, feedback, now);
+        sessionStats.record(topicCode, feedback, now);
+
+        event.sid = feedback.item().sid();
+        event.correct = feedback.correct();
+        Perf.commitAfterNextLayout(event, root.getScene());
     }
 
     private void selectByIndex(int zeroBased) {
@@ -200,17 +445,55 @@ public final class TrainingView {
         if (node instanceof Button b && !b.isDisabled()) b.fire();
     }
 
+    /** Вопросы кончились: итоги сессии, если на что-то ответили, иначе сразу в меню. */
+    private void finish() {
+        if (sessionStats.answers() == 0) {
+            goBackToMenu();
+            return;
+        }
+        unsubscribe.run();
+        unsubscribe = () -> {};
+        stats.saveAsync();
+        showResults();
+    }
+
+    /** Экран итогов: всё из свёрток сессии, без прохода по ответам. */
+    private void showResults() {
+        counterLbl.setText("Итоги");
+        Button toMenu = new Button("В меню");
+        toMenu.setStyle(primaryButton());
+        toMenu.setDefaultButton(true);
+        toMenu.setOnAction(e -> goBackToMenu());
+        var footer = new HBox(toMenu);
+        footer.setAlignment(Pos.CENTER_RIGHT);
+
+        LearnerStats.Row overall = sessionStats.overall();
+        List<LearnerStats.Row> particles = sessionStats.particles();
+        particles.sort((a, b) -> Double.compare(a.totals().accuracy(), b.totals().accuracy()));
+        resultsBox.getChildren().setAll(StatsPanes.summary(overall),
+                StatsPanes.heading("Время ответа, с"), StatsPanes.histogram(overall.histogram()),
+                StatsPanes.heading("Частицы"), StatsPanes.table("Частица", particles, p -> p));
+        var confusions = sessionStats.confusions();
+        resultsBox.getChildren().add(StatsPanes.heading("Что с чем путается"));
+        resultsBox.getChildren().add(confusions.isEmpty()
+                ? StatsPanes.muted("Ни одной ошибки.")
+                : StatsPanes.confusionMatrix(sessionStats));
+        resultsBox.getChildren().add(footer);
+        root.setCenter(resultsPane);
+        toMenu.requestFocus();
+    }
+
     private void goBackToMenu() {
-        Platform.runLater(() -> {
-            double contentW = Math.max(stage.getScene().getWidth(),  MIN_W);
-            double contentH = Math.max(stage.getScene().getHeight(), MIN_H);
-            TopicSelectionView menu = new TopicSelectionView(java.nio.file.Path.of(""));
-            Scene scene = new Scene(menu.getRoot(), contentW, contentH);
-            stage.setTitle("JP Trainer — выбор темы");
-            stage.setMinWidth(MIN_W);
-            stage.setMinHeight(MIN_H);
-            stage.setScene(scene);
-        });
+        unsubscribe.run();
+        unsubscribe = () -> {};
+        if (loading != null) loading.cancel(true);
+        loading = null;
+        prefetcher.clear();
+        if (PERF_LOG) System.out.println(prefetcher.report());
+        reviews.saveAsync();
+        stats.saveAsync();
+        // сама смена экрана — вне текущего обработчика (сюда приходят и из колбэков загрузки)
+        Platform.runLater(navigator::toMenu);
     }
 
     private static int keyToDigit(KeyCode code) {
@@ -0,0 +1,117 @@
+package com.shiyano.shinyaoJTD.core;
+
+import org.junit.jupiter.api.Test;
+
+import static com.shiyano.shinyaoJTD.core.JapaneseText.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JapaneseTextTest {
+
+    @Test
+    void classifiesBlockBoundaries() {
+        assertThat(classify('぀')).isEqualTo(OTHER);          // не назначен
+        assertThat(classify('ぁ')).isEqualTo(HIRAGANA);            // U+3041
+        assertThat(classify('ゟ')).isEqualTo(HIRAGANA);            // U+309F
+        assertThat(classify('゠')).isEqualTo(PUNCT);               // U+30A0
+        assertThat(classify('ァ')).isEqualTo(KATAKANA);            // U+30A1
+        assertThat(classify('ヿ')).isEqualTo(KATAKANA);            // U+30FF
+        assertThat(classify('ㇰ')).isEqualTo(KATAKANA);            // U+31F0, фонетические расширения
+        assertThat(classify('々')).isEqualTo(KANJI);
+        assertThat(classify('〇')).isEqualTo(KANJI);
+        assertThat(classify('。')).isEqualTo(PUNCT);
+        assertThat(classify(Item.GAP)).isEqualTo(PUNCT);
+    }
+
+    @Test
+    void prolongedSoundMarkIsPunctuationInBothWidths() {
+        assertThat(classify('ー')).isEqualTo(PUNCT);
+        assertThat(classify('ｰ')).isEqualTo(PUNCT);
+        assertThat(classify('・')).isEqualTo(PUNCT);
+    }
+
+    @Test
+    void classifiesCjkExtensionABoundaries() {
+        assertThat(classify('㏿')).isEqualTo(PUNCT);          // квадратный символ, не иероглиф
+        assertThat(classify('㐀')).isEqualTo(KANJI);          // первый Ext-A
+        assertThat(classify('䶿')).isEqualTo(KANJI);          // последний Ext-A
+        assertThat(classify('䷀')).isEqualTo(PUNCT);          // гексаграммы И цзин
+        assertThat(classify('一')).isEqualTo(KANJI);
+        assertThat(classify('鿿')).isEqualTo(KANJI);
+        assertThat(classify('ꀀ')).isEqualTo(OTHER);          // письменность и
+        assertThat(classify('豈')).isEqualTo(KANJI);          // совместимые иероглифы
+    }
+
+    @Test
+    void classifiesHalfwidthKatakanaRange() {
+        assertThat(classify('･')).isEqualTo(PUNCT);          // полуширинная ・
+        assertThat(classify('ｦ')).isEqualTo(HALFWIDTH_KATAKANA);   // U+FF66
+        assertThat(classify('ｱ')).isEqualTo(HALFWIDTH_KATAKANA);
+        assertThat(classify('ﾟ')).isEqualTo(HALFWIDTH_KATAKANA);   // U+FF9F
+        assertThat(classify('ﾠ')).isEqualTo(OTHER);          // полуширинная хангыль
+    }
+
+    @Test
+    void classifiesSupplementaryPlanes() {
+        assertThat(classify(0x20000)).isEqualTo(KANJI);           // Ext-B
+        assertThat(classify(0x2A6DF)).isEqualTo(KANJI);
+        assertThat(classify(0x1F600)).isEqualTo(OTHER);           // эмодзи
+        assertThat(classify((int) 'か')).isEqualTo(HIRAGANA);
+        assertThat(scripts("𠀋")).isEqualTo(KANJI);
+        assertThat(scripts("\uD840")).isEqualTo(OTHER);           // одиночный суррогат
+    }
+
+    @Test
+    void scriptsAndContainsAny() {
+        assertThat(scripts("カタカナとひらがな、漢字")).isEqualTo(KATAKANA | HIRAGANA | PUNCT | KANJI);
+        assertThat(scripts("")).isZero();
+        assertThat(containsAny("abc ｶﾅ", JAPANESE)).isTrue();
+        assertThat(containsAny("abc ー。", JAPANESE)).isFalse();
+        assertThat(containsAny("𠀋", KANJI)).isTrue();
+    }
+
+    @Test
+    void convertsVu() {
+        assertThat(toKatakana("ゔ")).isEqualTo("ヴ");
+        assertThat(toHiragana("ヴ")).isEqualTo("ゔ");
+        assertThat(toHiragana("ヵヶ")).isEqualTo("ゕゖ");
+        assertThat(toKatakana("ゕゖ")).isEqualTo("ヵヶ");
+        assertThat(toHiragana("ヽヾ")).isEqualTo("ゝゞ");
+        assertThat(toKatakana("ゝゞ")).isEqualTo("ヽヾ");
+    }
+
+    @Test
+    void vaRowBecomesHiraganaWithCombiningMark() {
+        assertThat(toHiragana("ヷヸヹヺ")).isEqualTo("わ゙ゐ゙ゑ゙を゙");
+    }
+
+    @Test
+    void prolongedSoundMarkIsKept() {
+        assertThat(toHiragana("ラーメン")).isEqualTo("らーめん");
+        assertThat(toKatakana("らーめん")).isEqualTo("ラーメン");
+        assertThat(toHiragana("ﾗｰﾒﾝ")).isEqualTo("らーめん");
+    }
+
+    @Test
+    void mergesHalfwidthKatakanaWithVoicingMarks() {
+        assertThat(toKatakana("ｶﾞｯｺｳ")).isEqualTo("ガッコウ");
+        assertThat(toHiragana("ﾊﾟﾝ")).isEqualTo("ぱん");
+        assertThat(toKatakana("ｳﾞｧ")).isEqualTo("ヴァ");
+        assertThat(toHiragana("ｳﾞ")).isEqualTo("ゔ");
+        assertThat(toKatakana("ﾜﾞ")).isEqualTo("ヷ");
+        assertThat(toKatakana("ｦﾞ")).isEqualTo("ヺ");
+        // знак, который к букве не присоединяется, становится полноширинным
+        assertThat(toKatakana("ｱﾞ")).isEqualTo("ア゛");
+        assertThat(toKatakana("ﾞ")).isEqualTo("゛");
+        assertThat(toKatakana("｡｢ｺ｣､･")).isEqualTo("。「コ」、・");
+    }
+
+    @Test
+    void returnsTheSameStringWhenNothingChanges() {
+        String s = "漢字とひらがな。";
+        assertThat(toHiragana(s)).isSameAs(s);
+        String k = "カタカナ";
+        assertThat(toKatakana(k)).isSameAs(k);
+        assertThat(toHiragana(null)).isNull();
+        assertThat(toKatakana(null)).isNull();
+    }
+}
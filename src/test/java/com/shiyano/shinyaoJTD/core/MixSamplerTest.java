@@ -0,0 +1,138 @@
+package com.shiyano.shinyaoJTD.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MixSamplerTest {
+
+    // nextDouble() всегда чуть меньше 1: розыгрыш доходит до конца списка тем
+    private static final RandomGenerator ALMOST_ONE = () -> -1L;
+
+    private static Topic topic(String code, String book, int unit, String... particles) {
+        return new Topic(code, code, List.of(particles), new Topic.Lesson(book, unit));
+    }
+
+    private static List<Topic> topics(int n) {
+        List<Topic> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) out.add(topic("t" + i, "MNN I", 1 + i % 3, "に", "で"));
+        return out;
+    }
+
+    @Test
+    void pickReturnsKDistinctSortedIndices() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int n = 1; n <= 60; n++) {
+            for (int k = 0; k <= n; k++) {
+                int[] picked = MixSampler.pick(n, k, random);
+                assertThat(picked).hasSize(k);
+                assertThat(IntStream.of(picked).distinct().count()).isEqualTo(k);
+                assertThat(picked).isSorted();
+                if (k > 0) {
+                    assertThat(picked[0]).isGreaterThanOrEqualTo(0);
+                    assertThat(picked[k - 1]).isLessThan(n);
+                }
+            }
+        }
+        assertThat(MixSampler.pick(5, 5, random)).containsExactly(0, 1, 2, 3, 4);
+        assertThat(MixSampler.pick(1_000_000, 3, random)).hasSize(3);
+    }
+
+    @Test
+    void pickCoversTheWholeRange() {
+        SplittableRandom random = new SplittableRandom(2);
+        int[] seen = new int[10];
+        for (int i = 0; i < 2_000; i++) {
+            for (int v : MixSampler.pick(10, 3, random)) seen[v]++;
+        }
+        assertThat(IntStream.of(seen).min().orElseThrow()).isPositive();
+    }
+
+    @Test
+    void quotasSumToTheRequestedSizeAndRespectCounts() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 500; round++) {
+            List<Topic> ts = topics(1 + random.nextInt(6));
+            Map<String, Integer> counts = new HashMap<>();
+            double[] weights = new double[ts.size()];
+            int total = 0;
+            for (int i = 0; i < ts.size(); i++) {
+                int c = 1 + random.nextInt(30);
+                counts.put(ts.get(i).code(), c);
+                total += c;
+                weights[i] = 0.01 + random.nextDouble();
+            }
+            int size = random.nextInt(total + 20);
+
+            int[] quota = MixSampler.allocate(ts, counts, weights, size, random);
+            assertThat(IntStream.of(quota).sum()).as("round %d", round).isEqualTo(Math.min(size, total));
+            for (int i = 0; i < ts.size(); i++) {
+                assertThat(quota[i]).isBetween(0, counts.get(ts.get(i).code()));
+            }
+        }
+    }
+
+    @Test
+    void zeroWeightTopicsGetNothing() {
+        List<Topic> ts = topics(3);
+        Map<String, Integer> counts = Map.of("t0", 50, "t1", 50, "t2", 50);
+        double[] weights = {0.1, 0.2, 0};
+
+        int[] quota = MixSampler.allocate(ts, counts, weights, 100, new SplittableRandom(4));
+        assertThat(quota[2]).isZero();
+        assertThat(quota[0] + quota[1]).isEqualTo(100);
+
+        // при таких весах r после вычитания всех весов из-за округления остаётся ровно 0, а не меньше:
+        // розыгрыш проходит список до конца и не должен достаться теме с нулевым весом
+        List<Topic> five = topics(5);
+        Map<String, Integer> fiveCounts = Map.of("t0", 50, "t1", 50, "t2", 50, "t3", 50, "t4", 50);
+        double[] rounding = {0.41008081149220166, 0.0362353821503677, 0.9677559094241207, 0.15273620134152177, 0};
+        quota = MixSampler.allocate(five, fiveCounts, rounding, 10, ALMOST_ONE);
+        assertThat(quota[4]).isZero();
+        assertThat(IntStream.of(quota).sum()).isEqualTo(10);
+
+        // у остальных тем задания кончились — больше раздавать некому
+        quota = MixSampler.allocate(ts, Map.of("t0", 3, "t1", 4, "t2", 50), weights, 20, new SplittableRandom(5));
+        assertThat(quota).containsExactly(3, 4, 0);
+    }
+
+    @Test
+    void sampleTakesEverythingWhenThereAreFewerItems() {
+        List<Topic> ts = List.of(topic("a", "MNN I", 1, "は", "が"), topic("b", "MNN I", 2, "に", "で"),
+                topic("empty", "MNN I", 3, "を"));
+        Map<String, Integer> counts = Map.of("a", 3, "b", 2, "empty", 0);
+        Map<String, int[]> out = MixSampler.sample(ts, counts, MixSampler.Weighting.TOPICS, 100, new SplittableRandom(6));
+        assertThat(out.keySet()).containsExactly("a", "b");
+        assertThat(out.get("a")).containsExactly(0, 1, 2);
+        assertThat(out.get("b")).containsExactly(0, 1);
+
+        assertThat(MixSampler.sample(ts, counts, MixSampler.Weighting.ITEMS, 0, new SplittableRandom(6))).isEmpty();
+        assertThatThrownBy(() -> MixSampler.sample(ts, counts, MixSampler.Weighting.ITEMS, -1, new SplittableRandom(6)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void weightsShareParticlesAndLessons() {
+        List<Topic> ts = List.of(topic("a", "MNN I", 1, "に", "で"), topic("b", "MNN I", 1, "に", "へ"),
+                topic("c", "MNN I", 2, "は", "が"));
+        Map<String, Integer> counts = Map.of("a", 10, "b", 30, "c", 60);
+        assertThat(MixSampler.weights(ts, counts, MixSampler.Weighting.ITEMS)).containsExactly(10, 30, 60);
+        assertThat(MixSampler.weights(ts, counts, MixSampler.Weighting.TOPICS)).containsExactly(1, 1, 1);
+        // に делят a и b, остальные частицы — свои
+        assertThat(MixSampler.weights(ts, counts, MixSampler.Weighting.PARTICLES)).containsExactly(1.5, 1.5, 2);
+        // урок 1 делят a и b
+        assertThat(MixSampler.weights(ts, counts, MixSampler.Weighting.LESSONS)).containsExactly(0.5, 0.5, 1);
+        double[] w = MixSampler.weights(ts, counts, MixSampler.Weighting.LESSONS);
+        assertThat(Arrays.stream(w).sum()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,172 @@
+package com.shiyano.shinyaoJTD.core;
+
+import com.shiyano.shinyaoJTD.core.ReviewScheduler.Card;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewSchedulerTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+    private static final long DAY = 86_400_000L;
+
+    private final ReviewScheduler scheduler = new ReviewScheduler();
+    // модель: sid -> срок
+    private final Map<String, Long> model = new HashMap<>();
+
+    /** Куча против модели: размер, ближайший срок и число созревших на нескольких границах. */
+    private void assertMatchesModel() {
+        assertThat(scheduler.size()).isEqualTo(model.size());
+        long min = model.values().stream().mapToLong(Long::longValue).min().orElse(Long.MAX_VALUE);
+        assertThat(scheduler.nextDueMillis()).isEqualTo(min);
+        if (!model.isEmpty()) {
+            String top = scheduler.peekDue(min);
+            assertThat(top).isNotNull();
+            assertThat(model.get(top)).isEqualTo(min);
+            assertThat(scheduler.peekDue(min - 1)).isNull();
+        }
+        for (long until : new long[]{T0 - 1, T0, T0 + 30 * 60_000, T0 + DAY, T0 + 10 * DAY, Long.MAX_VALUE}) {
+            long expected = model.values().stream().filter(d -> d <= until).count();
+            assertThat(scheduler.dueCount(until)).as("dueCount(%d)", until).isEqualTo(expected);
+        }
+    }
+
+    /** Снимает карточки по одной: сроки должны идти по неубыванию и совпасть с моделью. */
+    private void assertDrainsInDueOrder() {
+        long last = Long.MIN_VALUE;
+        while (scheduler.size() > 0) {
+            String sid = scheduler.peekDue(Long.MAX_VALUE);
+            long due = scheduler.card(sid).dueMillis();
+            assertThat(due).isGreaterThanOrEqualTo(last).isEqualTo(model.remove(sid));
+            last = due;
+            assertThat(scheduler.remove(sid)).isTrue();
+        }
+        assertThat(model).isEmpty();
+        assertThat(scheduler.peekDue(Long.MAX_VALUE)).isNull();
+    }
+
+    @Test
+    void randomOperationsKeepTheHeapInDueOrder() {
+        Random rnd = new Random(42);
+        long now = T0;
+        for (int step = 0; step < 20_000; step++) {
+            String sid = "s" + rnd.nextInt(500);
+            now += rnd.nextInt(5_000);
+            switch (rnd.nextInt(4)) {
+                case 0 -> {
+                    boolean added = scheduler.add(sid, now);
+                    assertThat(added).isEqualTo(!model.containsKey(sid));
+                    model.putIfAbsent(sid, now);
+                }
+                case 1 -> {
+                    Card c = scheduler.grade(sid, rnd.nextInt(6), now);
+                    model.put(sid, c.dueMillis());
+                }
+                case 2 -> assertThat(scheduler.remove(sid)).isEqualTo(model.remove(sid) != null);
+                default -> {
+                    long due = T0 + rnd.nextLong(30 * DAY);
+                    scheduler.restore(new Card(sid, 2.0f, 3, 2, 0, due));
+                    model.put(sid, due);
+                }
+            }
+            if (step % 97 == 0) assertMatchesModel();
+        }
+        assertMatchesModel();
+        assertDrainsInDueOrder();
+    }
+
+    @Test
+    void removedSlotIsReused() {
+        // при равных сроках первым идёт меньший слот: новая карточка занимает слот удалённой
+        scheduler.add("a", T0);
+        scheduler.add("b", T0);
+        scheduler.add("c", T0);
+        assertThat(scheduler.remove("a")).isTrue();
+        assertThat(scheduler.contains("a")).isFalse();
+        assertThat(scheduler.card("a")).isNull();
+        scheduler.add("d", T0);
+        assertThat(scheduler.peekDue(T0)).isEqualTo("d");
+        scheduler.remove("d");
+        assertThat(scheduler.peekDue(T0)).isEqualTo("b");
+
+        // слот переиспользован, а состояние прежней карточки не унаследовано
+        scheduler.grade("b", 5, T0);
+        scheduler.remove("b");
+        scheduler.add("e", T0);
+        assertThat(scheduler.card("e")).isEqualTo(new Card("e", ReviewScheduler.START_EASE, 0, 0, 0, T0));
+        assertThat(scheduler.size()).isEqualTo(2);
+    }
+
+    @Test
+    void restoreAllBuildsAValidHeap() {
+        Random rnd = new Random(7);
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            long due = T0 + rnd.nextLong(60 * DAY) - 30 * DAY;
+            cards.add(new Card("s" + i, 2.5f, 1, 1, 0, due));
+            model.put("s" + i, due);
+        }
+        // дубликат заменяет прежнюю запись
+        cards.add(new Card("s0", 1.0f, 6, 2, 1, T0 - 40 * DAY));
+        model.put("s0", T0 - 40 * DAY);
+        scheduler.restoreAll(cards);
+
+        assertThat(scheduler.peekDue(T0)).isEqualTo("s0");
+        assertThat(scheduler.card("s0").ease()).isEqualTo(ReviewScheduler.MIN_EASE);
+        assertMatchesModel();
+
+        // куча после restoreAll продолжает работать с обычными операциями
+        model.put("s0", scheduler.grade("s0", 5, T0).dueMillis());
+        assertMatchesModel();
+        assertDrainsInDueOrder();
+    }
+
+    @Test
+    void restoreAllIntoANonEmptySchedulerAfterRemovals() {
+        for (int i = 0; i < 100; i++) {
+            scheduler.add("a" + i, T0 + i);
+            model.put("a" + i, T0 + i);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            scheduler.remove("a" + i);
+            model.remove("a" + i);
+        }
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long due = T0 + 1_000 - i;
+            cards.add(new Card("b" + i, 2.5f, 0, 0, 0, due));
+            model.put("b" + i, due);
+        }
+        scheduler.restoreAll(cards);
+        // a0 удалена, a1 (T0 + 1) раньше самой ранней из восстановленных (b199, T0 + 801)
+        assertThat(scheduler.peekDue(Long.MAX_VALUE)).isEqualTo("a1");
+        assertThat(scheduler.peekDue(T0)).isNull();
+        assertMatchesModel();
+        assertDrainsInDueOrder();
+    }
+
+    @Test
+    void dueCountOnAnEmptyScheduler() {
+        assertThat(scheduler.dueCount(Long.MAX_VALUE)).isZero();
+        assertThat(scheduler.peekDue(Long.MAX_VALUE)).isNull();
+        assertThat(scheduler.nextDueMillis()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void gradeFollowsSm2Intervals() {
+        assertThat(scheduler.grade("a", 5, T0).dueMillis()).isEqualTo(T0 + DAY);
+        assertThat(scheduler.grade("a", 5, T0).dueMillis()).isEqualTo(T0 + 6 * DAY);
+        Card third = scheduler.grade("a", 5, T0);
+        assertThat(third.intervalDays()).isGreaterThan(6);
+        Card lapse = scheduler.grade("a", 1, T0);
+        assertThat(lapse.repetitions()).isZero();
+        assertThat(lapse.lapses()).isEqualTo(1);
+        assertThat(lapse.dueMillis()).isEqualTo(T0 + ReviewScheduler.RELEARN_MILLIS);
+    }
+}
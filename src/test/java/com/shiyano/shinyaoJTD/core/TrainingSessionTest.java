@@ -0,0 +1,179 @@
+package com.shiyano.shinyaoJTD.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.shiyano.shinyaoJTD.core.TrainingSession.State.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrainingSessionTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+    // варианты: 0 — に (верный), 1 — で
+    private static final int RIGHT = 0;
+    private static final int WRONG = 1;
+
+    private final ReviewScheduler scheduler = new ReviewScheduler();
+    private final List<Answer> journal = new ArrayList<>();
+
+    private static Item item(String sid) {
+        return new Item(sid, "学校＿行きます。", null, List.of("に", "で"), "に",
+                "направление", Map.of("で", "место действия"));
+    }
+
+    private static List<Item> items(String... sids) {
+        List<Item> out = new ArrayList<>();
+        for (String sid : sids) out.add(item(sid));
+        return out;
+    }
+
+    @Test
+    void questionAnsweredNext() {
+        TrainingSession s = TrainingSession.ofItems(items("a", "b"), false, scheduler, journal::add, T0);
+        assertThat(s.state()).isEqualTo(QUESTION);
+        assertThat(s.current().sid()).isEqualTo("a");
+        assertThat(s.remaining()).isEqualTo(2);
+
+        TrainingSession.Feedback f = s.answer(WRONG, T0 + 2_000);
+        assertThat(s.state()).isEqualTo(ANSWERED);
+        assertThat(f.correct()).isFalse();
+        assertThat(f.chosen()).isEqualTo("で");
+        assertThat(f.explanation()).isEqualTo("место действия");
+        assertThat(f.latencyMillis()).isEqualTo(2_000);
+        assertThat(f.isCorrect(RIGHT)).isTrue();
+        assertThat(journal).singleElement().satisfies(a -> {
+            assertThat(a.sid()).isEqualTo("a");
+            assertThat(a.correct()).isFalse();
+        });
+        assertThat(scheduler.card("a").lapses()).isEqualTo(1);
+        // разбор показывает тот же вопрос
+        assertThat(s.current().sid()).isEqualTo("a");
+
+        assertThat(s.next(T0 + 3_000)).isEqualTo(QUESTION);
+        assertThat(s.current().sid()).isEqualTo("b");
+        assertThat(s.isLast()).isTrue();
+
+        TrainingSession.Feedback g = s.answer(RIGHT, T0 + 4_000);
+        assertThat(g.correct()).isTrue();
+        assertThat(g.explanation()).isEqualTo("направление");
+        assertThat(g.latencyMillis()).isEqualTo(1_000); // от показа вопроса, а не от начала сессии
+        assertThat(s.answeredCount()).isEqualTo(2);
+        assertThat(s.correctCount()).isEqualTo(1);
+    }
+
+    @Test
+    void finishesAfterTheLastQuestion() {
+        TrainingSession s = TrainingSession.ofItems(items("a"), false, scheduler, null, T0);
+        s.answer(RIGHT, T0);
+        assertThat(s.next(T0)).isEqualTo(FINISHED);
+        assertThat(s.state()).isEqualTo(FINISHED);
+    }
+
+    @Test
+    void waitsForTheNextPageWhileLoading() {
+        TrainingSession s = TrainingSession.ofItems(List.of(item("a")), true, scheduler, null, T0);
+        assertThat(s.isLast()).isFalse();
+        s.answer(RIGHT, T0);
+        assertThat(s.next(T0)).isEqualTo(WAITING);
+
+        // пустая страница ничего не меняет
+        assertThat(s.append(List.of(), T0)).isFalse();
+        assertThat(s.state()).isEqualTo(WAITING);
+
+        assertThat(s.append(items("b", "c"), T0 + 500)).isTrue();
+        assertThat(s.state()).isEqualTo(QUESTION);
+        assertThat(s.current().sid()).isEqualTo("b");
+
+        // страница, пришедшая без ожидания, просто дописывается
+        assertThat(s.append(items("d"), T0 + 600)).isFalse();
+        assertThat(s.remaining()).isEqualTo(3);
+        assertThat(s.loaded()).isEqualTo(QUESTION);
+        assertThat(s.isLoading()).isFalse();
+    }
+
+    @Test
+    void loadingThatEndsWhileWaitingFinishes() {
+        TrainingSession s = TrainingSession.ofItems(List.of(item("a")), true, scheduler, null, T0);
+        s.answer(RIGHT, T0);
+        s.next(T0);
+        assertThat(s.loaded()).isEqualTo(FINISHED);
+    }
+
+    @Test
+    void rejectsActionsInTheWrongState() {
+        TrainingSession s = TrainingSession.ofItems(items("a"), false, scheduler, null, T0);
+        assertThatThrownBy(() -> s.next(T0)).isInstanceOf(IllegalStateException.class);
+
+        s.answer(RIGHT, T0);
+        assertThatThrownBy(() -> s.answer(RIGHT, T0)).isInstanceOf(IllegalStateException.class);
+
+        s.next(T0);
+        assertThatThrownBy(() -> s.answer(RIGHT, T0)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> s.next(T0)).isInstanceOf(IllegalStateException.class);
+        assertThat(s.answeredCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAnEmptyList() {
+        assertThatThrownBy(() -> TrainingSession.ofItems(List.of(), false, scheduler, null, T0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void replaceItemsKeepsTheCurrentQuestionBySid() {
+        TrainingSession s = TrainingSession.ofItems(items("a", "b", "c"), false, scheduler, null, T0);
+        s.answer(RIGHT, T0);
+        s.next(T0);
+        s.replaceItems(items("x", "b", "c"), T0);
+        assertThat(s.current().sid()).isEqualTo("b");
+        assertThat(s.index()).isEqualTo(1);
+    }
+
+    @Test
+    void reviewSessionIsNullWhenNothingIsDue() {
+        scheduler.add("a", T0 + ReviewScheduler.LEARN_AHEAD_MILLIS + 1);
+        assertThat(TrainingSession.dueReviews(Map.of("a", item("a")), scheduler, null, T0)).isNull();
+    }
+
+    @Test
+    void reviewForgetsCardsMissingFromContent() {
+        scheduler.add("gone", T0);
+        scheduler.add("a", T0 + 1);
+        TrainingSession s = TrainingSession.dueReviews(Map.of("a", item("a")), scheduler, null, T0);
+        assertThat(s).isNotNull();
+        assertThat(s.isReview()).isTrue();
+        assertThat(s.current().sid()).isEqualTo("a");
+        assertThat(scheduler.contains("gone")).isFalse();
+    }
+
+    @Test
+    void reviewKeepsOnlyTheCurrentQuestion() {
+        scheduler.add("a", T0);
+        scheduler.add("b", T0);
+        Map<String, Item> pool = Map.of("a", item("a"), "b", item("b"));
+        TrainingSession s = TrainingSession.dueReviews(pool, scheduler, null, T0);
+
+        // ошибки возвращают карточки через минуту — в пределах упреждения, так что сессия не кончается
+        long now = T0;
+        for (int i = 0; i < 10_000; i++) {
+            s.answer(WRONG, now);
+            now += 1_000;
+            assertThat(s.next(now)).isEqualTo(QUESTION);
+            assertThat(s.isLast()).isFalse();
+        }
+        assertThat(s.items()).hasSize(1);
+        assertThat(s.remaining()).isEqualTo(1);
+
+        // верные ответы откладывают обе карточки на день — повторять больше нечего
+        s.answer(RIGHT, now);
+        assertThat(s.next(now)).isEqualTo(QUESTION);
+        s.answer(RIGHT, now);
+        assertThat(s.next(now)).isEqualTo(FINISHED);
+        assertThat(s.answeredCount()).isEqualTo(10_002);
+        assertThat(s.correctCount()).isEqualTo(2);
+    }
+}
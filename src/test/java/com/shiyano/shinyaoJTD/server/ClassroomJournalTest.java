@@ -0,0 +1,118 @@
+package com.shiyano.shinyaoJTD.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shiyano.shinyaoJTD.core.Answer;
+import com.shiyano.shinyaoJTD.store.ContentStore;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassroomJournalTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static ContentSnapshot content;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void loadContent() throws IOException {
+        try (ContentStore store = new ContentStore(Path.of("content"))) {
+            content = ContentSnapshot.load(store, MAPPER);
+        }
+    }
+
+    private static ClassroomJournal.Entry entry(String student, ContentSnapshot.Entry e, boolean correct) {
+        String chosen = e.item().options().stream().filter(o -> e.correct().contains(o) == correct).findFirst().orElseThrow();
+        return new ClassroomJournal.Entry(student, new Answer(e.item().sid(), chosen, correct, 1500, 1_700_000_000_000L));
+    }
+
+    @Test
+    void replaysEntriesWithStudentNamesInOrder() throws IOException {
+        ContentSnapshot.Entry item = content.entries().get(0);
+        try (ClassroomJournal journal = ClassroomJournal.open(dir)) {
+            journal.append(entry("Аня", item, true));
+            journal.append(entry("Борис", item, false));
+        }
+        try (ClassroomJournal journal = ClassroomJournal.open(dir)) {
+            List<ClassroomJournal.Entry> read = new ArrayList<>();
+            journal.replay(read::add);
+            assertThat(journal.restored()).isEqualTo(2);
+            assertThat(read).extracting(ClassroomJournal.Entry::student).containsExactly("Аня", "Борис");
+            assertThat(read).extracting(e -> e.answer().correct()).containsExactly(true, false);
+        }
+    }
+
+    @Test
+    void dropsATornTail() throws IOException {
+        ContentSnapshot.Entry item = content.entries().get(0);
+        try (ClassroomJournal journal = ClassroomJournal.open(dir)) {
+            for (int i = 0; i < 3; i++) journal.append(entry("s" + i, item, true));
+        }
+        Path file = dir.resolve(ClassroomJournal.FILE_NAME);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(Files.size(file) - 2);
+        }
+        try (ClassroomJournal journal = ClassroomJournal.open(dir)) {
+            assertThat(journal.restored()).isEqualTo(2);
+            assertThat(journal.truncatedBytes()).isPositive();
+            journal.append(entry("s9", item, false));
+        }
+        try (ClassroomJournal journal = ClassroomJournal.open(dir)) {
+            List<String> students = new ArrayList<>();
+            journal.replay(e -> students.add(e.student()));
+            assertThat(students).containsExactly("s0", "s1", "s9");
+        }
+    }
+
+    @Test
+    void serverResultsSurviveARestart() throws Exception {
+        ClassroomJournal journal = ClassroomJournal.open(dir);
+        ClassroomServer server = ClassroomServer.start(content, MAPPER,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), journal::append);
+        HttpClient client = HttpClient.newHttpClient();
+        URI answer = URI.create("http://127.0.0.1:" + server.port() + "/api/answer");
+        ContentSnapshot.Entry item = content.entries().get(0);
+        String[] students = {"Аня", "Аня", "Аня", "Борис"};
+        boolean[] correct = {true, true, false, true};
+        for (int i = 0; i < students.length; i++) {
+            Answer a = entry(students[i], item, correct[i]).answer();
+            var body = MAPPER.createObjectNode().put("student", students[i]).put("sid", a.sid())
+                    .put("chosen", a.chosen()).put("latencyMillis", 900);
+            HttpResponse<String> r = client.send(HttpRequest.newBuilder(answer)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(r.statusCode()).isEqualTo(200);
+        }
+        JsonNode before = server.results().report(MAPPER);
+        // порядок как в хуке завершения: сначала запросы, потом журнал
+        server.close();
+        journal.close();
+
+        ClassroomResults restored = new ClassroomResults(content, null);
+        try (ClassroomJournal reopened = ClassroomJournal.open(dir)) {
+            reopened.replay(e -> assertThat(restored.restore(e)).isTrue());
+        }
+        JsonNode after = restored.report(MAPPER);
+        assertThat(after.path("students")).isEqualTo(before.path("students"));
+        assertThat(after.path("answers").asLong()).isEqualTo(4);
+        assertThat(after.path("correct").asLong()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,125 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.Answer;
+import com.shiyano.shinyaoJTD.core.AnswerTotals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnswerLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static Answer answer(String sid, boolean correct) {
+        return new Answer(sid, correct ? "に" : "で", correct, 1200, 1_700_000_000_000L);
+    }
+
+    /** Записывает ответы и «роняет» процесс: копирует файлы, пока журнал ещё открыт, без снимка при закрытии. */
+    private Path crashAfter(int answers) throws IOException {
+        Path live = dir.resolve("live");
+        AnswerLog log = AnswerLog.open(live);
+        for (int i = 0; i < answers; i++) log.append(answer("s" + (i % 3), i % 2 == 0));
+        log.flush().join();
+        Path crashed = Files.createDirectories(dir.resolve("crashed"));
+        for (String name : new String[]{AnswerLog.LOG_FILE, AnswerLog.SNAPSHOT_FILE}) {
+            if (Files.exists(live.resolve(name))) Files.copy(live.resolve(name), crashed.resolve(name));
+        }
+        log.close();
+        return crashed;
+    }
+
+    @Test
+    void replaysTheLogAfterACrash() throws IOException {
+        Path crashed = crashAfter(10);
+
+        try (AnswerLog log = AnswerLog.open(crashed)) {
+            assertThat(log.stats().replayed()).isEqualTo(10);
+            assertThat(log.stats().truncatedBytes()).isZero();
+            AnswerTotals totals = log.totals();
+            assertThat(totals.answers()).isEqualTo(10);
+            assertThat(totals.get("s0").attempts()).isEqualTo(4);
+            assertThat(totals.get("s0").correct()).isEqualTo(2); // ответы 0, 3, 6, 9: верны 0 и 6
+        }
+    }
+
+    @Test
+    void dropsATornTailAndKeepsEverythingBeforeIt() throws IOException {
+        Path crashed = crashAfter(5);
+        Path logFile = crashed.resolve(AnswerLog.LOG_FILE);
+        long full = Files.size(logFile);
+        try (FileChannel ch = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            ch.truncate(full - 3); // оборвались посреди последней записи
+        }
+
+        try (AnswerLog log = AnswerLog.open(crashed)) {
+            assertThat(log.stats().replayed()).isEqualTo(4);
+            assertThat(log.stats().truncatedBytes()).isPositive();
+            assertThat(log.totals().answers()).isEqualTo(4);
+
+            // новые записи встают за отрезанным хвостом и читаются
+            log.append(answer("s9", true));
+        }
+        try (AnswerLog log = AnswerLog.open(crashed)) {
+            assertThat(log.totals().answers()).isEqualTo(5);
+            assertThat(log.totals().get("s9").correct()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void closeCompactsTheLogIntoASnapshot() throws IOException {
+        try (AnswerLog log = AnswerLog.open(dir)) {
+            for (int i = 0; i < 100; i++) log.append(answer("s" + (i % 7), true));
+        }
+        assertThat(Files.isRegularFile(dir.resolve(AnswerLog.SNAPSHOT_FILE))).isTrue();
+
+        try (AnswerLog log = AnswerLog.open(dir)) {
+            assertThat(log.stats().replayed()).isZero();
+            assertThat(log.totals().answers()).isEqualTo(100);
+            assertThat(log.totals().bySid()).hasSize(7);
+        }
+    }
+
+    @Test
+    void recordsAlreadyInTheSnapshotAreNotCountedTwice() throws IOException {
+        // упали между снимком и обрезкой журнала: свежий снимок и старый, необрезанный журнал
+        Path crashed = crashAfter(6);
+        Files.copy(dir.resolve("live").resolve(AnswerLog.SNAPSHOT_FILE), crashed.resolve(AnswerLog.SNAPSHOT_FILE));
+
+        try (AnswerLog log = AnswerLog.open(crashed)) {
+            assertThat(log.stats().replayed()).isZero();
+            assertThat(log.totals().answers()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    void rejectsStringsThatDoNotFitARecord() throws IOException {
+        try (AnswerLog log = AnswerLog.open(dir)) {
+            String huge = "あ".repeat(AnswerLog.MAX_STRING_BYTES); // 3 байта UTF-8 на символ
+            assertThatThrownBy(() -> log.append(new Answer(huge, "に", true, 0, 0)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> log.append(new Answer("s1", huge, true, 0, 0)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            log.append(answer("s1", true));
+        }
+        try (AnswerLog log = AnswerLog.open(dir)) {
+            assertThat(log.totals().answers()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void appendAfterCloseFails() throws IOException {
+        AnswerLog log = AnswerLog.open(dir);
+        log.close();
+        assertThatThrownBy(() -> log.append(answer("s1", true))).isInstanceOf(IllegalStateException.class);
+        assertThat(log.flush()).isDone();
+    }
+}
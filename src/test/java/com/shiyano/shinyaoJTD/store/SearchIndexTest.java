@@ -0,0 +1,74 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.atilika.kuromoji.ipadic.Token;
+import com.atilika.kuromoji.ipadic.Tokenizer;
+import com.shiyano.shinyaoJTD.core.Topic;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+    private static Tokenizer kuromoji;
+
+    @TempDir
+    Path data;
+
+    @BeforeAll
+    static void loadDictionary() {
+        kuromoji = new Tokenizer();
+    }
+
+    /** Как FuriganaService.words: написание, словарная форма, чтение. */
+    private static List<String> words(String jp) {
+        List<String> out = new ArrayList<>();
+        for (Token t : kuromoji.tokenize(jp)) {
+            out.add(t.getSurface());
+            if (!"*".equals(t.getBaseForm())) out.add(t.getBaseForm());
+        }
+        return out;
+    }
+
+    @Test
+    void findsDictionaryFormWhenTopicHasReadingsSidecar() throws IOException {
+        try (ContentStore store = new ContentStore(Path.of("content"))) {
+            List<Topic> topics = store.loadTopics();
+            assertThat(store.loadReadingsFor("ni-vs-de")).isNotEmpty();
+
+            SearchIndex index = SearchIndex.open(data.resolve(SearchIndex.FILE_NAME));
+            index.update(store, topics, SearchIndexTest::words);
+
+            SearchIndex.Result result = index.search("~書く", 100);
+            assertThat(result.hits()).extracting(SearchIndex.Hit::jp).anyMatch(jp -> jp.contains("書いて"));
+            // написание токена из предрасчёта по-прежнему находится
+            assertThat(index.search("~書い", 100).total()).isEqualTo(result.total());
+        }
+    }
+
+    @Test
+    void segmentsBuiltWithoutTokenizerAreRebuiltOnceItIsAvailable() throws IOException {
+        try (ContentStore store = new ContentStore(Path.of("content"))) {
+            List<Topic> topics = store.loadTopics();
+            SearchIndex index = SearchIndex.open(data.resolve(SearchIndex.FILE_NAME));
+
+            index.update(store, topics, null);
+            assertThat(index.search("~書く", 100).total()).isZero();
+
+            SearchIndex.UpdateStats stats = index.update(store, topics, SearchIndexTest::words);
+            assertThat(stats.rebuilt()).isEqualTo(topics.size());
+            assertThat(index.search("~書く", 100).total()).isPositive();
+
+            // без правок контента повторное обновление ничего не пересобирает
+            assertThat(index.update(store, topics, SearchIndexTest::words).rebuilt()).isZero();
+            assertThat(Files.isRegularFile(data.resolve(SearchIndex.FILE_NAME))).isTrue();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.LearnerStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatsStoreTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    private static void answer(LearnerStats stats, int i) {
+        boolean ok = i % 3 != 0;
+        stats.record("s" + (i % 5), "N5-01", "に", ok ? "に" : "で", ok, 800 + i, T0 + i);
+    }
+
+    @Test
+    void roundTrip() {
+        Path file = dir.resolve(StatsStore.FILE_NAME);
+        StatsStore store = StatsStore.open(file);
+        for (int i = 0; i < 30; i++) answer(store.stats(), i);
+        store.save();
+
+        LearnerStats read = StatsStore.open(file).stats();
+        LearnerStats saved = store.stats();
+        assertThat(read.answers()).isEqualTo(30);
+        assertThat(read.overall().totals()).isEqualTo(saved.overall().totals());
+        assertThat(read.itemSids()).containsExactlyElementsOf(saved.itemSids());
+        assertThat(read.confusion("に", "で")).isEqualTo(10);
+    }
+
+    @Test
+    void finalSaveIsNotOverwrittenByAnEarlierBackgroundSave() {
+        Path file = dir.resolve(StatsStore.FILE_NAME);
+        StatsStore store = StatsStore.open(file);
+        int answers = 0;
+        for (int round = 0; round < 50; round++) {
+            // фоновые снимки ещё в очереди, когда идёт финальное сохранение
+            for (int i = 0; i < 5; i++) {
+                answer(store.stats(), answers++);
+                store.saveAsync();
+            }
+            answer(store.stats(), answers++);
+            store.save();
+            assertThat(StatsStore.open(file).stats().answers()).isEqualTo(answers);
+        }
+    }
+
+    @Test
+    void unreadableFileStartsFresh() throws Exception {
+        Path file = dir.resolve(StatsStore.FILE_NAME);
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThat(StatsStore.open(file).stats().answers()).isZero();
+    }
+}
@@ -0,0 +1,74 @@
+package com.shiyano.shinyaoJTD.store;
+
+import com.shiyano.shinyaoJTD.core.Topic;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopicSummariesTest {
+
+    private static final FileTime LONG_AGO = FileTime.fromMillis(1_000_000_000_000L);
+
+    @TempDir
+    Path dir;
+
+    private Path content;
+    private Path summaries;
+
+    /** Копия content/ и тема с битым items-файлом. */
+    private void prepare() throws IOException {
+        content = Files.createDirectories(dir.resolve("content"));
+        summaries = dir.resolve(TopicSummaries.FILE_NAME);
+        try (Stream<Path> files = Files.list(Path.of("content"))) {
+            for (Path f : files.filter(Files::isRegularFile).toList()) {
+                Files.copy(f, content.resolve(f.getFileName()));
+            }
+        }
+        Files.writeString(content.resolve("items-broken.json"), "[{\"sid\": ");
+    }
+
+    /** Один «запуск»: новый ContentStore читает сводку с диска и обновляет её. */
+    private List<TopicSummaries.Summary> launch() throws IOException {
+        try (ContentStore store = new ContentStore(content)) {
+            store.persistSummaries(summaries);
+            List<Topic> topics = new ArrayList<>(store.loadTopics());
+            topics.add(new Topic("broken", "Битая тема", List.of("に"), new Topic.Lesson("MNN I", 1)));
+            return store.loadSummariesAsync(topics).join();
+        }
+    }
+
+    @Test
+    void unchangedContentIsNotRewritten() throws IOException {
+        prepare();
+        List<TopicSummaries.Summary> first = launch();
+        assertThat(first).hasSize(3);
+        assertThat(first.get(2).counted()).isFalse();
+        assertThat(first.subList(0, 2)).allMatch(TopicSummaries.Summary::counted);
+
+        Files.setLastModifiedTime(summaries, LONG_AGO);
+        assertThat(launch()).isEqualTo(first);
+        assertThat(Files.getLastModifiedTime(summaries)).isEqualTo(LONG_AGO);
+    }
+
+    @Test
+    void changedItemsFileIsRecountedAndSaved() throws IOException {
+        prepare();
+        launch();
+        Files.setLastModifiedTime(summaries, LONG_AGO);
+
+        Files.writeString(content.resolve("items-broken.json"), "[]");
+        List<TopicSummaries.Summary> next = launch();
+        assertThat(next.get(2).counted()).isTrue();
+        assertThat(next.get(2).items()).isZero();
+        assertThat(Files.getLastModifiedTime(summaries)).isNotEqualTo(LONG_AGO);
+    }
+}